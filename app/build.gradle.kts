@@ -33,9 +33,16 @@ android {
     buildFeatures {
         viewBinding = true
     }
+    testOptions {
+        unitTests {
+            // Robolectric scale tests inflate the real layouts and theme
+            isIncludeAndroidResources = true
+        }
+    }
 }
 
 dependencies {
+    implementation(project(":catalog"))
     implementation(libs.appcompat)
     implementation(libs.material)
     implementation(libs.constraintlayout)
@@ -48,6 +55,8 @@ dependencies {
     // implementation("androidx.fragment:fragment:1.6.2")
 
     testImplementation(libs.junit)
+    testImplementation(libs.robolectric)
+    testImplementation(testFixtures(project(":catalog")))
     androidTestImplementation(libs.ext.junit)
     androidTestImplementation(libs.espresso.core)
 }
\ No newline at end of file
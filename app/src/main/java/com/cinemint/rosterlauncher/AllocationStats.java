@@ -0,0 +1,163 @@
+// AllocationStats.java
+
+package com.cinemint.rosterlauncher;
+
+import android.os.Debug;
+import android.util.Log;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Debug allocation counters for the refresh path and catalog mutations: bytes
+ * allocated on the calling thread per section, and per item the section handled.
+ * Off (and free) unless enabled with: adb shell setprop log.tag.AllocationStats DEBUG
+ */
+public final class AllocationStats {
+    private static final String TAG = "AllocationStats";
+
+    // Section names
+    public static final String UI_REFRESH = "ui.refresh";
+    public static final String UI_REBIND = "ui.rebind";
+    public static final String UI_SEARCH = "ui.search";
+    public static final String CATALOG_PUBLISH = "catalog.publish";
+    public static final String CATALOG_PIN = "catalog.pin";
+    public static final String CATALOG_REMOVE = "catalog.remove";
+
+    /**
+     * Bytes allocated so far by the calling thread
+     */
+    interface Counter {
+        long allocatedBytes();
+    }
+
+    private static final Map<String, SectionStats> sections = new TreeMap<>();
+    private static volatile Counter counter;
+    private static volatile boolean resolved = false;
+
+    private AllocationStats() {
+    }
+
+    /**
+     * Start measuring on this thread; returns -1 when counting is off
+     */
+    public static long begin() {
+        Counter c = resolveCounter();
+        return c != null ? c.allocatedBytes() : -1;
+    }
+
+    /**
+     * Record the bytes allocated since {@link #begin} for a section that handled {@code items} apps or rows
+     */
+    public static void end(String section, long startBytes, int items) {
+        Counter c = counter;
+        if (startBytes < 0 || c == null) return;
+
+        long bytes = c.allocatedBytes() - startBytes;
+        synchronized (sections) {
+            SectionStats stats = sections.get(section);
+            if (stats == null) {
+                stats = new SectionStats();
+                sections.put(section, stats);
+            }
+            stats.add(bytes, items);
+        }
+    }
+
+    /**
+     * Get a snapshot of every section, ordered by name
+     */
+    public static List<Stats> getStats() {
+        List<Stats> result = new ArrayList<>();
+        synchronized (sections) {
+            for (Map.Entry<String, SectionStats> entry : sections.entrySet()) {
+                SectionStats s = entry.getValue();
+                result.add(new Stats(entry.getKey(), s.count, s.totalBytes, s.totalItems, s.lastBytes, s.lastItems));
+            }
+        }
+        return result;
+    }
+
+    public static void reset() {
+        synchronized (sections) {
+            sections.clear();
+        }
+    }
+
+    /**
+     * Use a specific counter, e.g. ThreadMXBean in JVM tests; null turns counting off
+     */
+    static void setCounter(Counter c) {
+        counter = c;
+        resolved = true;
+    }
+
+    @SuppressWarnings("deprecation")
+    private static Counter resolveCounter() {
+        if (!resolved) {
+            synchronized (AllocationStats.class) {
+                if (!resolved) {
+                    if (Log.isLoggable(TAG, Log.DEBUG)) {
+                        // Thread allocation counting is deprecated but still works on ART debug builds
+                        Debug.startAllocCounting();
+                        counter = Debug::getThreadAllocSize;
+                    }
+                    resolved = true;
+                }
+            }
+        }
+        return counter;
+    }
+
+    /**
+     * Immutable view of one section's allocations
+     */
+    public static final class Stats {
+        public final String section;
+        public final long count;
+        public final long totalBytes;
+        public final long totalItems;
+        public final long lastBytes;
+        public final int lastItems;
+
+        Stats(String section, long count, long totalBytes, long totalItems, long lastBytes, int lastItems) {
+            this.section = section;
+            this.count = count;
+            this.totalBytes = totalBytes;
+            this.totalItems = totalItems;
+            this.lastBytes = lastBytes;
+            this.lastItems = lastItems;
+        }
+
+        /**
+         * Average bytes per item over every sample
+         */
+        public long bytesPerItem() {
+            return totalItems > 0 ? totalBytes / totalItems : totalBytes;
+        }
+
+        @Override
+        public String toString() {
+            return section + " count=" + count + " total=" + totalBytes + "B perItem=" + bytesPerItem()
+                    + "B last=" + lastBytes + "B lastItems=" + lastItems;
+        }
+    }
+
+    private static final class SectionStats {
+        long count;
+        long totalBytes;
+        long totalItems;
+        long lastBytes;
+        int lastItems;
+
+        void add(long bytes, int items) {
+            count++;
+            totalBytes += bytes;
+            totalItems += items;
+            lastBytes = bytes;
+            lastItems = items;
+        }
+    }
+}
@@ -0,0 +1,101 @@
+// AnimationGovernor.java
+
+package com.cinemint.rosterlauncher;
+
+import android.content.Context;
+import android.provider.Settings;
+
+/**
+ * Chooses how much of the pinned-tab entrance animation to run, based on the
+ * performance profile and the jank measured while the animation last ran.
+ * Rows that appear without animation produce no frames to measure, so after a
+ * run of suppressed animations the LITE effect is tried again as a probe.
+ */
+public final class AnimationGovernor {
+
+    public enum Effect {
+        // Staggered translate + fade + rotate per row
+        FULL,
+        // Staggered fade only, on a hardware layer
+        LITE,
+        // Rows appear immediately
+        NONE
+    }
+
+    // Minimum new frames before the measured jank is trusted
+    static final int MIN_SAMPLE_FRAMES = 20;
+    static final double LITE_JANK_PERCENT = 15;
+    static final double NONE_JANK_PERCENT = 40;
+    // Entrance animations suppressed by measured jank before LITE is probed
+    static final int PROBE_AFTER_SUPPRESSED = 5;
+
+    private final Effect deviceCap;
+    private final boolean animationsDisabled;
+
+    // Frame counters at the last evaluation, so each decision only looks at recent frames
+    private long seenFrames = 0;
+    private long seenJankyFrames = 0;
+    private Effect measured = Effect.FULL;
+    // Animations suppressed since the last measurement
+    private int suppressed = 0;
+
+    public AnimationGovernor(Context context) {
+        this(PerformanceProfile.get(context).animationCap, isAnimatorScaleZero(context));
+    }
+
+    AnimationGovernor(Effect deviceCap, boolean animationsDisabled) {
+        this.deviceCap = deviceCap;
+        this.animationsDisabled = animationsDisabled;
+    }
+
+    /**
+     * Pick the effect for the next entrance animation
+     */
+    public Effect chooseEffect() {
+        return chooseEffect(FrameMetricsMonitor.getInstance()
+                .getStats(FrameMetricsMonitor.Interaction.PINNED_ANIMATION));
+    }
+
+    Effect chooseEffect(FrameStats.Snapshot stats) {
+        if (animationsDisabled) {
+            return Effect.NONE;
+        }
+
+        long newFrames = stats.totalFrames - seenFrames;
+        if (newFrames >= MIN_SAMPLE_FRAMES) {
+            long newJanky = stats.jankyFrames - seenJankyFrames;
+            measured = effectForJank(newJanky * 100.0 / newFrames);
+            seenFrames = stats.totalFrames;
+            seenJankyFrames = stats.jankyFrames;
+            suppressed = 0;
+        } else if (newFrames < 0) {
+            // Stats were reset
+            seenFrames = 0;
+            seenJankyFrames = 0;
+        }
+
+        Effect effect = measured;
+        if (measured == Effect.NONE && ++suppressed > PROBE_AFTER_SUPPRESSED) {
+            // Probe until enough frames are measured, so a passing spike can recover
+            effect = Effect.LITE;
+        }
+
+        // The more conservative of the device cap and the measured effect wins
+        return effect.ordinal() > deviceCap.ordinal() ? effect : deviceCap;
+    }
+
+    static Effect effectForJank(double jankPercent) {
+        if (jankPercent >= NONE_JANK_PERCENT) return Effect.NONE;
+        if (jankPercent >= LITE_JANK_PERCENT) return Effect.LITE;
+        return Effect.FULL;
+    }
+
+    private static boolean isAnimatorScaleZero(Context context) {
+        try {
+            return Settings.Global.getFloat(context.getContentResolver(),
+                    Settings.Global.ANIMATOR_DURATION_SCALE, 1f) == 0f;
+        } catch (Exception e) {
+            return false;
+        }
+    }
+}
@@ -6,20 +6,28 @@ import android.animation.Animator;
 import android.animation.AnimatorListenerAdapter;
 import android.animation.AnimatorSet;
 import android.animation.ObjectAnimator;
+import android.annotation.SuppressLint;
+import android.app.ActivityOptions;
+import android.content.ActivityNotFoundException;
 import android.content.Context;
 import android.content.Intent;
-import android.content.pm.PackageManager;
+import android.content.pm.ShortcutInfo;
 import android.graphics.Color;
+import android.graphics.Rect;
 import android.graphics.Typeface;
+import android.graphics.drawable.Drawable;
+import android.os.Build;
 import android.os.Bundle;
 import android.os.Handler;
 import android.os.Looper;
 import android.util.TypedValue;
 import android.view.Gravity;
 import android.view.LayoutInflater;
+import android.view.MotionEvent;
 import android.view.View;
 import android.view.ViewGroup;
 import android.view.animation.DecelerateInterpolator;
+import android.widget.ArrayAdapter;
 import android.widget.FrameLayout;
 import android.widget.GridLayout;
 import android.widget.ImageView;
@@ -34,29 +42,40 @@ import android.view.inputmethod.InputMethodManager;
 
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
+import androidx.annotation.RequiresApi;
 import androidx.appcompat.app.AlertDialog;
 import androidx.core.content.ContextCompat;
 import androidx.fragment.app.Fragment;
 import androidx.lifecycle.ViewModelProvider;
 
+import com.cinemint.rosterlauncher.catalog.AppRecord;
+import com.cinemint.rosterlauncher.catalog.CatalogOps;
+import com.cinemint.rosterlauncher.catalog.CompactCatalog;
+
 import java.lang.ref.WeakReference;
 import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.TreeMap;
+import java.util.Set;
 import java.util.concurrent.CopyOnWriteArrayList;
 
 public class AppsFragment extends Fragment {
     private static final String ARG_SHOW_PINNED = "show_pinned";
     private static final int ANIMATION_DURATION = 350;
     private static final int STAGGER_DELAY = 50;
+    private static final int LITE_ANIMATION_DURATION = 200;
+    private static final int LITE_STAGGER_DELAY = 25;
 
     private boolean showPinned;
     private LinearLayout appsContainer;
     private ScrollView scrollView;
     private FrameLayout rootLayout;
     private LauncherViewModel viewModel;
+    private AnimationGovernor animationGovernor;
     private Handler animationHandler;
     private Handler refreshHandler;
 
@@ -69,14 +88,76 @@ public class AppsFragment extends Fragment {
     private final CopyOnWriteArrayList<AnimatorSet> runningAnimations = new CopyOnWriteArrayList<>();
     private volatile boolean isAnimating = false;
 
+    // Section heading the All tab, Frequent or the best search matches: its views, header included, title and keys
+    private static final String FREQUENT_SECTION = "Frequent";
+    private static final String BEST_MATCHES_SECTION = "Best Matches";
+    private int topViewCount = 0;
+    private String builtTopTitle;
+    private List<String> builtTopKeys = Collections.emptyList();
+    // Index results for the query they answer, reused when the rows are rebuilt for that query:
+    // the matched ids of the catalog version they address and, with many matches, the best few
+    private String matchedQuery;
+    private CompactCatalog matchedCompact;
+    private BitSet matchedIds = new BitSet();
+    private final List<MainActivity.AppInfo> bestMatches = new ArrayList<>(UsageStore.FREQUENT_ROWS);
+    // Keys of the matches, only built for rows from another catalog version than the results
+    private Set<String> matchedKeys;
+    // Results handed over by the search queue until the main thread takes them; guarded by pendingLock
+    private final Object pendingLock = new Object();
+    private String pendingQuery;
+    private CompactCatalog pendingCompact;
+    private BitSet pendingIds = new BitSet();
+    private final int[] pendingBest = new int[UsageStore.FREQUENT_ROWS];
+    private int pendingBestCount;
+    private final SearchStore.Callback searchCallback = this::onSearchResults;
+    private final Runnable pendingResultsApplier = this::applyPendingResults;
+    // Allocation count when the current keystroke started, until its results are applied
+    private long keystrokeAllocStart = -1;
+
     // Alphabet navigation
+    private static final String[] ALPHABET = {"A", "B", "C", "D", "E", "F", "G", "H", "I", "J",
+            "K", "L", "M", "N", "O", "P", "Q", "R", "S", "T",
+            "U", "V", "W", "X", "Y", "Z", "#"};
     private Map<String, Integer> letterPositions = new HashMap<>();
     private FrameLayout alphabetOverlay;
+    // Built in idle time for the current sections, so opening it only attaches it
+    private FrameLayout preparedAlphabetOverlay;
 
     // Debounce refresh
     private Runnable refreshRunnable;
+    private boolean refreshPending = false;
     private static final long REFRESH_DEBOUNCE_MS = 150;
 
+    // Frame metrics interaction tracking
+    private static final long SCROLL_IDLE_MS = 150;
+    private boolean isScrolling = false;
+    private boolean animationTracked = false;
+    private final Runnable scrollIdleRunnable = this::onScrollIdle;
+
+    // Launch latency starts at the touch-up that produced the click
+    private static final long MAX_TAP_TO_CLICK_NANOS = 1_000_000_000L;
+    private long lastTouchUpMillis = 0;
+    private final View.OnTouchListener touchUpTracker = (v, event) -> {
+        if (event.getActionMasked() == MotionEvent.ACTION_UP) {
+            lastTouchUpMillis = event.getEventTime();
+        }
+        return false;
+    };
+
+    // Memory pressure: views released while offscreen are rebuilt on resume
+    private boolean viewsReleased = false;
+
+    // View model state the current rows were built from; a refresh with the same list
+    // (pin or icon change) only rebinds rows instead of rebuilding them
+    private List<MainActivity.AppInfo> builtList;
+    private long builtPinRevision = -1;
+    private String builtQuery = "";
+
+    // Reused by getFilteredApps so filtering doesn't allocate per refresh
+    private final List<MainActivity.AppInfo> filteredApps = new ArrayList<>();
+    private TextView noMatchView;
+    private final MemoryTrimmer.Releaser tabViewsReleaser = stage -> releaseViews();
+
     public static AppsFragment newInstance(boolean showPinned) {
         AppsFragment fragment = new AppsFragment();
         Bundle args = new Bundle();
@@ -91,6 +172,7 @@ public class AppsFragment extends Fragment {
 
         animationHandler = new Handler(Looper.getMainLooper());
         refreshHandler = new Handler(Looper.getMainLooper());
+        animationGovernor = new AnimationGovernor(requireContext());
 
         if (getActivity() != null) {
             viewModel = new ViewModelProvider(getActivity()).get(LauncherViewModel.class);
@@ -122,6 +204,7 @@ public class AppsFragment extends Fragment {
 
         scrollView.setLayoutParams(scrollParams);
         scrollView.setFillViewport(true);
+        scrollView.setOnScrollChangeListener((v, scrollX, scrollY, oldScrollX, oldScrollY) -> onScrolled());
 
         // Create apps container
         appsContainer = new LinearLayout(requireContext());
@@ -147,15 +230,49 @@ public class AppsFragment extends Fragment {
                     debounceRefresh();
                 }
             });
+
+            // Search keystrokes filter the All tab in place when its rows are current
+            if (!showPinned) {
+                viewModel.getSearchQuery().observe(getViewLifecycleOwner(), query -> {
+                    currentSearchQuery = query != null ? query : "";
+                    if (!currentSearchQuery.equals(builtQuery) && rowsAreCurrent()) {
+                        LauncherCounters.increment(LauncherCounters.UI_SEARCH_IN_PLACE);
+                        applySearchInPlace();
+                    } else {
+                        debounceRefresh();
+                    }
+                });
+            }
         }
 
+        MemoryTrimmer.getInstance().register(MemoryTrimmer.Stage.TAB_VIEWS, tabViewsReleaser);
+
         refreshAppList();
     }
 
+    @Override
+    public void onResume() {
+        super.onResume();
+
+        // A rebuild deferred while offscreen is needed now
+        boolean rebuildDeferred = DeferredWork.getInstance().cancel(deferredRebuildKey());
+        if (viewsReleased || rebuildDeferred) {
+            refreshAppList();
+        } else {
+            requestMissingIcons();
+        }
+    }
+
     @Override
     public void onDestroyView() {
+        MemoryTrimmer.getInstance().unregister(MemoryTrimmer.Stage.TAB_VIEWS, tabViewsReleaser);
+        DeferredWork.getInstance().cancel(deferredRebuildKey());
+        DeferredWork.getInstance().cancel(alphabetOverlayKey());
+        preparedAlphabetOverlay = null;
+
         // Clean up animations and handlers
         cancelAllAnimations();
+        onScrollIdle();
 
         if (animationHandler != null) {
             animationHandler.removeCallbacksAndMessages(null);
@@ -164,16 +281,24 @@ public class AppsFragment extends Fragment {
         if (refreshHandler != null) {
             refreshHandler.removeCallbacksAndMessages(null);
         }
+        refreshPending = false;
 
         super.onDestroyView();
     }
 
     private void debounceRefresh() {
+        LauncherCounters.increment(LauncherCounters.UI_REFRESH_REQUESTED);
         if (refreshRunnable != null) {
             refreshHandler.removeCallbacks(refreshRunnable);
         }
+        if (refreshPending) {
+            // The pending refresh will pick up this change too
+            LauncherCounters.increment(LauncherCounters.UI_REFRESH_COALESCED);
+        }
 
+        refreshPending = true;
         refreshRunnable = () -> {
+            refreshPending = false;
             if (isAdded() && !isDetached() && getView() != null) {
                 refreshAppList();
             }
@@ -182,8 +307,168 @@ public class AppsFragment extends Fragment {
         refreshHandler.postDelayed(refreshRunnable, REFRESH_DEBOUNCE_MS);
     }
 
+    private void onScrolled() {
+        if (!isScrolling) {
+            isScrolling = true;
+            FrameMetricsMonitor.getInstance().begin(FrameMetricsMonitor.Interaction.SCROLL);
+        }
+        refreshHandler.removeCallbacks(scrollIdleRunnable);
+        refreshHandler.postDelayed(scrollIdleRunnable, SCROLL_IDLE_MS);
+    }
+
+    private void onScrollIdle() {
+        if (isScrolling) {
+            isScrolling = false;
+            FrameMetricsMonitor.getInstance().end(FrameMetricsMonitor.Interaction.SCROLL);
+            requestMissingIcons();
+        }
+    }
+
+    // Drop all row views while this tab is offscreen
+    private int releaseViews() {
+        if (isResumed() || appsContainer == null || viewsReleased) {
+            return 0;
+        }
+
+        int released = appsContainer.getChildCount();
+        // A rebuild in progress would refill the container; onResume rebuilds instead
+        DeferredWork.getInstance().cancel(deferredRebuildKey());
+        DeferredWork.getInstance().cancel(alphabetOverlayKey());
+        cancelAllAnimations();
+        appsContainer.removeAllViews();
+        letterPositions.clear();
+        topViewCount = 0;
+        builtTopTitle = null;
+        builtTopKeys = Collections.emptyList();
+        builtList = null;
+        preparedAlphabetOverlay = null;
+        viewsReleased = true;
+        return released;
+    }
+
+    private String tabName() {
+        return showPinned ? "pinned" : "all";
+    }
+
+    private String deferredRebuildKey() {
+        return "tab." + tabName() + ".rebuild";
+    }
+
+    private String alphabetOverlayKey() {
+        return "tab." + tabName() + ".alphabet";
+    }
+
+    // The All tab shows the current query, so a pending search ends with the next frame
+    private void onResultsApplied() {
+        if (!showPinned) {
+            LatencyRecorder.getInstance().endAfterNextFrame(LatencyRecorder.Interaction.SEARCH);
+        }
+    }
+
+    // Binder call to PackageManager; only for rows without a cached intent
+    @Nullable
+    private static Intent resolveLaunchIntent(Context context, String packageName) {
+        Intent intent = context.getPackageManager().getLaunchIntentForPackage(packageName);
+        if (intent != null) {
+            intent.addFlags(Intent.FLAG_ACTIVITY_NEW_TASK);
+            intent.addFlags(Intent.FLAG_ACTIVITY_RESET_TASK_IF_NEEDED);
+        }
+        return intent;
+    }
+
+    // Event times are uptimeMillis, which shares CLOCK_MONOTONIC with System.nanoTime on Android.
+    // Clicks without a recent touch (keyboard, accessibility) start now.
+    private long tapStartNanos() {
+        long now = System.nanoTime();
+        long touchUp = lastTouchUpMillis * 1_000_000L;
+        lastTouchUpMillis = 0;
+        return touchUp > 0 && touchUp <= now && now - touchUp < MAX_TAP_TO_CLICK_NANOS ? touchUp : now;
+    }
+
+    /**
+     * Row and refresh state of this tab for the activity's dumpsys output
+     */
+    void dumpState(DiagnosticsDump dump) {
+        String key = "tab." + tabName();
+        dump.put(key + ".rows", appsContainer != null ? appsContainer.getChildCount() : 0);
+        dump.put(key + ".rows_current", rowsAreCurrent());
+        dump.put(key + ".views_released", viewsReleased);
+        dump.put(key + ".refresh_pending", refreshPending);
+        dump.put(key + ".query_length", currentSearchQuery.length());
+    }
+
+    /**
+     * Component keys of the rows currently on screen; empty when this tab is not shown
+     */
+    public List<String> getVisibleKeys() {
+        List<String> keys = new ArrayList<>();
+        for (MainActivity.AppInfo app : getVisibleApps()) {
+            keys.add(app.getKey());
+        }
+        return keys;
+    }
+
+    private List<MainActivity.AppInfo> getVisibleApps() {
+        List<MainActivity.AppInfo> apps = new ArrayList<>();
+        if (!isResumed() || appsContainer == null || scrollView == null) {
+            return apps;
+        }
+
+        int top = scrollView.getScrollY();
+        int bottom = top + scrollView.getHeight();
+        for (int i = 0; i < appsContainer.getChildCount(); i++) {
+            View child = appsContainer.getChildAt(i);
+            // Rows that have not been laid out yet have no position to compare
+            if (child.getHeight() > 0 && child.getBottom() >= top && child.getTop() <= bottom
+                    && child.getTag() instanceof MainActivity.AppInfo) {
+                apps.add((MainActivity.AppInfo) child.getTag());
+            }
+        }
+        return apps;
+    }
+
+    /**
+     * Unbind row icons whose drawables were released from the catalog
+     */
+    public void clearReleasedIcons() {
+        if (appsContainer == null) return;
+
+        for (int i = 0; i < appsContainer.getChildCount(); i++) {
+            View child = appsContainer.getChildAt(i);
+            if (child.getTag() instanceof MainActivity.AppInfo
+                    && ((MainActivity.AppInfo) child.getTag()).icon == null
+                    && child instanceof ViewGroup
+                    && ((ViewGroup) child).getChildAt(0) instanceof ImageView) {
+                ((ImageView) ((ViewGroup) child).getChildAt(0)).setImageDrawable(null);
+            }
+        }
+    }
+
+    // Reload icons for on-screen rows that lost them under memory pressure
+    private void requestMissingIcons() {
+        List<MainActivity.AppInfo> missing = new ArrayList<>();
+        for (MainActivity.AppInfo app : getVisibleApps()) {
+            if (app.icon == null) {
+                missing.add(app);
+            }
+        }
+
+        MainActivity activity = (MainActivity) getActivity();
+        if (!missing.isEmpty() && activity != null && !activity.isFinishing()) {
+            activity.loadMissingIcons(missing);
+        }
+    }
+
+    private void endAnimationTracking() {
+        if (animationTracked) {
+            animationTracked = false;
+            FrameMetricsMonitor.getInstance().end(FrameMetricsMonitor.Interaction.PINNED_ANIMATION);
+        }
+    }
+
     private void cancelAllAnimations() {
         isAnimating = false;
+        endAnimationTracking();
 
         // Cancel all running animations
         for (AnimatorSet animatorSet : runningAnimations) {
@@ -206,12 +491,21 @@ public class AppsFragment extends Fragment {
                     child.setRotationY(0f);
                     child.setScaleX(1f);
                     child.setScaleY(1f);
+                    child.setLayerType(View.LAYER_TYPE_NONE, null);
                 }
             }
         }
     }
 
     public void refreshAppList() {
+        refreshAppList(isResumed());
+    }
+
+    /**
+     * Rebuild or rebind the rows; an offscreen tab's rebuild waits for idle
+     * time unless {@code now} is set
+     */
+    private void refreshAppList(boolean now) {
         if (!isAdded() || isDetached() || getView() == null || appsContainer == null || viewModel == null) {
             return;
         }
@@ -223,43 +517,193 @@ public class AppsFragment extends Fragment {
         }
 
         try {
+            // Same list and pins: only icons can have changed, so rebind the existing rows
+            if (rowsAreCurrent()) {
+                LauncherCounters.increment(LauncherCounters.UI_REFRESH_REBOUND);
+                if (!showPinned && currentSearchQuery.isEmpty()) {
+                    // Launches reorder the section without a new list
+                    showTopSection(FREQUENT_SECTION, getFrequentApps());
+                }
+                rebindRows();
+                onResultsApplied();
+                return;
+            }
+
+            if (!now) {
+                // Offscreen: a few rows per idle slice
+                DeferredWork.getInstance().post(DeferredWork.Lane.IDLE, deferredRebuildKey(), new RowBuild());
+                return;
+            }
+            DeferredWork.getInstance().cancel(deferredRebuildKey());
+
+            // Update UI on main thread
+            requireActivity().runOnUiThread(() -> new RowBuild().run(Long.MAX_VALUE));
+        } catch (Exception e) {
+            FlightRecorder.error(e);
+        }
+    }
+
+    /**
+     * One rebuild of the rows. A shown tab runs it in one go; an offscreen tab
+     * runs it in idle slices, resuming from the row it stopped at, so no slice
+     * overruns its budget however many apps there are.
+     */
+    private final class RowBuild implements DeferredWork.Task {
+        private boolean started;
+        // The list and pin state the rows are built from
+        private List<MainActivity.AppInfo> source;
+        private long pinRevision;
+        // Pinned tab: the apps and the rows built for the entrance animation; reads
+        // the reused filteredApps, as only one build runs per tab at a time
+        private List<MainActivity.AppInfo> apps;
+        private List<View> pinnedViews;
+        // All tab: the letter sections; the row is -1 before a section's header
+        private List<Map.Entry<String, List<MainActivity.AppInfo>>> sections;
+        private int section;
+        private int row;
+        private int scrollY;
+        private long refreshNanos;
+        private long buildNanos;
+
+        @Override
+        public boolean run(long deadlineNanos) {
+            if (!isAdded() || isDetached() || appsContainer == null || viewModel == null) return false;
+
+            // Tracked per slice; an interaction spanning slices would hold off the idle work itself
+            FrameMetricsMonitor.getInstance().begin(FrameMetricsMonitor.Interaction.REFRESH);
+            long sliceStart = System.nanoTime();
+            long allocStart = AllocationStats.begin();
+            int rowsBefore = started ? appsContainer.getChildCount() : 0;
+            boolean more = false;
+            try {
+                if (!started && !start()) {
+                    finish(false);
+                    return false;
+                }
+
+                long buildStart = System.nanoTime();
+                more = showPinned ? buildPinnedRows(deadlineNanos) : buildSections(deadlineNanos);
+                buildNanos += System.nanoTime() - buildStart;
+                if (!more) {
+                    finish(true);
+                }
+            } finally {
+                refreshNanos += System.nanoTime() - sliceStart;
+                AllocationStats.end(AllocationStats.UI_REFRESH, allocStart,
+                        Math.max(appsContainer.getChildCount() - rowsBefore, 0));
+                FrameMetricsMonitor.getInstance().end(FrameMetricsMonitor.Interaction.REFRESH);
+            }
+            return more;
+        }
+
+        // Clear the rows and take the list to build; false if there is nothing to show
+        private boolean start() {
+            started = true;
+            LauncherCounters.increment(LauncherCounters.UI_REFRESH_REBUILT);
+
             // Cancel any running animations first
             cancelAllAnimations();
 
             // Store scroll position
-            final int scrollY = scrollView.getScrollY();
-
-            // Update UI on main thread
-            requireActivity().runOnUiThread(() -> {
-                if (!isAdded() || isDetached() || appsContainer == null) return;
+            scrollY = scrollView.getScrollY();
+
+            viewsReleased = false;
+            builtList = null;
+            preparedAlphabetOverlay = null;
+            DeferredWork.getInstance().cancel(alphabetOverlayKey());
+            appsContainer.removeAllViews();
+            letterPositions.clear();
+            topViewCount = 0;
+            builtTopTitle = null;
+            builtTopKeys = Collections.emptyList();
+
+            source = viewModel.getAllApps().getValue();
+            pinRevision = viewModel.getPinRevision();
+            long filterStart = LauncherTrace.begin(LauncherTrace.UI_FILTER);
+            try {
+                apps = getFilteredApps();
+            } finally {
+                LauncherTrace.end(LauncherTrace.UI_FILTER, filterStart);
+            }
 
-                appsContainer.removeAllViews();
-                letterPositions.clear();
+            if (apps.isEmpty()) {
+                showEmptyState();
+                return false;
+            }
 
-                List<MainActivity.AppInfo> appsToShow = getFilteredApps();
+            if (showPinned) {
+                pinnedViews = new ArrayList<>(apps.size());
+                row = 0;
+            } else {
+                // Most launched apps first, then grouped by letter
+                if (currentSearchQuery.isEmpty()) {
+                    showTopSection(FREQUENT_SECTION, getFrequentApps());
+                }
+                sections = new ArrayList<>(CatalogOps.groupBySection(apps).entrySet());
+                row = -1;
+            }
+            return true;
+        }
 
-                if (appsToShow.isEmpty()) {
-                    showEmptyState();
-                    return;
+        // Add letter sections until the deadline; true if rows remain
+        private boolean buildSections(long deadlineNanos) {
+            for (; section < sections.size(); section++, row = -1) {
+                Map.Entry<String, List<MainActivity.AppInfo>> entry = sections.get(section);
+                if (row < 0) {
+                    appsContainer.addView(createLetterHeader(entry.getKey()));
+                    letterPositions.put(entry.getKey(), appsContainer.getChildCount() - 1);
+                    row = 0;
                 }
+                List<MainActivity.AppInfo> rows = entry.getValue();
+                while (row < rows.size()) {
+                    appsContainer.addView(createAppView(rows.get(row++)));
+                    if (System.nanoTime() >= deadlineNanos) return true;
+                }
+            }
+            return false;
+        }
+
+        // Add pinned rows until the deadline; true if rows remain
+        private boolean buildPinnedRows(long deadlineNanos) {
+            while (row < apps.size()) {
+                View appView = createAppView(apps.get(row++));
+                appsContainer.addView(appView);
+                pinnedViews.add(appView);
+                if (System.nanoTime() >= deadlineNanos) return true;
+            }
+            return false;
+        }
 
-                if (!showPinned) {
-                    // Group by letter for "All" tab
-                    displayGroupedApps(appsToShow);
-                } else {
-                    // Display pinned apps - with fix for visibility
-                    displayPinnedApps(appsToShow);
+        private void finish(boolean built) {
+            FlightRecorder.record(FlightRecorder.Event.REFRESH, tabName(), refreshNanos);
+            LauncherTrace.record(LauncherTrace.UI_REFRESH, refreshNanos);
+            if (!built) return;
+
+            LauncherTrace.record(LauncherTrace.UI_BUILD, buildNanos);
+            if (!showPinned) {
+                DeferredWork.getInstance().post(DeferredWork.Lane.IDLE, alphabetOverlayKey(),
+                        new AlphabetOverlayBuild());
+                // Hide rows the query doesn't match
+                builtQuery = "";
+                if (!currentSearchQuery.isEmpty()) {
+                    applySearchInPlace();
                 }
+            } else {
+                animatePinnedRows(pinnedViews);
+            }
 
-                // Restore scroll position
-                scrollView.post(() -> {
-                    if (scrollView != null) {
-                        scrollView.setScrollY(scrollY);
-                    }
-                });
+            builtList = source;
+            builtPinRevision = pinRevision;
+            onResultsApplied();
+
+            // Restore scroll position
+            int restoreY = scrollY;
+            scrollView.post(() -> {
+                if (scrollView != null) {
+                    scrollView.setScrollY(restoreY);
+                    requestMissingIcons();
+                }
             });
-        } catch (Exception e) {
-            e.printStackTrace();
         }
     }
 
@@ -283,108 +727,306 @@ public class AppsFragment extends Fragment {
         appsContainer.addView(emptyView);
     }
 
-    private void displayGroupedApps(List<MainActivity.AppInfo> apps) {
-        TreeMap<String, List<MainActivity.AppInfo>> groupedApps = new TreeMap<>();
+    // Ranked apps of the current list, best first; empty when the section is turned off
+    private List<MainActivity.AppInfo> getFrequentApps() {
+        Context context = getContext();
+        if (context == null || !UsageStore.isFrequentShown(context)) {
+            return Collections.emptyList();
+        }
+
+        // Ranked keys can belong to apps that are gone, so ask for a few spare
+        return findApps(viewModel.getUsageStore().top(UsageStore.FREQUENT_ROWS * 2));
+    }
 
-        for (MainActivity.AppInfo app : apps) {
-            String firstLetter = app.name.substring(0, 1).toUpperCase();
-            if (!Character.isLetter(firstLetter.charAt(0))) {
-                firstLetter = "#";
+    // Apps of the current list for ranked keys, at most one section's worth
+    private List<MainActivity.AppInfo> findApps(List<String> keys) {
+        List<MainActivity.AppInfo> apps = new ArrayList<>(UsageStore.FREQUENT_ROWS);
+        for (String key : keys) {
+            MainActivity.AppInfo app = viewModel.findApp(key);
+            if (app != null) {
+                apps.add(app);
+                if (apps.size() == UsageStore.FREQUENT_ROWS) break;
             }
-            groupedApps.computeIfAbsent(firstLetter, k -> new ArrayList<>()).add(app);
         }
+        return apps;
+    }
 
-        for (Map.Entry<String, List<MainActivity.AppInfo>> entry : groupedApps.entrySet()) {
-            // Add letter header
-            View letterHeader = createLetterHeader(entry.getKey());
-            appsContainer.addView(letterHeader);
-            letterPositions.put(entry.getKey(), appsContainer.getChildCount() - 1);
+    // Put a section above the letter sections, replacing the one built before unless it is the same
+    private void showTopSection(String title, List<MainActivity.AppInfo> apps) {
+        boolean same = title.equals(builtTopTitle) && apps.size() == builtTopKeys.size();
+        for (int i = 0; same && i < apps.size(); i++) {
+            same = apps.get(i).getKey().equals(builtTopKeys.get(i));
+        }
+        if (same) return;
 
-            // Add apps
-            for (MainActivity.AppInfo app : entry.getValue()) {
-                View appView = createAppView(app);
-                if (appView != null) {
-                    appView.setAlpha(1f);
-                    appView.setTranslationX(0f);
-                    appsContainer.addView(appView);
-                }
+        int before = topViewCount;
+        if (before > 0) {
+            appsContainer.removeViews(0, before);
+        }
+
+        List<String> keys = new ArrayList<>(apps.size());
+        int index = 0;
+        if (!apps.isEmpty()) {
+            appsContainer.addView(createLetterHeader(title), index++);
+            for (MainActivity.AppInfo app : apps) {
+                appsContainer.addView(createAppView(app), index++);
+                keys.add(app.getKey());
+            }
+        }
+        topViewCount = index;
+        builtTopTitle = title;
+        builtTopKeys = keys;
+
+        // Letter sections below moved with it
+        int shift = index - before;
+        if (shift != 0) {
+            for (Map.Entry<String, Integer> entry : letterPositions.entrySet()) {
+                entry.setValue(entry.getValue() + shift);
             }
         }
     }
 
-    private void displayPinnedApps(List<MainActivity.AppInfo> apps) {
-        List<View> appViews = new ArrayList<>();
+    // Entrance animation for freshly built pinned rows, as far as the governor allows
+    private void animatePinnedRows(List<View> appViews) {
+        // Only animate if we have views and conditions are right
+        if (appViews.isEmpty() || !isVisible() || isAnimating || !getUserVisibleHint()) {
+            return;
+        }
 
-        for (MainActivity.AppInfo app : apps) {
-            View appView = createAppView(app);
-            if (appView != null) {
-                // Check if we should animate
-                boolean shouldAnimate = !isAnimating && isVisible() && getUserVisibleHint();
+        AnimationGovernor.Effect effect = animationGovernor.chooseEffect();
+        if (effect == AnimationGovernor.Effect.NONE) {
+            return;
+        }
 
-                if (shouldAnimate) {
-                    appView.setAlpha(0f);
-                    appView.setTranslationX(300f);
-                } else {
-                    // If not animating, ensure views are visible
-                    appView.setAlpha(1f);
-                    appView.setTranslationX(0f);
-                    appView.setRotationY(0f);
-                }
+        // Rows below the fold are never seen animating, so leave them alone
+        int visibleRows = Math.min(appViews.size(), estimateVisibleRows(appViews.get(0)));
+        List<View> animatedViews = appViews.subList(0, visibleRows);
 
-                appsContainer.addView(appView);
-                appViews.add(appView);
+        for (View view : animatedViews) {
+            view.setAlpha(0f);
+            if (effect == AnimationGovernor.Effect.FULL) {
+                view.setTranslationX(300f);
             }
         }
 
-        // Only animate if we have views and conditions are right
-        if (!appViews.isEmpty() && isVisible() && !isAnimating) {
-            // Check if this is the first load or a refresh after changes
-            boolean isFirstLoad = appsContainer.getChildCount() == appViews.size();
+        animateViewsIn(animatedViews, effect);
+    }
 
-            if (isFirstLoad && getUserVisibleHint()) {
-                animateViewsIn(appViews);
-            } else {
-                // For refreshes, just ensure views are visible
-                for (View view : appViews) {
-                    view.setAlpha(1f);
-                    view.setTranslationX(0f);
-                    view.setRotationY(0f);
-                }
-            }
+    private int estimateVisibleRows(View firstRow) {
+        int viewportHeight = scrollView.getHeight();
+        if (viewportHeight <= 0) {
+            viewportHeight = getResources().getDisplayMetrics().heightPixels;
         }
+
+        int widthSpec = View.MeasureSpec.makeMeasureSpec(
+                Math.max(scrollView.getWidth(), 0), View.MeasureSpec.EXACTLY);
+        int heightSpec = View.MeasureSpec.makeMeasureSpec(0, View.MeasureSpec.UNSPECIFIED);
+        firstRow.measure(widthSpec, heightSpec);
+
+        int rowHeight = Math.max(firstRow.getMeasuredHeight(), 1);
+        return viewportHeight / rowHeight + 1;
     }
 
+    // Fills the reused filteredApps list; the published list is immutable, so no defensive copy
     private List<MainActivity.AppInfo> getFilteredApps() {
-        List<MainActivity.AppInfo> filteredApps = new ArrayList<>();
+        filteredApps.clear();
 
         try {
             List<MainActivity.AppInfo> allApps = viewModel.getAllApps().getValue();
             if (allApps == null) return filteredApps;
 
-            // Create defensive copy
-            List<MainActivity.AppInfo> appsCopy = new ArrayList<>(allApps);
+            // Pinned tab shows pinned apps; the All tab builds every row and searches in place
+            if (showPinned) {
+                viewModel.pinnedAppsInto(allApps, filteredApps);
+            } else {
+                CatalogOps.filterInto(allApps, false, "", filteredApps);
+            }
+        } catch (Exception e) {
+            FlightRecorder.error(e);
+        }
 
-            for (MainActivity.AppInfo app : appsCopy) {
-                if (app == null || app.name == null) continue;
+        return filteredApps;
+    }
 
-                // For pinned tab, only show pinned apps
-                if (showPinned) {
-                    if (app.isPinned) {
-                        filteredApps.add(app);
-                    }
-                } else {
-                    // For All apps tab, apply search filter
-                    if (currentSearchQuery.isEmpty() ||
-                            app.name.toLowerCase().contains(currentSearchQuery.toLowerCase())) {
-                        filteredApps.add(app);
-                    }
+    // Whether the rows on screen were built from the current list (and, on the Pinned tab, pins)
+    private boolean rowsAreCurrent() {
+        if (viewsReleased || builtList == null || appsContainer == null || viewModel == null) {
+            return false;
+        }
+        if (builtList != viewModel.getAllApps().getValue()) {
+            return false;
+        }
+        return !showPinned || builtPinRevision == viewModel.getPinRevision();
+    }
+
+    // Point existing rows at the current icons; allocation-free
+    private void rebindRows() {
+        long allocStart = AllocationStats.begin();
+        int count = appsContainer.getChildCount();
+
+        for (int i = 0; i < count; i++) {
+            View child = appsContainer.getChildAt(i);
+            if (child.getTag() instanceof MainActivity.AppInfo
+                    && child instanceof ViewGroup
+                    && ((ViewGroup) child).getChildAt(0) instanceof ImageView) {
+                ImageView iconView = (ImageView) ((ViewGroup) child).getChildAt(0);
+                MainActivity.AppInfo app = (MainActivity.AppInfo) child.getTag();
+                if (iconView.getDrawable() != app.icon) {
+                    iconView.setImageDrawable(app.icon);
                 }
             }
-        } catch (Exception e) {
-            e.printStackTrace();
         }
 
-        return filteredApps;
+        AllocationStats.end(AllocationStats.UI_REBIND, allocStart, count);
+        FlightRecorder.record(FlightRecorder.Event.REBIND, tabName(), count);
+    }
+
+    // Filter the existing rows for the current query. The search index answers
+    // off the main thread; results it gave for this query earlier apply at once.
+    private void applySearchInPlace() {
+        // One keystroke, from here until its results are applied to the rows
+        keystrokeAllocStart = AllocationStats.begin();
+        String query = currentSearchQuery;
+        if (query.isEmpty() || viewModel == null) {
+            applyMatches("");
+            endKeystroke();
+            return;
+        }
+        if (query.equals(matchedQuery)) {
+            applyMatches(query);
+        }
+        viewModel.getSearchStore().search(query, searchCallback);
+    }
+
+    // Search queue: copy the results out of the store's reused array for the main thread
+    private void onSearchResults(String query, CompactCatalog compact, int[] ids, int count) {
+        synchronized (pendingLock) {
+            pendingQuery = query;
+            pendingCompact = compact;
+            pendingIds.clear();
+            for (int i = 0; i < count; i++) {
+                pendingIds.set(ids[i]);
+            }
+            // With a handful of matches the letter sections already show them all
+            pendingBestCount = count > UsageStore.FREQUENT_ROWS ? pendingBest.length : 0;
+            System.arraycopy(ids, 0, pendingBest, 0, pendingBestCount);
+        }
+        refreshHandler.removeCallbacks(pendingResultsApplier);
+        refreshHandler.post(pendingResultsApplier);
+    }
+
+    // Take the latest results and filter the rows with them
+    private void applyPendingResults() {
+        String searched;
+        synchronized (pendingLock) {
+            searched = pendingQuery;
+            pendingQuery = null;
+            // A later keystroke or a rebuild of the rows supersedes these results
+            if (searched == null || !searched.equals(currentSearchQuery) || !rowsAreCurrent()) return;
+
+            BitSet ids = matchedIds;
+            matchedIds = pendingIds;
+            pendingIds = ids;
+            matchedCompact = pendingCompact;
+            pendingCompact = null;
+            matchedKeys = null;
+            bestMatches.clear();
+            for (int i = 0; i < pendingBestCount; i++) {
+                MainActivity.AppInfo app = viewModel.findApp(matchedCompact.record(pendingBest[i]).key());
+                if (app != null) {
+                    bestMatches.add(app);
+                }
+            }
+        }
+        matchedQuery = searched;
+        showTopSection(BEST_MATCHES_SECTION, bestMatches);
+        applyMatches(searched);
+        endKeystroke();
+    }
+
+    private void endKeystroke() {
+        AllocationStats.end(AllocationStats.UI_SEARCH, keystrokeAllocStart, appsContainer.getChildCount());
+        keystrokeAllocStart = -1;
+    }
+
+    // Show or hide the existing rows and letter headers: every row without a query, else the matched records
+    private void applyMatches(String query) {
+        boolean all = query.isEmpty();
+        if (all) {
+            showTopSection(FREQUENT_SECTION, getFrequentApps());
+        }
+        int count = appsContainer.getChildCount();
+        int matches = 0;
+
+        View header = null;
+        boolean sectionMatched = false;
+        for (int i = topViewCount; i < count; i++) {
+            View child = appsContainer.getChildAt(i);
+            if (child == noMatchView) continue;
+
+            if (child.getTag() instanceof MainActivity.AppInfo) {
+                boolean match = all || isMatched((MainActivity.AppInfo) child.getTag());
+                child.setVisibility(match ? View.VISIBLE : View.GONE);
+                if (match) {
+                    sectionMatched = true;
+                    matches++;
+                }
+            } else {
+                // Untagged rows are letter headers, each starting a section
+                if (header != null) {
+                    header.setVisibility(sectionMatched ? View.VISIBLE : View.GONE);
+                }
+                header = child;
+                sectionMatched = false;
+            }
+        }
+        if (header != null) {
+            header.setVisibility(sectionMatched ? View.VISIBLE : View.GONE);
+        }
+
+        showNoMatch(matches == 0);
+        builtQuery = query;
+        onResultsApplied();
+        FlightRecorder.record(FlightRecorder.Event.SEARCH, tabName(), matches);
+    }
+
+    // Whether a row is among the matched records. A row whose record id addresses
+    // another record in the results' catalog version is matched on its key instead.
+    private boolean isMatched(MainActivity.AppInfo app) {
+        CompactCatalog compact = matchedCompact;
+        int id = app.recordId;
+        if (id >= 0 && id < compact.size() && compact.record(id) == app.record) {
+            return matchedIds.get(id);
+        }
+        if (matchedKeys == null) {
+            matchedKeys = new HashSet<>();
+            for (int m = matchedIds.nextSetBit(0); m >= 0; m = matchedIds.nextSetBit(m + 1)) {
+                matchedKeys.add(compact.record(m).key());
+            }
+        }
+        return matchedKeys.contains(app.getKey());
+    }
+
+    private void showNoMatch(boolean show) {
+        if (!show) {
+            if (noMatchView != null && noMatchView.getParent() != null) {
+                appsContainer.removeView(noMatchView);
+            }
+            return;
+        }
+
+        if (noMatchView == null) {
+            noMatchView = new TextView(requireContext());
+            noMatchView.setPadding(32, 64, 32, 64);
+            noMatchView.setTextSize(18);
+            noMatchView.setGravity(Gravity.CENTER);
+            noMatchView.setTextColor(Color.GRAY);
+        }
+        noMatchView.setText("No apps found matching \"" + currentSearchQuery + "\"");
+        // Appended so letter positions stay valid; every row above it is hidden
+        if (noMatchView.getParent() == null) {
+            appsContainer.addView(noMatchView);
+        }
     }
 
     private View createLetterHeader(String letter) {
@@ -428,6 +1070,7 @@ public class AppsFragment extends Fragment {
     }
 
     @NonNull
+    @SuppressLint("ClickableViewAccessibility")
     private View createAppView(MainActivity.AppInfo app) {
         Context context = getContext();
         if (context == null) return new View(requireContext());
@@ -442,6 +1085,7 @@ public class AppsFragment extends Fragment {
             itemLayout.setGravity(Gravity.CENTER_VERTICAL);
             itemLayout.setClickable(true);
             itemLayout.setFocusable(true);
+            itemLayout.setTag(app);
 
             // Ripple effect
             TypedValue outValue = new TypedValue();
@@ -451,7 +1095,8 @@ public class AppsFragment extends Fragment {
             // App icon
             ImageView iconView = new ImageView(context);
             iconView.setImageDrawable(app.icon);
-            LinearLayout.LayoutParams iconParams = new LinearLayout.LayoutParams(128, 128);
+            int iconSize = PerformanceProfile.get(context).iconSizePx;
+            LinearLayout.LayoutParams iconParams = new LinearLayout.LayoutParams(iconSize, iconSize);
             iconParams.setMargins(0, 0, 32, 0);
             iconView.setLayoutParams(iconParams);
 
@@ -468,23 +1113,13 @@ public class AppsFragment extends Fragment {
             // Use weak reference for click handlers
             final WeakReference<AppsFragment> fragmentRef = new WeakReference<>(this);
 
+            // Launch on touch-up; the ripple is the press feedback and the
+            // window animation grows from the row
+            itemLayout.setOnTouchListener(touchUpTracker);
             itemLayout.setOnClickListener(v -> {
                 AppsFragment fragment = fragmentRef.get();
                 if (fragment != null && fragment.isAdded()) {
-                    // Simple scale animation
-                    v.animate()
-                            .scaleX(0.95f)
-                            .scaleY(0.95f)
-                            .setDuration(100)
-                            .withEndAction(() -> {
-                                v.animate()
-                                        .scaleX(1f)
-                                        .scaleY(1f)
-                                        .setDuration(100)
-                                        .start();
-                                fragment.launchApp(app.packageName);
-                            })
-                            .start();
+                    fragment.launchApp(v, app);
                 }
             });
 
@@ -511,19 +1146,25 @@ public class AppsFragment extends Fragment {
 
             return itemLayout;
         } catch (Exception e) {
-            e.printStackTrace();
+            FlightRecorder.error(e);
             return new View(context);
         }
     }
 
-    private void animateViewsIn(List<View> views) {
+    private void animateViewsIn(List<View> views, AnimationGovernor.Effect effect) {
         if (!isAdded() || isDetached() || isAnimating || !showPinned) return;
 
+        final boolean full = effect == AnimationGovernor.Effect.FULL;
+        final int duration = full ? ANIMATION_DURATION : LITE_ANIMATION_DURATION;
+        final int stagger = full ? STAGGER_DELAY : LITE_STAGGER_DELAY;
+
         isAnimating = true;
+        animationTracked = true;
+        FrameMetricsMonitor.getInstance().begin(FrameMetricsMonitor.Interaction.PINNED_ANIMATION);
 
         for (int i = 0; i < views.size(); i++) {
             final View view = views.get(i);
-            final int delay = i * STAGGER_DELAY;
+            final int delay = i * stagger;
 
             animationHandler.postDelayed(() -> {
                 if (!isAdded() || isDetached() || view.getParent() == null) {
@@ -535,13 +1176,20 @@ public class AppsFragment extends Fragment {
                 }
 
                 try {
-                    ObjectAnimator translateX = ObjectAnimator.ofFloat(view, "translationX", 300f, 0f);
+                    AnimatorSet animatorSet = new AnimatorSet();
                     ObjectAnimator alpha = ObjectAnimator.ofFloat(view, "alpha", 0f, 1f);
-                    ObjectAnimator rotationY = ObjectAnimator.ofFloat(view, "rotationY", 15f, 0f);
 
-                    AnimatorSet animatorSet = new AnimatorSet();
-                    animatorSet.playTogether(translateX, alpha, rotationY);
-                    animatorSet.setDuration(ANIMATION_DURATION);
+                    if (full) {
+                        ObjectAnimator translateX = ObjectAnimator.ofFloat(view, "translationX", 300f, 0f);
+                        ObjectAnimator rotationY = ObjectAnimator.ofFloat(view, "rotationY", 15f, 0f);
+                        animatorSet.playTogether(translateX, alpha, rotationY);
+                    } else {
+                        // Fade on a hardware layer so each frame is a texture blend, not a redraw
+                        view.setLayerType(View.LAYER_TYPE_HARDWARE, null);
+                        animatorSet.play(alpha);
+                    }
+
+                    animatorSet.setDuration(duration);
                     animatorSet.setInterpolator(new DecelerateInterpolator(1.5f));
 
                     animatorSet.addListener(new AnimatorListenerAdapter() {
@@ -555,6 +1203,7 @@ public class AppsFragment extends Fragment {
                             view.setAlpha(1f);
                             view.setTranslationX(0f);
                             view.setRotationY(0f);
+                            view.setLayerType(View.LAYER_TYPE_NONE, null);
                         }
 
                         @Override
@@ -562,16 +1211,18 @@ public class AppsFragment extends Fragment {
                             view.setAlpha(1f);
                             view.setTranslationX(0f);
                             view.setRotationY(0f);
+                            view.setLayerType(View.LAYER_TYPE_NONE, null);
                         }
                     });
 
                     runningAnimations.add(animatorSet);
                     animatorSet.start();
                 } catch (Exception e) {
-                    e.printStackTrace();
+                    FlightRecorder.error(e);
                     view.setAlpha(1f);
                     view.setTranslationX(0f);
                     view.setRotationY(0f);
+                    view.setLayerType(View.LAYER_TYPE_NONE, null);
                     isAnimating = false;
                 }
             }, delay);
@@ -582,51 +1233,22 @@ public class AppsFragment extends Fragment {
             if (isAnimating && runningAnimations.isEmpty()) {
                 isAnimating = false;
             }
-        }, (views.size() * STAGGER_DELAY) + ANIMATION_DURATION + 100);
+            endAnimationTracking();
+        }, (views.size() * stagger) + duration + 100);
     }
 
     private void showAlphabetGrid() {
         Context context = getContext();
-        if (context == null || rootLayout == null) return;
+        if (context == null || rootLayout == null || alphabetOverlay != null) return;
 
-        // Create overlay
-        alphabetOverlay = new FrameLayout(context);
-        alphabetOverlay.setLayoutParams(new FrameLayout.LayoutParams(
-                FrameLayout.LayoutParams.MATCH_PARENT,
-                FrameLayout.LayoutParams.MATCH_PARENT));
-        alphabetOverlay.setBackgroundColor(Color.parseColor("#E6000000"));
-        alphabetOverlay.setClickable(true);
-
-        // Grid container
-        LinearLayout gridContainer = new LinearLayout(context);
-        gridContainer.setOrientation(LinearLayout.VERTICAL);
-        gridContainer.setGravity(Gravity.CENTER);
-        FrameLayout.LayoutParams containerParams = new FrameLayout.LayoutParams(
-                FrameLayout.LayoutParams.WRAP_CONTENT,
-                FrameLayout.LayoutParams.WRAP_CONTENT);
-        containerParams.gravity = Gravity.CENTER;
-        gridContainer.setLayoutParams(containerParams);
-        gridContainer.setPadding(48, 48, 48, 48);
-
-        // Create grid
-        GridLayout grid = new GridLayout(context);
-        grid.setColumnCount(5);
-        grid.setRowCount(6);
-
-        String[] letters = {"A", "B", "C", "D", "E", "F", "G", "H", "I", "J",
-                "K", "L", "M", "N", "O", "P", "Q", "R", "S", "T",
-                "U", "V", "W", "X", "Y", "Z", "#"};
-
-        for (String letter : letters) {
-            TextView letterTile = createLetterTile(letter);
-            grid.addView(letterTile);
+        if (preparedAlphabetOverlay == null) {
+            // Not prepared yet: finish it now
+            DeferredWork.getInstance().cancel(alphabetOverlayKey());
+            new AlphabetOverlayBuild().run(Long.MAX_VALUE);
         }
-
-        gridContainer.addView(grid);
-        alphabetOverlay.addView(gridContainer);
-
-        // Dismiss on outside click
-        alphabetOverlay.setOnClickListener(v -> hideAlphabetGrid());
+        alphabetOverlay = preparedAlphabetOverlay;
+        preparedAlphabetOverlay = null;
+        if (alphabetOverlay == null) return;
 
         // Add with fade animation
         alphabetOverlay.setAlpha(0f);
@@ -637,6 +1259,64 @@ public class AppsFragment extends Fragment {
                 .start();
     }
 
+    /**
+     * Idle-time build of the overlay for the sections just laid out, a few
+     * letter tiles per call
+     */
+    private final class AlphabetOverlayBuild implements DeferredWork.Task {
+        private FrameLayout overlay;
+        private GridLayout grid;
+        private int next;
+
+        @Override
+        public boolean run(long deadlineNanos) {
+            Context context = getContext();
+            if (context == null || rootLayout == null || preparedAlphabetOverlay != null) return false;
+
+            if (overlay == null) {
+                createOverlay(context);
+            }
+            while (next < ALPHABET.length) {
+                grid.addView(createLetterTile(ALPHABET[next++]));
+                if (System.nanoTime() >= deadlineNanos) return true;
+            }
+            preparedAlphabetOverlay = overlay;
+            return false;
+        }
+
+        private void createOverlay(Context context) {
+            // Create overlay
+            overlay = new FrameLayout(context);
+            overlay.setLayoutParams(new FrameLayout.LayoutParams(
+                    FrameLayout.LayoutParams.MATCH_PARENT,
+                    FrameLayout.LayoutParams.MATCH_PARENT));
+            overlay.setBackgroundColor(Color.parseColor("#E6000000"));
+            overlay.setClickable(true);
+
+            // Grid container
+            LinearLayout gridContainer = new LinearLayout(context);
+            gridContainer.setOrientation(LinearLayout.VERTICAL);
+            gridContainer.setGravity(Gravity.CENTER);
+            FrameLayout.LayoutParams containerParams = new FrameLayout.LayoutParams(
+                    FrameLayout.LayoutParams.WRAP_CONTENT,
+                    FrameLayout.LayoutParams.WRAP_CONTENT);
+            containerParams.gravity = Gravity.CENTER;
+            gridContainer.setLayoutParams(containerParams);
+            gridContainer.setPadding(48, 48, 48, 48);
+
+            // Create grid; the tiles are added by run()
+            grid = new GridLayout(context);
+            grid.setColumnCount(5);
+            grid.setRowCount(6);
+
+            gridContainer.addView(grid);
+            overlay.addView(gridContainer);
+
+            // Dismiss on outside click
+            overlay.setOnClickListener(v -> hideAlphabetGrid());
+        }
+    }
+
     private TextView createLetterTile(String letter) {
         Context context = requireContext();
         TextView letterTile = new TextView(context);
@@ -687,6 +1367,9 @@ public class AppsFragment extends Fragment {
                         if (rootLayout != null && alphabetOverlay != null) {
                             rootLayout.removeView(alphabetOverlay);
                             alphabetOverlay = null;
+                            // Sections may have changed while it was shown, so build the next one afresh
+                            DeferredWork.getInstance().post(DeferredWork.Lane.IDLE, alphabetOverlayKey(),
+                                    new AlphabetOverlayBuild());
                         }
                     })
                     .start();
@@ -721,25 +1404,93 @@ public class AppsFragment extends Fragment {
             AlertDialog.Builder builder = new AlertDialog.Builder(context);
             builder.setTitle(app.name);
 
-            String pinAction = app.isPinned ? "Remove from Pinned" : "Add to Pinned";
-            String[] menuItems = {pinAction, "Uninstall"};
+            // Shortcuts were resolved ahead of time; only their icons may still decode
+            MainActivity activity = (MainActivity) getActivity();
+            ShortcutCache shortcutCache = activity != null ? activity.getShortcutCache() : null;
+            List<ShortcutInfo> shortcuts = new ArrayList<>();
+            List<String> menuItems = new ArrayList<>();
+            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.N_MR1 && shortcutCache != null && app.record != null) {
+                shortcuts = shortcutCache.getShortcuts(app.record);
+                for (ShortcutInfo shortcut : shortcuts) {
+                    menuItems.add(ShortcutCache.getLabel(shortcut));
+                }
+            }
+            menuItems.add(app.isPinned ? "Remove from Pinned" : "Add to Pinned");
+            menuItems.add("Search Keywords");
+            menuItems.add("Hide App");
+            menuItems.add("Uninstall");
+
+            float density = context.getResources().getDisplayMetrics().density;
+            int iconSize = Math.round(24 * density);
+            int iconPadding = Math.round(16 * density);
+            List<ShortcutInfo> menuShortcuts = shortcuts;
+            ArrayAdapter<String> adapter = new ArrayAdapter<String>(context,
+                    android.R.layout.select_dialog_item, android.R.id.text1, menuItems) {
+                @NonNull
+                @Override
+                public View getView(int position, @Nullable View convertView, @NonNull ViewGroup parent) {
+                    TextView view = (TextView) super.getView(position, convertView, parent);
+                    Drawable icon = null;
+                    // Only API 25+ lists shortcuts
+                    if (position < menuShortcuts.size() && Build.VERSION.SDK_INT >= Build.VERSION_CODES.N_MR1) {
+                        icon = shortcutCache.getIcon(menuShortcuts.get(position), this::notifyDataSetChanged);
+                        if (icon != null) {
+                            icon.setBounds(0, 0, iconSize, iconSize);
+                        }
+                    }
+                    view.setCompoundDrawablesRelative(icon, null, null, null);
+                    view.setCompoundDrawablePadding(iconPadding);
+                    return view;
+                }
+            };
 
-            builder.setItems(menuItems, (dialog, which) -> {
+            builder.setAdapter(adapter, (dialog, which) -> {
                 if (isAdded() && !isDetached()) {
-                    switch (which) {
-                        case 0:
-                            togglePin(app);
-                            break;
-                        case 1:
-                            confirmUninstall(app);
-                            break;
+                    if (which < menuShortcuts.size()) {
+                        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.N_MR1) {
+                            launchShortcut(context, shortcutCache, menuShortcuts.get(which));
+                        }
+                    } else if (which == menuShortcuts.size()) {
+                        togglePin(app);
+                    } else if (which == menuShortcuts.size() + 1) {
+                        editKeywords(app);
+                    } else if (which == menuShortcuts.size() + 2) {
+                        if (activity != null && !activity.isFinishing()) {
+                            activity.hidePackage(app.packageName);
+                        }
+                    } else {
+                        confirmUninstall(app);
                     }
                 }
             });
 
             builder.show();
         } catch (Exception e) {
-            e.printStackTrace();
+            FlightRecorder.error(e);
+        }
+    }
+
+    // Extra words search finds the app by, e.g. "mail" for an email client with another name
+    private void editKeywords(MainActivity.AppInfo app) {
+        Context context = getContext();
+        if (context == null || !isAdded() || isDetached() || viewModel == null) return;
+
+        try {
+            SearchStore searchStore = viewModel.getSearchStore();
+            EditText input = new EditText(context);
+            input.setSingleLine(true);
+            input.setHint("Words separated by spaces");
+            input.setText(searchStore.getKeywords(app.getKey()));
+
+            AlertDialog.Builder builder = new AlertDialog.Builder(context);
+            builder.setTitle("Search keywords for " + app.name);
+            builder.setView(input);
+            builder.setPositiveButton("Save", (dialog, which) ->
+                    searchStore.setKeywords(app.getKey(), input.getText().toString()));
+            builder.setNegativeButton("Cancel", null);
+            builder.show();
+        } catch (Exception e) {
+            FlightRecorder.error(e);
         }
     }
 
@@ -760,14 +1511,15 @@ public class AppsFragment extends Fragment {
             builder.setNegativeButton("Cancel", null);
             builder.show();
         } catch (Exception e) {
-            e.printStackTrace();
+            FlightRecorder.error(e);
         }
     }
 
     private void uninstallApp(MainActivity.AppInfo app) {
         MainActivity activity = (MainActivity) getActivity();
         if (activity != null && !activity.isFinishing()) {
-            activity.launchUninstall(app.packageName);
+            activity.launchUninstall(app.packageName,
+                    app.record != null ? app.record.profile : AppRecord.OWN_PROFILE);
         }
     }
 
@@ -777,34 +1529,83 @@ public class AppsFragment extends Fragment {
 
             MainActivity activity = (MainActivity) getActivity();
             if (activity != null && !activity.isFinishing() && !activity.isDestroyed()) {
+                // Update the catalog first so the save persists the new pin set
+                viewModel.updateAppPinStatus(app.getKey(), app.isPinned);
                 activity.savePinnedApps();
 
                 String message = app.isPinned ? "Added to Pinned" : "Removed from Pinned";
                 Toast.makeText(getContext(), message, Toast.LENGTH_SHORT).show();
-
-                viewModel.updateAppPinStatus(app.packageName, app.isPinned);
             }
         } catch (Exception e) {
-            e.printStackTrace();
+            FlightRecorder.error(e);
+        }
+    }
+
+    @RequiresApi(Build.VERSION_CODES.N_MR1)
+    private void launchShortcut(Context context, ShortcutCache shortcutCache, ShortcutInfo shortcut) {
+        long start = System.nanoTime();
+        try {
+            shortcutCache.startShortcut(shortcut, null, null);
+            FlightRecorder.record(FlightRecorder.Event.LAUNCH, shortcut.getPackage(), System.nanoTime() - start,
+                    shortcut.getId());
+        } catch (Exception e) {
+            // Removed or disabled since it was cached, or the launcher lost the home role
+            FlightRecorder.error(shortcut.getPackage(), e);
+            Toast.makeText(context, "Shortcut isn't available", Toast.LENGTH_SHORT).show();
         }
     }
 
-    private void launchApp(String packageName) {
+    private void launchApp(View source, MainActivity.AppInfo app) {
+        long tapStart = tapStartNanos();
         Context context = getContext();
         if (context == null) return;
 
         try {
-            PackageManager pm = context.getPackageManager();
-            Intent launchIntent = pm.getLaunchIntentForPackage(packageName);
-            if (launchIntent != null) {
-                launchIntent.addFlags(Intent.FLAG_ACTIVITY_NEW_TASK);
-                launchIntent.addFlags(Intent.FLAG_ACTIVITY_RESET_TASK_IF_NEEDED);
-                startActivity(launchIntent);
+            Rect sourceBounds = null;
+            Bundle options = null;
+            int width = source.getWidth();
+            int height = source.getHeight();
+            if (width > 0 && height > 0) {
+                int[] location = new int[2];
+                source.getLocationOnScreen(location);
+                sourceBounds = new Rect(location[0], location[1], location[0] + width, location[1] + height);
+                options = ActivityOptions.makeScaleUpAnimation(source, 0, 0, width, height).toBundle();
+            }
+
+            MainActivity activity = (MainActivity) getActivity();
+            if (app.record != null && !app.record.isOwnProfile()) {
+                // Activities of other profiles are only reachable through LauncherApps
+                if (activity == null) return;
+                activity.getCatalogSource().startProfileActivity(app.record, sourceBounds, options);
             } else {
-                Toast.makeText(context, "Cannot launch this app", Toast.LENGTH_SHORT).show();
+                Intent launchIntent = app.launchIntent != null
+                        ? new Intent(app.launchIntent)
+                        : resolveLaunchIntent(context, app.packageName);
+                if (launchIntent == null) {
+                    Toast.makeText(context, "Cannot launch this app", Toast.LENGTH_SHORT).show();
+                    return;
+                }
+                launchIntent.setSourceBounds(sourceBounds);
+
+                try {
+                    startActivity(launchIntent, options);
+                } catch (ActivityNotFoundException e) {
+                    // The cached activity went away in an update the catalog hasn't seen yet
+                    Intent resolved = app.launchIntent != null ? resolveLaunchIntent(context, app.packageName) : null;
+                    if (resolved == null) throw e;
+                    resolved.setSourceBounds(sourceBounds);
+                    startActivity(resolved, options);
+                }
+            }
+
+            long latency = System.nanoTime() - tapStart;
+            LatencyRecorder.getInstance().record(LatencyRecorder.Interaction.LAUNCH, latency);
+            if (viewModel != null) {
+                viewModel.getUsageStore().recordLaunch(app.getKey());
             }
+            FlightRecorder.record(FlightRecorder.Event.LAUNCH, app.packageName, latency);
         } catch (Exception e) {
-            e.printStackTrace();
+            FlightRecorder.error(e);
             Toast.makeText(context, "Error launching app", Toast.LENGTH_SHORT).show();
         }
     }
@@ -0,0 +1,246 @@
+// DeferredWork.java
+
+package com.cinemint.rosterlauncher;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.os.MessageQueue;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Queue for launcher work nobody is waiting on: offscreen tab rebuilds, overlay
+ * prep, cache warming, index rebuilds and snapshot persistence. Main-thread work
+ * runs only when the main looper goes idle and no tracked interaction is running;
+ * the rest runs at background priority on {@link LauncherExecutor}. Both lanes
+ * run in slices of at most half a frame, and work is keyed so repeated requests
+ * coalesce.
+ */
+public final class DeferredWork {
+
+    public enum Lane {
+        // Main thread, in looper idle gaps (view work)
+        IDLE,
+        // Background priority on the shared executor (I/O, index and cache builds)
+        BACKGROUND
+    }
+
+    /**
+     * A unit of deferred work. Long work does a bounded step per call and
+     * returns true to be called again in a later slice.
+     */
+    public interface Task {
+        boolean run(long deadlineNanos);
+    }
+
+    // Used until a window reports its refresh rate
+    private static final long DEFAULT_SLICE_NANOS = 8_000_000L;
+    // Idle work waits this long for an interaction to finish before checking again
+    private static final long INTERACTION_RETRY_MS = 100;
+
+    private static final DeferredWork instance = new DeferredWork();
+
+    private final Map<String, Task>[] queues;
+    private final long[] slices = new long[Lane.values().length];
+    private final long[] tasksRun = new long[Lane.values().length];
+    private final long[] overBudget = new long[Lane.values().length];
+    private final long[] maxSliceNanos = new long[Lane.values().length];
+    private volatile long sliceNanos = DEFAULT_SLICE_NANOS;
+
+    // Set on the main thread, read by posters on any thread
+    private volatile Handler mainHandler;
+    private volatile MessageQueue.IdleHandler idleHandler;
+    private volatile boolean backgroundStarted;
+    // A background slice is queued; more posts meanwhile are picked up by it
+    private final AtomicBoolean backgroundScheduled = new AtomicBoolean();
+
+    // Empty messages: the idle handler runs when the main queue drains again
+    private final Runnable idleKick = () -> {
+    };
+    private final Runnable backgroundSlice = this::runBackgroundSlice;
+
+    public static DeferredWork getInstance() {
+        return instance;
+    }
+
+    @SuppressWarnings("unchecked")
+    DeferredWork() {
+        queues = new Map[Lane.values().length];
+        for (int i = 0; i < queues.length; i++) {
+            queues[i] = new LinkedHashMap<>();
+        }
+    }
+
+    /**
+     * Start draining both lanes; slices take at most half a frame at the given
+     * refresh rate (main thread only)
+     */
+    public void start(float refreshRate) {
+        if (refreshRate > 0) {
+            sliceNanos = (long) (1_000_000_000L / refreshRate / 2);
+        }
+        if (idleHandler != null) return;
+
+        mainHandler = new Handler(Looper.getMainLooper());
+        backgroundStarted = true;
+
+        idleHandler = () -> {
+            if (FrameMetricsMonitor.getInstance().isInteracting()) {
+                if (hasWork(Lane.IDLE)) {
+                    mainHandler.postDelayed(idleKick, INTERACTION_RETRY_MS);
+                }
+            } else if (runSlice(Lane.IDLE, sliceNanos)) {
+                // Let input and frames queued meanwhile go first
+                mainHandler.post(idleKick);
+            }
+            return true;
+        };
+        Looper.myQueue().addIdleHandler(idleHandler);
+        wake(Lane.IDLE);
+        wake(Lane.BACKGROUND);
+    }
+
+    /**
+     * Stop running idle work; queued work stays for the next start. Background
+     * work keeps running so pending writes complete (main thread only)
+     */
+    public void stop() {
+        if (idleHandler == null) return;
+
+        Looper.myQueue().removeIdleHandler(idleHandler);
+        mainHandler.removeCallbacks(idleKick);
+        idleHandler = null;
+    }
+
+    public void post(Lane lane, String key, Runnable work) {
+        post(lane, key, deadline -> {
+            work.run();
+            return false;
+        });
+    }
+
+    /**
+     * Queue work under a key; work already queued under the key is replaced
+     * and keeps its place in line. Any thread.
+     */
+    public void post(Lane lane, String key, Task task) {
+        Map<String, Task> queue = queues[lane.ordinal()];
+        synchronized (this) {
+            if (queue.put(key, task) != null) {
+                LauncherCounters.increment(LauncherCounters.DEFERRED_COALESCED);
+            }
+        }
+        wake(lane);
+    }
+
+    /**
+     * Drop queued work; returns true if there was some, e.g. to run it right away instead
+     */
+    public boolean cancel(String key) {
+        boolean removed = false;
+        synchronized (this) {
+            for (Map<String, Task> queue : queues) {
+                removed |= queue.remove(key) != null;
+            }
+        }
+        return removed;
+    }
+
+    /**
+     * Run queued tasks of a lane until the slice budget is spent; at least one
+     * task runs per slice. Returns true if work is left.
+     */
+    boolean runSlice(Lane lane, long budgetNanos) {
+        Map<String, Task> queue = queues[lane.ordinal()];
+        long start = System.nanoTime();
+        long deadline = start + budgetNanos;
+        int ran = 0;
+
+        do {
+            String key;
+            Task task;
+            synchronized (this) {
+                Iterator<Map.Entry<String, Task>> head = queue.entrySet().iterator();
+                if (!head.hasNext()) break;
+                Map.Entry<String, Task> entry = head.next();
+                key = entry.getKey();
+                task = entry.getValue();
+                head.remove();
+            }
+
+            boolean more = false;
+            try {
+                more = task.run(deadline);
+            } catch (Exception e) {
+                FlightRecorder.error(key, e);
+            }
+            ran++;
+
+            // Unfinished work goes to the back unless it was posted again meanwhile
+            if (more) {
+                synchronized (this) {
+                    if (!queue.containsKey(key)) {
+                        queue.put(key, task);
+                    }
+                }
+            }
+        } while (System.nanoTime() < deadline);
+
+        long elapsed = System.nanoTime() - start;
+        synchronized (this) {
+            int index = lane.ordinal();
+            if (ran > 0) {
+                slices[index]++;
+                tasksRun[index] += ran;
+                maxSliceNanos[index] = Math.max(maxSliceNanos[index], elapsed);
+                if (elapsed > budgetNanos) {
+                    overBudget[index]++;
+                }
+            }
+            return !queue.isEmpty();
+        }
+    }
+
+    public synchronized boolean hasWork(Lane lane) {
+        return !queues[lane.ordinal()].isEmpty();
+    }
+
+    /**
+     * Queue and slice statistics for the activity's dumpsys output
+     */
+    synchronized void dumpState(DiagnosticsDump dump) {
+        dump.put("deferred.slice_us", sliceNanos / 1000);
+        for (Lane lane : Lane.values()) {
+            int index = lane.ordinal();
+            String key = "deferred." + lane.name().toLowerCase(Locale.US);
+            dump.put(key + ".pending", queues[index].size());
+            dump.put(key + ".slices", slices[index]);
+            dump.put(key + ".tasks", tasksRun[index]);
+            dump.put(key + ".over_budget", overBudget[index]);
+            dump.put(key + ".max_slice_us", maxSliceNanos[index] / 1000);
+        }
+    }
+
+    private void wake(Lane lane) {
+        if (lane == Lane.IDLE) {
+            Handler handler = mainHandler;
+            if (handler != null && idleHandler != null) {
+                handler.post(idleKick);
+            }
+        } else if (backgroundStarted && backgroundScheduled.compareAndSet(false, true)) {
+            LauncherExecutor.getInstance().serial("deferred").execute(LauncherExecutor.Priority.BACKGROUND,
+                    backgroundSlice);
+        }
+    }
+
+    private void runBackgroundSlice() {
+        backgroundScheduled.set(false);
+        if (runSlice(Lane.BACKGROUND, sliceNanos)) {
+            wake(Lane.BACKGROUND);
+        }
+    }
+}
@@ -0,0 +1,116 @@
+// DiagnosticsDump.java
+
+package com.cinemint.rosterlauncher;
+
+import java.io.PrintWriter;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Builds the dumpsys output of the launcher: one key=value line per metric,
+ * sorted by key, after a format line. Keys are stable so captures can be
+ * diffed and parsed by scripts. Read with:
+ * adb shell dumpsys activity com.cinemint.rosterlauncher/.MainActivity
+ * Pass --reset after the component name to clear the counters after dumping.
+ * PackageMonitorService writes the same format under dumpsys activity service.
+ */
+final class DiagnosticsDump {
+    static final String FORMAT_KEY = "dump.format";
+    static final int FORMAT_VERSION = 1;
+    static final String ARG_RESET = "--reset";
+    // Also append the framework's own (free-form) activity dump
+    static final String ARG_ALL = "--all";
+
+    private final Map<String, String> values = new TreeMap<>();
+
+    DiagnosticsDump put(String key, long value) {
+        values.put(key, String.valueOf(value));
+        return this;
+    }
+
+    DiagnosticsDump put(String key, boolean value) {
+        values.put(key, String.valueOf(value));
+        return this;
+    }
+
+    /**
+     * Ratios and percentages are written with a fixed precision and locale
+     */
+    DiagnosticsDump put(String key, double value) {
+        values.put(key, String.format(Locale.US, "%.3f", value));
+        return this;
+    }
+
+    DiagnosticsDump put(String key, String value) {
+        values.put(key, sanitize(value));
+        return this;
+    }
+
+    /**
+     * Section timings from {@link LauncherTrace}, in microseconds
+     */
+    DiagnosticsDump putTimings() {
+        for (LauncherTrace.Timing timing : LauncherTrace.getTimings()) {
+            String key = "trace." + timing.section;
+            put(key + ".count", timing.total);
+            put(key + ".last_us", timing.lastNanos / 1000);
+            put(key + ".p50_us", timing.p50Nanos / 1000);
+            put(key + ".p95_us", timing.p95Nanos / 1000);
+        }
+        return this;
+    }
+
+    /**
+     * Counters from {@link LauncherCounters} whose names start with {@code namePrefix}
+     */
+    DiagnosticsDump putCounters(String namePrefix) {
+        for (Map.Entry<String, Long> entry : LauncherCounters.getCounts().entrySet()) {
+            if (entry.getKey().startsWith(namePrefix)) {
+                put("counter." + entry.getKey(), entry.getValue());
+            }
+        }
+        return this;
+    }
+
+    /**
+     * Hits over lookups, or 0 before the first lookup
+     */
+    DiagnosticsDump putRate(String key, long hits, long misses) {
+        long lookups = hits + misses;
+        return put(key, lookups > 0 ? (double) hits / lookups : 0.0);
+    }
+
+    static boolean hasArg(String[] args, String arg) {
+        if (args == null) return false;
+        for (String a : args) {
+            if (arg.equals(a)) return true;
+        }
+        return false;
+    }
+
+    void writeTo(String prefix, PrintWriter writer) {
+        String p = prefix != null ? prefix : "";
+        writer.print(p);
+        writer.println(FORMAT_KEY + "=" + FORMAT_VERSION);
+        for (Map.Entry<String, String> entry : values.entrySet()) {
+            writer.print(p);
+            writer.print(entry.getKey());
+            writer.print('=');
+            writer.println(entry.getValue());
+        }
+        writer.flush();
+    }
+
+    // One value per line: whitespace and '=' would break parsing
+    private static String sanitize(String value) {
+        if (value == null) return "null";
+
+        StringBuilder sb = new StringBuilder(value.length());
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            sb.append(Character.isWhitespace(c) || c == '=' ? '_' : c);
+        }
+        return sb.toString();
+    }
+}
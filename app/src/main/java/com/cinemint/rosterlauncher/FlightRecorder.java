@@ -0,0 +1,236 @@
+// FlightRecorder.java
+
+package com.cinemint.rosterlauncher;
+
+import android.content.Context;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Fixed-size, lock-free ring of structured launcher events (scans, publishes,
+ * refreshes, package broadcasts, errors). Recording stores a few references and
+ * longs into preallocated slots, so it is cheap enough for every event on the
+ * refresh path. The ring is printed by dumpsys with --events and written to
+ * files/flight_recorder.tsv when the process crashes:
+ * adb shell run-as com.cinemint.rosterlauncher cat files/flight_recorder.tsv
+ */
+public final class FlightRecorder {
+    static final String FILE_NAME = "flight_recorder.tsv";
+    static final String ARG_EVENTS = "--events";
+
+    // Power of two so the slot is the sequence number masked
+    static final int CAPACITY = 1024;
+    private static final int MASK = CAPACITY - 1;
+
+    /**
+     * Event codes; the meaning of subject, value and detail depends on the code.
+     * Append only, dumps are compared across builds.
+     */
+    public enum Event {
+        // subject: where or package, detail: exception type, message and top frame
+        ERROR,
+        // value: duration in ns
+        SCAN,
+        // value: catalog version that was already published
+        SCAN_UNCHANGED,
+        // value: number of apps published
+        PUBLISH,
+        // value: number of icons decoded
+        ICONS,
+        // subject: package, detail: broadcast action, value: 1 if replacing
+        PACKAGE_EVENT,
+        // subject: package
+        PACKAGE_REMOVED,
+        // subject: component key, value: 1 if pinned
+        PIN,
+        // subject: tab, value: duration in ns
+        REFRESH,
+        // subject: tab, value: rows rebound
+        REBIND,
+        // value: matching rows
+        SEARCH,
+        // value: trim level
+        TRIM,
+        // subject: package, value: touch-up to startActivity in ns
+        LAUNCH,
+        // subject: package, value: launcher activities after the update
+        PACKAGE_UPDATE,
+        // subject: package or user, value: profile, detail: broadcast action
+        PROFILE_EVENT,
+        // subject: package, or null for a full load, value: shortcuts (packages on a full load)
+        SHORTCUTS,
+        // value: duration in ns of a completed maintenance run
+        MAINTENANCE
+    }
+
+    private static final AtomicLong next = new AtomicLong();
+
+    // Sequence number + 1 of the entry in each slot once it is complete, 0 while it is written
+    private static final AtomicLongArray stamps = new AtomicLongArray(CAPACITY);
+    private static final AtomicLongArray times = new AtomicLongArray(CAPACITY);
+    private static final AtomicLongArray threads = new AtomicLongArray(CAPACITY);
+    private static final AtomicLongArray values = new AtomicLongArray(CAPACITY);
+    private static final AtomicReferenceArray<Event> events = new AtomicReferenceArray<>(CAPACITY);
+    private static final AtomicReferenceArray<String> subjects = new AtomicReferenceArray<>(CAPACITY);
+    private static final AtomicReferenceArray<Object> details = new AtomicReferenceArray<>(CAPACITY);
+
+    private static volatile File crashFile;
+
+    private FlightRecorder() {
+    }
+
+    public static void record(Event event, String subject, long value) {
+        record(event, subject, value, null);
+    }
+
+    /**
+     * Record an event; allocation-free as long as subject and detail already exist.
+     * A Throwable detail is kept as a line of text, so the ring never holds on to
+     * an exception's stack, cause chain or the objects its message refers to.
+     */
+    public static void record(Event event, String subject, long value, Object detail) {
+        if (detail instanceof Throwable) {
+            detail = describe((Throwable) detail);
+        }
+        long seq = next.getAndIncrement();
+        int slot = (int) (seq & MASK);
+
+        // Readers skip the slot until the stamp is published again
+        stamps.set(slot, 0);
+        times.lazySet(slot, System.nanoTime());
+        threads.lazySet(slot, Thread.currentThread().getId());
+        events.lazySet(slot, event);
+        subjects.lazySet(slot, subject);
+        values.lazySet(slot, value);
+        details.lazySet(slot, detail);
+        stamps.set(slot, seq + 1);
+    }
+
+    /**
+     * Record a caught exception in place of printing its stack trace
+     */
+    public static void error(Throwable e) {
+        error(null, e);
+    }
+
+    public static void error(String subject, Throwable e) {
+        record(Event.ERROR, subject, 0, e);
+    }
+
+    /**
+     * Get the complete entries still in the ring, oldest first
+     */
+    public static List<Entry> snapshot() {
+        long end = next.get();
+        long start = Math.max(0, end - CAPACITY);
+
+        List<Entry> entries = new ArrayList<>((int) (end - start));
+        for (long seq = start; seq < end; seq++) {
+            int slot = (int) (seq & MASK);
+            long stamp = stamps.get(slot);
+            if (stamp != seq + 1) continue;
+
+            Entry entry = new Entry(seq, times.get(slot), threads.get(slot), events.get(slot),
+                    subjects.get(slot), values.get(slot), details.get(slot));
+
+            // Overwritten while it was read
+            if (stamps.get(slot) != stamp) continue;
+            entries.add(entry);
+        }
+        return entries;
+    }
+
+    /**
+     * Write the ring as tab-separated lines after a comment header
+     */
+    public static void writeTo(Writer writer) {
+        PrintWriter out = writer instanceof PrintWriter ? (PrintWriter) writer : new PrintWriter(writer);
+        out.println("# seq\ttime_us\tthread\tevent\tsubject\tvalue\tdetail");
+        for (Entry entry : snapshot()) {
+            out.println(entry.toLine());
+        }
+        out.flush();
+    }
+
+    /**
+     * Write the ring to the files dir when an uncaught exception kills the process
+     */
+    public static synchronized void installCrashHandler(Context context) {
+        if (crashFile != null) return;
+        crashFile = new File(context.getApplicationContext().getFilesDir(), FILE_NAME);
+
+        Thread.UncaughtExceptionHandler previous = Thread.getDefaultUncaughtExceptionHandler();
+        Thread.setDefaultUncaughtExceptionHandler((thread, e) -> {
+            record(Event.ERROR, thread.getName(), 0, e);
+            try (FileWriter out = new FileWriter(crashFile)) {
+                writeTo(out);
+            } catch (IOException | RuntimeException ignored) {
+                // Never mask the original crash
+            }
+            if (previous != null) {
+                previous.uncaughtException(thread, e);
+            }
+        });
+    }
+
+    // Exceptions are reduced to type, message and the frame that threw
+    private static String describe(Throwable t) {
+        StringBuilder sb = new StringBuilder(t.getClass().getName());
+        if (t.getMessage() != null) {
+            sb.append(": ").append(t.getMessage().replace('\t', ' ').replace('\n', ' '));
+        }
+        StackTraceElement[] stack = t.getStackTrace();
+        if (stack.length > 0) {
+            sb.append(" at ").append(stack[0]);
+        }
+        return sb.toString();
+    }
+
+    // Tests only; racing writers may leave stale entries
+    static void reset() {
+        for (int i = 0; i < CAPACITY; i++) {
+            stamps.set(i, 0);
+            subjects.set(i, null);
+            details.set(i, null);
+        }
+        next.set(0);
+    }
+
+    /**
+     * Immutable copy of one recorded event
+     */
+    public static final class Entry {
+        public final long seq;
+        public final long timeNanos;
+        public final long threadId;
+        public final Event event;
+        public final String subject;
+        public final long value;
+        public final Object detail;
+
+        Entry(long seq, long timeNanos, long threadId, Event event, String subject, long value, Object detail) {
+            this.seq = seq;
+            this.timeNanos = timeNanos;
+            this.threadId = threadId;
+            this.event = event;
+            this.subject = subject;
+            this.value = value;
+            this.detail = detail;
+        }
+
+        String toLine() {
+            return seq + "\t" + timeNanos / 1000 + "\t" + threadId + "\t" + event + "\t"
+                    + (subject != null ? subject : "-") + "\t" + value + "\t"
+                    + (detail != null ? detail : "-");
+        }
+    }
+}
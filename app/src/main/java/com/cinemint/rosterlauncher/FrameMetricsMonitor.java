@@ -0,0 +1,168 @@
+// FrameMetricsMonitor.java
+
+package com.cinemint.rosterlauncher;
+
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.os.Looper;
+import android.view.FrameMetrics;
+import android.view.Window;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Collects per-frame durations for the launcher window and attributes them to
+ * the interactions that were running (scroll, tab switch, refresh, pinned animation).
+ * Stats are process-wide so they survive activity recreation and can be dumped.
+ */
+public final class FrameMetricsMonitor {
+
+    // Frames are delivered asynchronously after rendering, so interactions stay
+    // active a little longer than the code that started them
+    private static final long END_LINGER_MS = 100;
+    private static final long DEFAULT_FRAME_BUDGET_NANOS = 16_666_667L;
+
+    public enum Interaction {
+        SCROLL,
+        TAB_SWITCH,
+        REFRESH,
+        PINNED_ANIMATION
+    }
+
+    private static final FrameMetricsMonitor instance = new FrameMetricsMonitor();
+
+    private final FrameStats[] stats = new FrameStats[Interaction.values().length];
+    private final int[] depth = new int[Interaction.values().length];
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+    // Bitmask of active interactions; written on the main thread, read on the metrics thread
+    private volatile int activeMask = 0;
+    private volatile long frameBudgetNanos = DEFAULT_FRAME_BUDGET_NANOS;
+
+    private HandlerThread metricsThread;
+    private Window attachedWindow;
+    private Window.OnFrameMetricsAvailableListener listener;
+
+    public static FrameMetricsMonitor getInstance() {
+        return instance;
+    }
+
+    private FrameMetricsMonitor() {
+        for (Interaction interaction : Interaction.values()) {
+            stats[interaction.ordinal()] = new FrameStats(interaction.name());
+        }
+    }
+
+    /**
+     * Start receiving frame metrics for the given window (main thread only)
+     */
+    public void attach(Window window, float refreshRate) {
+        detach();
+
+        if (refreshRate > 0) {
+            frameBudgetNanos = (long) (1_000_000_000L / refreshRate);
+        }
+
+        metricsThread = new HandlerThread("FrameMetrics");
+        metricsThread.start();
+
+        listener = (w, frameMetrics, dropCountSinceLastInvocation) -> {
+            int mask = activeMask;
+            if (mask == 0) return;
+
+            long duration = frameMetrics.getMetric(FrameMetrics.TOTAL_DURATION);
+            long budget = frameBudgetNanos;
+            for (int i = 0; i < stats.length; i++) {
+                if ((mask & (1 << i)) != 0) {
+                    stats[i].record(duration, budget);
+                }
+            }
+        };
+
+        try {
+            window.addOnFrameMetricsAvailableListener(listener, new Handler(metricsThread.getLooper()));
+            attachedWindow = window;
+        } catch (Exception e) {
+            FlightRecorder.error(e);
+            metricsThread.quitSafely();
+            metricsThread = null;
+            listener = null;
+        }
+    }
+
+    /**
+     * Stop receiving frame metrics (main thread only)
+     */
+    public void detach() {
+        if (attachedWindow != null && listener != null) {
+            try {
+                attachedWindow.removeOnFrameMetricsAvailableListener(listener);
+            } catch (Exception e) {
+                FlightRecorder.error(e);
+            }
+        }
+        attachedWindow = null;
+        listener = null;
+
+        if (metricsThread != null) {
+            metricsThread.quitSafely();
+            metricsThread = null;
+        }
+
+        mainHandler.removeCallbacksAndMessages(null);
+        Arrays.fill(depth, 0);
+        activeMask = 0;
+    }
+
+    /**
+     * Mark an interaction as running; calls nest and must be balanced with {@link #end}
+     */
+    public void begin(Interaction interaction) {
+        int index = interaction.ordinal();
+        depth[index]++;
+        activeMask |= 1 << index;
+    }
+
+    /**
+     * Mark an interaction as finished once its trailing frames have been delivered
+     */
+    public void end(Interaction interaction) {
+        mainHandler.postDelayed(() -> {
+            int index = interaction.ordinal();
+            if (depth[index] > 0 && --depth[index] == 0) {
+                activeMask &= ~(1 << index);
+            }
+        }, END_LINGER_MS);
+    }
+
+    public FrameStats.Snapshot getStats(Interaction interaction) {
+        return stats[interaction.ordinal()].snapshot();
+    }
+
+    public List<FrameStats.Snapshot> getAllStats() {
+        List<FrameStats.Snapshot> snapshots = new ArrayList<>();
+        for (FrameStats frameStats : stats) {
+            snapshots.add(frameStats.snapshot());
+        }
+        return snapshots;
+    }
+
+    /**
+     * True while any interaction is running, including its trailing frames
+     */
+    public boolean isInteracting() {
+        return activeMask != 0;
+    }
+
+    public long getFrameBudgetNanos() {
+        return frameBudgetNanos;
+    }
+
+    public void reset() {
+        for (FrameStats frameStats : stats) {
+            frameStats.reset();
+        }
+    }
+}
@@ -0,0 +1,113 @@
+// FrameStats.java
+
+package com.cinemint.rosterlauncher;
+
+import java.util.Arrays;
+
+/**
+ * Frame duration statistics for one interaction type.
+ * Keeps totals and a fixed slow-frame histogram so recording never allocates.
+ */
+public final class FrameStats {
+
+    // Upper bounds (exclusive, in ms) of the histogram buckets; the last bucket is open-ended
+    static final int[] BUCKET_BOUNDS_MS = {8, 16, 24, 33, 50, 100, 700};
+
+    private final String name;
+    private final long[] buckets = new long[BUCKET_BOUNDS_MS.length + 1];
+    private long totalFrames = 0;
+    private long jankyFrames = 0;
+    private long frozenFrames = 0;
+    private long totalNanos = 0;
+    private long maxNanos = 0;
+
+    public FrameStats(String name) {
+        this.name = name;
+    }
+
+    /**
+     * Record one frame; it counts as janky when it took longer than the frame budget
+     */
+    public synchronized void record(long durationNanos, long budgetNanos) {
+        totalFrames++;
+        totalNanos += durationNanos;
+        if (durationNanos > maxNanos) {
+            maxNanos = durationNanos;
+        }
+        if (durationNanos > budgetNanos) {
+            jankyFrames++;
+        }
+
+        long durationMs = durationNanos / 1_000_000;
+        int bucket = 0;
+        while (bucket < BUCKET_BOUNDS_MS.length && durationMs >= BUCKET_BOUNDS_MS[bucket]) {
+            bucket++;
+        }
+        buckets[bucket]++;
+        if (bucket == BUCKET_BOUNDS_MS.length) {
+            frozenFrames++;
+        }
+    }
+
+    public synchronized Snapshot snapshot() {
+        return new Snapshot(name, totalFrames, jankyFrames, frozenFrames,
+                totalFrames == 0 ? 0 : totalNanos / totalFrames, maxNanos, buckets.clone());
+    }
+
+    public synchronized void reset() {
+        totalFrames = 0;
+        jankyFrames = 0;
+        frozenFrames = 0;
+        totalNanos = 0;
+        maxNanos = 0;
+        Arrays.fill(buckets, 0);
+    }
+
+    /**
+     * Immutable copy of the statistics at one point in time
+     */
+    public static final class Snapshot {
+        public final String name;
+        public final long totalFrames;
+        public final long jankyFrames;
+        public final long frozenFrames;
+        public final long meanNanos;
+        public final long maxNanos;
+        public final long[] buckets;
+
+        Snapshot(String name, long totalFrames, long jankyFrames, long frozenFrames,
+                 long meanNanos, long maxNanos, long[] buckets) {
+            this.name = name;
+            this.totalFrames = totalFrames;
+            this.jankyFrames = jankyFrames;
+            this.frozenFrames = frozenFrames;
+            this.meanNanos = meanNanos;
+            this.maxNanos = maxNanos;
+            this.buckets = buckets;
+        }
+
+        public double jankPercent() {
+            return totalFrames == 0 ? 0 : jankyFrames * 100.0 / totalFrames;
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder sb = new StringBuilder();
+            sb.append(name)
+                    .append(" frames=").append(totalFrames)
+                    .append(" janky=").append(jankyFrames)
+                    .append(" jank%=").append(Math.round(jankPercent() * 10) / 10.0)
+                    .append(" frozen=").append(frozenFrames)
+                    .append(" maxMs=").append(maxNanos / 1_000_000)
+                    .append(" hist=");
+            for (int i = 0; i < buckets.length; i++) {
+                if (i > 0) sb.append(',');
+                sb.append(i < BUCKET_BOUNDS_MS.length
+                        ? "<" + BUCKET_BOUNDS_MS[i]
+                        : ">=" + BUCKET_BOUNDS_MS[BUCKET_BOUNDS_MS.length - 1])
+                        .append(':').append(buckets[i]);
+            }
+            return sb.toString();
+        }
+    }
+}
@@ -0,0 +1,166 @@
+// IconBitmapPool.java
+
+package com.cinemint.rosterlauncher;
+
+import android.content.res.Resources;
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Rect;
+import android.graphics.drawable.BitmapDrawable;
+import android.graphics.drawable.Drawable;
+import android.os.Build;
+
+import java.util.ArrayDeque;
+import java.util.Collection;
+
+/**
+ * Renders app icons once into fixed-size bitmaps, so rows hold an icon-sized
+ * bitmap instead of whatever the package shipped (adaptive layers, oversized
+ * PNGs). Rendering draws into a mutable scratch bitmap taken from a pool and
+ * copies the result: to a hardware bitmap on API 26+, whose pixels live in
+ * graphics memory rather than the Java heap, else to an immutable software
+ * bitmap. The pool only ever holds scratch bitmaps, which are never handed
+ * out, so no view or row can end up drawing a bitmap that was reused. Icons
+ * themselves are freed by the GC once nothing references them.
+ */
+public final class IconBitmapPool {
+    // Mutable bitmaps kept for reuse, whatever their size
+    private static final int DEFAULT_MAX_POOLED_BYTES = 1024 * 1024;
+
+    private static final IconBitmapPool instance = new IconBitmapPool();
+
+    private final ArrayDeque<Bitmap> pool = new ArrayDeque<>();
+    private int maxPooledBytes = DEFAULT_MAX_POOLED_BYTES;
+    private long pooledBytes;
+    private long rendered;
+    private long reused;
+    private long hardware;
+
+    public static IconBitmapPool getInstance() {
+        return instance;
+    }
+
+    private IconBitmapPool() {
+    }
+
+    /**
+     * Bound the bytes of mutable bitmaps kept for reuse, e.g. from the performance profile
+     */
+    public synchronized void setMaxPooledBytes(int bytes) {
+        maxPooledBytes = Math.max(0, bytes);
+        trimTo(maxPooledBytes);
+    }
+
+    /**
+     * Draw an icon into a bitmap of sizePx square and wrap it; any thread
+     */
+    public Drawable render(Resources resources, Drawable icon, int sizePx) {
+        Bitmap scratch = acquire(sizePx);
+        scratch.eraseColor(Color.TRANSPARENT);
+
+        // Some drawables are shared through their constant state, so their bounds are restored
+        Rect bounds = icon.copyBounds();
+        icon.setBounds(0, 0, sizePx, sizePx);
+        icon.draw(new Canvas(scratch));
+        icon.setBounds(bounds);
+
+        Bitmap bitmap = null;
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
+            // Null when the device can't allocate a hardware bitmap
+            bitmap = scratch.copy(Bitmap.Config.HARDWARE, false);
+            if (bitmap != null) {
+                synchronized (this) {
+                    hardware++;
+                }
+            }
+        }
+        if (bitmap == null) {
+            bitmap = scratch.copy(Bitmap.Config.ARGB_8888, false);
+        }
+        if (bitmap != null) {
+            recycle(scratch);
+        } else {
+            // No memory for a copy: the icon keeps the scratch bitmap, which leaves the pool for good
+            bitmap = scratch;
+        }
+        synchronized (this) {
+            rendered++;
+        }
+        return new BitmapDrawable(resources, bitmap);
+    }
+
+    /**
+     * Drop every pooled bitmap; returns how many were dropped
+     */
+    public synchronized int clear() {
+        int count = pool.size();
+        trimTo(0);
+        return count;
+    }
+
+    private synchronized Bitmap acquire(int sizePx) {
+        Bitmap bitmap = pool.pollFirst();
+        while (bitmap != null && (bitmap.getWidth() != sizePx || bitmap.getHeight() != sizePx)) {
+            // Left over from another profile's icon size
+            pooledBytes -= bitmap.getAllocationByteCount();
+            bitmap = pool.pollFirst();
+        }
+        if (bitmap != null) {
+            pooledBytes -= bitmap.getAllocationByteCount();
+            reused++;
+            return bitmap;
+        }
+        return Bitmap.createBitmap(sizePx, sizePx, Bitmap.Config.ARGB_8888);
+    }
+
+    private synchronized void recycle(Bitmap bitmap) {
+        if (bitmap.getAllocationByteCount() + pooledBytes > maxPooledBytes) return;
+        pool.addFirst(bitmap);
+        pooledBytes += bitmap.getAllocationByteCount();
+    }
+
+    private void trimTo(long bytes) {
+        while (pooledBytes > bytes && !pool.isEmpty()) {
+            pooledBytes -= pool.pollLast().getAllocationByteCount();
+        }
+    }
+
+    static boolean isHardware(Bitmap bitmap) {
+        return Build.VERSION.SDK_INT >= Build.VERSION_CODES.O && bitmap.getConfig() == Bitmap.Config.HARDWARE;
+    }
+
+    /**
+     * Icon memory of the given rows split by where the pixels live, and pool state
+     */
+    void dumpState(DiagnosticsDump dump, Collection<MainActivity.AppInfo> apps) {
+        long heapBytes = 0;
+        long nativeBytes = 0;
+        int unrendered = 0;
+        for (MainActivity.AppInfo app : apps) {
+            Drawable icon = app.icon;
+            if (icon == null) continue;
+            Bitmap bitmap = icon instanceof BitmapDrawable ? ((BitmapDrawable) icon).getBitmap() : null;
+            if (bitmap == null || bitmap.isRecycled()) {
+                unrendered++;
+            } else if (isHardware(bitmap)) {
+                // Hardware bitmaps report their size but hold no heap pixels
+                nativeBytes += (long) bitmap.getRowBytes() * bitmap.getHeight();
+            } else {
+                heapBytes += bitmap.getAllocationByteCount();
+            }
+        }
+        dump.put("icon.heap_bytes", heapBytes);
+        dump.put("icon.native_bytes", nativeBytes);
+        dump.put("icon.unrendered", unrendered);
+
+        synchronized (this) {
+            dump.put("icon.pool.size", pool.size());
+            dump.put("icon.pool.bytes", pooledBytes);
+            dump.put("icon.pool.max_bytes", maxPooledBytes);
+            dump.put("icon.rendered", rendered);
+            dump.put("icon.rendered_hardware", hardware);
+            dump.put("icon.pool.reused", reused);
+        }
+    }
+}
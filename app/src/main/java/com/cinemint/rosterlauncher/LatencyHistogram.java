@@ -0,0 +1,105 @@
+// LatencyHistogram.java
+
+package com.cinemint.rosterlauncher;
+
+import java.util.Arrays;
+
+/**
+ * Fixed-bucket latency histogram for one interaction type. Memory is constant
+ * no matter how many samples are recorded, and recording never allocates;
+ * percentiles resolve to the upper bound of the bucket they fall in.
+ */
+public final class LatencyHistogram {
+
+    // Upper bounds (exclusive, in ms) of the buckets; the last bucket is open-ended
+    static final int[] BUCKET_BOUNDS_MS = {
+            1, 2, 4, 8, 12, 16, 24, 33, 50, 75, 100, 150, 200, 300, 500, 750, 1000, 2000, 5000};
+
+    private final String name;
+    private final long[] buckets = new long[BUCKET_BOUNDS_MS.length + 1];
+    private long count = 0;
+    private long totalNanos = 0;
+    private long maxNanos = 0;
+
+    public LatencyHistogram(String name) {
+        this.name = name;
+    }
+
+    public synchronized void record(long latencyNanos) {
+        long latency = Math.max(0, latencyNanos);
+        count++;
+        totalNanos += latency;
+        if (latency > maxNanos) {
+            maxNanos = latency;
+        }
+        buckets[bucketOf(latency)]++;
+    }
+
+    public synchronized Snapshot snapshot() {
+        return new Snapshot(name, count, count == 0 ? 0 : totalNanos / count, maxNanos, buckets.clone());
+    }
+
+    public synchronized void reset() {
+        count = 0;
+        totalNanos = 0;
+        maxNanos = 0;
+        Arrays.fill(buckets, 0);
+    }
+
+    static int bucketOf(long latencyNanos) {
+        long latencyMs = latencyNanos / 1_000_000;
+        int bucket = 0;
+        while (bucket < BUCKET_BOUNDS_MS.length && latencyMs >= BUCKET_BOUNDS_MS[bucket]) {
+            bucket++;
+        }
+        return bucket;
+    }
+
+    /**
+     * Immutable copy of the histogram at one point in time
+     */
+    public static final class Snapshot {
+        public final String name;
+        public final long count;
+        public final long meanNanos;
+        public final long maxNanos;
+        public final long[] buckets;
+
+        Snapshot(String name, long count, long meanNanos, long maxNanos, long[] buckets) {
+            this.name = name;
+            this.count = count;
+            this.meanNanos = meanNanos;
+            this.maxNanos = maxNanos;
+            this.buckets = buckets;
+        }
+
+        /**
+         * Upper bound of the bucket holding the given percentile, capped at the
+         * slowest sample; 0 when empty. Use it to assert SLOs in tests.
+         */
+        public long percentileNanos(double percentile) {
+            if (count == 0) return 0;
+
+            long rank = Math.max(1, (long) Math.ceil(percentile / 100.0 * count));
+            long seen = 0;
+            for (int i = 0; i < buckets.length; i++) {
+                seen += buckets[i];
+                if (seen >= rank) {
+                    return i < BUCKET_BOUNDS_MS.length
+                            ? Math.min(BUCKET_BOUNDS_MS[i] * 1_000_000L, maxNanos)
+                            : maxNanos;
+                }
+            }
+            return maxNanos;
+        }
+
+        @Override
+        public String toString() {
+            return name + " count=" + count
+                    + " p50=" + percentileNanos(50) / 1_000_000 + "ms"
+                    + " p95=" + percentileNanos(95) / 1_000_000 + "ms"
+                    + " p99=" + percentileNanos(99) / 1_000_000 + "ms"
+                    + " max=" + maxNanos / 1_000_000 + "ms";
+        }
+    }
+}
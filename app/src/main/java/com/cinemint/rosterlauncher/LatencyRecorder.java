@@ -0,0 +1,115 @@
+// LatencyRecorder.java
+
+package com.cinemint.rosterlauncher;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.view.Choreographer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Latency histograms for the interactions users feel most: tap to startActivity,
+ * search keystroke to rendered results and tab switch to the first settled frame.
+ * Process-wide like {@link FrameMetricsMonitor}, so tests can assert SLOs on them.
+ */
+public final class LatencyRecorder {
+
+    // A start that was never ended (e.g. the All tab wasn't shown) is dropped after this long
+    private static final long MAX_PENDING_NANOS = 5_000_000_000L;
+
+    public enum Interaction {
+        // Touch-up on a row to startActivity returning
+        LAUNCH,
+        // Search query change to the first frame drawn with its results
+        SEARCH,
+        // Page selected to the first frame after the pager settles
+        TAB_SWITCH
+    }
+
+    private static final LatencyRecorder instance = new LatencyRecorder();
+
+    private final LatencyHistogram[] histograms = new LatencyHistogram[Interaction.values().length];
+    // Start of the oldest interaction still waiting for its end, 0 when none
+    private final AtomicLongArray pendingStarts = new AtomicLongArray(Interaction.values().length);
+    private Handler mainHandler;
+
+    public static LatencyRecorder getInstance() {
+        return instance;
+    }
+
+    private LatencyRecorder() {
+        for (Interaction interaction : Interaction.values()) {
+            histograms[interaction.ordinal()] = new LatencyHistogram(interaction.name());
+        }
+    }
+
+    public void record(Interaction interaction, long latencyNanos) {
+        histograms[interaction.ordinal()].record(latencyNanos);
+    }
+
+    /**
+     * Mark the start of an interaction that ends elsewhere. Starts before an end
+     * coalesce, and the end is measured from the oldest one. Any thread.
+     */
+    public void begin(Interaction interaction) {
+        int index = interaction.ordinal();
+        long now = System.nanoTime();
+        long pending = pendingStarts.get(index);
+        if (pending == 0 || now - pending > MAX_PENDING_NANOS) {
+            pendingStarts.compareAndSet(index, pending, now);
+        }
+    }
+
+    /**
+     * End a pending interaction now; returns false if none was started
+     */
+    public boolean end(Interaction interaction) {
+        long start = takePending(interaction);
+        if (start == 0) return false;
+
+        record(interaction, System.nanoTime() - start);
+        return true;
+    }
+
+    /**
+     * End a pending interaction once the next frame has been drawn (main thread only)
+     */
+    public void endAfterNextFrame(Interaction interaction) {
+        long start = takePending(interaction);
+        if (start == 0) return;
+
+        if (mainHandler == null) {
+            mainHandler = new Handler(Looper.getMainLooper());
+        }
+        // Frame callbacks run before traversal; a message posted from one runs after the draw
+        Choreographer.getInstance().postFrameCallback(frameTimeNanos ->
+                mainHandler.post(() -> record(interaction, System.nanoTime() - start)));
+    }
+
+    public LatencyHistogram.Snapshot getStats(Interaction interaction) {
+        return histograms[interaction.ordinal()].snapshot();
+    }
+
+    public List<LatencyHistogram.Snapshot> getAllStats() {
+        List<LatencyHistogram.Snapshot> snapshots = new ArrayList<>();
+        for (LatencyHistogram histogram : histograms) {
+            snapshots.add(histogram.snapshot());
+        }
+        return snapshots;
+    }
+
+    public void reset() {
+        for (int i = 0; i < histograms.length; i++) {
+            histograms[i].reset();
+            pendingStarts.set(i, 0);
+        }
+    }
+
+    private long takePending(Interaction interaction) {
+        long start = pendingStarts.getAndSet(interaction.ordinal(), 0);
+        return start != 0 && System.nanoTime() - start <= MAX_PENDING_NANOS ? start : 0;
+    }
+}
@@ -0,0 +1,294 @@
+// LauncherAppsCatalogSource.java
+
+package com.cinemint.rosterlauncher;
+
+import android.content.BroadcastReceiver;
+import android.content.ComponentName;
+import android.content.Context;
+import android.content.Intent;
+import android.content.IntentFilter;
+import android.content.pm.ApplicationInfo;
+import android.content.pm.LauncherActivityInfo;
+import android.content.pm.LauncherApps;
+import android.graphics.Rect;
+import android.graphics.drawable.Drawable;
+import android.os.Bundle;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.Process;
+import android.os.UserHandle;
+import android.os.UserManager;
+
+import com.cinemint.rosterlauncher.catalog.AppRecord;
+import com.cinemint.rosterlauncher.catalog.CatalogSource;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Catalog source for every user profile of the device owner, e.g. a work
+ * profile next to the personal one. Each profile is a catalog partition:
+ * the launcher's own profile is resolved by the PackageManager source it
+ * wraps, other profiles through LauncherApps. Package and availability
+ * changes arrive per profile through {@link Listener}.
+ */
+public class LauncherAppsCatalogSource implements CatalogSource {
+
+    /**
+     * Changes reported on the main thread
+     */
+    public interface Listener {
+        // Launcher activities of one package in one profile may have changed
+        void onPackageChanged(long profile, String packageName);
+
+        // A profile was added, removed, paused or resumed; reload its partition
+        void onProfileChanged(long profile);
+    }
+
+    private final Context context;
+    private final CatalogSource ownProfile;
+    private final LauncherApps launcherApps;
+    private final UserManager userManager;
+    // Serial numbers of the profiles seen so far, so a removed profile can still be named
+    private final Map<UserHandle, Long> profiles = new ConcurrentHashMap<>();
+
+    private LauncherApps.Callback callback;
+    private BroadcastReceiver profileReceiver;
+
+    public LauncherAppsCatalogSource(Context context, CatalogSource ownProfile) {
+        this.context = context.getApplicationContext();
+        this.ownProfile = ownProfile;
+        this.launcherApps = (LauncherApps) context.getSystemService(Context.LAUNCHER_APPS_SERVICE);
+        this.userManager = (UserManager) context.getSystemService(Context.USER_SERVICE);
+    }
+
+    @Override
+    public List<AppRecord> loadAll() {
+        List<AppRecord> records = ownProfile.loadAll();
+        for (UserHandle user : otherProfiles()) {
+            records.addAll(loadActivities(null, user));
+        }
+        return records;
+    }
+
+    @Override
+    public List<AppRecord> loadProfile(long profile) {
+        if (profile == AppRecord.OWN_PROFILE) {
+            return ownProfile.loadAll();
+        }
+        UserHandle user = userOf(profile);
+        return user != null ? loadActivities(null, user) : new ArrayList<>();
+    }
+
+    @Override
+    public List<AppRecord> loadPackage(long profile, String packageName) {
+        if (profile == AppRecord.OWN_PROFILE) {
+            return ownProfile.loadPackage(profile, packageName);
+        }
+        UserHandle user = userOf(profile);
+        return user != null ? loadActivities(packageName, user) : new ArrayList<>();
+    }
+
+    /**
+     * Profile id the catalog uses for a user: {@link AppRecord#OWN_PROFILE} for
+     * the launcher's own, the user serial number for the others; -1 for a user
+     * that doesn't exist (any more), which must not get records
+     */
+    public long profileOf(UserHandle user) {
+        if (Process.myUserHandle().equals(user)) return AppRecord.OWN_PROFILE;
+
+        Long profile = profiles.get(user);
+        if (profile == null) {
+            profile = userManager.getSerialNumberForUser(user);
+            if (profile >= 0) {
+                profiles.put(user, profile);
+            }
+        }
+        return profile;
+    }
+
+    /**
+     * User of a catalog profile, or null if the profile no longer exists
+     */
+    public UserHandle userOf(long profile) {
+        return profile == AppRecord.OWN_PROFILE ? Process.myUserHandle() : userManager.getUserForSerialNumber(profile);
+    }
+
+    /**
+     * Badged icon of an activity in another profile; null if it can't be resolved
+     */
+    public Drawable loadProfileIcon(AppRecord record) {
+        LauncherActivityInfo info = resolve(record);
+        return info != null ? info.getBadgedIcon(0) : null;
+    }
+
+    /**
+     * Start an activity of another profile, which a plain intent can't reach
+     */
+    public void startProfileActivity(AppRecord record, Rect sourceBounds, Bundle options) {
+        UserHandle user = userOf(record.profile);
+        if (user == null) {
+            throw new IllegalStateException("Profile " + record.profile + " is gone");
+        }
+        launcherApps.startMainActivity(new ComponentName(record.packageName, record.activityName),
+                user, sourceBounds, options);
+    }
+
+    /**
+     * Start delivering changes to the listener, or stop with null
+     */
+    public void setListener(Listener listener) {
+        if (callback != null) {
+            launcherApps.unregisterCallback(callback);
+            callback = null;
+        }
+        if (profileReceiver != null) {
+            try {
+                context.unregisterReceiver(profileReceiver);
+            } catch (Exception ignored) {}
+            profileReceiver = null;
+        }
+        if (listener == null) return;
+
+        Handler mainHandler = new Handler(Looper.getMainLooper());
+        callback = new ProfileCallback(listener);
+        launcherApps.registerCallback(callback, mainHandler);
+
+        profileReceiver = new BroadcastReceiver() {
+            @Override
+            public void onReceive(Context context, Intent intent) {
+                UserHandle user = intent.getParcelableExtra(Intent.EXTRA_USER);
+                if (user == null) return;
+
+                // A removed user has no serial number any more, so use the one seen before
+                Long known = Intent.ACTION_MANAGED_PROFILE_REMOVED.equals(intent.getAction())
+                        ? profiles.remove(user) : null;
+                long profile = known != null ? known : profileOf(user);
+                FlightRecorder.record(FlightRecorder.Event.PROFILE_EVENT, String.valueOf(user), profile,
+                        intent.getAction());
+                if (profile >= 0) {
+                    listener.onProfileChanged(profile);
+                }
+            }
+        };
+        IntentFilter filter = new IntentFilter();
+        filter.addAction(Intent.ACTION_MANAGED_PROFILE_ADDED);
+        filter.addAction(Intent.ACTION_MANAGED_PROFILE_REMOVED);
+        filter.addAction(Intent.ACTION_MANAGED_PROFILE_AVAILABLE);
+        filter.addAction(Intent.ACTION_MANAGED_PROFILE_UNAVAILABLE);
+        context.registerReceiver(profileReceiver, filter);
+    }
+
+    // Profiles of the launcher's user other than its own, which the wrapped source covers
+    private List<UserHandle> otherProfiles() {
+        List<UserHandle> users = new ArrayList<>();
+        UserHandle self = Process.myUserHandle();
+        for (UserHandle user : userManager.getUserProfiles()) {
+            if (!self.equals(user)) {
+                users.add(user);
+            }
+        }
+        return users;
+    }
+
+    // Paused profiles are listed too, so their pins survive until they are resumed
+    private List<AppRecord> loadActivities(String packageName, UserHandle user) {
+        List<AppRecord> records = new ArrayList<>();
+        long profile = profileOf(user);
+        if (profile < 0) {
+            // Removed between listing the profiles and loading this one
+            FlightRecorder.record(FlightRecorder.Event.PROFILE_EVENT, String.valueOf(user), profile, "unknown user");
+            return records;
+        }
+        try {
+            for (LauncherActivityInfo info : launcherApps.getActivityList(packageName, user)) {
+                ComponentName component = info.getComponentName();
+                ApplicationInfo appInfo = info.getApplicationInfo();
+                records.add(new AppRecord(component.getPackageName(), component.getClassName(),
+                        info.getLabel().toString(), profile,
+                        PackageManagerCatalogSource.isSystemApp(appInfo),
+                        PackageManagerCatalogSource.categoryOf(appInfo)));
+            }
+        } catch (Exception e) {
+            // The profile was removed while it was queried
+            FlightRecorder.error(String.valueOf(user), e);
+        }
+        return records;
+    }
+
+    private LauncherActivityInfo resolve(AppRecord record) {
+        UserHandle user = userOf(record.profile);
+        if (user == null || record.activityName.isEmpty()) return null;
+
+        Intent intent = new Intent(Intent.ACTION_MAIN);
+        intent.addCategory(Intent.CATEGORY_LAUNCHER);
+        intent.setComponent(new ComponentName(record.packageName, record.activityName));
+        return launcherApps.resolveActivity(intent, user);
+    }
+
+    private class ProfileCallback extends LauncherApps.Callback {
+        private final Listener listener;
+
+        ProfileCallback(Listener listener) {
+            this.listener = listener;
+        }
+
+        // The own profile's add/remove/change events come from package broadcasts
+        @Override
+        public void onPackageAdded(String packageName, UserHandle user) {
+            onOtherProfilePackage(packageName, user);
+        }
+
+        @Override
+        public void onPackageRemoved(String packageName, UserHandle user) {
+            onOtherProfilePackage(packageName, user);
+        }
+
+        @Override
+        public void onPackageChanged(String packageName, UserHandle user) {
+            onOtherProfilePackage(packageName, user);
+        }
+
+        // Availability (apps on unmounted storage, suspended apps) has no package broadcast
+        @Override
+        public void onPackagesAvailable(String[] packageNames, UserHandle user, boolean replacing) {
+            onPackages(packageNames, user);
+        }
+
+        @Override
+        public void onPackagesUnavailable(String[] packageNames, UserHandle user, boolean replacing) {
+            onPackages(packageNames, user);
+        }
+
+        @Override
+        public void onPackagesSuspended(String[] packageNames, UserHandle user) {
+            onPackages(packageNames, user);
+        }
+
+        @Override
+        public void onPackagesUnsuspended(String[] packageNames, UserHandle user) {
+            onPackages(packageNames, user);
+        }
+
+        private void onOtherProfilePackage(String packageName, UserHandle user) {
+            if (!Process.myUserHandle().equals(user)) {
+                onPackages(new String[]{packageName}, user);
+            }
+        }
+
+        private void onPackages(String[] packageNames, UserHandle user) {
+            long profile = profileOf(user);
+            if (profile < 0) {
+                // A callback for a user removed meanwhile; its partition goes with the profile broadcast
+                FlightRecorder.record(FlightRecorder.Event.PROFILE_EVENT, String.valueOf(user), profile, "unknown user");
+                return;
+            }
+            for (String packageName : packageNames) {
+                FlightRecorder.record(FlightRecorder.Event.PROFILE_EVENT, packageName, profile);
+                listener.onPackageChanged(profile, packageName);
+            }
+        }
+    }
+}
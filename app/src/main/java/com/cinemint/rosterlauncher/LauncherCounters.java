@@ -0,0 +1,87 @@
+// LauncherCounters.java
+
+package com.cinemint.rosterlauncher;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Named event counters for the update pipeline: scans requested and executed,
+ * refreshes coalesced by debouncing, icon reuse and package events. Read back
+ * through the dumpsys output of MainActivity and PackageMonitorService.
+ */
+public final class LauncherCounters {
+
+    // Counter names
+    public static final String SCAN_REQUESTED = "scan.requested";
+    public static final String SCAN_EXECUTED = "scan.executed";
+    public static final String SCAN_PUBLISHED = "scan.published";
+    public static final String SCAN_UNCHANGED = "scan.unchanged";
+    public static final String PACKAGE_UPDATE_REQUESTED = "package.update.requested";
+    public static final String PACKAGE_UPDATE_EXECUTED = "package.update.executed";
+    public static final String PACKAGE_UPDATE_PUBLISHED = "package.update.published";
+    public static final String PROFILE_UPDATE_REQUESTED = "profile.update.requested";
+    public static final String PROFILE_UPDATE_EXECUTED = "profile.update.executed";
+    public static final String ICON_REUSED = "icon.reused";
+    public static final String ICON_DECODED = "icon.decoded";
+    public static final String ICON_FAILED = "icon.failed";
+    public static final String VISIBILITY_COMPILED = "visibility.compiled";
+    public static final String SHORTCUT_QUERY = "shortcut.query";
+    public static final String SHORTCUT_ICON_REUSED = "shortcut.icon.reused";
+    public static final String SHORTCUT_ICON_DECODED = "shortcut.icon.decoded";
+    public static final String UI_REFRESH_REQUESTED = "ui.refresh.requested";
+    public static final String UI_REFRESH_COALESCED = "ui.refresh.coalesced";
+    public static final String UI_REFRESH_REBUILT = "ui.refresh.rebuilt";
+    public static final String UI_REFRESH_REBOUND = "ui.refresh.rebound";
+    public static final String UI_SEARCH_IN_PLACE = "ui.search.in_place";
+    public static final String DEFERRED_COALESCED = "deferred.coalesced";
+    public static final String SERVICE_EVENT_RECEIVED = "service.event.received";
+    public static final String SERVICE_EVENT_DEDUPED = "service.event.deduped";
+    public static final String SERVICE_EVENT_NOTIFIED = "service.event.notified";
+
+    private static final Map<String, long[]> counters = new TreeMap<>();
+
+    private LauncherCounters() {
+    }
+
+    public static void increment(String name) {
+        add(name, 1);
+    }
+
+    public static void add(String name, long delta) {
+        synchronized (counters) {
+            long[] value = counters.get(name);
+            if (value == null) {
+                value = new long[1];
+                counters.put(name, value);
+            }
+            value[0] += delta;
+        }
+    }
+
+    public static long get(String name) {
+        synchronized (counters) {
+            long[] value = counters.get(name);
+            return value != null ? value[0] : 0;
+        }
+    }
+
+    /**
+     * Get a snapshot of every counter, ordered by name
+     */
+    public static Map<String, Long> getCounts() {
+        Map<String, Long> result = new TreeMap<>();
+        synchronized (counters) {
+            for (Map.Entry<String, long[]> entry : counters.entrySet()) {
+                result.put(entry.getKey(), entry.getValue()[0]);
+            }
+        }
+        return result;
+    }
+
+    public static void reset() {
+        synchronized (counters) {
+            counters.clear();
+        }
+    }
+}
@@ -0,0 +1,297 @@
+// LauncherExecutor.java
+
+package com.cinemint.rosterlauncher;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Process-wide background executor shared by activities, the view model and
+ * services. Queued work runs by priority, then in submission order. Work that
+ * must not overlap (catalog scans and updates) goes through a named
+ * {@link SerialQueue}, which outlives any one activity, so a new instance
+ * queues behind the work of the one it replaces instead of racing it.
+ */
+public final class LauncherExecutor {
+
+    public enum Priority {
+        // Someone is waiting for the result: first load, icons of on-screen rows
+        USER_BLOCKING,
+        // Keeps what is shown current: package updates, rescans, prefetch
+        VISIBLE,
+        // Nobody is waiting: maintenance, persistence, recordings
+        BACKGROUND
+    }
+
+    // Two threads, so a long scan doesn't hold up everything else
+    private static final int THREADS = 2;
+    private static final long KEEP_ALIVE_SECONDS = 30;
+
+    private static final LauncherExecutor instance = new LauncherExecutor();
+
+    private final ThreadPoolExecutor pool;
+    private final AtomicLong sequence = new AtomicLong();
+    private final Map<String, SerialQueue> serialQueues = new TreeMap<>();
+    // Runs jobs instead of the pool when set; see runOn
+    private volatile Executor runner;
+
+    // Per priority: queued now, started, cancelled before starting, longest wait
+    private final AtomicLongArray queued = new AtomicLongArray(Priority.values().length);
+    private final AtomicLongArray started = new AtomicLongArray(Priority.values().length);
+    private final AtomicLongArray cancelled = new AtomicLongArray(Priority.values().length);
+    private final AtomicLongArray maxWaitNanos = new AtomicLongArray(Priority.values().length);
+
+    public static LauncherExecutor getInstance() {
+        return instance;
+    }
+
+    LauncherExecutor() {
+        AtomicInteger threadCount = new AtomicInteger();
+        pool = new ThreadPoolExecutor(THREADS, THREADS, KEEP_ALIVE_SECONDS, TimeUnit.SECONDS,
+                new PriorityBlockingQueue<>(),
+                r -> new Thread(r, "Launcher-" + threadCount.incrementAndGet()));
+        pool.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Run work on the pool; the returned future cancels it if it hasn't started
+     */
+    public Future<?> execute(Priority priority, Runnable work) {
+        Job job = new Job(priority, null, work, null);
+        dispatch(job);
+        return job;
+    }
+
+    /**
+     * Run jobs on the given executor instead of the pool, or on the pool again
+     * for null. Tests pass a direct executor so the pipeline runs on their
+     * thread and its results don't depend on thread timing.
+     */
+    void runOn(Executor runner) {
+        this.runner = runner;
+    }
+
+    private void dispatch(Job job) {
+        Executor current = runner;
+        if (current != null) {
+            current.execute(job);
+        } else {
+            pool.execute(job);
+        }
+    }
+
+    /**
+     * Executor view of one priority, for components that take an {@link Executor}
+     */
+    public Executor executor(Priority priority) {
+        return work -> execute(priority, work);
+    }
+
+    /**
+     * The serial queue with the given name, created on first use
+     */
+    public synchronized SerialQueue serial(String name) {
+        SerialQueue queue = serialQueues.get(name);
+        if (queue == null) {
+            queue = new SerialQueue(name);
+            serialQueues.put(name, queue);
+        }
+        return queue;
+    }
+
+    /**
+     * Queue depths and waits for the activity's and service's dumpsys output
+     */
+    void dumpState(DiagnosticsDump dump) {
+        dump.put("executor.threads", pool.getPoolSize());
+        dump.put("executor.active", pool.getActiveCount());
+        for (Priority priority : Priority.values()) {
+            int index = priority.ordinal();
+            String key = "executor." + priority.name().toLowerCase(Locale.US);
+            dump.put(key + ".queued", queued.get(index));
+            dump.put(key + ".started", started.get(index));
+            dump.put(key + ".cancelled", cancelled.get(index));
+            dump.put(key + ".max_wait_us", maxWaitNanos.get(index) / 1000);
+        }
+        List<SerialQueue> queues;
+        synchronized (this) {
+            queues = new ArrayList<>(serialQueues.values());
+        }
+        for (SerialQueue queue : queues) {
+            dump.put("executor.serial." + queue.name + ".pending", queue.getPendingCount());
+        }
+    }
+
+    /**
+     * Runs its work one at a time, highest priority first among the pending work
+     */
+    public final class SerialQueue {
+        private final String name;
+        private final PriorityQueue<Job> pending = new PriorityQueue<>();
+        private Job running;
+
+        private SerialQueue(String name) {
+            this.name = name;
+        }
+
+        public Future<?> execute(Priority priority, Runnable work) {
+            return execute(priority, null, work);
+        }
+
+        /**
+         * Queue work on behalf of an owner, whose pending work {@link #cancel} can drop
+         */
+        public Future<?> execute(Priority priority, Object owner, Runnable work) {
+            Job job = new Job(priority, owner, work, this);
+            synchronized (this) {
+                pending.add(job);
+            }
+            dispatchNext();
+            return job;
+        }
+
+        /**
+         * Cancel the owner's work that hasn't started; work already running completes
+         */
+        public int cancel(Object owner) {
+            List<Job> dropped = new ArrayList<>();
+            synchronized (this) {
+                for (Iterator<Job> it = pending.iterator(); it.hasNext(); ) {
+                    Job job = it.next();
+                    if (job.owner == owner) {
+                        it.remove();
+                        dropped.add(job);
+                    }
+                }
+            }
+            for (Job job : dropped) {
+                job.cancel(false);
+            }
+            return dropped.size();
+        }
+
+        public synchronized int getPendingCount() {
+            return pending.size();
+        }
+
+        private void dispatchNext() {
+            Job next;
+            synchronized (this) {
+                if (running != null) return;
+                // A job cancelled through its future may not have left the queue yet;
+                // it would never run its done(), so it would hold the queue forever
+                do {
+                    next = pending.poll();
+                } while (next != null && next.isCancelled());
+                if (next == null) return;
+                running = next;
+            }
+            dispatch(next);
+        }
+
+        // A job cancelled through its future leaves the queue
+        private synchronized void remove(Job job) {
+            pending.remove(job);
+        }
+
+        private void onDone(Job job) {
+            synchronized (this) {
+                if (running != job) return;
+                running = null;
+            }
+            dispatchNext();
+        }
+    }
+
+    private final class Job extends FutureTask<Void> implements Comparable<Job> {
+        private final Priority priority;
+        private final Object owner;
+        private final SerialQueue queue;
+        private final long seq = sequence.getAndIncrement();
+        private final long queuedAt = System.nanoTime();
+        // Leaves the queued count exactly once, by starting or by being cancelled
+        private final AtomicBoolean dequeued = new AtomicBoolean();
+
+        Job(Priority priority, Object owner, Runnable work, SerialQueue queue) {
+            super(work, null);
+            this.priority = priority;
+            this.owner = owner;
+            this.queue = queue;
+            queued.incrementAndGet(priority.ordinal());
+        }
+
+        @Override
+        public void run() {
+            if (dequeued.compareAndSet(false, true)) {
+                int index = priority.ordinal();
+                queued.decrementAndGet(index);
+                started.incrementAndGet(index);
+                long wait = System.nanoTime() - queuedAt;
+                long max;
+                while (wait > (max = maxWaitNanos.get(index)) && !maxWaitNanos.compareAndSet(index, max, wait)) {
+                    // Retry against the newer maximum
+                }
+            }
+
+            Thread thread = Thread.currentThread();
+            thread.setPriority(priority == Priority.BACKGROUND ? Thread.MIN_PRIORITY : Thread.NORM_PRIORITY);
+            try {
+                super.run();
+            } finally {
+                // Only now has the work returned; a cancel while running doesn't free the queue
+                if (queue != null) {
+                    queue.onDone(this);
+                }
+            }
+        }
+
+        @Override
+        public boolean cancel(boolean mayInterruptIfRunning) {
+            boolean result = super.cancel(mayInterruptIfRunning);
+            if (result && dequeued.compareAndSet(false, true)) {
+                queued.decrementAndGet(priority.ordinal());
+                cancelled.incrementAndGet(priority.ordinal());
+                if (queue != null) {
+                    queue.remove(this);
+                    // It may have been handed to the pool already, and never runs now
+                    queue.onDone(this);
+                }
+                pool.remove(this);
+            }
+            return result;
+        }
+
+        @Override
+        protected void done() {
+            // Errors are caught here; nobody may ever call get()
+            if (!isCancelled()) {
+                try {
+                    get();
+                } catch (Exception e) {
+                    FlightRecorder.error(e.getCause() != null ? e.getCause() : e);
+                }
+            }
+        }
+
+        @Override
+        public int compareTo(Job other) {
+            int byPriority = priority.compareTo(other.priority);
+            return byPriority != 0 ? byPriority : Long.compare(seq, other.seq);
+        }
+    }
+}
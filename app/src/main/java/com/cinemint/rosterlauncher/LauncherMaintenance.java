@@ -0,0 +1,148 @@
+// LauncherMaintenance.java
+
+package com.cinemint.rosterlauncher;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Cache upkeep that would otherwise fall on the user's next return home:
+ * verifying the catalog against PackageManager, building the search index,
+ * re-decoding icons after a density or theme change and compacting persisted state. Components register
+ * workers per step; {@link MaintenanceJobService} runs them while the device
+ * is idle or charging. Workers belong to the activity, so a job that fires in a
+ * process without one finds none and is retried rather than counted as a run.
+ */
+public final class LauncherMaintenance {
+
+    // Both jobs can fire close together, so a run within this window is skipped
+    static final long MIN_INTERVAL_MS = 6 * 60 * 60 * 1000L;
+
+    public enum Step {
+        // Rescan and publish only if the catalog changed, leaving search labels built
+        VERIFY_CATALOG,
+        // Bring the search index up to the catalog, building it again if a trim dropped it
+        BUILD_SEARCH_INDEX,
+        // Decode icons again if they were rendered for another density or night mode
+        REFRESH_ICONS,
+        // Rewrite persisted state without entries that no longer apply
+        COMPACT_STORAGE
+    }
+
+    /**
+     * Blocking maintenance work, called on the maintenance thread
+     */
+    public interface Worker {
+        void run() throws Exception;
+    }
+
+    private static final LauncherMaintenance instance = new LauncherMaintenance();
+
+    private final List<List<Worker>> workers = new ArrayList<>();
+    private long runs = 0;
+    private long skipped = 0;
+    private long stopped = 0;
+    // Runs that found no workers registered
+    private long unattended = 0;
+    private long lastRunMillis = -1;
+    private long lastDurationNanos = 0;
+
+    public static LauncherMaintenance getInstance() {
+        return instance;
+    }
+
+    LauncherMaintenance() {
+        for (int i = 0; i < Step.values().length; i++) {
+            workers.add(new CopyOnWriteArrayList<>());
+        }
+    }
+
+    public void register(Step step, Worker worker) {
+        workers.get(step.ordinal()).add(worker);
+    }
+
+    public void unregister(Step step, Worker worker) {
+        workers.get(step.ordinal()).remove(worker);
+    }
+
+    public boolean hasWorkers() {
+        for (List<Worker> stepWorkers : workers) {
+            if (!stepWorkers.isEmpty()) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Restore the time of the last completed run, persisted by the caller, so
+     * the interval holds across process restarts
+     */
+    public synchronized void restoreLastRun(long millis) {
+        lastRunMillis = Math.max(lastRunMillis, millis);
+    }
+
+    /**
+     * Time of the last completed run, or -1
+     */
+    public synchronized long getLastRunMillis() {
+        return lastRunMillis;
+    }
+
+    /**
+     * Run every step in order unless a run finished recently. Checks the stop
+     * signal between workers; returns false if the run was skipped, stopped or
+     * found no workers to run.
+     */
+    public boolean run(long nowMillis, BooleanSupplier stopRequested) {
+        if (!hasWorkers()) {
+            synchronized (this) {
+                unattended++;
+            }
+            return false;
+        }
+        synchronized (this) {
+            if (lastRunMillis >= 0 && nowMillis - lastRunMillis < MIN_INTERVAL_MS) {
+                skipped++;
+                return false;
+            }
+        }
+
+        long start = System.nanoTime();
+        for (Step step : Step.values()) {
+            for (Worker worker : workers.get(step.ordinal())) {
+                if (stopRequested.getAsBoolean()) {
+                    synchronized (this) {
+                        stopped++;
+                    }
+                    return false;
+                }
+                try {
+                    worker.run();
+                } catch (Exception e) {
+                    FlightRecorder.error(step.name(), e);
+                }
+            }
+        }
+
+        long duration = System.nanoTime() - start;
+        synchronized (this) {
+            runs++;
+            lastRunMillis = nowMillis;
+            lastDurationNanos = duration;
+        }
+        FlightRecorder.record(FlightRecorder.Event.MAINTENANCE, null, duration);
+        return true;
+    }
+
+    /**
+     * Run counts for the activity's dumpsys output
+     */
+    synchronized void dumpState(DiagnosticsDump dump) {
+        dump.put("maintenance.runs", runs);
+        dump.put("maintenance.skipped", skipped);
+        dump.put("maintenance.stopped", stopped);
+        dump.put("maintenance.unattended", unattended);
+        dump.put("maintenance.last_duration_us", lastDurationNanos / 1000);
+    }
+}
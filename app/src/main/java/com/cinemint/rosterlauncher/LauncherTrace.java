@@ -0,0 +1,175 @@
+// LauncherTrace.java
+
+package com.cinemint.rosterlauncher;
+
+import android.os.Trace;
+import android.util.Log;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Named trace sections and in-process timers for catalog load and UI refresh.
+ * Every section shows up in systrace/Perfetto captures and is also aggregated
+ * here so the last, p50 and p95 durations can be read from inside the app.
+ */
+public final class LauncherTrace {
+    private static final String TAG = "LauncherTrace";
+
+    // Section names
+    public static final String CATALOG_LOAD = "catalog.load";
+    public static final String CATALOG_QUERY = "catalog.query";
+    public static final String CATALOG_LABEL = "catalog.label";
+    public static final String CATALOG_ICON = "catalog.icon";
+    public static final String CATALOG_SORT = "catalog.sort";
+    public static final String CATALOG_PINS = "catalog.pins";
+    public static final String CATALOG_UPDATE = "catalog.update";
+    public static final String UI_REFRESH = "ui.refresh";
+    public static final String UI_FILTER = "ui.filter";
+    public static final String UI_BUILD = "ui.build";
+
+    // Number of samples kept per section for percentiles
+    private static final int WINDOW_SIZE = 64;
+
+    private static final Map<String, SectionStats> sections = new TreeMap<>();
+
+    private LauncherTrace() {
+    }
+
+    /**
+     * Open a trace section and return its start timestamp for {@link #end}
+     */
+    public static long begin(String section) {
+        Trace.beginSection(section);
+        return System.nanoTime();
+    }
+
+    /**
+     * Close the section opened by the matching {@link #begin} call
+     */
+    public static void end(String section, long startNanos) {
+        Trace.endSection();
+        record(section, System.nanoTime() - startNanos);
+    }
+
+    /**
+     * Record a duration measured outside a trace section (e.g. summed per-app work)
+     */
+    public static void record(String section, long durationNanos) {
+        synchronized (sections) {
+            SectionStats stats = sections.get(section);
+            if (stats == null) {
+                stats = new SectionStats(section);
+                sections.put(section, stats);
+            }
+            stats.add(durationNanos);
+        }
+    }
+
+    /**
+     * Get a snapshot of the aggregated timings, ordered by section name
+     */
+    public static List<Timing> getTimings() {
+        List<Timing> timings = new ArrayList<>();
+        synchronized (sections) {
+            for (SectionStats stats : sections.values()) {
+                timings.add(stats.snapshot());
+            }
+        }
+        return timings;
+    }
+
+    /**
+     * Write the aggregated timings to logcat.
+     * Enable with: adb shell setprop log.tag.LauncherTrace DEBUG
+     */
+    public static void logTimings() {
+        if (!Log.isLoggable(TAG, Log.DEBUG)) return;
+
+        for (Timing timing : getTimings()) {
+            Log.d(TAG, timing.toString());
+        }
+    }
+
+    /**
+     * Clear all recorded samples
+     */
+    public static void reset() {
+        synchronized (sections) {
+            sections.clear();
+        }
+    }
+
+    /**
+     * Immutable view of one section's timings, in nanoseconds
+     */
+    public static final class Timing {
+        public final String section;
+        // Samples in the percentile window, and all samples since the last reset
+        public final int count;
+        public final long total;
+        public final long lastNanos;
+        public final long p50Nanos;
+        public final long p95Nanos;
+
+        Timing(String section, int count, long total, long lastNanos, long p50Nanos, long p95Nanos) {
+            this.section = section;
+            this.count = count;
+            this.total = total;
+            this.lastNanos = lastNanos;
+            this.p50Nanos = p50Nanos;
+            this.p95Nanos = p95Nanos;
+        }
+
+        @Override
+        public String toString() {
+            return section + " count=" + total
+                    + " last=" + toMillis(lastNanos) + "ms"
+                    + " p50=" + toMillis(p50Nanos) + "ms"
+                    + " p95=" + toMillis(p95Nanos) + "ms";
+        }
+
+        private static String toMillis(long nanos) {
+            return String.valueOf(nanos / 10_000 / 100.0);
+        }
+    }
+
+    // Fixed-size ring of recent samples for one section
+    private static final class SectionStats {
+        private final String section;
+        private final long[] samples = new long[WINDOW_SIZE];
+        private int count = 0;
+        private int next = 0;
+        private long total = 0;
+        private long last = 0;
+
+        SectionStats(String section) {
+            this.section = section;
+        }
+
+        void add(long durationNanos) {
+            samples[next] = durationNanos;
+            next = (next + 1) % WINDOW_SIZE;
+            if (count < WINDOW_SIZE) {
+                count++;
+            }
+            total++;
+            last = durationNanos;
+        }
+
+        Timing snapshot() {
+            long[] sorted = Arrays.copyOf(samples, count);
+            Arrays.sort(sorted);
+            return new Timing(section, count, total, last, percentile(sorted, 50), percentile(sorted, 95));
+        }
+
+        private static long percentile(long[] sorted, int percentile) {
+            if (sorted.length == 0) return 0;
+            int index = (int) Math.ceil(percentile / 100.0 * sorted.length) - 1;
+            return sorted[Math.max(0, Math.min(index, sorted.length - 1))];
+        }
+    }
+}
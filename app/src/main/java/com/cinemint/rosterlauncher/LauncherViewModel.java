@@ -2,44 +2,164 @@
 
 package com.cinemint.rosterlauncher;
 
+import android.app.Application;
+import android.graphics.drawable.Drawable;
+
+import androidx.annotation.NonNull;
+import androidx.lifecycle.AndroidViewModel;
 import androidx.lifecycle.LiveData;
 import androidx.lifecycle.MutableLiveData;
-import androidx.lifecycle.ViewModel;
+
+import com.cinemint.rosterlauncher.catalog.Catalog;
+import com.cinemint.rosterlauncher.catalog.CatalogOps;
+import com.cinemint.rosterlauncher.catalog.CatalogSnapshot;
+import com.cinemint.rosterlauncher.catalog.CompactCatalog;
+import com.cinemint.rosterlauncher.catalog.IconProvider;
+import com.cinemint.rosterlauncher.catalog.VisibilityRules;
 
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
-import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.Map;
+import java.util.Set;
 
-public class LauncherViewModel extends ViewModel {
+public class LauncherViewModel extends AndroidViewModel {
     private final MutableLiveData<List<MainActivity.AppInfo>> allApps = new MutableLiveData<>();
     private final MutableLiveData<String> searchQuery = new MutableLiveData<>("");
     private volatile boolean initialized = false;
+    // Catalog snapshot version the current list was built from
+    private volatile long publishedVersion = -1;
+
+    // Source of truth for records and pins; the list below is its UI projection
+    private final Catalog catalog;
+    // Scans, updates and icon loads for the catalog, one at a time across activity instances.
+    // Catalog work is queued with this ViewModel as owner, so it survives a recreated activity.
+    private final LauncherExecutor.SerialQueue catalogQueue = LauncherExecutor.getInstance().serial("catalog");
+    // Platform adapters; built from the application, since queued catalog work can
+    // outlive the activity that queued it
+    private final LauncherAppsCatalogSource catalogSource;
+    private final IconProvider<Drawable> iconProvider;
+    // Launch history that ranks the Frequent section and the first icons decoded
+    private final UsageStore usageStore;
+    // Search index over the catalog and the user's keywords
+    private final SearchStore searchStore;
+    // Rules hiding apps, read on first use, and their bitsets for the records they were last compiled for
+    private VisibilityRules visibilityRules;
+    private volatile VisibilityRules.Compiled visibility;
 
-    // Thread-safe app list
-    private final CopyOnWriteArrayList<MainActivity.AppInfo> appList = new CopyOnWriteArrayList<>();
+    // Immutable list that is replaced whenever apps are added, removed or reordered. Pin and
+    // icon changes mutate the AppInfo in place and republish the same list, so observers can
+    // tell a membership change (new instance) from a state change (same instance).
+    private volatile List<MainActivity.AppInfo> appList = Collections.emptyList();
+    // Rows of appList by component key, swapped together with it
+    private volatile Map<String, MainActivity.AppInfo> appIndex = Collections.emptyMap();
+    // Bumped on every pin change, since pins alone don't produce a new list
+    private volatile long pinRevision = 0;
+
+    public LauncherViewModel(@NonNull Application application) {
+        super(application);
+        catalog = new Catalog(new SharedPreferencesPinStore(application));
+        catalogSource = new LauncherAppsCatalogSource(application, new PackageManagerCatalogSource(application));
+        iconProvider = new PackageManagerIconProvider(application, catalogSource);
+        usageStore = new UsageStore(application);
+        searchStore = new SearchStore(application, catalog);
 
-    public LauncherViewModel() {
         // Initialize with empty list
-        allApps.setValue(new ArrayList<>());
+        allApps.setValue(appList);
+    }
+
+    public Catalog getCatalog() {
+        return catalog;
+    }
+
+    public LauncherExecutor.SerialQueue getCatalogQueue() {
+        return catalogQueue;
+    }
+
+    public LauncherAppsCatalogSource getCatalogSource() {
+        return catalogSource;
+    }
+
+    public IconProvider<Drawable> getIconProvider() {
+        return iconProvider;
+    }
+
+    public UsageStore getUsageStore() {
+        return usageStore;
+    }
+
+    public SearchStore getSearchStore() {
+        return searchStore;
+    }
+
+    /**
+     * The visibility rules compiled for a snapshot's records. Compiled once per
+     * catalog version: pin changes share the records and keep the bitsets.
+     */
+    public synchronized VisibilityRules.Compiled getVisibility(CatalogSnapshot snapshot) {
+        if (visibilityRules == null) {
+            visibilityRules = VisibilityPrefs.load(getApplication());
+        }
+        VisibilityRules.Compiled compiled = visibility;
+        if (compiled == null || compiled.compact() != snapshot.compact() || compiled.getRules() != visibilityRules) {
+            compiled = visibilityRules.compile(snapshot.compact());
+            visibility = compiled;
+            searchStore.setVisibility(compiled);
+            LauncherCounters.increment(LauncherCounters.VISIBILITY_COMPILED);
+        }
+        return compiled;
+    }
+
+    /**
+     * The rules compiled most recently, or null before the first publish
+     */
+    public VisibilityRules.Compiled getLastVisibility() {
+        return visibility;
+    }
+
+    public synchronized VisibilityRules getVisibilityRules() {
+        if (visibilityRules == null) {
+            visibilityRules = VisibilityPrefs.load(getApplication());
+        }
+        return visibilityRules;
+    }
+
+    /**
+     * Replace the rules; the next publish rebuilds the rows even if the catalog didn't change
+     */
+    public synchronized void setVisibilityRules(VisibilityRules rules) {
+        visibilityRules = rules;
+        publishedVersion = -1;
+    }
+
+    public long getPublishedVersion() {
+        return publishedVersion;
     }
 
     public LiveData<List<MainActivity.AppInfo>> getAllApps() {
         return allApps;
     }
 
-    public synchronized void setAllApps(List<MainActivity.AppInfo> apps) {
+    /**
+     * Publish rows built for a catalog version; the list is taken over, not copied
+     */
+    public synchronized void setAllApps(List<MainActivity.AppInfo> apps, long version) {
         if (apps == null) {
             return;
         }
+        long allocStart = AllocationStats.begin();
+        publishedVersion = version;
 
-        // Clear and update thread-safe list
-        appList.clear();
-        appList.addAll(apps);
-
-        // Post to LiveData
-        allApps.postValue(new ArrayList<>(appList));
+        // Swap in the new list; observers always see a complete list
+        swapList(apps);
         initialized = true;
+        AllocationStats.end(AllocationStats.CATALOG_PUBLISH, allocStart, apps.size());
+    }
+
+    public long getPinRevision() {
+        return pinRevision;
     }
 
     public LiveData<String> getSearchQuery() {
@@ -47,6 +167,7 @@ public class LauncherViewModel extends ViewModel {
     }
 
     public void setSearchQuery(String query) {
+        LatencyRecorder.getInstance().begin(LatencyRecorder.Interaction.SEARCH);
         searchQuery.postValue(query != null ? query : "");
     }
 
@@ -55,34 +176,69 @@ public class LauncherViewModel extends ViewModel {
     }
 
     /**
-     * Update a single app's pin status
+     * Row for a component key, or null; any thread
      */
-    public synchronized void updateAppPinStatus(String packageName, boolean isPinned) {
-        boolean updated = false;
+    public MainActivity.AppInfo findApp(String key) {
+        return appIndex.get(key);
+    }
 
-        for (MainActivity.AppInfo app : appList) {
-            if (app.packageName.equals(packageName)) {
-                app.isPinned = isPinned;
-                updated = true;
-                break;
-            }
-        }
+    /**
+     * Update a single app's pin status by component key
+     */
+    public synchronized void updateAppPinStatus(String key, boolean isPinned) {
+        long allocStart = AllocationStats.begin();
+        long before = catalog.snapshot().getVersion();
+        catalog.setPinned(key, isPinned);
+        followCatalog(before);
+        FlightRecorder.record(FlightRecorder.Event.PIN, key, isPinned ? 1 : 0);
 
-        if (updated) {
-            // Trigger observers with new list
-            allApps.postValue(new ArrayList<>(appList));
+        List<MainActivity.AppInfo> apps = appList;
+        MainActivity.AppInfo app = appIndex.get(key);
+        if (app != null) {
+            app.isPinned = isPinned;
+
+            // Same list, new pin state: the All tab keeps its rows
+            pinRevision++;
+            allApps.postValue(apps);
         }
+        AllocationStats.end(AllocationStats.CATALOG_PIN, allocStart, apps.size());
     }
 
     /**
-     * Remove an app from the list (e.g., when uninstalled)
+     * Remove every launcher activity of a package in the launcher's own profile (e.g., when uninstalled)
      */
-    public synchronized void removeApp(String packageName) {
-        boolean removed = appList.removeIf(app -> app.packageName.equals(packageName));
+    public synchronized void removePackage(String packageName) {
+        long allocStart = AllocationStats.begin();
+        long before = catalog.snapshot().getVersion();
+        catalog.removePackage(packageName);
+        followCatalog(before);
+
+        List<MainActivity.AppInfo> remaining = new ArrayList<>(appList);
+        boolean removed = remaining.removeIf(app -> app.packageName.equals(packageName)
+                && (app.record == null || app.record.isOwnProfile()));
 
         if (removed) {
             // Trigger observers with new list
-            allApps.postValue(new ArrayList<>(appList));
+            swapList(remaining);
+        }
+        AllocationStats.end(AllocationStats.CATALOG_REMOVE, allocStart, remaining.size());
+    }
+
+    // Index first, so a reader that sees the new list also finds its rows
+    private void swapList(List<MainActivity.AppInfo> apps) {
+        Map<String, MainActivity.AppInfo> index = new HashMap<>(apps.size() * 2);
+        for (MainActivity.AppInfo app : apps) {
+            index.put(app.getKey(), app);
+        }
+        appIndex = index;
+        appList = Collections.unmodifiableList(apps);
+        allApps.postValue(appList);
+    }
+
+    // The list is patched in place to match the catalog, so a current list stays current
+    private void followCatalog(long versionBefore) {
+        if (publishedVersion == versionBefore) {
+            publishedVersion = catalog.snapshot().getVersion();
         }
     }
 
@@ -94,53 +250,102 @@ public class LauncherViewModel extends ViewModel {
             return;
         }
 
-        // Remove existing if present
-        appList.removeIf(app -> app.packageName.equals(newApp.packageName));
+        // Replace existing if present and keep alphabetical order
+        List<MainActivity.AppInfo> sortedList = CatalogOps.addOrUpdate(appList, newApp);
 
-        // Add new/updated app
-        appList.add(newApp);
-
-        // Sort alphabetically
-        List<MainActivity.AppInfo> sortedList = new ArrayList<>(appList);
-        Collections.sort(sortedList, (a, b) -> a.name.compareToIgnoreCase(b.name));
+        // Update list and trigger observers
+        swapList(sortedList);
+    }
 
-        // Update list
-        appList.clear();
-        appList.addAll(sortedList);
+    /**
+     * Drop decoded icons of apps that are not pinned and whose keys are not in
+     * the given set. Returns the number of icons released; they are reloaded on
+     * demand. Main thread only, like every other icon change on published rows.
+     */
+    public synchronized int releaseIcons(Set<String> keepKeys) {
+        int released = 0;
+        for (MainActivity.AppInfo app : appList) {
+            if (app.icon != null && !app.isPinned && !keepKeys.contains(app.getKey())) {
+                app.icon = null;
+                released++;
+            }
+        }
+        return released;
+    }
 
-        // Trigger observers
-        allApps.postValue(new ArrayList<>(appList));
+    /**
+     * Count the rows holding a decoded icon, to hold them to the profile's budget
+     */
+    public synchronized int getIconCount() {
+        int count = 0;
+        for (MainActivity.AppInfo app : appList) {
+            if (app.icon != null) count++;
+        }
+        return count;
     }
 
     /**
      * Force refresh of observers without changing data
      */
     public void notifyDataChanged() {
-        if (!appList.isEmpty()) {
-            allApps.postValue(new ArrayList<>(appList));
+        List<MainActivity.AppInfo> apps = appList;
+        if (!apps.isEmpty()) {
+            // Same list, so observers only rebind icons
+            allApps.postValue(apps);
+        }
+    }
+
+    /**
+     * Refill {@code out} with the pinned rows of {@code apps}, in row order. For the
+     * current list, pins and visibility are combined as bitsets, so only pinned
+     * records are looked at; a list the catalog has moved past is scanned instead.
+     */
+    public void pinnedAppsInto(List<MainActivity.AppInfo> apps, List<MainActivity.AppInfo> out) {
+        out.clear();
+        CatalogSnapshot snapshot = catalog.snapshot();
+        VisibilityRules.Compiled compiled = visibility;
+        Map<String, MainActivity.AppInfo> index = appIndex;
+
+        if (apps != appList || compiled == null || compiled.compact() != snapshot.compact()) {
+            for (int i = 0; i < apps.size(); i++) {
+                if (apps.get(i).isPinned) out.add(apps.get(i));
+            }
+            return;
+        }
+        // Rows were built in id order from the visible records
+        CompactCatalog compact = snapshot.compact();
+        BitSet pinned = compiled.visibleOf(snapshot.getPinnedIds());
+        for (int id = pinned.nextSetBit(0); id >= 0; id = pinned.nextSetBit(id + 1)) {
+            MainActivity.AppInfo app = index.get(compact.record(id).key());
+            if (app != null) out.add(app);
         }
     }
 
     /**
-     * Get a defensive copy of the current app list
+     * Get the current app list; it is immutable and replaced rather than changed, so no copy
      */
     public List<MainActivity.AppInfo> getCurrentApps() {
-        return new ArrayList<>(appList);
+        return appList;
     }
 
     /**
      * Clear all data
      */
     public synchronized void clear() {
-        appList.clear();
-        allApps.postValue(new ArrayList<>());
+        appList = Collections.emptyList();
+        appIndex = Collections.emptyMap();
+        allApps.postValue(appList);
         searchQuery.postValue("");
         initialized = false;
+        publishedVersion = -1;
     }
 
     @Override
     protected void onCleared() {
         super.onCleared();
+        // Nobody will observe what pending catalog work would publish
+        catalogQueue.cancel(this);
+        catalogSource.setListener(null);
         clear();
     }
 }
\ No newline at end of file
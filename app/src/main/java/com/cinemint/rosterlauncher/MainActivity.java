@@ -11,12 +11,11 @@ import android.content.BroadcastReceiver;
 import android.content.Context;
 import android.content.Intent;
 import android.content.IntentFilter;
-import android.content.SharedPreferences;
-import android.content.pm.PackageManager;
-import android.content.pm.ResolveInfo;
+import android.content.res.Configuration;
 import android.graphics.Color;
 import android.graphics.Typeface;
 import android.graphics.drawable.Drawable;
+import android.os.Build;
 import android.os.Bundle;
 import android.os.Handler;
 import android.os.Looper;
@@ -35,6 +34,7 @@ import android.widget.TextView;
 import android.widget.Toast;
 
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
 import androidx.appcompat.app.AlertDialog;
 import androidx.appcompat.app.AppCompatActivity;
 import androidx.core.content.ContextCompat;
@@ -43,49 +43,138 @@ import androidx.lifecycle.ViewModelProvider;
 import androidx.viewpager2.adapter.FragmentStateAdapter;
 import androidx.viewpager2.widget.ViewPager2;
 
+import com.cinemint.rosterlauncher.catalog.AppRecord;
+import com.cinemint.rosterlauncher.catalog.Catalog;
+import com.cinemint.rosterlauncher.catalog.CatalogEntry;
+import com.cinemint.rosterlauncher.catalog.CatalogSnapshot;
+import com.cinemint.rosterlauncher.catalog.CompactCatalog;
+import com.cinemint.rosterlauncher.catalog.IconProvider;
+import com.cinemint.rosterlauncher.catalog.VisibilityRules;
 import com.google.android.material.tabs.TabLayout;
 import com.google.android.material.tabs.TabLayoutMediator;
 
+import java.io.FileDescriptor;
+import java.io.PrintWriter;
 import java.lang.ref.WeakReference;
 import java.util.ArrayList;
-import java.util.Collections;
-import java.util.HashMap;
+import java.util.BitSet;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
 import java.util.TreeMap;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 
 public class MainActivity extends AppCompatActivity {
 
-    public static class AppInfo {
+    public static class AppInfo implements CatalogEntry {
         String name;
         String packageName;
-        Drawable icon;
+        // Set by the thread building the row until it is published, then only on
+        // the main thread (see DecodedIcons); read by catalog work, hence volatile
+        volatile Drawable icon;
         boolean isPinned;
 
+        // Catalog record this row was built from; also the source for deferred icons
+        AppRecord record;
+        // Its id in the catalog version the row was built from; -1 for rows built otherwise
+        int recordId = -1;
+        volatile boolean iconUnavailable;
+        // Resolved during catalog load so a tap doesn't query PackageManager; copy before use
+        Intent launchIntent;
+
+        // Lower-cased once so search keystrokes don't allocate per app
+        private final String searchLabel;
+
         AppInfo(String name, String packageName, Drawable icon) {
+            this(name, packageName, icon, name.toLowerCase(Locale.getDefault()));
+        }
+
+        // Rows built from a snapshot share its lower-cased label instead of making another
+        AppInfo(String name, String packageName, Drawable icon, String searchLabel) {
             this.name = name;
             this.packageName = packageName;
             this.icon = icon;
             this.isPinned = false;
+            this.searchLabel = searchLabel;
+        }
+
+        @Override
+        public String getLabel() {
+            return name;
+        }
+
+        @Override
+        public String getPackageName() {
+            return packageName;
+        }
+
+        // Component key of the launcher activity; packages can have several
+        @Override
+        public String getKey() {
+            return record != null ? record.key() : packageName;
+        }
+
+        @Override
+        public boolean isPinned() {
+            return isPinned;
+        }
+
+        @Override
+        public String getSearchLabel() {
+            return searchLabel;
         }
     }
 
-    private static final String PREF_NAME = "RosterLauncherPrefs";
-    private static final String PINNED_APPS_KEY = "pinned_apps";
+    static final String PREF_NAME = "RosterLauncherPrefs";
+    // Package events arriving within this long of the first pending one are applied together
+    static final long PACKAGE_UPDATE_DELAY_MS = 500;
 
     private LauncherViewModel viewModel;
     private LauncherPagerAdapter pagerAdapter;
     private TabLayoutMediator tabMediator;
     private boolean wasInBackground = false;
-    private ExecutorService executorService;
+    private boolean tabSwitchInProgress = false;
+    private int selectedPage = -1;
+    private LauncherExecutor.SerialQueue catalogQueue;
+    private LauncherAppsCatalogSource catalogSource;
+    private IconProvider<Drawable> iconProvider;
+    private ShortcutCache shortcutCache;
 
     // Package changes receiver
     private BroadcastReceiver packageChangesReceiver;
+    // Managed configuration changes, which carry the operator's visibility rules
+    private final BroadcastReceiver restrictionsReceiver = new BroadcastReceiver() {
+        @Override
+        public void onReceive(Context context, Intent intent) {
+            reloadVisibilityRules();
+        }
+    };
     private Handler refreshHandler;
+    // Delayed scans posted but not yet run (main thread only)
+    private int pendingScans = 0;
+    // Packages per profile and whole profiles waiting for one coalesced update (main thread only)
+    private final Map<Long, Set<String>> pendingPackages = new LinkedHashMap<>();
+    private final Set<Long> pendingProfiles = new LinkedHashSet<>();
+
+    private final MemoryTrimmer.Releaser iconReleaser = this::releaseIcons;
+    private final MemoryTrimmer.Releaser shortcutIconReleaser = stage ->
+            shortcutCache != null && Build.VERSION.SDK_INT >= Build.VERSION_CODES.N_MR1 ? shortcutCache.releaseIcons() : 0;
+    private final MemoryTrimmer.Releaser iconPoolReleaser = stage -> IconBitmapPool.getInstance().clear();
+    private final MemoryTrimmer.Releaser searchIndexReleaser = stage -> viewModel.getSearchStore().release(stage);
+
+    // Maintenance while idle or charging, run on the catalog queue like foreground loads
+    private final LauncherMaintenance.Worker verifyCatalogWorker = () -> runOnExecutor(this::scanCatalog);
+    private final LauncherMaintenance.Worker searchIndexWorker = () -> viewModel.getSearchStore().prepare().get();
+    private final LauncherMaintenance.Worker refreshIconsWorker = () -> runOnExecutor(this::refreshStaleIcons);
+    private final LauncherMaintenance.Worker compactPinsWorker = () -> runOnExecutor(() -> {
+        viewModel.getCatalog().savePins();
+        viewModel.getUsageStore().prune(viewModel.getCatalog().snapshot());
+    });
+    // Density and night mode the rows' icons were decoded for
+    private volatile int decodedIconConfig;
 
     // Improved uninstall tracking
     private String packageBeingUninstalled = null;
@@ -100,15 +189,33 @@ public class MainActivity extends AppCompatActivity {
                     com.cinemint.rosterlauncher.databinding.ActivityMainBinding.inflate(getLayoutInflater());
             setContentView(binding.getRoot());
 
+            // Keep the event ring if the process dies
+            FlightRecorder.installCrashHandler(this);
+
             // Initialize handlers
             refreshHandler = new Handler(Looper.getMainLooper());
 
-            // Initialize executor service for background tasks
-            executorService = Executors.newSingleThreadExecutor();
+            // Start collecting frame metrics for jank reporting
+            float refreshRate = getWindowManager().getDefaultDisplay().getRefreshRate();
+            FrameMetricsMonitor.getInstance().attach(getWindow(), refreshRate);
+
+            // Non-urgent work runs in idle gaps, sliced to the frame rate
+            DeferredWork.getInstance().start(refreshRate);
 
             // Initialize ViewModel
             viewModel = new ViewModelProvider(this).get(LauncherViewModel.class);
 
+            // Catalog work queues behind that of a previous instance instead of racing it
+            catalogQueue = viewModel.getCatalogQueue();
+
+            // Platform adapters for the catalog engine
+            catalogSource = viewModel.getCatalogSource();
+            iconProvider = viewModel.getIconProvider();
+            IconBitmapPool.getInstance().setMaxPooledBytes(PerformanceProfile.get(this).bitmapPoolBytes());
+            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.N_MR1) {
+                shortcutCache = new ShortcutCache(this, catalogSource, PerformanceProfile.get(this).shortcutIconBytes());
+            }
+
             // Setup UI components
             TabLayout tabLayout = findViewById(R.id.tabs);
             ViewPager2 viewPager = findViewById(R.id.viewPager);
@@ -119,24 +226,101 @@ public class MainActivity extends AppCompatActivity {
 
             // Setup package changes listener
             setupPackageChangesReceiver();
+            registerReceiver(restrictionsReceiver, new IntentFilter(Intent.ACTION_APPLICATION_RESTRICTIONS_CHANGED));
+
+            // Other profiles (e.g. work) report their changes through LauncherApps
+            catalogSource.setListener(new LauncherAppsCatalogSource.Listener() {
+                @Override
+                public void onPackageChanged(long profile, String packageName) {
+                    schedulePackageUpdate(profile, packageName);
+                }
+
+                @Override
+                public void onProfileChanged(long profile) {
+                    scheduleProfileUpdate(profile);
+                }
+            });
+
+            // Capture the raw package broadcast stream for replay, when enabled
+            PackageEventRecorder.getInstance().start(this);
+
+            // Release icons, then the search index, in stages under memory pressure
+            MemoryTrimmer.getInstance().register(MemoryTrimmer.Stage.ICONS, iconReleaser);
+            MemoryTrimmer.getInstance().register(MemoryTrimmer.Stage.ICONS, iconPoolReleaser);
+            if (shortcutCache != null) {
+                MemoryTrimmer.getInstance().register(MemoryTrimmer.Stage.ICONS, shortcutIconReleaser);
+            }
+            MemoryTrimmer.getInstance().register(MemoryTrimmer.Stage.INDEXES, searchIndexReleaser);
+
+            // Keep caches warm between visits while the device is idle or charging
+            decodedIconConfig = iconConfig();
+            LauncherMaintenance maintenance = LauncherMaintenance.getInstance();
+            maintenance.register(LauncherMaintenance.Step.VERIFY_CATALOG, verifyCatalogWorker);
+            maintenance.register(LauncherMaintenance.Step.BUILD_SEARCH_INDEX, searchIndexWorker);
+            maintenance.register(LauncherMaintenance.Step.REFRESH_ICONS, refreshIconsWorker);
+            maintenance.register(LauncherMaintenance.Step.COMPACT_STORAGE, compactPinsWorker);
+            MaintenanceJobService.schedule(this);
 
             // Initialize apps
             if (!viewModel.isInitialized()) {
                 loadAppsAsync();
             }
 
+            // Shortcuts for the long-press menu load behind the catalog
+            if (shortcutCache != null && Build.VERSION.SDK_INT >= Build.VERSION_CODES.N_MR1) {
+                shortcutCache.start();
+            }
+
             // Setup ViewPager with fragments
             pagerAdapter = new LauncherPagerAdapter(this);
             viewPager.setAdapter(pagerAdapter);
+            viewPager.setOffscreenPageLimit(PerformanceProfile.get(this).offscreenTabLimit);
+
+            // Attribute frames during tab swipes to the tab switch interaction
+            viewPager.registerOnPageChangeCallback(new ViewPager2.OnPageChangeCallback() {
+                @Override
+                public void onPageSelected(int position) {
+                    // The first selection is the initial layout, not a switch
+                    boolean initial = selectedPage < 0;
+                    selectedPage = position;
+                    if (initial) return;
+
+                    LatencyRecorder.getInstance().begin(LatencyRecorder.Interaction.TAB_SWITCH);
+                    if (viewPager.getScrollState() == ViewPager2.SCROLL_STATE_IDLE) {
+                        LatencyRecorder.getInstance().endAfterNextFrame(LatencyRecorder.Interaction.TAB_SWITCH);
+                    }
+                }
+
+                @Override
+                public void onPageScrollStateChanged(int state) {
+                    if (state == ViewPager2.SCROLL_STATE_IDLE) {
+                        // Settled on the selected page
+                        LatencyRecorder.getInstance().endAfterNextFrame(LatencyRecorder.Interaction.TAB_SWITCH);
+                    }
+                    if (state != ViewPager2.SCROLL_STATE_IDLE && !tabSwitchInProgress) {
+                        tabSwitchInProgress = true;
+                        FrameMetricsMonitor.getInstance().begin(FrameMetricsMonitor.Interaction.TAB_SWITCH);
+                    } else if (state == ViewPager2.SCROLL_STATE_IDLE && tabSwitchInProgress) {
+                        tabSwitchInProgress = false;
+                        FrameMetricsMonitor.getInstance().end(FrameMetricsMonitor.Interaction.TAB_SWITCH);
+                    }
+                }
+            });
 
             // Connect TabLayout with ViewPager2
             tabMediator = new TabLayoutMediator(tabLayout, viewPager, (tab, position) -> {
                 tab.setText(position == 0 ? "Pinned" : "All");
+
+                // Long press on a tab opens the launcher settings
+                tab.view.setOnLongClickListener(v -> {
+                    showSettingsDialog();
+                    return true;
+                });
             });
             tabMediator.attach();
 
         } catch (Exception e) {
-            e.printStackTrace();
+            FlightRecorder.error(e);
             Toast.makeText(this, "Error initializing launcher: " + e.getMessage(), Toast.LENGTH_LONG).show();
             finish();
         }
@@ -151,11 +335,12 @@ public class MainActivity extends AppCompatActivity {
 
                 if (Intent.ACTION_PACKAGE_REMOVED.equals(action) ||
                         Intent.ACTION_PACKAGE_ADDED.equals(action) ||
-                        Intent.ACTION_PACKAGE_REPLACED.equals(action)) {
+                        Intent.ACTION_PACKAGE_REPLACED.equals(action) ||
+                        Intent.ACTION_PACKAGE_CHANGED.equals(action)) {
 
-                    // Don't process if it's a package replacement
+                    // The removed/added pair of an update is followed by REPLACED
                     boolean replacing = intent.getBooleanExtra(Intent.EXTRA_REPLACING, false);
-                    if (replacing) return;
+                    if (replacing && !Intent.ACTION_PACKAGE_REPLACED.equals(action)) return;
 
                     String packageName = intent.getData() != null ?
                             intent.getData().getSchemeSpecificPart() : null;
@@ -164,8 +349,8 @@ public class MainActivity extends AppCompatActivity {
                         if (Intent.ACTION_PACKAGE_REMOVED.equals(action)) {
                             handlePackageRemoved(packageName);
                         } else {
-                            // For added/replaced packages, just refresh
-                            refreshHandler.postDelayed(() -> loadAppsAsync(), 500);
+                            // Re-resolve only this package's launcher activities
+                            schedulePackageUpdate(AppRecord.OWN_PROFILE, packageName);
                         }
                     }
                 }
@@ -176,29 +361,73 @@ public class MainActivity extends AppCompatActivity {
         filter.addAction(Intent.ACTION_PACKAGE_ADDED);
         filter.addAction(Intent.ACTION_PACKAGE_REMOVED);
         filter.addAction(Intent.ACTION_PACKAGE_REPLACED);
+        filter.addAction(Intent.ACTION_PACKAGE_CHANGED);
         filter.addDataScheme("package");
 
         registerReceiver(packageChangesReceiver, filter);
     }
 
     private void handlePackageRemoved(String packageName) {
-        // Immediately remove from ViewModel
-        viewModel.removeApp(packageName);
-
-        // Also remove from pinned apps if it was pinned
-        executorService.execute(() -> {
-            SharedPreferences prefs = getSharedPreferences(PREF_NAME, Context.MODE_PRIVATE);
-            Set<String> pinnedPackages = new HashSet<>(
-                    prefs.getStringSet(PINNED_APPS_KEY, new HashSet<>())
-            );
-
-            if (pinnedPackages.remove(packageName)) {
-                prefs.edit().putStringSet(PINNED_APPS_KEY, pinnedPackages).apply();
+        FlightRecorder.record(FlightRecorder.Event.PACKAGE_REMOVED, packageName, 0);
+
+        // Immediately remove every launcher activity of the package
+        viewModel.removePackage(packageName);
+
+        // The catalog dropped its pins too, so persist the pin set
+        savePinnedApps();
+
+        // Re-resolve the package later in case it was reinstalled meanwhile
+        schedulePackageUpdate(AppRecord.OWN_PROFILE, packageName);
+    }
+
+    private void schedulePackageUpdate(long profile, String packageName) {
+        LauncherCounters.increment(LauncherCounters.PACKAGE_UPDATE_REQUESTED);
+        boolean posted = hasPendingUpdates();
+        Set<String> packages = pendingPackages.get(profile);
+        if (packages == null) {
+            packages = new LinkedHashSet<>();
+            pendingPackages.put(profile, packages);
+        }
+        packages.add(packageName);
+        if (!posted) {
+            postPendingUpdates();
+        }
+    }
+
+    private void scheduleProfileUpdate(long profile) {
+        LauncherCounters.increment(LauncherCounters.PROFILE_UPDATE_REQUESTED);
+        boolean posted = hasPendingUpdates();
+        pendingProfiles.add(profile);
+        if (!posted) {
+            postPendingUpdates();
+        }
+    }
+
+    private boolean hasPendingUpdates() {
+        return !pendingPackages.isEmpty() || !pendingProfiles.isEmpty();
+    }
+
+    // A burst of events is applied as one catalog update and one publish
+    private void postPendingUpdates() {
+        refreshHandler.postDelayed(() -> {
+            Map<Long, Set<String>> packages = new LinkedHashMap<>(pendingPackages);
+            Set<Long> profiles = new LinkedHashSet<>(pendingProfiles);
+            pendingPackages.clear();
+            pendingProfiles.clear();
+            if (!isFinishing() && !isDestroyed()) {
+                updatePartitionsAsync(profiles, packages);
             }
-        });
+        }, PACKAGE_UPDATE_DELAY_MS);
+    }
 
-        // Schedule a full refresh after a delay to ensure consistency
-        refreshHandler.postDelayed(this::loadAppsAsync, 1000);
+    private void scheduleScan(long delayMs) {
+        pendingScans++;
+        refreshHandler.postDelayed(() -> {
+            pendingScans--;
+            if (!isFinishing() && !isDestroyed()) {
+                loadAppsAsync();
+            }
+        }, delayMs);
     }
 
     @Override
@@ -211,6 +440,11 @@ public class MainActivity extends AppCompatActivity {
     protected void onResume() {
         super.onResume();
 
+        // Shortcut access comes with becoming the default home app
+        if (shortcutCache != null && Build.VERSION.SDK_INT >= Build.VERSION_CODES.N_MR1) {
+            shortcutCache.refreshIfEmpty();
+        }
+
         if (wasInBackground) {
             wasInBackground = false;
 
@@ -222,11 +456,7 @@ public class MainActivity extends AppCompatActivity {
                 recreateActivityIfNeeded();
             } else {
                 // Normal refresh
-                refreshHandler.postDelayed(() -> {
-                    if (!isFinishing() && !isDestroyed()) {
-                        loadAppsAsync();
-                    }
-                }, 100);
+                scheduleScan(100);
             }
         }
     }
@@ -256,126 +486,613 @@ public class MainActivity extends AppCompatActivity {
                 unregisterReceiver(packageChangesReceiver);
             } catch (Exception ignored) {}
         }
+        try {
+            unregisterReceiver(restrictionsReceiver);
+        } catch (Exception ignored) {}
 
         // Clean up resources
+        if (catalogSource != null) {
+            catalogSource.setListener(null);
+        }
+        if (shortcutCache != null && Build.VERSION.SDK_INT >= Build.VERSION_CODES.N_MR1) {
+            shortcutCache.stop();
+        }
+        PackageEventRecorder.getInstance().stop(this);
+        FrameMetricsMonitor.getInstance().detach();
+        DeferredWork.getInstance().stop();
+        MemoryTrimmer.getInstance().unregister(MemoryTrimmer.Stage.ICONS, iconReleaser);
+        MemoryTrimmer.getInstance().unregister(MemoryTrimmer.Stage.ICONS, iconPoolReleaser);
+        MemoryTrimmer.getInstance().unregister(MemoryTrimmer.Stage.ICONS, shortcutIconReleaser);
+        MemoryTrimmer.getInstance().unregister(MemoryTrimmer.Stage.INDEXES, searchIndexReleaser);
+        LauncherMaintenance maintenance = LauncherMaintenance.getInstance();
+        maintenance.unregister(LauncherMaintenance.Step.VERIFY_CATALOG, verifyCatalogWorker);
+        maintenance.unregister(LauncherMaintenance.Step.BUILD_SEARCH_INDEX, searchIndexWorker);
+        maintenance.unregister(LauncherMaintenance.Step.REFRESH_ICONS, refreshIconsWorker);
+        maintenance.unregister(LauncherMaintenance.Step.COMPACT_STORAGE, compactPinsWorker);
+
         if (tabMediator != null) {
             tabMediator.detach();
         }
 
-        if (executorService != null) {
-            executorService.shutdown();
+        // Only work for this instance's views is dropped; catalog work is owned by
+        // the ViewModel and still reaches the instance that replaces this one
+        if (catalogQueue != null) {
+            catalogQueue.cancel(this);
         }
 
         if (refreshHandler != null) {
             refreshHandler.removeCallbacksAndMessages(null);
+            pendingScans = 0;
+            // Package events still waiting out their burst are applied now rather than lost
+            if (viewModel != null && catalogQueue != null && hasPendingUpdates()) {
+                updatePartitionsAsync(new LinkedHashSet<>(pendingProfiles), new LinkedHashMap<>(pendingPackages));
+            }
+            pendingPackages.clear();
+            pendingProfiles.clear();
         }
     }
 
-    private void loadAppsAsync() {
-        executorService.execute(() -> {
-            try {
-                List<AppInfo> apps = getInstalledApps();
-                loadPinnedApps(apps);
+    // Apply profile and package changes to their catalog partitions without a full scan
+    private void updatePartitionsAsync(Set<Long> profiles, Map<Long, Set<String>> packages) {
+        if (!viewModel.isInitialized()) {
+            // Nothing published yet, so the first full scan covers these changes
+            loadAppsAsync();
+            return;
+        }
 
-                runOnUiThread(() -> {
-                    if (!isFinishing() && !isDestroyed()) {
-                        viewModel.setAllApps(apps);
+        catalogQueue.execute(LauncherExecutor.Priority.VISIBLE, viewModel, () -> {
+            long updateStart = LauncherTrace.begin(LauncherTrace.CATALOG_UPDATE);
+            try {
+                Catalog catalog = viewModel.getCatalog();
+                for (long profile : profiles) {
+                    LauncherCounters.increment(LauncherCounters.PROFILE_UPDATE_EXECUTED);
+                    catalog.replaceProfile(profile, catalogSource.loadProfile(profile));
+                }
+                for (Map.Entry<Long, Set<String>> entry : packages.entrySet()) {
+                    long profile = entry.getKey();
+                    // A reloaded profile already has its packages' current state
+                    if (profiles.contains(profile)) continue;
+
+                    for (String packageName : entry.getValue()) {
+                        LauncherCounters.increment(LauncherCounters.PACKAGE_UPDATE_EXECUTED);
+                        List<AppRecord> components = catalogSource.loadPackage(profile, packageName);
+                        catalog.updatePackage(profile, packageName, components);
+                        FlightRecorder.record(FlightRecorder.Event.PACKAGE_UPDATE, packageName, components.size());
                     }
-                });
+                }
+                if (publishSnapshot(catalog.snapshot())) {
+                    LauncherCounters.increment(LauncherCounters.PACKAGE_UPDATE_PUBLISHED);
+                }
             } catch (Exception e) {
-                e.printStackTrace();
-                runOnUiThread(() -> {
-                    if (!isFinishing() && !isDestroyed()) {
-                        Toast.makeText(this, "Error loading apps", Toast.LENGTH_SHORT).show();
-                    }
-                });
+                FlightRecorder.error(e);
+            } finally {
+                LauncherTrace.end(LauncherTrace.CATALOG_UPDATE, updateStart);
             }
         });
     }
 
-    private void loadPinnedApps(List<AppInfo> apps) {
+    private void loadAppsAsync() {
+        LauncherCounters.increment(LauncherCounters.SCAN_REQUESTED);
+        // Nothing is shown until the first scan publishes
+        LauncherExecutor.Priority priority = viewModel.isInitialized()
+                ? LauncherExecutor.Priority.VISIBLE : LauncherExecutor.Priority.USER_BLOCKING;
+        catalogQueue.execute(priority, viewModel, this::scanCatalog);
+    }
+
+    // Full scan; publishes only if the catalog changed (executor thread)
+    private void scanCatalog() {
+        LauncherCounters.increment(LauncherCounters.SCAN_EXECUTED);
+        long loadStart = LauncherTrace.begin(LauncherTrace.CATALOG_LOAD);
         try {
-            SharedPreferences prefs = getSharedPreferences(PREF_NAME, Context.MODE_PRIVATE);
-            Set<String> pinnedPackages = prefs.getStringSet(PINNED_APPS_KEY, new HashSet<>());
+            Catalog catalog = viewModel.getCatalog();
 
-            // Clean up pinned apps that no longer exist
-            Set<String> existingPackages = new HashSet<>();
-            for (AppInfo app : apps) {
-                existingPackages.add(app.packageName);
-                app.isPinned = pinnedPackages.contains(app.packageName);
+            if (!viewModel.isInitialized()) {
+                long pinsStart = LauncherTrace.begin(LauncherTrace.CATALOG_PINS);
+                try {
+                    catalog.loadPins();
+                    // The ranking orders the first icon pass
+                    viewModel.getUsageStore().load();
+                } finally {
+                    LauncherTrace.end(LauncherTrace.CATALOG_PINS, pinsStart);
+                }
+            }
+
+            List<AppRecord> records = catalogSource.loadAll();
+
+            // Sort, index, diff against the last scan and drop stale pins
+            long sortStart = LauncherTrace.begin(LauncherTrace.CATALOG_SORT);
+            try {
+                catalog.replaceAll(records);
+            } finally {
+                LauncherTrace.end(LauncherTrace.CATALOG_SORT, sortStart);
             }
 
-            // Remove non-existent apps from pinned set
-            boolean changed = pinnedPackages.retainAll(existingPackages);
-            if (changed) {
-                prefs.edit().putStringSet(PINNED_APPS_KEY, new HashSet<>(pinnedPackages)).apply();
+            CatalogSnapshot snapshot = catalog.snapshot();
+            if (publishSnapshot(snapshot)) {
+                LauncherCounters.increment(LauncherCounters.SCAN_PUBLISHED);
+            } else {
+                LauncherCounters.increment(LauncherCounters.SCAN_UNCHANGED);
+                FlightRecorder.record(FlightRecorder.Event.SCAN_UNCHANGED, null, snapshot.getVersion());
             }
         } catch (Exception e) {
-            e.printStackTrace();
+            FlightRecorder.error(e);
+            runOnUiThread(() -> {
+                if (!isFinishing() && !isDestroyed()) {
+                    Toast.makeText(this, "Error loading apps", Toast.LENGTH_SHORT).show();
+                }
+            });
+        } finally {
+            FlightRecorder.record(FlightRecorder.Event.SCAN, null, System.nanoTime() - loadStart);
+            LauncherTrace.end(LauncherTrace.CATALOG_LOAD, loadStart);
+            LauncherTrace.logTimings();
         }
     }
 
+    /**
+     * Build rows for a snapshot and hand them to the ViewModel (executor thread).
+     * Returns false if the snapshot was already published, so the UI is current.
+     */
+    private boolean publishSnapshot(CatalogSnapshot snapshot) {
+        if (viewModel.isInitialized() && snapshot.getVersion() == viewModel.getPublishedVersion()) {
+            return false;
+        }
+
+        List<AppInfo> apps = buildAppInfos(snapshot);
+
+        // Decode only as many icons as the profile allows before publishing; the
+        // rows aren't published yet, so they take the icons on this thread
+        PerformanceProfile profile = PerformanceProfile.get(this);
+        int iconBudget = profile.rowIconLimit();
+        DecodedIcons prefetched = new DecodedIcons();
+        boolean iconsPending = loadIcons(apps, Math.min(profile.prefetchDepth, iconBudget), prefetched);
+        prefetched.apply();
+
+        // The rows go to the ViewModel even if this instance was destroyed meanwhile,
+        // so the instance that replaced it observes them
+        runOnUiThread(() -> {
+            viewModel.setAllApps(apps, snapshot.getVersion());
+            FlightRecorder.record(FlightRecorder.Event.PUBLISH, null, apps.size());
+        });
+
+        // The background pass fills the rest of the row icon budget; rows past it
+        // decode when they are scrolled to
+        int remaining = iconBudget - prefetched.size();
+        if (iconsPending && remaining > 0) {
+            catalogQueue.execute(LauncherExecutor.Priority.VISIBLE, viewModel, () -> {
+                DecodedIcons decoded = new DecodedIcons();
+                loadIcons(apps, remaining, decoded);
+                applyOnMainThread(decoded);
+            });
+        }
+        // Index the new records now rather than on the next keystroke
+        viewModel.getSearchStore().prepare();
+        return true;
+    }
+
+    // Map a catalog snapshot to rows, keeping decoded icons of unchanged records
+    private List<AppInfo> buildAppInfos(CatalogSnapshot snapshot) {
+        CompactCatalog compact = snapshot.compact();
+        // Hidden records get no rows, so tabs, search and counts never see them
+        VisibilityRules.Compiled visibility = viewModel.getVisibility(snapshot);
+        BitSet pinned = snapshot.getPinnedIds();
+        List<AppInfo> apps = new ArrayList<>(visibility.getVisibleCount());
+        for (int id = visibility.nextVisible(0); id >= 0; id = visibility.nextVisible(id + 1)) {
+            AppRecord record = compact.record(id);
+            AppInfo app = new AppInfo(record.label, record.packageName, null, compact.searchLabel(id));
+            app.record = record;
+            app.recordId = id;
+            app.isPinned = pinned.get(id);
+
+            AppInfo old = viewModel.findApp(record.key());
+            if (old != null && record.equals(old.record)) {
+                app.launchIntent = old.launchIntent;
+                app.icon = old.icon;
+                if (app.icon != null) {
+                    LauncherCounters.increment(LauncherCounters.ICON_REUSED);
+                }
+            }
+            if (app.launchIntent == null) {
+                app.launchIntent = PackageManagerCatalogSource.createLaunchIntent(record);
+            }
+            apps.add(app);
+        }
+        return apps;
+    }
+
+    LauncherAppsCatalogSource getCatalogSource() {
+        return catalogSource;
+    }
+
+    ShortcutCache getShortcutCache() {
+        return shortcutCache;
+    }
+
+    // Pin toggles in quick succession coalesce into one write
     public void savePinnedApps() {
-        executorService.execute(() -> {
+        Catalog catalog = viewModel.getCatalog();
+        DeferredWork.getInstance().post(DeferredWork.Lane.BACKGROUND, "pins.save", () -> {
             try {
-                SharedPreferences prefs = getSharedPreferences(PREF_NAME, Context.MODE_PRIVATE);
-                Set<String> pinnedPackages = new HashSet<>();
-                List<AppInfo> apps = viewModel.getAllApps().getValue();
-                if (apps != null) {
-                    for (AppInfo app : apps) {
-                        if (app.isPinned) {
-                            pinnedPackages.add(app.packageName);
-                        }
-                    }
-                }
-                prefs.edit().putStringSet(PINNED_APPS_KEY, pinnedPackages).apply();
+                catalog.savePins();
             } catch (Exception e) {
-                e.printStackTrace();
+                FlightRecorder.error(e);
             }
         });
     }
 
-    private List<AppInfo> getInstalledApps() {
-        List<AppInfo> apps = new ArrayList<>();
-        try {
-            PackageManager pm = getPackageManager();
-            String selfPackageName = getPackageName();
+    /**
+     * Icons decoded off the main thread for rows, set on them together. Rows that
+     * are published are only changed on the main thread, which also releases icons.
+     */
+    private static final class DecodedIcons {
+        private final List<AppInfo> apps = new ArrayList<>();
+        private final List<Drawable> icons = new ArrayList<>();
+
+        void add(AppInfo app, Drawable icon) {
+            apps.add(app);
+            icons.add(icon);
+        }
 
-            Intent mainIntent = new Intent(Intent.ACTION_MAIN, null);
-            mainIntent.addCategory(Intent.CATEGORY_LAUNCHER);
+        boolean isEmpty() {
+            return apps.isEmpty();
+        }
 
-            @SuppressLint("QueryPermissionsNeeded")
-            List<ResolveInfo> resolveInfos = pm.queryIntentActivities(mainIntent,
-                    PackageManager.MATCH_ALL);
+        int size() {
+            return apps.size();
+        }
 
-            for (ResolveInfo resolveInfo : resolveInfos) {
-                try {
-                    String packageName = resolveInfo.activityInfo.packageName;
+        // Set the icons; returns how many rows got one
+        int apply() {
+            int set = 0;
+            for (int i = 0; i < apps.size(); i++) {
+                AppInfo app = apps.get(i);
+                Drawable icon = icons.get(i);
+                app.icon = icon;
+                // Don't retry an icon that can't be loaded
+                app.iconUnavailable = icon == null;
+                if (icon != null) set++;
+            }
+            return set;
+        }
+    }
 
-                    // Skip your own app
-                    if (packageName.equals(selfPackageName)) {
-                        continue;
-                    }
+    // Set icons on published rows on the main thread
+    private void applyOnMainThread(DecodedIcons decoded) {
+        if (decoded.isEmpty()) return;
+        runOnUiThread(() -> {
+            if (decoded.apply() > 0) {
+                viewModel.notifyDataChanged();
+            }
+        });
+    }
+
+    /**
+     * Decode icons for up to {@code limit} apps, pinned apps first, into {@code decoded}.
+     * Returns true if some apps are still without an icon.
+     */
+    private boolean loadIcons(List<AppInfo> apps, int limit, DecodedIcons decoded) {
+        long iconNanos = 0;
+        int loaded = 0;
+        boolean pending = false;
+
+        // Pinned apps are on the first tab, so they always get icons; then the
+        // apps launched most, which also head the All tab; then the rest
+        Set<String> ranked = new HashSet<>(viewModel.getUsageStore().top(UsageStore.PREFETCH_RANKED));
+        for (int pass = 0; pass < 3 && !pending; pass++) {
+            for (AppInfo app : apps) {
+                if (app.icon != null || app.iconUnavailable || iconPass(app, ranked) != pass) {
+                    continue;
+                }
+                if (pass > 0 && loaded >= limit) {
+                    pending = true;
+                    break;
+                }
+
+                long iconStart = System.nanoTime();
+                decoded.add(app, decodeIcon(app));
+                iconNanos += System.nanoTime() - iconStart;
+                loaded++;
+            }
+        }
+
+        LauncherTrace.record(LauncherTrace.CATALOG_ICON, iconNanos);
+        FlightRecorder.record(FlightRecorder.Event.ICONS, null, loaded);
+        return pending;
+    }
+
+    private static int iconPass(AppInfo app, Set<String> ranked) {
+        if (app.isPinned) return 0;
+        return ranked.contains(app.getKey()) ? 1 : 2;
+    }
+
+    // Decode a row's icon without touching the row; null if it can't be loaded
+    @Nullable
+    private Drawable decodeIcon(AppInfo app) {
+        Drawable icon = null;
+        try {
+            icon = app.record != null ? iconProvider.loadIcon(app.record) : null;
+        } catch (Exception e) {
+            FlightRecorder.error(e);
+        }
+        LauncherCounters.increment(icon == null ? LauncherCounters.ICON_FAILED : LauncherCounters.ICON_DECODED);
+        return icon;
+    }
 
-                    String appName = resolveInfo.loadLabel(pm).toString();
-                    Drawable appIcon = resolveInfo.loadIcon(pm);
+    /**
+     * Decode icons that were released under memory pressure and are needed again
+     */
+    public void loadMissingIcons(List<AppInfo> apps) {
+        if (catalogQueue == null || isDestroyed()) return;
 
-                    apps.add(new AppInfo(appName, packageName, appIcon));
-                } catch (Exception e) {
-                    e.printStackTrace();
+        // The rows are on screen
+        catalogQueue.execute(LauncherExecutor.Priority.USER_BLOCKING, this, () -> {
+            DecodedIcons decoded = new DecodedIcons();
+            for (AppInfo app : apps) {
+                if (app.icon == null && !app.iconUnavailable) {
+                    decoded.add(app, decodeIcon(app));
                 }
             }
+            applyOnMainThread(decoded);
+            runOnUiThread(this::trimIconsToBudget);
+        });
+    }
+
+    // On-demand decodes can grow past the row icon budget; drop the offscreen ones then
+    private void trimIconsToBudget() {
+        if (isDestroyed()) return;
+        int limit = PerformanceProfile.get(this).rowIconLimit();
+        if (viewModel.getIconCount() > limit) {
+            FlightRecorder.record(FlightRecorder.Event.ICONS, "trim", releaseOffscreenIcons());
+        }
+    }
+
+    // Maintenance workers block their thread until the catalog queue has run the work
+    private void runOnExecutor(Runnable work) throws Exception {
+        catalogQueue.execute(LauncherExecutor.Priority.BACKGROUND, viewModel, work).get();
+    }
+
+    // The activity handles density and night mode changes itself, so rows keep
+    // icons decoded for the old configuration until they are decoded again here
+    private void refreshStaleIcons() {
+        int config = iconConfig();
+        if (config == decodedIconConfig) return;
+
+        DecodedIcons decoded = new DecodedIcons();
+        for (AppInfo app : viewModel.getCurrentApps()) {
+            if (app.icon != null) {
+                decoded.add(app, decodeIcon(app));
+            }
+        }
+        decodedIconConfig = config;
+        FlightRecorder.record(FlightRecorder.Event.ICONS, "maintenance", decoded.size());
+        applyOnMainThread(decoded);
+    }
+
+    private int iconConfig() {
+        Configuration config = getResources().getConfiguration();
+        return config.densityDpi << 8 | (config.uiMode & Configuration.UI_MODE_NIGHT_MASK);
+    }
+
+    @Override
+    public void onTrimMemory(int level) {
+        super.onTrimMemory(level);
+        FlightRecorder.record(FlightRecorder.Event.TRIM, null, level);
+        MemoryTrimmer.getInstance().onTrimMemory(level);
+    }
+
+    @Override
+    public void onLowMemory() {
+        super.onLowMemory();
+        MemoryTrimmer.getInstance().onLowMemory();
+    }
+
+    private int releaseIcons(MemoryTrimmer.Stage stage) {
+        return releaseOffscreenIcons();
+    }
+
+    // Drops icons that are neither pinned nor on screen in any tab
+    private int releaseOffscreenIcons() {
+        Set<String> visibleKeys = new HashSet<>();
+        List<AppsFragment> fragments = new ArrayList<>();
+        for (Fragment fragment : getSupportFragmentManager().getFragments()) {
+            if (fragment instanceof AppsFragment) {
+                AppsFragment appsFragment = (AppsFragment) fragment;
+                fragments.add(appsFragment);
+                visibleKeys.addAll(appsFragment.getVisibleKeys());
+            }
+        }
+
+        int freed = viewModel.releaseIcons(visibleKeys);
+        for (AppsFragment fragment : fragments) {
+            fragment.clearReleasedIcons();
+        }
+        return freed;
+    }
 
-            // Sort alphabetically
-            Collections.sort(apps, (a, b) -> a.name.compareToIgnoreCase(b.name));
+    /**
+     * Launcher state as stable key=value lines, see {@link DiagnosticsDump}
+     */
+    @Override
+    public void dump(@NonNull String prefix, @Nullable FileDescriptor fd, @NonNull PrintWriter writer,
+                     @Nullable String[] args) {
+        DiagnosticsDump dump = new DiagnosticsDump();
+        try {
+            dumpState(dump);
         } catch (Exception e) {
-            e.printStackTrace();
+            FlightRecorder.error(e);
+            dump.put("dump.error", e.toString());
         }
+        dump.writeTo(prefix, writer);
 
-        return apps;
+        if (DiagnosticsDump.hasArg(args, FlightRecorder.ARG_EVENTS)) {
+            FlightRecorder.writeTo(writer);
+        }
+        if (DiagnosticsDump.hasArg(args, DiagnosticsDump.ARG_ALL)) {
+            super.dump(prefix, fd, writer, args);
+        }
+        if (DiagnosticsDump.hasArg(args, DiagnosticsDump.ARG_RESET)) {
+            LauncherTrace.reset();
+            LauncherCounters.reset();
+            AllocationStats.reset();
+            FrameMetricsMonitor.getInstance().reset();
+            LatencyRecorder.getInstance().reset();
+        }
+    }
+
+    private void dumpState(DiagnosticsDump dump) {
+        if (viewModel != null) {
+            // Catalog and the list the tabs were last given
+            CatalogSnapshot snapshot = viewModel.getCatalog().snapshot();
+            dump.put("catalog.size", snapshot.size());
+            dump.put("catalog.version", snapshot.getVersion());
+            dump.put("catalog.pinned", snapshot.getPinnedKeys().size());
+            dump.put("catalog.profiles", snapshot.getProfiles().size());
+            dump.put("catalog.packages", snapshot.compact().packageCount());
+            VisibilityRules.Compiled visibility = viewModel.getLastVisibility();
+            if (visibility != null) {
+                dump.put("visibility.visible", visibility.getVisibleCount());
+                for (VisibilityRules.Rule rule : VisibilityRules.Rule.values()) {
+                    dump.put("visibility.hidden." + rule.name().toLowerCase(Locale.ROOT), visibility.getHiddenCount(rule));
+                }
+                if (visibility.compact() == snapshot.compact()) {
+                    dump.put("visibility.pinned_visible", visibility.visibleOf(snapshot.getPinnedIds()).cardinality());
+                }
+            }
+            dump.put("catalog.published_version", viewModel.getPublishedVersion());
+            dump.put("catalog.pin_revision", viewModel.getPinRevision());
+            dump.put("catalog.initialized", viewModel.isInitialized());
+
+            // Decoded icons held by the rows; reuse across scans is the cache hit
+            List<AppInfo> apps = viewModel.getCurrentApps();
+            int iconsHeld = 0;
+            int iconsUnavailable = 0;
+            for (AppInfo app : apps) {
+                if (app.icon != null) iconsHeld++;
+                if (app.iconUnavailable) iconsUnavailable++;
+            }
+            dump.put("icon.apps", apps.size());
+            dump.put("icon.held", iconsHeld);
+            dump.put("icon.unavailable", iconsUnavailable);
+            IconBitmapPool.getInstance().dumpState(dump, apps);
+            dump.putRate("icon.reuse_rate", LauncherCounters.get(LauncherCounters.ICON_REUSED),
+                    LauncherCounters.get(LauncherCounters.ICON_DECODED)
+                            + LauncherCounters.get(LauncherCounters.ICON_FAILED));
+        }
+
+        // Shortcuts ready for the long-press menu and their decoded icons
+        if (shortcutCache != null && Build.VERSION.SDK_INT >= Build.VERSION_CODES.N_MR1) {
+            dump.put("shortcut.packages", shortcutCache.getPackageCount());
+            dump.put("shortcut.count", shortcutCache.getShortcutCount());
+            dump.put("shortcut.icons", shortcutCache.getIconCount());
+            dump.put("shortcut.icon_bytes", shortcutCache.getIconBytes());
+        }
+
+        // Work waiting to run
+        dump.put("pending.scans", pendingScans);
+        int packagesPending = 0;
+        for (Set<String> packages : pendingPackages.values()) {
+            packagesPending += packages.size();
+        }
+        dump.put("pending.packages", packagesPending);
+        dump.put("pending.profiles", pendingProfiles.size());
+        dump.put("pending.recording", PackageEventRecorder.getInstance().isRecording());
+        DeferredWork.getInstance().dumpState(dump);
+        LauncherMaintenance.getInstance().dumpState(dump);
+        LauncherExecutor.getInstance().dumpState(dump);
+        if (viewModel != null) {
+            viewModel.getUsageStore().dumpState(dump);
+            viewModel.getSearchStore().dumpState(dump);
+        }
+
+        for (Fragment fragment : getSupportFragmentManager().getFragments()) {
+            if (fragment instanceof AppsFragment) {
+                ((AppsFragment) fragment).dumpState(dump);
+            }
+        }
+
+        dump.putTimings();
+        dump.putCounters("");
+
+        for (AllocationStats.Stats stats : AllocationStats.getStats()) {
+            String key = "alloc." + stats.section;
+            dump.put(key + ".count", stats.count);
+            dump.put(key + ".total_bytes", stats.totalBytes);
+            dump.put(key + ".bytes_per_item", stats.bytesPerItem());
+            dump.put(key + ".last_bytes", stats.lastBytes);
+        }
+
+        for (LatencyHistogram.Snapshot latency : LatencyRecorder.getInstance().getAllStats()) {
+            String key = "latency." + latency.name.toLowerCase(Locale.US);
+            dump.put(key + ".count", latency.count);
+            dump.put(key + ".p50_us", latency.percentileNanos(50) / 1000);
+            dump.put(key + ".p95_us", latency.percentileNanos(95) / 1000);
+            dump.put(key + ".p99_us", latency.percentileNanos(99) / 1000);
+            dump.put(key + ".max_us", latency.maxNanos / 1000);
+        }
+
+        for (FrameStats.Snapshot frames : FrameMetricsMonitor.getInstance().getAllStats()) {
+            String key = "frames." + frames.name.toLowerCase(Locale.US);
+            dump.put(key + ".total", frames.totalFrames);
+            dump.put(key + ".janky", frames.jankyFrames);
+            dump.put(key + ".frozen", frames.frozenFrames);
+            dump.put(key + ".jank_pct", frames.jankPercent());
+            dump.put(key + ".max_us", frames.maxNanos / 1000);
+        }
+
+        MemoryTrimmer trimmer = MemoryTrimmer.getInstance();
+        dump.put("memory.last_level", trimmer.getLastLevel());
+        for (MemoryTrimmer.Stage stage : MemoryTrimmer.Stage.values()) {
+            String key = "memory." + stage.name().toLowerCase(Locale.US);
+            dump.put(key + ".triggers", trimmer.getTriggerCount(stage));
+            dump.put(key + ".freed", trimmer.getFreedCount(stage));
+        }
+        Runtime runtime = Runtime.getRuntime();
+        dump.put("memory.heap_used_bytes", runtime.totalMemory() - runtime.freeMemory());
+        dump.put("memory.heap_max_bytes", runtime.maxMemory());
+
+        PerformanceProfile profile = PerformanceProfile.get(this);
+        dump.put("profile.name", profile.name());
+        dump.put("profile.override", PerformanceProfile.getOverride(this));
+        dump.put("profile.icon_cache_bytes", profile.iconCacheBytes);
+        dump.put("profile.row_icon_limit", profile.rowIconLimit());
+        dump.put("profile.prefetch_depth", profile.prefetchDepth);
+        dump.put("profile.offscreen_tabs", profile.offscreenTabLimit);
+    }
+
+    /**
+     * Hide every activity of a package, in every profile, and republish the rows without it
+     */
+    public void hidePackage(String packageName) {
+        if (catalogQueue == null || isDestroyed()) return;
+        VisibilityPrefs.hidePackage(this, packageName);
+        applyVisibilityRules(viewModel.getVisibilityRules().withPackagePattern(packageName));
+    }
+
+    // Show the apps hidden from their options, keeping the operator's rules
+    private void showUserHiddenApps() {
+        if (catalogQueue == null || isDestroyed()) return;
+        VisibilityPrefs.clearUserHidden(this);
+        reloadVisibilityRules();
     }
 
-    public void launchUninstall(String packageName) {
+    // Read the rules again, e.g. after the operator changed them, and rebuild the rows
+    private void reloadVisibilityRules() {
+        if (catalogQueue == null || isDestroyed()) return;
+        Context appContext = getApplicationContext();
+        catalogQueue.execute(LauncherExecutor.Priority.VISIBLE, viewModel, () -> {
+            // Reading the managed configuration is an IPC
+            viewModel.setVisibilityRules(VisibilityPrefs.load(appContext));
+            publishSnapshot(viewModel.getCatalog().snapshot());
+        });
+    }
+
+    // Rebuild the rows under rules already stored; they are compiled by the publish
+    private void applyVisibilityRules(VisibilityRules rules) {
+        viewModel.setVisibilityRules(rules);
+        catalogQueue.execute(LauncherExecutor.Priority.VISIBLE, viewModel,
+                () -> publishSnapshot(viewModel.getCatalog().snapshot()));
+    }
+
+    public void launchUninstall(String packageName, long profile) {
         packageBeingUninstalled = packageName;
         uninstallStartTime = System.currentTimeMillis();
 
@@ -383,15 +1100,64 @@ public class MainActivity extends AppCompatActivity {
             Intent intent = new Intent(Intent.ACTION_DELETE);
             intent.setData(android.net.Uri.parse("package:" + packageName));
             intent.addFlags(Intent.FLAG_ACTIVITY_NEW_TASK);
+            if (profile != AppRecord.OWN_PROFILE) {
+                // Uninstall from the profile the row belongs to
+                intent.putExtra(Intent.EXTRA_USER, catalogSource.userOf(profile));
+            }
             startActivity(intent);
         } catch (Exception e) {
-            e.printStackTrace();
+            FlightRecorder.error(e);
             Toast.makeText(this, "Unable to launch uninstaller", Toast.LENGTH_SHORT).show();
             packageBeingUninstalled = null;
             uninstallStartTime = 0;
         }
     }
 
+    private void showSettingsDialog() {
+        try {
+            String[] labels = {"Automatic (" + PerformanceProfile.get(this).name().toLowerCase(Locale.ROOT) + ")",
+                    "Low-end", "Standard", "High"};
+            String[] values = {PerformanceProfile.AUTO, PerformanceProfile.LOW.name(),
+                    PerformanceProfile.STANDARD.name(), PerformanceProfile.HIGH.name()};
+
+            String override = PerformanceProfile.getOverride(this);
+            int checked = 0;
+            for (int i = 0; i < values.length; i++) {
+                if (values[i].equals(override)) {
+                    checked = i;
+                }
+            }
+
+            AlertDialog.Builder builder = new AlertDialog.Builder(this);
+            builder.setTitle("Launcher settings");
+            builder.setSingleChoiceItems(labels, checked, (dialog, which) -> {
+                dialog.dismiss();
+                if (!values[which].equals(override)) {
+                    PerformanceProfile.setOverride(this, values[which]);
+                    // Budgets are read at startup, so rebuild with the new profile
+                    recreate();
+                }
+            });
+            boolean frequentShown = UsageStore.isFrequentShown(this);
+            builder.setNeutralButton(frequentShown ? "Hide Frequent" : "Show Frequent", (dialog, which) -> {
+                UsageStore.setFrequentShown(this, !frequentShown);
+                for (Fragment fragment : getSupportFragmentManager().getFragments()) {
+                    if (fragment instanceof AppsFragment) {
+                        ((AppsFragment) fragment).refreshAppList();
+                    }
+                }
+            });
+            // Apps hidden from their options; operator rules aren't the user's to undo
+            if (VisibilityPrefs.hasUserHidden(this)) {
+                builder.setPositiveButton("Show Hidden Apps", (dialog, which) -> showUserHiddenApps());
+            }
+            builder.setNegativeButton("Cancel", null);
+            builder.show();
+        } catch (Exception e) {
+            FlightRecorder.error(e);
+        }
+    }
+
     // ViewPager adapter for tabs
     private static class LauncherPagerAdapter extends FragmentStateAdapter {
         public LauncherPagerAdapter(@NonNull AppCompatActivity activity) {
@@ -0,0 +1,84 @@
+// MaintenanceJobService.java
+
+package com.cinemint.rosterlauncher;
+
+import android.app.job.JobInfo;
+import android.app.job.JobParameters;
+import android.app.job.JobScheduler;
+import android.app.job.JobService;
+import android.content.ComponentName;
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.os.Process;
+
+/**
+ * Runs {@link LauncherMaintenance} while the device is idle or charging.
+ * JobInfo constraints are all required, so there is one periodic job per
+ * condition and the maintenance itself skips a run that follows another.
+ */
+public class MaintenanceJobService extends JobService {
+    static final int JOB_ID_IDLE = 0x6d01;
+    static final int JOB_ID_CHARGING = 0x6d02;
+
+    private static final long PERIOD_MS = 24 * 60 * 60 * 1000L;
+    // Time of the last completed run, so a new process doesn't run again within the interval
+    static final String PREF_LAST_RUN = "maintenance_last_run";
+
+    private volatile boolean stopRequested;
+
+    /**
+     * Schedule both jobs unless they already are, which would restart their period
+     */
+    public static void schedule(Context context) {
+        JobScheduler scheduler = (JobScheduler) context.getSystemService(Context.JOB_SCHEDULER_SERVICE);
+        if (scheduler == null) return;
+
+        ComponentName service = new ComponentName(context, MaintenanceJobService.class);
+        try {
+            if (scheduler.getPendingJob(JOB_ID_IDLE) == null) {
+                scheduler.schedule(new JobInfo.Builder(JOB_ID_IDLE, service)
+                        .setRequiresDeviceIdle(true)
+                        .setPeriodic(PERIOD_MS)
+                        .build());
+            }
+            if (scheduler.getPendingJob(JOB_ID_CHARGING) == null) {
+                scheduler.schedule(new JobInfo.Builder(JOB_ID_CHARGING, service)
+                        .setRequiresCharging(true)
+                        .setPeriodic(PERIOD_MS)
+                        .build());
+            }
+        } catch (Exception e) {
+            // Too many jobs scheduled by the app, or the scheduler is unavailable
+            FlightRecorder.error(e);
+        }
+    }
+
+    @Override
+    public boolean onStartJob(JobParameters params) {
+        stopRequested = false;
+        new Thread(() -> {
+            Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+            LauncherMaintenance maintenance = LauncherMaintenance.getInstance();
+            SharedPreferences prefs = getSharedPreferences(MainActivity.PREF_NAME, MODE_PRIVATE);
+            maintenance.restoreLastRun(prefs.getLong(PREF_LAST_RUN, -1));
+
+            boolean completed = maintenance.run(System.currentTimeMillis(), () -> stopRequested);
+            if (completed) {
+                prefs.edit().putLong(PREF_LAST_RUN, maintenance.getLastRunMillis()).apply();
+            }
+            // A stopped job is rescheduled through onStopJob's result instead; one
+            // that found no activity to work for is retried with backoff
+            if (!stopRequested) {
+                jobFinished(params, !completed && !maintenance.hasWorkers());
+            }
+        }, "Maintenance").start();
+        return true;
+    }
+
+    @Override
+    public boolean onStopJob(JobParameters params) {
+        // The device left idle or the charger; the current worker finishes first
+        stopRequested = true;
+        return true;
+    }
+}
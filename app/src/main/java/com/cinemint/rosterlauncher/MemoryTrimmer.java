@@ -0,0 +1,125 @@
+// MemoryTrimmer.java
+
+package com.cinemint.rosterlauncher;
+
+import android.content.ComponentCallbacks2;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Maps onTrimMemory/onLowMemory levels to staged releases. Each stage also runs
+ * every cheaper stage before it, and components rebuild what they released lazily.
+ */
+public final class MemoryTrimmer {
+
+    public enum Stage {
+        // Views of tabs that are not on screen
+        TAB_VIEWS,
+        // Decoded icons outside the visible set
+        ICONS,
+        // Search indexes and other derived lookup structures
+        INDEXES
+    }
+
+    /**
+     * Releases memory for one stage and returns how many items it freed
+     */
+    public interface Releaser {
+        int release(Stage stage);
+    }
+
+    private static final MemoryTrimmer instance = new MemoryTrimmer();
+
+    private final List<List<Releaser>> releasers = new ArrayList<>();
+    private final long[] triggerCounts = new long[Stage.values().length];
+    private final long[] freedCounts = new long[Stage.values().length];
+    private volatile int lastLevel = -1;
+
+    public static MemoryTrimmer getInstance() {
+        return instance;
+    }
+
+    private MemoryTrimmer() {
+        for (int i = 0; i < Stage.values().length; i++) {
+            releasers.add(new CopyOnWriteArrayList<>());
+        }
+    }
+
+    public void register(Stage stage, Releaser releaser) {
+        releasers.get(stage.ordinal()).add(releaser);
+    }
+
+    public void unregister(Stage stage, Releaser releaser) {
+        releasers.get(stage.ordinal()).remove(releaser);
+    }
+
+    /**
+     * Handle a ComponentCallbacks2 trim level (main thread)
+     */
+    public void onTrimMemory(int level) {
+        lastLevel = level;
+        Stage stage = stageFor(level);
+        if (stage != null) {
+            trimTo(stage);
+        }
+    }
+
+    /**
+     * Handle onLowMemory, which is treated like the most severe trim level
+     */
+    public void onLowMemory() {
+        onTrimMemory(ComponentCallbacks2.TRIM_MEMORY_COMPLETE);
+    }
+
+    /**
+     * Run every stage up to and including the given one
+     */
+    public void trimTo(Stage stage) {
+        for (Stage s : Stage.values()) {
+            if (s.ordinal() > stage.ordinal()) break;
+
+            int freed = 0;
+            for (Releaser releaser : releasers.get(s.ordinal())) {
+                try {
+                    freed += releaser.release(s);
+                } catch (Exception e) {
+                    FlightRecorder.error(e);
+                }
+            }
+
+            synchronized (this) {
+                triggerCounts[s.ordinal()]++;
+                freedCounts[s.ordinal()] += freed;
+            }
+        }
+    }
+
+    static Stage stageFor(int level) {
+        if (level >= ComponentCallbacks2.TRIM_MEMORY_COMPLETE) return Stage.INDEXES;
+        if (level >= ComponentCallbacks2.TRIM_MEMORY_MODERATE) return Stage.ICONS;
+        if (level >= ComponentCallbacks2.TRIM_MEMORY_BACKGROUND) return Stage.TAB_VIEWS;
+        // The launcher's UI is hidden every time an app is launched from it, which
+        // says nothing about memory; releasing then would rebuild tabs on every return
+        if (level >= ComponentCallbacks2.TRIM_MEMORY_UI_HIDDEN) return null;
+
+        // Running levels arrive while the launcher is in the foreground
+        if (level >= ComponentCallbacks2.TRIM_MEMORY_RUNNING_CRITICAL) return Stage.INDEXES;
+        if (level >= ComponentCallbacks2.TRIM_MEMORY_RUNNING_LOW) return Stage.ICONS;
+        if (level >= ComponentCallbacks2.TRIM_MEMORY_RUNNING_MODERATE) return Stage.TAB_VIEWS;
+        return null;
+    }
+
+    public synchronized long getTriggerCount(Stage stage) {
+        return triggerCounts[stage.ordinal()];
+    }
+
+    public synchronized long getFreedCount(Stage stage) {
+        return freedCounts[stage.ordinal()];
+    }
+
+    public int getLastLevel() {
+        return lastLevel;
+    }
+}
@@ -0,0 +1,82 @@
+// PackageEvent.java
+
+package com.cinemint.rosterlauncher;
+
+import android.content.Intent;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * One recorded package broadcast. Stored as a tab-separated line:
+ * elapsed realtime in ms, intent action, package name, replacing flag (0/1).
+ */
+public final class PackageEvent {
+    public final long timeMs;
+    public final String action;
+    public final String packageName;
+    public final boolean replacing;
+
+    public PackageEvent(long timeMs, String action, String packageName, boolean replacing) {
+        this.timeMs = timeMs;
+        this.action = action;
+        this.packageName = packageName;
+        this.replacing = replacing;
+    }
+
+    /**
+     * Capture a package broadcast, or return null if it has no action or package
+     */
+    public static PackageEvent fromIntent(long timeMs, Intent intent) {
+        if (intent == null || intent.getAction() == null || intent.getData() == null) {
+            return null;
+        }
+
+        String packageName = intent.getData().getSchemeSpecificPart();
+        if (packageName == null) {
+            return null;
+        }
+
+        return new PackageEvent(timeMs, intent.getAction(), packageName,
+                intent.getBooleanExtra(Intent.EXTRA_REPLACING, false));
+    }
+
+    public String toLine() {
+        return timeMs + "\t" + action + "\t" + packageName + "\t" + (replacing ? 1 : 0);
+    }
+
+    /**
+     * Parse a line written by {@link #toLine()}
+     */
+    public static PackageEvent parse(String line) {
+        String[] fields = line.split("\t");
+        if (fields.length != 4) {
+            throw new IllegalArgumentException("Expected 4 fields: " + line);
+        }
+        return new PackageEvent(Long.parseLong(fields[0]), fields[1], fields[2], "1".equals(fields[3]));
+    }
+
+    /**
+     * Read a recording, skipping blank lines and # comments
+     */
+    public static List<PackageEvent> readAll(Reader reader) throws IOException {
+        List<PackageEvent> events = new ArrayList<>();
+        BufferedReader lines = new BufferedReader(reader);
+
+        String line;
+        while ((line = lines.readLine()) != null) {
+            line = line.trim();
+            if (line.isEmpty() || line.startsWith("#")) continue;
+            events.add(parse(line));
+        }
+        return events;
+    }
+
+    @Override
+    public String toString() {
+        return toLine();
+    }
+}
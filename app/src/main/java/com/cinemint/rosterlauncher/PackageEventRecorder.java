@@ -0,0 +1,101 @@
+// PackageEventRecorder.java
+
+package com.cinemint.rosterlauncher;
+
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+import android.content.IntentFilter;
+import android.os.SystemClock;
+import android.util.Log;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+
+/**
+ * Records the raw stream of package broadcasts to a file so real bursts can be
+ * replayed against the update pipeline in tests. Off unless enabled with:
+ * adb shell setprop log.tag.PackageEvents DEBUG
+ * and pulled with:
+ * adb shell run-as com.cinemint.rosterlauncher cat files/package_events.tsv
+ */
+public final class PackageEventRecorder {
+    private static final String TAG = "PackageEvents";
+    static final String FILE_NAME = "package_events.tsv";
+
+    private static final PackageEventRecorder instance = new PackageEventRecorder();
+
+    // File appends stay off the main thread, in arrival order
+    private final LauncherExecutor.SerialQueue writer = LauncherExecutor.getInstance().serial("package_events");
+    private BroadcastReceiver receiver;
+
+    public static PackageEventRecorder getInstance() {
+        return instance;
+    }
+
+    private PackageEventRecorder() {
+    }
+
+    /**
+     * Start recording if enabled; every package action is recorded, not only the ones the launcher handles
+     */
+    public synchronized void start(Context context) {
+        if (receiver != null || !Log.isLoggable(TAG, Log.DEBUG)) return;
+
+        Context appContext = context.getApplicationContext();
+        File file = new File(appContext.getFilesDir(), FILE_NAME);
+
+        receiver = new BroadcastReceiver() {
+            @Override
+            public void onReceive(Context context, Intent intent) {
+                PackageEvent event = PackageEvent.fromIntent(SystemClock.elapsedRealtime(), intent);
+                if (event != null) {
+                    append(file, event);
+                }
+            }
+        };
+
+        IntentFilter filter = new IntentFilter();
+        filter.addAction(Intent.ACTION_PACKAGE_ADDED);
+        filter.addAction(Intent.ACTION_PACKAGE_REMOVED);
+        filter.addAction(Intent.ACTION_PACKAGE_REPLACED);
+        filter.addAction(Intent.ACTION_PACKAGE_CHANGED);
+        filter.addAction(Intent.ACTION_PACKAGE_FULLY_REMOVED);
+        filter.addDataScheme("package");
+
+        try {
+            appContext.registerReceiver(receiver, filter);
+            Log.d(TAG, "Recording package events to " + file);
+        } catch (Exception e) {
+            FlightRecorder.error(e);
+            receiver = null;
+        }
+    }
+
+    public synchronized void stop(Context context) {
+        if (receiver == null) return;
+
+        try {
+            context.getApplicationContext().unregisterReceiver(receiver);
+        } catch (Exception e) {
+            FlightRecorder.error(e);
+        }
+        receiver = null;
+    }
+
+    public synchronized boolean isRecording() {
+        return receiver != null;
+    }
+
+    private void append(File file, PackageEvent event) {
+        writer.execute(LauncherExecutor.Priority.BACKGROUND, () -> {
+            try (FileWriter out = new FileWriter(file, true)) {
+                out.write(event.toLine());
+                out.write('\n');
+            } catch (IOException e) {
+                FlightRecorder.error(FILE_NAME, e);
+            }
+        });
+    }
+}
@@ -0,0 +1,146 @@
+// PackageManagerCatalogSource.java
+
+package com.cinemint.rosterlauncher;
+
+import android.annotation.SuppressLint;
+import android.content.ComponentName;
+import android.content.Context;
+import android.content.Intent;
+import android.content.pm.ApplicationInfo;
+import android.content.pm.PackageManager;
+import android.content.pm.ResolveInfo;
+import android.os.Build;
+
+import com.cinemint.rosterlauncher.catalog.AppRecord;
+import com.cinemint.rosterlauncher.catalog.CatalogSource;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Catalog source backed by PackageManager launcher-intent resolution, for the
+ * launcher's own profile.
+ */
+public class PackageManagerCatalogSource implements CatalogSource {
+    private final PackageManager pm;
+    private final String selfPackageName;
+
+    public PackageManagerCatalogSource(Context context) {
+        this.pm = context.getPackageManager();
+        this.selfPackageName = context.getPackageName();
+    }
+
+    // Record for an activity of the launcher's own profile, with the app attributes visibility rules use
+    private static AppRecord createRecord(ResolveInfo resolveInfo, String label) {
+        ApplicationInfo appInfo = resolveInfo.activityInfo.applicationInfo;
+        return new AppRecord(resolveInfo.activityInfo.packageName, resolveInfo.activityInfo.name, label,
+                AppRecord.OWN_PROFILE, isSystemApp(appInfo), categoryOf(appInfo));
+    }
+
+    static boolean isSystemApp(ApplicationInfo appInfo) {
+        return appInfo != null && (appInfo.flags & ApplicationInfo.FLAG_SYSTEM) != 0;
+    }
+
+    static int categoryOf(ApplicationInfo appInfo) {
+        if (appInfo == null || Build.VERSION.SDK_INT < Build.VERSION_CODES.O) {
+            return AppRecord.CATEGORY_UNDEFINED;
+        }
+        return appInfo.category;
+    }
+
+    /**
+     * Launch intent for the exact activity a record describes, built without a
+     * PackageManager call; null if the record has no activity or is in another profile
+     */
+    static Intent createLaunchIntent(AppRecord record) {
+        // Other profiles are started through LauncherApps
+        if (record.activityName.isEmpty() || !record.isOwnProfile()) return null;
+
+        Intent intent = new Intent(Intent.ACTION_MAIN);
+        intent.addCategory(Intent.CATEGORY_LAUNCHER);
+        intent.setComponent(new ComponentName(record.packageName, record.activityName));
+        intent.addFlags(Intent.FLAG_ACTIVITY_NEW_TASK | Intent.FLAG_ACTIVITY_RESET_TASK_IF_NEEDED);
+        return intent;
+    }
+
+    @Override
+    public List<AppRecord> loadProfile(long profile) {
+        return profile == AppRecord.OWN_PROFILE ? loadAll() : new ArrayList<>();
+    }
+
+    @Override
+    public List<AppRecord> loadAll() {
+        List<AppRecord> records = new ArrayList<>();
+
+        Intent mainIntent = new Intent(Intent.ACTION_MAIN, null);
+        mainIntent.addCategory(Intent.CATEGORY_LAUNCHER);
+
+        @SuppressLint("QueryPermissionsNeeded")
+        List<ResolveInfo> resolveInfos;
+        long queryStart = LauncherTrace.begin(LauncherTrace.CATALOG_QUERY);
+        try {
+            resolveInfos = pm.queryIntentActivities(mainIntent, PackageManager.MATCH_ALL);
+        } finally {
+            LauncherTrace.end(LauncherTrace.CATALOG_QUERY, queryStart);
+        }
+
+        // Label time is summed across apps and recorded once
+        long labelNanos = 0;
+
+        for (ResolveInfo resolveInfo : resolveInfos) {
+            try {
+                String packageName = resolveInfo.activityInfo.packageName;
+
+                // Skip your own app
+                if (packageName.equals(selfPackageName)) {
+                    continue;
+                }
+
+                long labelStart = System.nanoTime();
+                String label = resolveInfo.loadLabel(pm).toString();
+                labelNanos += System.nanoTime() - labelStart;
+
+                records.add(createRecord(resolveInfo, label));
+            } catch (Exception e) {
+                FlightRecorder.error(e);
+            }
+        }
+
+        LauncherTrace.record(LauncherTrace.CATALOG_LABEL, labelNanos);
+        return records;
+    }
+
+    /**
+     * Resolve only the launcher activities of one package, for package broadcasts.
+     * PackageManager only sees the launcher's own profile.
+     */
+    @Override
+    public List<AppRecord> loadPackage(long profile, String packageName) {
+        List<AppRecord> records = new ArrayList<>();
+        if (profile != AppRecord.OWN_PROFILE || packageName.equals(selfPackageName)) {
+            return records;
+        }
+
+        Intent mainIntent = new Intent(Intent.ACTION_MAIN, null);
+        mainIntent.addCategory(Intent.CATEGORY_LAUNCHER);
+        mainIntent.setPackage(packageName);
+
+        @SuppressLint("QueryPermissionsNeeded")
+        List<ResolveInfo> resolveInfos = pm.queryIntentActivities(mainIntent,
+                PackageManager.MATCH_ALL);
+
+        for (ResolveInfo resolveInfo : resolveInfos) {
+            try {
+                // Some PackageManager implementations ignore the package filter
+                if (!packageName.equals(resolveInfo.activityInfo.packageName)) {
+                    continue;
+                }
+                String label = resolveInfo.loadLabel(pm).toString();
+                records.add(createRecord(resolveInfo, label));
+            } catch (Exception e) {
+                FlightRecorder.error(packageName, e);
+            }
+        }
+        return records;
+    }
+}
@@ -0,0 +1,53 @@
+// PackageManagerIconProvider.java
+
+package com.cinemint.rosterlauncher;
+
+import android.content.ComponentName;
+import android.content.Context;
+import android.content.pm.PackageManager;
+import android.graphics.drawable.Drawable;
+
+import com.cinemint.rosterlauncher.catalog.AppRecord;
+import com.cinemint.rosterlauncher.catalog.IconProvider;
+
+/**
+ * Icon provider that loads activity icons from PackageManager, and badged
+ * icons of other profiles through LauncherApps, rendered to the row icon size
+ * by {@link IconBitmapPool}.
+ */
+public class PackageManagerIconProvider implements IconProvider<Drawable> {
+    private final Context context;
+    private final PackageManager pm;
+    private final LauncherAppsCatalogSource profiles;
+
+    public PackageManagerIconProvider(Context context, LauncherAppsCatalogSource profiles) {
+        // Icons are decoded on the catalog queue, which can outlive an activity
+        this.context = context.getApplicationContext();
+        this.pm = context.getPackageManager();
+        this.profiles = profiles;
+    }
+
+    @Override
+    public Drawable loadIcon(AppRecord record) {
+        Drawable icon = loadSourceIcon(record);
+        if (icon == null) return null;
+        int sizePx = PerformanceProfile.get(context).iconSizePx;
+        return IconBitmapPool.getInstance().render(context.getResources(), icon, sizePx);
+    }
+
+    // The icon as the package ships it, at whatever size that is
+    private Drawable loadSourceIcon(AppRecord record) {
+        if (!record.isOwnProfile()) {
+            return profiles != null ? profiles.loadProfileIcon(record) : null;
+        }
+        try {
+            if (record.activityName.isEmpty()) {
+                return pm.getApplicationIcon(record.packageName);
+            }
+            // Falls back to the application icon when the activity has none
+            return pm.getActivityIcon(new ComponentName(record.packageName, record.activityName));
+        } catch (PackageManager.NameNotFoundException e) {
+            return null;
+        }
+    }
+}
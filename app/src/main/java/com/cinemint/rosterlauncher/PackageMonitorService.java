@@ -11,10 +11,11 @@ import android.os.Binder;
 import android.os.Handler;
 import android.os.IBinder;
 import android.os.Looper;
-import android.util.Log;
 
 import androidx.annotation.Nullable;
 
+import java.io.FileDescriptor;
+import java.io.PrintWriter;
 import java.util.HashSet;
 import java.util.Set;
 
@@ -23,8 +24,7 @@ import java.util.Set;
  * This provides more reliable package change detection than a simple BroadcastReceiver
  */
 public class PackageMonitorService extends Service {
-    private static final String TAG = "PackageMonitorService";
-    private static final long DEBOUNCE_DELAY_MS = 500;
+    static final long DEBOUNCE_DELAY_MS = 500;
 
     private final IBinder binder = new LocalBinder();
     private PackageChangeReceiver packageChangeReceiver;
@@ -35,6 +35,9 @@ public class PackageMonitorService extends Service {
     private final Set<String> recentlyChangedPackages = new HashSet<>();
     private final Runnable clearRecentChangesRunnable = () -> recentlyChangedPackages.clear();
 
+    // Changes posted to the handler but not yet delivered to listeners (main thread only)
+    private int pendingNotifications = 0;
+
     public interface PackageChangeListener {
         void onPackageAdded(String packageName);
         void onPackageRemoved(String packageName);
@@ -73,10 +76,36 @@ public class PackageMonitorService extends Service {
             try {
                 unregisterReceiver(packageChangeReceiver);
             } catch (Exception e) {
-                Log.e(TAG, "Error unregistering receiver", e);
+                FlightRecorder.error(e);
             }
         }
         handler.removeCallbacksAndMessages(null);
+        pendingNotifications = 0;
+    }
+
+    /**
+     * Service state in the launcher's key=value dump format, see {@link DiagnosticsDump}.
+     * Read with: adb shell dumpsys activity service com.cinemint.rosterlauncher/.PackageMonitorService
+     */
+    @Override
+    protected void dump(FileDescriptor fd, PrintWriter writer, String[] args) {
+        DiagnosticsDump dump = new DiagnosticsDump();
+        synchronized (listeners) {
+            dump.put("service.listeners", listeners.size());
+        }
+        synchronized (recentlyChangedPackages) {
+            dump.put("service.dedup_packages", recentlyChangedPackages.size());
+        }
+        dump.put("service.dedup_window_ms", DEBOUNCE_DELAY_MS * 2);
+        dump.put("pending.notifications", pendingNotifications);
+        // Shared with the launcher activity in this process
+        LauncherExecutor.getInstance().dumpState(dump);
+        dump.putCounters("service.");
+        dump.writeTo("", writer);
+
+        if (DiagnosticsDump.hasArg(args, FlightRecorder.ARG_EVENTS)) {
+            FlightRecorder.writeTo(writer);
+        }
     }
 
     public void addListener(PackageChangeListener listener) {
@@ -105,7 +134,7 @@ public class PackageMonitorService extends Service {
         try {
             registerReceiver(packageChangeReceiver, filter);
         } catch (Exception e) {
-            Log.e(TAG, "Error registering receiver", e);
+            FlightRecorder.error(e);
         }
     }
 
@@ -123,9 +152,12 @@ public class PackageMonitorService extends Service {
                 return;
             }
 
+            LauncherCounters.increment(LauncherCounters.SERVICE_EVENT_RECEIVED);
+
             // Skip if we recently processed this package
             synchronized (recentlyChangedPackages) {
                 if (recentlyChangedPackages.contains(packageName)) {
+                    LauncherCounters.increment(LauncherCounters.SERVICE_EVENT_DEDUPED);
                     return;
                 }
                 recentlyChangedPackages.add(packageName);
@@ -138,11 +170,13 @@ public class PackageMonitorService extends Service {
             // Check if it's a replacement (update)
             boolean isReplacing = intent.getBooleanExtra(Intent.EXTRA_REPLACING, false);
 
-            Log.d(TAG, "Package change: " + action + " - " + packageName +
-                    " (replacing: " + isReplacing + ")");
+            FlightRecorder.record(FlightRecorder.Event.PACKAGE_EVENT, packageName, isReplacing ? 1 : 0, action);
 
             // Handle the change
+            pendingNotifications++;
             handler.post(() -> {
+                pendingNotifications--;
+                LauncherCounters.increment(LauncherCounters.SERVICE_EVENT_NOTIFIED);
                 switch (action) {
                     case Intent.ACTION_PACKAGE_ADDED:
                         if (!isReplacing) {
@@ -172,7 +206,7 @@ public class PackageMonitorService extends Service {
                 try {
                     listener.onPackageAdded(packageName);
                 } catch (Exception e) {
-                    Log.e(TAG, "Error notifying listener", e);
+                    FlightRecorder.error(e);
                 }
             }
         }
@@ -184,7 +218,7 @@ public class PackageMonitorService extends Service {
                 try {
                     listener.onPackageRemoved(packageName);
                 } catch (Exception e) {
-                    Log.e(TAG, "Error notifying listener", e);
+                    FlightRecorder.error(e);
                 }
             }
         }
@@ -196,7 +230,7 @@ public class PackageMonitorService extends Service {
                 try {
                     listener.onPackageChanged(packageName);
                 } catch (Exception e) {
-                    Log.e(TAG, "Error notifying listener", e);
+                    FlightRecorder.error(e);
                 }
             }
         }
@@ -0,0 +1,131 @@
+// PerformanceProfile.java
+
+package com.cinemint.rosterlauncher;
+
+import android.app.ActivityManager;
+import android.content.Context;
+import android.content.SharedPreferences;
+
+import androidx.viewpager2.widget.ViewPager2;
+
+/**
+ * Resource budgets for the launcher, picked from the device class so low-end
+ * devices keep the launcher resident instead of cold-starting it after a kill.
+ * The automatic choice can be overridden from the launcher settings dialog.
+ */
+public enum PerformanceProfile {
+    LOW(4 * 1024 * 1024, 96, 24, AnimationGovernor.Effect.NONE,
+            ViewPager2.OFFSCREEN_PAGE_LIMIT_DEFAULT),
+    STANDARD(16 * 1024 * 1024, 128, Integer.MAX_VALUE, AnimationGovernor.Effect.LITE, 1),
+    HIGH(32 * 1024 * 1024, 128, Integer.MAX_VALUE, AnimationGovernor.Effect.FULL, 1);
+
+    static final String PROFILE_KEY = "performance_profile";
+    static final String AUTO = "auto";
+
+    // Byte budget for all decoded icons, split by the *Bytes() methods below
+    public final int iconCacheBytes;
+    // Edge length of app icons in rows, in pixels
+    public final int iconSizePx;
+    // Number of icons decoded before the first publish; the rest load in the background
+    public final int prefetchDepth;
+    // Most expensive entrance animation allowed
+    public final AnimationGovernor.Effect animationCap;
+    // ViewPager2 offscreen page limit, i.e. how many hidden tabs keep their views
+    public final int offscreenTabLimit;
+
+    private static volatile PerformanceProfile current;
+
+    PerformanceProfile(int iconCacheBytes, int iconSizePx, int prefetchDepth,
+                       AnimationGovernor.Effect animationCap, int offscreenTabLimit) {
+        this.iconCacheBytes = iconCacheBytes;
+        this.iconSizePx = iconSizePx;
+        this.prefetchDepth = prefetchDepth;
+        this.animationCap = animationCap;
+        this.offscreenTabLimit = offscreenTabLimit;
+    }
+
+    /**
+     * Bytes of scratch bitmaps {@link IconBitmapPool} keeps for decoding; 1/16 of the budget
+     */
+    public int bitmapPoolBytes() {
+        return iconCacheBytes / 16;
+    }
+
+    /**
+     * Bytes of shortcut icons {@link ShortcutCache} keeps; 1/8 of the budget
+     */
+    public int shortcutIconBytes() {
+        return iconCacheBytes / 8;
+    }
+
+    /**
+     * Bytes of row icons kept decoded; the rest of the budget
+     */
+    public int rowIconBytes() {
+        return iconCacheBytes - bitmapPoolBytes() - shortcutIconBytes();
+    }
+
+    /**
+     * Number of row icons that fit {@link #rowIconBytes()} at {@link #iconSizePx}
+     */
+    public int rowIconLimit() {
+        // ARGB_8888
+        return rowIconBytes() / (iconSizePx * iconSizePx * 4);
+    }
+
+    /**
+     * Get the active profile, resolving the user override or device class on first use
+     */
+    public static PerformanceProfile get(Context context) {
+        PerformanceProfile profile = current;
+        if (profile == null) {
+            profile = resolve(context.getApplicationContext());
+            current = profile;
+        }
+        return profile;
+    }
+
+    /**
+     * Store a user override ({@link #AUTO} or a profile name) and re-resolve
+     */
+    public static void setOverride(Context context, String value) {
+        SharedPreferences prefs = context.getSharedPreferences(MainActivity.PREF_NAME, Context.MODE_PRIVATE);
+        prefs.edit().putString(PROFILE_KEY, value).apply();
+        current = null;
+    }
+
+    public static String getOverride(Context context) {
+        SharedPreferences prefs = context.getSharedPreferences(MainActivity.PREF_NAME, Context.MODE_PRIVATE);
+        return prefs.getString(PROFILE_KEY, AUTO);
+    }
+
+    private static PerformanceProfile resolve(Context context) {
+        String override = getOverride(context);
+        if (!AUTO.equals(override)) {
+            try {
+                return valueOf(override);
+            } catch (IllegalArgumentException e) {
+                // A mistyped override falls back to detection
+                FlightRecorder.error(PROFILE_KEY, e);
+            }
+        }
+
+        ActivityManager am = (ActivityManager) context.getSystemService(Context.ACTIVITY_SERVICE);
+        if (am == null) return STANDARD;
+        return detect(am.isLowRamDevice(), am.getMemoryClass(),
+                Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Map device characteristics to a profile
+     */
+    static PerformanceProfile detect(boolean lowRamDevice, int memoryClassMb, int cpuCount) {
+        if (lowRamDevice || memoryClassMb <= 96) {
+            return LOW;
+        }
+        if (memoryClassMb <= 192 || cpuCount <= 4) {
+            return STANDARD;
+        }
+        return HIGH;
+    }
+}
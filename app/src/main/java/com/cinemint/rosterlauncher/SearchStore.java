@@ -0,0 +1,274 @@
+// SearchStore.java
+
+package com.cinemint.rosterlauncher;
+
+import android.content.Context;
+import android.util.AtomicFile;
+
+import com.cinemint.rosterlauncher.catalog.Catalog;
+import com.cinemint.rosterlauncher.catalog.CatalogSnapshot;
+import com.cinemint.rosterlauncher.catalog.CompactCatalog;
+import com.cinemint.rosterlauncher.catalog.SearchIndex;
+import com.cinemint.rosterlauncher.catalog.VisibilityRules;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Future;
+
+/**
+ * The launcher's {@link SearchIndex} and the user's search keywords, which are
+ * kept in files/search_keywords.bin. The index follows the catalog: before a
+ * query it is brought up to the current snapshot, reusing the terms of every
+ * record a package event didn't touch. Each new index is written to
+ * files/search_index.bin in the background, and the first build after a
+ * restart reuses the stored terms of every record that didn't change. Queries
+ * and rebuilds run on their own serial queue, so typing never waits on a scan.
+ * Under memory pressure the index is dropped and rebuilt by the next query.
+ */
+public final class SearchStore {
+    static final String FILE_NAME = "search_keywords.bin";
+    static final String INDEX_FILE_NAME = "search_index.bin";
+    private static final int FORMAT_VERSION = 1;
+
+    /**
+     * Receives the ids of the matching records of {@code compact}, best first,
+     * in ids[0..count), on the search queue. The next query reuses the array.
+     */
+    public interface Callback {
+        void onResults(String query, CompactCatalog compact, int[] ids, int count);
+    }
+
+    private final AtomicFile file;
+    private final AtomicFile indexFile;
+    private final Catalog catalog;
+    private final LauncherExecutor.SerialQueue queue = LauncherExecutor.getInstance().serial("search");
+    // Owner of pending queries, so a keystroke drops the queries it replaces
+    private final Object queries = new Object();
+    // Replaced on every change, never modified, so the index can compare it
+    private volatile Map<String, List<String>> keywords = Collections.emptyMap();
+    // Null until the first build and after a release
+    private volatile SearchIndex index;
+    // Visibility rules compiled for the published records; hidden apps are left out of results
+    private volatile VisibilityRules.Compiled visibility;
+    private volatile boolean loaded;
+    // Whether the stored index was read; only the first build after a restart needs it
+    private boolean restoreTried;
+    private long builds;
+    private long restoredDocuments;
+
+    // Query arrays, reused by every query (search queue)
+    private final SearchIndex.Scratch scratch = new SearchIndex.Scratch();
+    private int[] ids = new int[0];
+
+    SearchStore(Context context, Catalog catalog) {
+        this.file = new AtomicFile(new File(context.getFilesDir(), FILE_NAME));
+        this.indexFile = new AtomicFile(new File(context.getFilesDir(), INDEX_FILE_NAME));
+        this.catalog = catalog;
+    }
+
+    /**
+     * Find apps for a query; returns at once and calls back once the index is current
+     */
+    public void search(String query, Callback callback) {
+        queue.cancel(queries);
+        queue.execute(LauncherExecutor.Priority.USER_BLOCKING, queries, () -> {
+            SearchIndex current = update();
+            VisibilityRules.Compiled visible = visibility;
+            if (ids.length < current.size()) {
+                ids = new int[current.size()];
+            }
+            // Rules compiled for another version would address other records
+            int count = visible != null && visible.compact() == current.compact()
+                    ? current.searchVisible(query, visible, scratch, ids)
+                    : current.search(query, null, scratch, ids);
+            callback.onResults(query, current.compact(), ids, count);
+        });
+    }
+
+    void setVisibility(VisibilityRules.Compiled visibility) {
+        this.visibility = visibility;
+    }
+
+    /**
+     * Bring the index up to the catalog ahead of the next query, e.g. after a publish;
+     * builds it in full if there is none. The future completes once it is current.
+     */
+    public Future<?> prepare() {
+        return queue.execute(LauncherExecutor.Priority.BACKGROUND, this::update);
+    }
+
+    // Index the current snapshot, reusing what the last index built (search queue)
+    private SearchIndex update() {
+        load();
+        SearchIndex current = index;
+        SearchIndex previous = current != null ? current : restore();
+        CatalogSnapshot snapshot = catalog.snapshot();
+        SearchIndex updated = SearchIndex.build(snapshot.compact(), keywords, previous);
+        if (updated != current) {
+            index = updated;
+            synchronized (this) {
+                builds++;
+                if (previous != null && current == null) {
+                    restoredDocuments += updated.getReusedCount();
+                }
+            }
+            // Package events come in bursts; only the last index of one is written
+            DeferredWork.getInstance().post(DeferredWork.Lane.BACKGROUND, "search.index.save", this::saveIndex);
+        }
+        return updated;
+    }
+
+    // The index written before the last restart, or null (search queue)
+    private SearchIndex restore() {
+        if (restoreTried) return null;
+        restoreTried = true;
+        try (InputStream in = indexFile.openRead()) {
+            return SearchIndex.readFrom(new DataInputStream(new BufferedInputStream(in)));
+        } catch (FileNotFoundException e) {
+            // Nothing indexed yet
+        } catch (IOException | RuntimeException e) {
+            // A damaged file only costs splitting every label again
+            FlightRecorder.error(INDEX_FILE_NAME, e);
+        }
+        return null;
+    }
+
+    private void saveIndex() {
+        SearchIndex current = index;
+        if (current == null) return;
+        FileOutputStream out = null;
+        // Writes never overlap, and don't hold up anything locked on the store
+        synchronized (indexFile) {
+            try {
+                out = indexFile.startWrite();
+                DataOutputStream data = new DataOutputStream(new BufferedOutputStream(out));
+                current.writeTo(data);
+                data.flush();
+                indexFile.finishWrite(out);
+            } catch (IOException | RuntimeException e) {
+                if (out != null) {
+                    indexFile.failWrite(out);
+                }
+                FlightRecorder.error(INDEX_FILE_NAME, e);
+            }
+        }
+    }
+
+    /**
+     * Read the stored keywords the first time; may block
+     */
+    public synchronized void load() {
+        if (loaded) return;
+        Map<String, List<String>> stored = new HashMap<>();
+        try (InputStream in = file.openRead()) {
+            DataInputStream data = new DataInputStream(in);
+            if (data.readInt() == FORMAT_VERSION) {
+                int count = data.readInt();
+                for (int i = 0; i < count; i++) {
+                    String key = data.readUTF();
+                    String[] words = new String[data.readInt()];
+                    for (int w = 0; w < words.length; w++) {
+                        words[w] = data.readUTF();
+                    }
+                    stored.put(key, Collections.unmodifiableList(Arrays.asList(words)));
+                }
+            }
+        } catch (FileNotFoundException e) {
+            // No keywords yet
+        } catch (IOException | RuntimeException e) {
+            // A damaged file only costs the keywords
+            FlightRecorder.error(FILE_NAME, e);
+        }
+        keywords = Collections.unmodifiableMap(stored);
+        loaded = true;
+    }
+
+    /**
+     * Keywords the user added for an app, joined by spaces; empty if none or not loaded yet
+     */
+    public String getKeywords(String key) {
+        List<String> words = keywords.get(key);
+        return words == null ? "" : String.join(" ", words);
+    }
+
+    /**
+     * Replace an app's keywords with the words of {@code text}; returns at once and saves in the background
+     */
+    public void setKeywords(String key, String text) {
+        String trimmed = text == null ? "" : text.trim();
+        List<String> words = trimmed.isEmpty()
+                ? Collections.emptyList()
+                : Collections.unmodifiableList(Arrays.asList(trimmed.split("\\s+")));
+        queue.execute(LauncherExecutor.Priority.BACKGROUND, () -> {
+            load();
+            Map<String, List<String>> updated = new HashMap<>(keywords);
+            if (words.isEmpty()) {
+                updated.remove(key);
+            } else {
+                updated.put(key, words);
+            }
+            keywords = Collections.unmodifiableMap(updated);
+            save(updated);
+            update();
+        });
+    }
+
+    private void save(Map<String, List<String>> words) {
+        FileOutputStream out = null;
+        try {
+            out = file.startWrite();
+            DataOutputStream data = new DataOutputStream(out);
+            data.writeInt(FORMAT_VERSION);
+            data.writeInt(words.size());
+            for (Map.Entry<String, List<String>> entry : words.entrySet()) {
+                data.writeUTF(entry.getKey());
+                data.writeInt(entry.getValue().size());
+                for (String word : entry.getValue()) {
+                    data.writeUTF(word);
+                }
+            }
+            data.flush();
+            file.finishWrite(out);
+        } catch (IOException | RuntimeException e) {
+            if (out != null) {
+                file.failWrite(out);
+            }
+            FlightRecorder.error(FILE_NAME, e);
+        }
+    }
+
+    /**
+     * Drop the index (INDEXES stage); returns 1 if there was one
+     */
+    int release(MemoryTrimmer.Stage stage) {
+        if (index == null) return 0;
+        index = null;
+        return 1;
+    }
+
+    void dumpState(DiagnosticsDump dump) {
+        SearchIndex current = index;
+        dump.put("search.loaded", loaded);
+        dump.put("search.keyword_apps", keywords.size());
+        dump.put("search.indexed", current != null ? current.size() : 0);
+        dump.put("search.terms", current != null ? current.termCount() : 0);
+        dump.put("search.reused", current != null ? current.getReusedCount() : 0);
+        synchronized (this) {
+            dump.put("search.builds", builds);
+            dump.put("search.restored", restoredDocuments);
+        }
+        dump.put("search.pending", queue.getPendingCount());
+    }
+}
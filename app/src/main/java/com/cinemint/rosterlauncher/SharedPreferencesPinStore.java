@@ -0,0 +1,35 @@
+// SharedPreferencesPinStore.java
+
+package com.cinemint.rosterlauncher;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+
+import com.cinemint.rosterlauncher.catalog.PinStore;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Pin store kept in the launcher's shared preferences.
+ */
+public class SharedPreferencesPinStore implements PinStore {
+    static final String PINNED_APPS_KEY = "pinned_apps";
+
+    private final SharedPreferences prefs;
+
+    public SharedPreferencesPinStore(Context context) {
+        this.prefs = context.getSharedPreferences(MainActivity.PREF_NAME, Context.MODE_PRIVATE);
+    }
+
+    @Override
+    public Set<String> load() {
+        // The returned set must not be modified, so copy it
+        return new HashSet<>(prefs.getStringSet(PINNED_APPS_KEY, new HashSet<>()));
+    }
+
+    @Override
+    public void save(Set<String> pinnedKeys) {
+        prefs.edit().putStringSet(PINNED_APPS_KEY, new HashSet<>(pinnedKeys)).apply();
+    }
+}
@@ -0,0 +1,346 @@
+// ShortcutCache.java
+
+package com.cinemint.rosterlauncher;
+
+import android.content.ComponentName;
+import android.content.Context;
+import android.content.pm.LauncherApps;
+import android.content.pm.ShortcutInfo;
+import android.graphics.Bitmap;
+import android.graphics.Rect;
+import android.graphics.drawable.BitmapDrawable;
+import android.graphics.drawable.Drawable;
+import android.os.Build;
+import android.os.Bundle;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.UserHandle;
+import android.os.UserManager;
+import android.util.LruCache;
+
+import androidx.annotation.RequiresApi;
+
+import com.cinemint.rosterlauncher.catalog.AppRecord;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * App shortcuts (manifest and dynamic) for the long-press menu, resolved ahead
+ * of time so opening the menu makes no binder call. The cache is filled by one
+ * LauncherApps query per profile and kept current by shortcut change callbacks;
+ * icons are decoded on first display into a byte-bounded LRU. Shortcuts need
+ * API 25 and the default-launcher role, otherwise the cache stays empty.
+ */
+@RequiresApi(Build.VERSION_CODES.N_MR1)
+public final class ShortcutCache {
+
+    // Shortcuts shown per app, as in the platform launcher
+    static final int MAX_MENU_SHORTCUTS = 4;
+
+    private static final int QUERY_FLAGS = LauncherApps.ShortcutQuery.FLAG_MATCH_DYNAMIC
+            | LauncherApps.ShortcutQuery.FLAG_MATCH_MANIFEST;
+
+    private final Context context;
+    private final LauncherAppsCatalogSource profiles;
+    private final LauncherApps launcherApps;
+    private final UserManager userManager;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+    // Enabled shortcuts by package key (package, plus the profile outside the own one)
+    private final Map<String, List<ShortcutInfo>> shortcuts = new ConcurrentHashMap<>();
+    private final LruCache<String, Drawable> icons;
+    // Icon keys being decoded, so repeated binds don't queue duplicates (main thread only)
+    private final Set<String> iconsLoading = new HashSet<>();
+
+    // Queries one at a time, so a full load and a package update can't interleave
+    private final LauncherExecutor.SerialQueue queries = LauncherExecutor.getInstance().serial("shortcuts");
+    private volatile LauncherApps.Callback callback;
+    private volatile boolean loaded = false;
+
+    public ShortcutCache(Context context, LauncherAppsCatalogSource profiles, int iconCacheBytes) {
+        this.context = context.getApplicationContext();
+        this.profiles = profiles;
+        this.launcherApps = (LauncherApps) context.getSystemService(Context.LAUNCHER_APPS_SERVICE);
+        this.userManager = (UserManager) context.getSystemService(Context.USER_SERVICE);
+        this.icons = new LruCache<String, Drawable>(Math.max(1, iconCacheBytes)) {
+            @Override
+            protected int sizeOf(String key, Drawable icon) {
+                return byteCount(icon);
+            }
+        };
+    }
+
+    /**
+     * Menu label of a shortcut
+     */
+    public static String getLabel(ShortcutInfo info) {
+        CharSequence label = info.getShortLabel();
+        return label != null ? label.toString() : info.getId();
+    }
+
+    /**
+     * Load every profile's shortcuts in the background and follow changes (main thread)
+     */
+    public void start() {
+        if (callback != null) return;
+
+        callback = new ShortcutCallback();
+        launcherApps.registerCallback(callback, mainHandler);
+        refresh();
+    }
+
+    public void stop() {
+        if (callback != null) {
+            launcherApps.unregisterCallback(callback);
+            callback = null;
+        }
+        queries.cancel(this);
+    }
+
+    /**
+     * Query all shortcuts again if the last load found none to show, e.g.
+     * because the launcher wasn't the default home app yet (main thread)
+     */
+    public void refreshIfEmpty() {
+        if (callback != null && loaded && shortcuts.isEmpty()) {
+            refresh();
+        }
+    }
+
+    private void refresh() {
+        queries.execute(LauncherExecutor.Priority.BACKGROUND, this, () -> {
+            if (!hasHostPermission()) {
+                shortcuts.clear();
+                loaded = true;
+                return;
+            }
+
+            Map<String, List<ShortcutInfo>> all = new HashMap<>();
+            for (UserHandle user : userManager.getUserProfiles()) {
+                long profile = profiles.profileOf(user);
+                for (ShortcutInfo info : query(null, user)) {
+                    String key = packageKey(profile, info.getPackage());
+                    List<ShortcutInfo> list = all.get(key);
+                    if (list == null) {
+                        list = new ArrayList<>();
+                        all.put(key, list);
+                    }
+                    list.add(info);
+                }
+            }
+            for (Map.Entry<String, List<ShortcutInfo>> entry : all.entrySet()) {
+                entry.setValue(sorted(entry.getValue()));
+            }
+
+            shortcuts.clear();
+            shortcuts.putAll(all);
+            loaded = true;
+            FlightRecorder.record(FlightRecorder.Event.SHORTCUTS, null, all.size());
+        });
+    }
+
+    /**
+     * Shortcuts for a row's launcher activity, ready to show; never blocks (main thread)
+     */
+    public List<ShortcutInfo> getShortcuts(AppRecord record) {
+        List<ShortcutInfo> all = shortcuts.get(packageKey(record.profile, record.packageName));
+        if (all == null) return Collections.emptyList();
+
+        // Shortcuts belong to one launcher activity of the package
+        ComponentName component = new ComponentName(record.packageName, record.activityName);
+        List<ShortcutInfo> matching = new ArrayList<>(Math.min(all.size(), MAX_MENU_SHORTCUTS));
+        for (ShortcutInfo info : all) {
+            if (matching.size() == MAX_MENU_SHORTCUTS) break;
+            if (info.getActivity() == null || record.activityName.isEmpty()
+                    || component.equals(info.getActivity())) {
+                matching.add(info);
+            }
+        }
+        return matching;
+    }
+
+    /**
+     * Decoded icon of a shortcut if it's cached; otherwise null and, with a
+     * listener, the icon is decoded on the executor and the listener runs on
+     * the main thread once it is available (main thread)
+     */
+    public Drawable getIcon(ShortcutInfo info, Runnable onLoaded) {
+        String key = iconKey(info);
+        Drawable icon = icons.get(key);
+        if (icon != null) {
+            LauncherCounters.increment(LauncherCounters.SHORTCUT_ICON_REUSED);
+            return icon;
+        }
+
+        if (onLoaded == null || callback == null || !iconsLoading.add(key)) return null;
+
+        // The menu is open and waiting for it
+        int density = context.getResources().getDisplayMetrics().densityDpi;
+        LauncherExecutor.getInstance().execute(LauncherExecutor.Priority.USER_BLOCKING, () -> {
+            Drawable decoded = null;
+            try {
+                decoded = launcherApps.getShortcutIconDrawable(info, density);
+            } catch (Exception e) {
+                FlightRecorder.error(info.getPackage(), e);
+            }
+            LauncherCounters.increment(LauncherCounters.SHORTCUT_ICON_DECODED);
+            Drawable result = decoded;
+            mainHandler.post(() -> {
+                iconsLoading.remove(key);
+                if (result != null) {
+                    icons.put(key, result);
+                    onLoaded.run();
+                }
+            });
+        });
+        return null;
+    }
+
+    /**
+     * Start a shortcut; throws if it was removed or the launcher lost the host role
+     */
+    public void startShortcut(ShortcutInfo info, Rect sourceBounds, Bundle options) {
+        launcherApps.startShortcut(info, sourceBounds, options);
+    }
+
+    /**
+     * Drop every decoded icon; they are decoded again the next time a menu shows them
+     */
+    public int releaseIcons() {
+        int released = icons.size() > 0 ? icons.snapshot().size() : 0;
+        icons.evictAll();
+        return released;
+    }
+
+    public int getPackageCount() {
+        return shortcuts.size();
+    }
+
+    public int getShortcutCount() {
+        int count = 0;
+        for (List<ShortcutInfo> list : shortcuts.values()) {
+            count += list.size();
+        }
+        return count;
+    }
+
+    public int getIconCount() {
+        return icons.snapshot().size();
+    }
+
+    public int getIconBytes() {
+        return icons.size();
+    }
+
+    private boolean hasHostPermission() {
+        try {
+            return launcherApps.hasShortcutHostPermission();
+        } catch (Exception e) {
+            // Thrown while the user is locked
+            FlightRecorder.error(e);
+            return false;
+        }
+    }
+
+    private List<ShortcutInfo> query(String packageName, UserHandle user) {
+        LauncherCounters.increment(LauncherCounters.SHORTCUT_QUERY);
+        LauncherApps.ShortcutQuery query = new LauncherApps.ShortcutQuery();
+        query.setQueryFlags(QUERY_FLAGS);
+        if (packageName != null) {
+            query.setPackage(packageName);
+        }
+        try {
+            List<ShortcutInfo> result = launcherApps.getShortcuts(query, user);
+            return result != null ? result : Collections.emptyList();
+        } catch (Exception e) {
+            // Lost the host role or the profile is locked
+            FlightRecorder.error(packageName, e);
+            return Collections.emptyList();
+        }
+    }
+
+    // Enabled shortcuts, manifest ones first and each kind by rank
+    private static List<ShortcutInfo> sorted(List<ShortcutInfo> infos) {
+        List<ShortcutInfo> enabled = new ArrayList<>(infos.size());
+        for (ShortcutInfo info : infos) {
+            if (info.isEnabled()) {
+                enabled.add(info);
+            }
+        }
+        enabled.sort((a, b) -> {
+            if (a.isDeclaredInManifest() != b.isDeclaredInManifest()) {
+                return a.isDeclaredInManifest() ? -1 : 1;
+            }
+            return Integer.compare(a.getRank(), b.getRank());
+        });
+        return Collections.unmodifiableList(enabled);
+    }
+
+    private static String packageKey(long profile, String packageName) {
+        return profile == AppRecord.OWN_PROFILE ? packageName : packageName + "#" + profile;
+    }
+
+    // A shortcut's icon changes with its update time, so stale decodes fall out of use
+    private String iconKey(ShortcutInfo info) {
+        return packageKey(profiles.profileOf(info.getUserHandle()), info.getPackage())
+                + "/" + info.getId() + "@" + info.getLastChangedTimestamp();
+    }
+
+    private static int byteCount(Drawable icon) {
+        if (icon instanceof BitmapDrawable) {
+            Bitmap bitmap = ((BitmapDrawable) icon).getBitmap();
+            if (bitmap != null) {
+                return bitmap.getAllocationByteCount();
+            }
+        }
+        // Adaptive and vector icons are rasterized at their intrinsic size
+        return Math.max(1, icon.getIntrinsicWidth()) * Math.max(1, icon.getIntrinsicHeight()) * 4;
+    }
+
+    private class ShortcutCallback extends LauncherApps.Callback {
+
+        // The callback only carries key fields, so re-query the package for labels
+        @Override
+        public void onShortcutsChanged(String packageName, List<ShortcutInfo> changed, UserHandle user) {
+            long profile = profiles.profileOf(user);
+            queries.execute(LauncherExecutor.Priority.VISIBLE, ShortcutCache.this, () -> {
+                List<ShortcutInfo> current = sorted(query(packageName, user));
+                String key = packageKey(profile, packageName);
+                if (current.isEmpty()) {
+                    shortcuts.remove(key);
+                } else {
+                    shortcuts.put(key, current);
+                }
+                FlightRecorder.record(FlightRecorder.Event.SHORTCUTS, packageName, current.size());
+            });
+        }
+
+        @Override
+        public void onPackageRemoved(String packageName, UserHandle user) {
+            shortcuts.remove(packageKey(profiles.profileOf(user), packageName));
+        }
+
+        @Override
+        public void onPackageAdded(String packageName, UserHandle user) {
+        }
+
+        @Override
+        public void onPackageChanged(String packageName, UserHandle user) {
+        }
+
+        @Override
+        public void onPackagesAvailable(String[] packageNames, UserHandle user, boolean replacing) {
+        }
+
+        @Override
+        public void onPackagesUnavailable(String[] packageNames, UserHandle user, boolean replacing) {
+        }
+    }
+}
@@ -0,0 +1,125 @@
+// UsageStore.java
+
+package com.cinemint.rosterlauncher;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.util.AtomicFile;
+
+import com.cinemint.rosterlauncher.catalog.CatalogSnapshot;
+import com.cinemint.rosterlauncher.catalog.LaunchRanking;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+
+/**
+ * The launcher's {@link LaunchRanking}, kept in files/launch_ranking.bin. It
+ * ranks the Frequent section and decides which icons to decode first. Launches
+ * are recorded and written on a background serial queue, never on the main
+ * thread; the file is read once on the catalog queue, before the first publish.
+ */
+public final class UsageStore {
+    static final String FILE_NAME = "launch_ranking.bin";
+    static final String PREF_SHOW_FREQUENT = "show_frequent";
+    // Rows in the Frequent section of the All tab
+    static final int FREQUENT_ROWS = 4;
+    // Ranked apps whose icons decode right after the pinned ones
+    static final int PREFETCH_RANKED = 16;
+
+    private final AtomicFile file;
+    private final LaunchRanking ranking = new LaunchRanking();
+    private final LauncherExecutor.SerialQueue queue = LauncherExecutor.getInstance().serial("usage");
+    private volatile boolean loaded;
+
+    UsageStore(Context context) {
+        this.file = new AtomicFile(new File(context.getFilesDir(), FILE_NAME));
+    }
+
+    public static boolean isFrequentShown(Context context) {
+        SharedPreferences prefs = context.getSharedPreferences(MainActivity.PREF_NAME, Context.MODE_PRIVATE);
+        return prefs.getBoolean(PREF_SHOW_FREQUENT, true);
+    }
+
+    public static void setFrequentShown(Context context, boolean shown) {
+        SharedPreferences prefs = context.getSharedPreferences(MainActivity.PREF_NAME, Context.MODE_PRIVATE);
+        prefs.edit().putBoolean(PREF_SHOW_FREQUENT, shown).apply();
+    }
+
+    /**
+     * Read the stored ranking the first time; may block
+     */
+    public synchronized void load() {
+        if (loaded) return;
+        try (InputStream in = file.openRead()) {
+            ranking.readFrom(new DataInputStream(in));
+        } catch (FileNotFoundException e) {
+            // Nothing launched yet
+        } catch (IOException | RuntimeException e) {
+            // A damaged file only costs the history
+            FlightRecorder.error(FILE_NAME, e);
+        }
+        loaded = true;
+    }
+
+    /**
+     * Count a launch; returns at once and records on the background queue
+     */
+    public void recordLaunch(String key) {
+        long now = System.currentTimeMillis();
+        queue.execute(LauncherExecutor.Priority.BACKGROUND, () -> {
+            load();
+            ranking.recordLaunch(key, now);
+            save();
+        });
+    }
+
+    /**
+     * Forget keys that are no longer in the catalog; may block
+     */
+    public void prune(CatalogSnapshot snapshot) {
+        load();
+        if (snapshot.size() > 0 && ranking.retainIf(key -> snapshot.indexOf(key) >= 0) > 0) {
+            save();
+        }
+    }
+
+    /**
+     * Best ranked keys right now, best first; empty until the store is loaded
+     */
+    public List<String> top(int limit) {
+        return ranking.top(limit, System.currentTimeMillis());
+    }
+
+    public long getRevision() {
+        return ranking.getRevision();
+    }
+
+    private synchronized void save() {
+        FileOutputStream out = null;
+        try {
+            out = file.startWrite();
+            DataOutputStream data = new DataOutputStream(out);
+            ranking.writeTo(data);
+            data.flush();
+            file.finishWrite(out);
+        } catch (IOException | RuntimeException e) {
+            if (out != null) {
+                file.failWrite(out);
+            }
+            FlightRecorder.error(FILE_NAME, e);
+        }
+    }
+
+    void dumpState(DiagnosticsDump dump) {
+        dump.put("usage.loaded", loaded);
+        dump.put("usage.entries", ranking.size());
+        dump.put("usage.revision", ranking.getRevision());
+        dump.put("usage.pending", queue.getPendingCount());
+    }
+}
@@ -0,0 +1,106 @@
+// VisibilityPrefs.java
+
+package com.cinemint.rosterlauncher;
+
+import android.content.Context;
+import android.content.RestrictionsManager;
+import android.content.SharedPreferences;
+import android.os.Bundle;
+
+import com.cinemint.rosterlauncher.catalog.VisibilityRules;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * {@link VisibilityRules} from two places. Operators set theirs through
+ * managed configurations (res/xml/app_restrictions.xml), which the launcher
+ * only reads and reloads on ACTION_APPLICATION_RESTRICTIONS_CHANGED. "Hide App"
+ * in the app options adds an exact package name to the launcher's shared
+ * preferences, and that is all that "Show Hidden Apps" clears.
+ */
+public final class VisibilityPrefs {
+    // Restriction keys. Package patterns, e.g. "com.vendor.*", separated by commas or whitespace
+    static final String RESTRICTION_HIDDEN_PACKAGES = "hidden_packages";
+    static final String RESTRICTION_HIDE_SYSTEM_APPS = "hide_system_apps";
+    // ApplicationInfo.CATEGORY_* values, separated like the packages
+    static final String RESTRICTION_HIDDEN_CATEGORIES = "hidden_categories";
+    // Package names hidden by the user, in shared preferences
+    static final String PREF_USER_HIDDEN_PACKAGES = "user_hidden_packages";
+
+    private VisibilityPrefs() {
+    }
+
+    /**
+     * Read the operator's and the user's rules; may block on IPC and the first preferences read
+     */
+    public static VisibilityRules load(Context context) {
+        Bundle restrictions = restrictionsOf(context);
+        Set<String> packages = new HashSet<>(split(restrictions.getString(RESTRICTION_HIDDEN_PACKAGES)));
+        SharedPreferences prefs = context.getSharedPreferences(MainActivity.PREF_NAME, Context.MODE_PRIVATE);
+        packages.addAll(prefs.getStringSet(PREF_USER_HIDDEN_PACKAGES, new HashSet<>()));
+        List<Integer> categories = new ArrayList<>();
+        for (String category : split(restrictions.getString(RESTRICTION_HIDDEN_CATEGORIES))) {
+            try {
+                categories.add(Integer.parseInt(category));
+            } catch (NumberFormatException e) {
+                // A mistyped category hides nothing
+                FlightRecorder.error(RESTRICTION_HIDDEN_CATEGORIES, e);
+            }
+        }
+        return new VisibilityRules(packages, restrictions.getBoolean(RESTRICTION_HIDE_SYSTEM_APPS, false),
+                categories);
+    }
+
+    // The managed configuration, empty when the device isn't managed
+    private static Bundle restrictionsOf(Context context) {
+        RestrictionsManager manager = (RestrictionsManager) context.getSystemService(Context.RESTRICTIONS_SERVICE);
+        Bundle restrictions = manager != null ? manager.getApplicationRestrictions() : null;
+        return restrictions != null ? restrictions : Bundle.EMPTY;
+    }
+
+    /**
+     * Entries of a restriction list, split on commas and whitespace
+     */
+    static List<String> split(String value) {
+        List<String> entries = new ArrayList<>();
+        if (value == null) return entries;
+        int start = -1;
+        for (int i = 0; i <= value.length(); i++) {
+            boolean separator = i == value.length() || value.charAt(i) == ',' || Character.isWhitespace(value.charAt(i));
+            if (!separator && start < 0) {
+                start = i;
+            } else if (separator && start >= 0) {
+                entries.add(value.substring(start, i));
+                start = -1;
+            }
+        }
+        return entries;
+    }
+
+    /**
+     * Add a package to the ones the user hid
+     */
+    public static void hidePackage(Context context, String packageName) {
+        SharedPreferences prefs = context.getSharedPreferences(MainActivity.PREF_NAME, Context.MODE_PRIVATE);
+        // The returned set must not be modified
+        Set<String> hidden = new HashSet<>(prefs.getStringSet(PREF_USER_HIDDEN_PACKAGES, new HashSet<>()));
+        hidden.add(packageName);
+        prefs.edit().putStringSet(PREF_USER_HIDDEN_PACKAGES, hidden).apply();
+    }
+
+    public static boolean hasUserHidden(Context context) {
+        SharedPreferences prefs = context.getSharedPreferences(MainActivity.PREF_NAME, Context.MODE_PRIVATE);
+        return !prefs.getStringSet(PREF_USER_HIDDEN_PACKAGES, new HashSet<>()).isEmpty();
+    }
+
+    /**
+     * Show every package the user hid; the operator's rules stay in force
+     */
+    public static void clearUserHidden(Context context) {
+        SharedPreferences prefs = context.getSharedPreferences(MainActivity.PREF_NAME, Context.MODE_PRIVATE);
+        prefs.edit().remove(PREF_USER_HIDDEN_PACKAGES).apply();
+    }
+}
@@ -0,0 +1,142 @@
+package com.cinemint.rosterlauncher;
+
+import android.content.Context;
+import android.os.Looper;
+import android.view.View;
+import android.view.ViewGroup;
+
+import org.junit.After;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.android.controller.ActivityController;
+
+import java.time.Duration;
+
+import static org.junit.Assert.*;
+import static org.robolectric.Shadows.shadowOf;
+
+/**
+ * Allocation budgets for the refresh path, measured with {@link AllocationStats}
+ * on top of HotSpot's per-thread counters. A full refresh may allocate per row;
+ * pin toggles and search keystrokes must not.
+ */
+@RunWith(RobolectricTestRunner.class)
+public class AllocationBudgetTest {
+    private static final int APP_COUNT = 500;
+
+    // A full rebuild creates the row views; Robolectric views are heavier than ART's
+    private static final long REFRESH_BYTES_PER_ROW_BUDGET = 32 * 1024;
+    // Steady-state budgets are fixed, so anything allocated per app blows them at 500 apps
+    private static final long PIN_TOGGLE_BUDGET = 4 * 1024;
+    private static final long REBIND_BUDGET = 1024;
+    private static final long SEARCH_KEYSTROKE_BUDGET = 8 * 1024;
+
+    private ActivityController<MainActivity> controller;
+    private MainActivity activity;
+    private LauncherViewModel viewModel;
+
+    @Before
+    public void setUp() {
+        // Search results must arrive before the main looper idles
+        LauncherHarness.runWorkInline();
+        com.sun.management.ThreadMXBean threads = LauncherHarness.threadAllocations();
+        Assume.assumeNotNull(threads);
+        AllocationStats.setCounter(() -> threads.getThreadAllocatedBytes(Thread.currentThread().getId()));
+
+        Context context = RuntimeEnvironment.getApplication();
+        SyntheticPackageManager packages =
+                new SyntheticPackageManager(context, SyntheticPackageManager.LabelStyle.SHORT, 96);
+        packages.installApps(APP_COUNT, 21);
+
+        controller = Robolectric.buildActivity(MainActivity.class).setup();
+        activity = controller.get();
+        viewModel = LauncherHarness.viewModelOf(activity);
+        LauncherHarness.awaitAppCount(activity, APP_COUNT);
+        LauncherHarness.showAllTab(activity);
+
+        LauncherTrace.reset();
+        AllocationStats.reset();
+    }
+
+    @After
+    public void tearDown() {
+        if (controller != null) {
+            controller.pause().stop().destroy();
+        }
+        AllocationStats.setCounter(null);
+        AllocationStats.reset();
+        LauncherHarness.runWorkOnPool();
+    }
+
+    @Test
+    public void fullRefresh_withinPerRowBudget() {
+        // A new list instance forces every tab to rebuild its rows
+        viewModel.setAllApps(viewModel.getCurrentApps(), viewModel.getPublishedVersion());
+        idle();
+
+        AllocationStats.Stats refresh = LauncherHarness.allocationsOf(AllocationStats.UI_REFRESH);
+        assertTrue(refresh.toString(), refresh.bytesPerItem() <= REFRESH_BYTES_PER_ROW_BUDGET);
+    }
+
+    @Test
+    public void pinToggle_onlyRebindsAllTab() {
+        ViewGroup rows = appsContainer();
+        View firstRow = rows.getChildAt(1);
+        String key = ((MainActivity.AppInfo) firstRow.getTag()).getKey();
+
+        viewModel.updateAppPinStatus(key, true);
+        idle();
+
+        AllocationStats.Stats pin = LauncherHarness.allocationsOf(AllocationStats.CATALOG_PIN);
+        AllocationStats.Stats rebind = LauncherHarness.allocationsOf(AllocationStats.UI_REBIND);
+
+        assertTrue(pin.toString(), pin.lastBytes <= PIN_TOGGLE_BUDGET);
+        assertTrue(rebind.toString(), rebind.lastBytes <= REBIND_BUDGET);
+        assertSame("All tab rows were rebuilt", firstRow, rows.getChildAt(1));
+    }
+
+    @Test
+    public void searchKeystroke_filtersRowsInPlace() {
+        ViewGroup rows = appsContainer();
+        View firstRow = rows.getChildAt(1);
+
+        viewModel.setSearchQuery("ma");
+        idle();
+        // The same words again, so the Best Matches rows stay: the keystroke is the
+        // index query and the row filter, from the observer until the rows are hidden
+        viewModel.setSearchQuery("ma ");
+        idle();
+
+        AllocationStats.Stats search = LauncherHarness.allocationsOf(AllocationStats.UI_SEARCH);
+        assertEquals(2, search.count);
+        assertTrue(search.toString(), search.lastBytes <= SEARCH_KEYSTROKE_BUDGET);
+        assertTrue("All tab rows were rebuilt", rows.indexOfChild(firstRow) >= 0);
+
+        int visibleRows = 0;
+        for (int i = 0; i < rows.getChildCount(); i++) {
+            View child = rows.getChildAt(i);
+            if (child.getTag() instanceof MainActivity.AppInfo && child.getVisibility() == View.VISIBLE) {
+                assertTrue(((MainActivity.AppInfo) child.getTag()).getSearchLabel().contains("ma"));
+                visibleRows++;
+            }
+        }
+        assertTrue(visibleRows > 0);
+    }
+
+    // The All tab's row container: root FrameLayout > ScrollView > LinearLayout
+    private ViewGroup appsContainer() {
+        View root = LauncherHarness.allTabOf(activity).getView();
+        assertNotNull(root);
+        ViewGroup scrollView = (ViewGroup) ((ViewGroup) root).getChildAt(0);
+        return (ViewGroup) scrollView.getChildAt(0);
+    }
+
+    private static void idle() {
+        shadowOf(Looper.getMainLooper()).idleFor(Duration.ofMillis(500));
+    }
+}
@@ -0,0 +1,92 @@
+package com.cinemint.rosterlauncher;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for {@link AnimationGovernor} effect selection.
+ */
+public class AnimationGovernorTest {
+    private static final long BUDGET_NANOS = 16_666_667L;
+    private static final long MS = 1_000_000L;
+
+    private static void recordFrames(FrameStats stats, int smooth, int janky) {
+        for (int i = 0; i < smooth; i++) stats.record(8 * MS, BUDGET_NANOS);
+        for (int i = 0; i < janky; i++) stats.record(40 * MS, BUDGET_NANOS);
+    }
+
+    @Test
+    public void noHistory_usesDeviceCap() {
+        FrameStats stats = new FrameStats("PINNED_ANIMATION");
+
+        assertEquals(AnimationGovernor.Effect.FULL,
+                new AnimationGovernor(AnimationGovernor.Effect.FULL, false).chooseEffect(stats.snapshot()));
+        assertEquals(AnimationGovernor.Effect.LITE,
+                new AnimationGovernor(AnimationGovernor.Effect.LITE, false).chooseEffect(stats.snapshot()));
+    }
+
+    @Test
+    public void disabledAnimatorScale_alwaysNone() {
+        FrameStats stats = new FrameStats("PINNED_ANIMATION");
+        AnimationGovernor governor = new AnimationGovernor(AnimationGovernor.Effect.FULL, true);
+
+        assertEquals(AnimationGovernor.Effect.NONE, governor.chooseEffect(stats.snapshot()));
+    }
+
+    @Test
+    public void moderateJank_shedsToLite() {
+        FrameStats stats = new FrameStats("PINNED_ANIMATION");
+        recordFrames(stats, 16, 4);
+
+        AnimationGovernor governor = new AnimationGovernor(AnimationGovernor.Effect.FULL, false);
+        assertEquals(AnimationGovernor.Effect.LITE, governor.chooseEffect(stats.snapshot()));
+    }
+
+    @Test
+    public void heavyJank_shedsToNone() {
+        FrameStats stats = new FrameStats("PINNED_ANIMATION");
+        recordFrames(stats, 10, 10);
+
+        AnimationGovernor governor = new AnimationGovernor(AnimationGovernor.Effect.FULL, false);
+        assertEquals(AnimationGovernor.Effect.NONE, governor.chooseEffect(stats.snapshot()));
+    }
+
+    @Test
+    public void tooFewFrames_keepsPreviousDecision() {
+        FrameStats stats = new FrameStats("PINNED_ANIMATION");
+        recordFrames(stats, 0, 5);
+
+        AnimationGovernor governor = new AnimationGovernor(AnimationGovernor.Effect.FULL, false);
+        assertEquals(AnimationGovernor.Effect.FULL, governor.chooseEffect(stats.snapshot()));
+    }
+
+    @Test
+    public void smoothFramesAfterJank_recoverToFull() {
+        FrameStats stats = new FrameStats("PINNED_ANIMATION");
+        AnimationGovernor governor = new AnimationGovernor(AnimationGovernor.Effect.FULL, false);
+
+        recordFrames(stats, 10, 10);
+        assertEquals(AnimationGovernor.Effect.NONE, governor.chooseEffect(stats.snapshot()));
+
+        recordFrames(stats, 40, 0);
+        assertEquals(AnimationGovernor.Effect.FULL, governor.chooseEffect(stats.snapshot()));
+    }
+
+    @Test
+    public void suppressedAnimations_probeLiteToRecover() {
+        FrameStats stats = new FrameStats("PINNED_ANIMATION");
+        AnimationGovernor governor = new AnimationGovernor(AnimationGovernor.Effect.FULL, false);
+
+        recordFrames(stats, 10, 10);
+        for (int i = 0; i < AnimationGovernor.PROBE_AFTER_SUPPRESSED; i++) {
+            assertEquals(AnimationGovernor.Effect.NONE, governor.chooseEffect(stats.snapshot()));
+        }
+        // No frames came in while rows appeared without animation
+        assertEquals(AnimationGovernor.Effect.LITE, governor.chooseEffect(stats.snapshot()));
+        assertEquals(AnimationGovernor.Effect.LITE, governor.chooseEffect(stats.snapshot()));
+
+        recordFrames(stats, 20, 0);
+        assertEquals(AnimationGovernor.Effect.FULL, governor.chooseEffect(stats.snapshot()));
+    }
+}
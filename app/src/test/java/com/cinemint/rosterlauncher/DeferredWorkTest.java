@@ -0,0 +1,74 @@
+package com.cinemint.rosterlauncher;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for the queueing and slicing in {@link DeferredWork}.
+ */
+public class DeferredWorkTest {
+    private final DeferredWork work = new DeferredWork();
+    private final List<String> ran = new ArrayList<>();
+
+    @Test
+    public void sameKey_coalescesInPlace() {
+        work.post(DeferredWork.Lane.IDLE, "a", () -> ran.add("a1"));
+        work.post(DeferredWork.Lane.IDLE, "b", () -> ran.add("b"));
+        work.post(DeferredWork.Lane.IDLE, "a", () -> ran.add("a2"));
+
+        assertFalse(work.runSlice(DeferredWork.Lane.IDLE, Long.MAX_VALUE / 2));
+        assertEquals(List.of("a2", "b"), ran);
+    }
+
+    @Test
+    public void spentBudget_runsOneTaskPerSlice() {
+        work.post(DeferredWork.Lane.BACKGROUND, "a", () -> ran.add("a"));
+        work.post(DeferredWork.Lane.BACKGROUND, "b", () -> ran.add("b"));
+
+        assertTrue(work.runSlice(DeferredWork.Lane.BACKGROUND, 0));
+        assertEquals(List.of("a"), ran);
+        assertFalse(work.runSlice(DeferredWork.Lane.BACKGROUND, 0));
+        assertEquals(List.of("a", "b"), ran);
+    }
+
+    @Test
+    public void unfinishedTask_resumesBehindOthers() {
+        int[] steps = {3};
+        work.post(DeferredWork.Lane.IDLE, "long", deadline -> {
+            ran.add("long");
+            return --steps[0] > 0;
+        });
+        work.post(DeferredWork.Lane.IDLE, "short", () -> ran.add("short"));
+
+        while (work.runSlice(DeferredWork.Lane.IDLE, 0)) {
+            // One task per slice
+        }
+        assertEquals(List.of("long", "short", "long", "long"), ran);
+    }
+
+    @Test
+    public void cancel_dropsQueuedWork() {
+        work.post(DeferredWork.Lane.IDLE, "a", () -> ran.add("a"));
+
+        assertTrue(work.cancel("a"));
+        assertFalse(work.cancel("a"));
+        assertFalse(work.hasWork(DeferredWork.Lane.IDLE));
+        assertFalse(work.runSlice(DeferredWork.Lane.IDLE, 0));
+        assertTrue(ran.isEmpty());
+    }
+
+    @Test
+    public void failingTask_doesNotStopTheSlice() {
+        work.post(DeferredWork.Lane.IDLE, "bad", () -> {
+            throw new IllegalStateException("boom");
+        });
+        work.post(DeferredWork.Lane.IDLE, "good", () -> ran.add("good"));
+
+        assertFalse(work.runSlice(DeferredWork.Lane.IDLE, Long.MAX_VALUE / 2));
+        assertEquals(List.of("good"), ran);
+    }
+}
@@ -0,0 +1,74 @@
+package com.cinemint.rosterlauncher;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for the key=value format of the launcher's dumpsys output.
+ */
+public class DiagnosticsDumpTest {
+
+    @After
+    public void tearDown() {
+        LauncherCounters.reset();
+    }
+
+    @Test
+    public void output_startsWithFormatAndSortsKeys() {
+        DiagnosticsDump dump = new DiagnosticsDump()
+                .put("tab.all.rows", 12)
+                .put("catalog.version", 7)
+                .put("catalog.size", 500);
+
+        String[] lines = write(dump, "  ");
+
+        assertArrayEquals(new String[]{
+                "  dump.format=" + DiagnosticsDump.FORMAT_VERSION,
+                "  catalog.size=500",
+                "  catalog.version=7",
+                "  tab.all.rows=12"}, lines);
+    }
+
+    @Test
+    public void values_stayOnOneParsableLine() {
+        DiagnosticsDump dump = new DiagnosticsDump()
+                .put("dump.error", "java.lang.IllegalStateException: a=b\nc")
+                .put("icon.reuse_rate", 2.0 / 3);
+
+        String[] lines = write(dump, "");
+
+        assertEquals(3, lines.length);
+        assertEquals("dump.error=java.lang.IllegalStateException:_a_b_c", lines[1]);
+        assertEquals("icon.reuse_rate=0.667", lines[2]);
+    }
+
+    @Test
+    public void counters_filteredByPrefix() {
+        LauncherCounters.increment(LauncherCounters.SERVICE_EVENT_RECEIVED);
+        LauncherCounters.increment(LauncherCounters.SERVICE_EVENT_RECEIVED);
+        LauncherCounters.increment(LauncherCounters.SCAN_REQUESTED);
+
+        String[] lines = write(new DiagnosticsDump().putCounters("service."), "");
+
+        assertEquals(2, lines.length);
+        assertEquals("counter.service.event.received=2", lines[1]);
+    }
+
+    @Test
+    public void rate_isZeroBeforeFirstLookup() {
+        String[] lines = write(new DiagnosticsDump().putRate("icon.reuse_rate", 0, 0), "");
+
+        assertEquals("icon.reuse_rate=0.000", lines[1]);
+    }
+
+    private static String[] write(DiagnosticsDump dump, String prefix) {
+        StringWriter out = new StringWriter();
+        dump.writeTo(prefix, new PrintWriter(out));
+        return out.toString().split(System.lineSeparator());
+    }
+}
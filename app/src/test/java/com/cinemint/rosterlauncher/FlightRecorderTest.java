@@ -0,0 +1,115 @@
+package com.cinemint.rosterlauncher;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for the lock-free event ring of {@link FlightRecorder}.
+ */
+public class FlightRecorderTest {
+
+    @Before
+    public void setUp() {
+        FlightRecorder.reset();
+    }
+
+    @After
+    public void tearDown() {
+        FlightRecorder.reset();
+    }
+
+    @Test
+    public void entries_keepOrderAndFields() {
+        FlightRecorder.record(FlightRecorder.Event.PACKAGE_EVENT, "com.example.mail", 1, "ADDED");
+        FlightRecorder.record(FlightRecorder.Event.PUBLISH, null, 42);
+
+        List<FlightRecorder.Entry> entries = FlightRecorder.snapshot();
+
+        assertEquals(2, entries.size());
+        assertEquals(FlightRecorder.Event.PACKAGE_EVENT, entries.get(0).event);
+        assertEquals("com.example.mail", entries.get(0).subject);
+        assertEquals("ADDED", entries.get(0).detail);
+        assertEquals(42, entries.get(1).value);
+        assertTrue(entries.get(0).timeNanos <= entries.get(1).timeNanos);
+    }
+
+    @Test
+    public void ring_keepsNewestEntries() {
+        int total = FlightRecorder.CAPACITY + 100;
+        for (int i = 0; i < total; i++) {
+            FlightRecorder.record(FlightRecorder.Event.REBIND, null, i);
+        }
+
+        List<FlightRecorder.Entry> entries = FlightRecorder.snapshot();
+
+        assertEquals(FlightRecorder.CAPACITY, entries.size());
+        assertEquals(100, entries.get(0).value);
+        assertEquals(total - 1, entries.get(entries.size() - 1).value);
+    }
+
+    @Test
+    public void concurrentWriters_neverProduceTornEntries() throws InterruptedException {
+        String[] subjects = {"a", "b", "c", "d"};
+        List<Thread> writers = new ArrayList<>();
+        for (int w = 0; w < subjects.length; w++) {
+            final int id = w;
+            writers.add(new Thread(() -> {
+                for (int i = 0; i < 50_000; i++) {
+                    FlightRecorder.record(FlightRecorder.Event.SCAN, subjects[id], id, subjects[id]);
+                }
+            }));
+        }
+        for (Thread writer : writers) writer.start();
+
+        // Read while the ring is being overwritten
+        while (writers.get(0).isAlive()) {
+            assertConsistent(FlightRecorder.snapshot(), subjects);
+        }
+        for (Thread writer : writers) writer.join();
+        assertConsistent(FlightRecorder.snapshot(), subjects);
+    }
+
+    @Test
+    public void errors_areWrittenAsOneLine() {
+        FlightRecorder.error("com.example.mail", new IllegalStateException("bad\tstate\nhere"));
+
+        StringWriter out = new StringWriter();
+        FlightRecorder.writeTo(out);
+        String[] lines = out.toString().split(System.lineSeparator());
+
+        assertEquals(2, lines.length);
+        assertTrue(lines[0].startsWith("#"));
+        String[] fields = lines[1].split("\t");
+        assertEquals(7, fields.length);
+        assertEquals("ERROR", fields[3]);
+        assertEquals("com.example.mail", fields[4]);
+        assertTrue(fields[6], fields[6].startsWith("java.lang.IllegalStateException: bad state here at "));
+    }
+
+    @Test
+    public void errors_keepNoThrowable() {
+        IllegalStateException e = new IllegalStateException("bad state");
+        FlightRecorder.error("com.example.mail", e);
+
+        Object detail = FlightRecorder.snapshot().get(0).detail;
+        assertTrue(String.valueOf(detail), detail instanceof String);
+        assertTrue((String) detail, ((String) detail).startsWith("java.lang.IllegalStateException: bad state at "));
+    }
+
+    private static void assertConsistent(List<FlightRecorder.Entry> entries, String[] subjects) {
+        long lastSeq = -1;
+        for (FlightRecorder.Entry entry : entries) {
+            assertTrue(entry.seq > lastSeq);
+            lastSeq = entry.seq;
+            assertEquals(subjects[(int) entry.value], entry.subject);
+            assertSame(entry.subject, entry.detail);
+        }
+    }
+}
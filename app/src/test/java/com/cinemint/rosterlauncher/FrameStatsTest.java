@@ -0,0 +1,64 @@
+package com.cinemint.rosterlauncher;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for the frame statistics used by {@link FrameMetricsMonitor}.
+ */
+public class FrameStatsTest {
+    private static final long BUDGET_NANOS = 16_666_667L;
+    private static final long MS = 1_000_000L;
+
+    @Test
+    public void emptyStats_reportNoJank() {
+        FrameStats.Snapshot snapshot = new FrameStats("SCROLL").snapshot();
+
+        assertEquals(0, snapshot.totalFrames);
+        assertEquals(0.0, snapshot.jankPercent(), 0.0);
+    }
+
+    @Test
+    public void framesOverBudget_countAsJanky() {
+        FrameStats stats = new FrameStats("SCROLL");
+        stats.record(10 * MS, BUDGET_NANOS);
+        stats.record(12 * MS, BUDGET_NANOS);
+        stats.record(20 * MS, BUDGET_NANOS);
+        stats.record(40 * MS, BUDGET_NANOS);
+
+        FrameStats.Snapshot snapshot = stats.snapshot();
+        assertEquals(4, snapshot.totalFrames);
+        assertEquals(2, snapshot.jankyFrames);
+        assertEquals(50.0, snapshot.jankPercent(), 0.001);
+        assertEquals(40 * MS, snapshot.maxNanos);
+    }
+
+    @Test
+    public void histogram_placesFramesInBuckets() {
+        FrameStats stats = new FrameStats("REFRESH");
+        stats.record(5 * MS, BUDGET_NANOS);    // <8
+        stats.record(16 * MS, BUDGET_NANOS);   // <24
+        stats.record(120 * MS, BUDGET_NANOS);  // <700
+        stats.record(900 * MS, BUDGET_NANOS);  // frozen
+
+        FrameStats.Snapshot snapshot = stats.snapshot();
+        assertEquals(1, snapshot.buckets[0]);
+        assertEquals(1, snapshot.buckets[2]);
+        assertEquals(1, snapshot.buckets[6]);
+        assertEquals(1, snapshot.buckets[7]);
+        assertEquals(1, snapshot.frozenFrames);
+    }
+
+    @Test
+    public void reset_clearsAllCounters() {
+        FrameStats stats = new FrameStats("TAB_SWITCH");
+        stats.record(30 * MS, BUDGET_NANOS);
+        stats.reset();
+
+        FrameStats.Snapshot snapshot = stats.snapshot();
+        assertEquals(0, snapshot.totalFrames);
+        assertEquals(0, snapshot.jankyFrames);
+        assertEquals(0, snapshot.buckets[3]);
+    }
+}
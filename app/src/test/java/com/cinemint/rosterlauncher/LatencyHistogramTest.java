@@ -0,0 +1,78 @@
+package com.cinemint.rosterlauncher;
+
+import org.junit.After;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for the latency histograms behind {@link LatencyRecorder}.
+ */
+public class LatencyHistogramTest {
+    private static final long MS = 1_000_000L;
+
+    @After
+    public void tearDown() {
+        LatencyRecorder.getInstance().reset();
+    }
+
+    @Test
+    public void emptyHistogram_reportsZero() {
+        LatencyHistogram.Snapshot snapshot = new LatencyHistogram("SEARCH").snapshot();
+
+        assertEquals(0, snapshot.count);
+        assertEquals(0, snapshot.percentileNanos(95));
+    }
+
+    @Test
+    public void percentiles_resolveToBucketUpperBounds() {
+        LatencyHistogram histogram = new LatencyHistogram("LAUNCH");
+        for (int i = 0; i < 90; i++) {
+            histogram.record(5 * MS);      // <8
+        }
+        for (int i = 0; i < 9; i++) {
+            histogram.record(40 * MS);     // <50
+        }
+        histogram.record(900 * MS);        // <1000
+
+        LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+        assertEquals(100, snapshot.count);
+        assertEquals(8 * MS, snapshot.percentileNanos(50));
+        assertEquals(8 * MS, snapshot.percentileNanos(90));
+        assertEquals(50 * MS, snapshot.percentileNanos(95));
+        assertEquals(900 * MS, snapshot.percentileNanos(100));
+    }
+
+    @Test
+    public void percentile_neverExceedsSlowestSample() {
+        LatencyHistogram histogram = new LatencyHistogram("TAB_SWITCH");
+        histogram.record(9 * MS);
+
+        assertEquals(9 * MS, histogram.snapshot().percentileNanos(99));
+    }
+
+    @Test
+    public void overflowBucket_usesMax() {
+        LatencyHistogram histogram = new LatencyHistogram("LAUNCH");
+        histogram.record(12_000 * MS);
+
+        LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+        assertEquals(1, snapshot.buckets[LatencyHistogram.BUCKET_BOUNDS_MS.length]);
+        assertEquals(12_000 * MS, snapshot.percentileNanos(50));
+    }
+
+    @Test
+    public void recorder_coalescesStartsUntilEnd() {
+        LatencyRecorder recorder = LatencyRecorder.getInstance();
+
+        assertFalse(recorder.end(LatencyRecorder.Interaction.SEARCH));
+
+        recorder.begin(LatencyRecorder.Interaction.SEARCH);
+        recorder.begin(LatencyRecorder.Interaction.SEARCH);
+        assertTrue(recorder.end(LatencyRecorder.Interaction.SEARCH));
+        assertFalse(recorder.end(LatencyRecorder.Interaction.SEARCH));
+
+        assertEquals(1, recorder.getStats(LatencyRecorder.Interaction.SEARCH).count);
+        assertEquals(0, recorder.getStats(LatencyRecorder.Interaction.LAUNCH).count);
+    }
+}
@@ -0,0 +1,143 @@
+package com.cinemint.rosterlauncher;
+
+import org.junit.Test;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for priority order, serial queues and cancellation in {@link LauncherExecutor}.
+ */
+public class LauncherExecutorTest {
+    private final LauncherExecutor executor = new LauncherExecutor();
+    private final List<String> ran = Collections.synchronizedList(new ArrayList<>());
+
+    @Test
+    public void longSerialWork_leavesAThreadForOtherWork() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        executor.serial("catalog").execute(LauncherExecutor.Priority.VISIBLE, () -> await(release));
+
+        // A pin save doesn't wait for the scan
+        executor.execute(LauncherExecutor.Priority.BACKGROUND, () -> ran.add("save")).get(5, TimeUnit.SECONDS);
+        release.countDown();
+        assertEquals(List.of("save"), ran);
+    }
+
+    @Test
+    public void serialQueue_runsOneAtATimeHighestPriorityFirst() throws Exception {
+        LauncherExecutor.SerialQueue queue = executor.serial("catalog");
+        CountDownLatch release = new CountDownLatch(1);
+        queue.execute(LauncherExecutor.Priority.VISIBLE, () -> await(release));
+        queue.execute(LauncherExecutor.Priority.BACKGROUND, () -> ran.add("maintenance"));
+        queue.execute(LauncherExecutor.Priority.VISIBLE, () -> ran.add("update"));
+        Future<?> icons = queue.execute(LauncherExecutor.Priority.USER_BLOCKING, () -> ran.add("icons"));
+
+        assertEquals(3, queue.getPendingCount());
+        release.countDown();
+        icons.get(5, TimeUnit.SECONDS);
+        queue.execute(LauncherExecutor.Priority.BACKGROUND, () -> {
+        }).get(5, TimeUnit.SECONDS);
+
+        assertEquals(List.of("icons", "update", "maintenance"), ran);
+        assertSame(queue, executor.serial("catalog"));
+    }
+
+    @Test
+    public void cancel_dropsOnlyTheOwnersPendingWork() throws Exception {
+        LauncherExecutor.SerialQueue queue = executor.serial("catalog");
+        Object oldActivity = new Object();
+        Object newActivity = new Object();
+        CountDownLatch release = new CountDownLatch(1);
+        queue.execute(LauncherExecutor.Priority.VISIBLE, oldActivity, () -> await(release));
+        Future<?> dropped = queue.execute(LauncherExecutor.Priority.VISIBLE, oldActivity, () -> ran.add("old"));
+        Future<?> kept = queue.execute(LauncherExecutor.Priority.VISIBLE, newActivity, () -> ran.add("new"));
+
+        assertEquals(1, queue.cancel(oldActivity));
+        release.countDown();
+        kept.get(5, TimeUnit.SECONDS);
+
+        assertTrue(dropped.isCancelled());
+        assertEquals(List.of("new"), ran);
+
+        StringWriter out = new StringWriter();
+        DiagnosticsDump dump = new DiagnosticsDump();
+        executor.dumpState(dump);
+        dump.writeTo("", new PrintWriter(out));
+        assertTrue(out.toString().contains("executor.visible.cancelled=1\n"));
+        assertTrue(out.toString().contains("executor.visible.queued=0\n"));
+    }
+
+    @Test
+    public void futureCancel_leavesTheQueueAndDoesNotStallIt() throws Exception {
+        LauncherExecutor.SerialQueue queue = executor.serial("catalog");
+        CountDownLatch release = new CountDownLatch(1);
+        queue.execute(LauncherExecutor.Priority.VISIBLE, () -> await(release));
+        Future<?> dropped = queue.execute(LauncherExecutor.Priority.VISIBLE, () -> ran.add("dropped"));
+        Future<?> next = queue.execute(LauncherExecutor.Priority.VISIBLE, () -> ran.add("next"));
+
+        assertTrue(dropped.cancel(false));
+        assertEquals(1, queue.getPendingCount());
+        release.countDown();
+        next.get(5, TimeUnit.SECONDS);
+
+        // Later work still runs
+        queue.execute(LauncherExecutor.Priority.BACKGROUND, () -> ran.add("later")).get(5, TimeUnit.SECONDS);
+        assertEquals(List.of("next", "later"), ran);
+    }
+
+    @Test
+    public void cancelWhileRunning_holdsTheQueueUntilTheWorkReturns() throws Exception {
+        LauncherExecutor.SerialQueue queue = executor.serial("catalog");
+        CountDownLatch running = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Future<?> scan = queue.execute(LauncherExecutor.Priority.VISIBLE, () -> {
+            running.countDown();
+            await(release);
+            ran.add("scan");
+        });
+        Future<?> next = queue.execute(LauncherExecutor.Priority.VISIBLE, () -> ran.add("next"));
+
+        assertTrue(running.await(5, TimeUnit.SECONDS));
+        assertTrue(scan.cancel(false));
+        // The pool has a free thread, so "next" would run now if the queue were released
+        Thread.sleep(50);
+        assertFalse(next.isDone());
+
+        release.countDown();
+        next.get(5, TimeUnit.SECONDS);
+        assertEquals(List.of("scan", "next"), ran);
+    }
+
+    @Test
+    public void directRunner_runsSerialWorkInPlaceAndInOrder() {
+        executor.runOn(Runnable::run);
+        LauncherExecutor.SerialQueue queue = executor.serial("catalog");
+
+        queue.execute(LauncherExecutor.Priority.VISIBLE, () -> {
+            ran.add("scan");
+            // Queued behind the running job, not run inside it
+            queue.execute(LauncherExecutor.Priority.USER_BLOCKING, () -> ran.add("icons"));
+            ran.add("publish");
+        });
+
+        assertTrue(queue.execute(LauncherExecutor.Priority.BACKGROUND, () -> ran.add("save")).isDone());
+        assertEquals(List.of("scan", "publish", "icons", "save"), ran);
+        assertEquals(0, queue.getPendingCount());
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package com.cinemint.rosterlauncher;
+
+import android.os.Looper;
+import android.view.View;
+import android.view.ViewGroup;
+
+import androidx.lifecycle.ViewModelProvider;
+import androidx.viewpager2.widget.ViewPager2;
+
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.Assert.fail;
+import static org.robolectric.Shadows.shadowOf;
+
+/**
+ * Shared Robolectric helpers for driving the launcher end to end: running or
+ * waiting for the catalog executor, switching tabs and reading trace and
+ * allocation counters.
+ */
+final class LauncherHarness {
+    private static final long SETTLE_TIMEOUT_MS = 30_000;
+    private static final Duration SETTLE_STEP = Duration.ofMillis(50);
+
+    private LauncherHarness() {
+    }
+
+    /**
+     * Run executor work on the calling thread as it is queued, so counts don't depend on thread timing
+     */
+    static void runWorkInline() {
+        LauncherExecutor.getInstance().runOn(Runnable::run);
+    }
+
+    static void runWorkOnPool() {
+        LauncherExecutor.getInstance().runOn(null);
+    }
+
+    static LauncherViewModel viewModelOf(MainActivity activity) {
+        return new ViewModelProvider(activity).get(LauncherViewModel.class);
+    }
+
+    static void showAllTab(MainActivity activity) {
+        ViewPager2 viewPager = activity.findViewById(R.id.viewPager);
+        viewPager.setCurrentItem(1, false);
+        shadowOf(Looper.getMainLooper()).idleFor(Duration.ofMillis(500));
+    }
+
+    static AppsFragment allTabOf(MainActivity activity) {
+        // FragmentStateAdapter tags pages with "f" and the item id
+        return (AppsFragment) activity.getSupportFragmentManager().findFragmentByTag("f1");
+    }
+
+    static void awaitAppCount(MainActivity activity, int count) {
+        LauncherViewModel viewModel = viewModelOf(activity);
+        settle(() -> viewModel.isInitialized() && viewModel.getCurrentApps().size() == count);
+    }
+
+    /**
+     * Advance the main looper in virtual time until done; with the executor on
+     * its pool, its work meanwhile runs in real time
+     */
+    static void settle(BooleanSupplier done) {
+        long deadline = System.currentTimeMillis() + SETTLE_TIMEOUT_MS;
+        while (!done.getAsBoolean()) {
+            if (System.currentTimeMillis() > deadline) {
+                fail("Launcher did not settle within " + SETTLE_TIMEOUT_MS + "ms");
+            }
+            shadowOf(Looper.getMainLooper()).idleFor(SETTLE_STEP);
+            try {
+                Thread.sleep(5);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+
+        // Run the debounced fragment refreshes the last publish scheduled
+        shadowOf(Looper.getMainLooper()).idleFor(Duration.ofMillis(500));
+    }
+
+    static int countViews(View view) {
+        int count = 1;
+        if (view instanceof ViewGroup) {
+            ViewGroup group = (ViewGroup) view;
+            for (int i = 0; i < group.getChildCount(); i++) {
+                count += countViews(group.getChildAt(i));
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Samples recorded for a trace section since the last reset
+     */
+    static long countOf(String section) {
+        for (LauncherTrace.Timing timing : LauncherTrace.getTimings()) {
+            if (timing.section.equals(section)) {
+                return timing.total;
+            }
+        }
+        return 0;
+    }
+
+    static AllocationStats.Stats allocationsOf(String section) {
+        for (AllocationStats.Stats stats : AllocationStats.getStats()) {
+            if (stats.section.equals(section)) {
+                return stats;
+            }
+        }
+        fail("No allocation samples for " + section);
+        return null;
+    }
+
+    /**
+     * HotSpot's per-thread allocation counters, or null on other JVMs
+     */
+    static com.sun.management.ThreadMXBean threadAllocations() {
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (!(bean instanceof com.sun.management.ThreadMXBean)) {
+            return null;
+        }
+        return (com.sun.management.ThreadMXBean) bean;
+    }
+
+    /**
+     * Bytes allocated so far by all live threads, or -1 if the JVM can't tell
+     */
+    static long allocatedBytes() {
+        com.sun.management.ThreadMXBean threads = threadAllocations();
+        if (threads == null) {
+            return -1;
+        }
+
+        long total = 0;
+        for (long bytes : threads.getThreadAllocatedBytes(threads.getAllThreadIds())) {
+            if (bytes > 0) {
+                total += bytes;
+            }
+        }
+        return total;
+    }
+}
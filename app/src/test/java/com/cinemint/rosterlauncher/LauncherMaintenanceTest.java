@@ -0,0 +1,87 @@
+package com.cinemint.rosterlauncher;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for the step order and throttling in {@link LauncherMaintenance}.
+ */
+public class LauncherMaintenanceTest {
+    private final LauncherMaintenance maintenance = new LauncherMaintenance();
+    private final List<String> ran = new ArrayList<>();
+
+    @Test
+    public void steps_runInOrder() {
+        maintenance.register(LauncherMaintenance.Step.COMPACT_STORAGE, () -> ran.add("compact"));
+        maintenance.register(LauncherMaintenance.Step.VERIFY_CATALOG, () -> ran.add("verify"));
+        maintenance.register(LauncherMaintenance.Step.REFRESH_ICONS, () -> ran.add("icons"));
+        maintenance.register(LauncherMaintenance.Step.BUILD_SEARCH_INDEX, () -> ran.add("search"));
+
+        assertTrue(maintenance.run(0, () -> false));
+        assertEquals(List.of("verify", "search", "icons", "compact"), ran);
+    }
+
+    @Test
+    public void recentRun_isSkipped() {
+        maintenance.register(LauncherMaintenance.Step.VERIFY_CATALOG, () -> ran.add("verify"));
+
+        assertTrue(maintenance.run(1_000, () -> false));
+        assertFalse(maintenance.run(1_000 + LauncherMaintenance.MIN_INTERVAL_MS - 1, () -> false));
+        assertTrue(maintenance.run(1_000 + LauncherMaintenance.MIN_INTERVAL_MS, () -> false));
+        assertEquals(2, ran.size());
+    }
+
+    @Test
+    public void runWithoutWorkers_isNotCounted() {
+        // A job in a process without the activity
+        assertFalse(maintenance.run(1_000, () -> false));
+        assertEquals(-1, maintenance.getLastRunMillis());
+
+        maintenance.register(LauncherMaintenance.Step.VERIFY_CATALOG, () -> ran.add("verify"));
+        assertTrue(maintenance.run(2_000, () -> false));
+        assertEquals(List.of("verify"), ran);
+    }
+
+    @Test
+    public void restoredLastRun_holdsTheInterval() {
+        maintenance.register(LauncherMaintenance.Step.VERIFY_CATALOG, () -> ran.add("verify"));
+        maintenance.restoreLastRun(1_000);
+
+        assertFalse(maintenance.run(1_000 + LauncherMaintenance.MIN_INTERVAL_MS - 1, () -> false));
+        assertTrue(maintenance.run(1_000 + LauncherMaintenance.MIN_INTERVAL_MS, () -> false));
+        assertEquals(1_000 + LauncherMaintenance.MIN_INTERVAL_MS, maintenance.getLastRunMillis());
+    }
+
+    @Test
+    public void stopRequest_endsRunAndAllowsRetry() {
+        boolean[] stop = {false};
+        maintenance.register(LauncherMaintenance.Step.VERIFY_CATALOG, () -> {
+            ran.add("verify");
+            stop[0] = true;
+        });
+        maintenance.register(LauncherMaintenance.Step.REFRESH_ICONS, () -> ran.add("icons"));
+
+        assertFalse(maintenance.run(0, () -> stop[0]));
+        assertEquals(List.of("verify"), ran);
+
+        // A stopped run doesn't count toward the interval
+        ran.clear();
+        assertTrue(maintenance.run(1, () -> false));
+        assertEquals(List.of("verify", "icons"), ran);
+    }
+
+    @Test
+    public void failingWorker_doesNotStopLaterSteps() {
+        maintenance.register(LauncherMaintenance.Step.VERIFY_CATALOG, () -> {
+            throw new IllegalStateException("executor shut down");
+        });
+        maintenance.register(LauncherMaintenance.Step.COMPACT_STORAGE, () -> ran.add("compact"));
+
+        assertTrue(maintenance.run(0, () -> false));
+        assertEquals(List.of("compact"), ran);
+    }
+}
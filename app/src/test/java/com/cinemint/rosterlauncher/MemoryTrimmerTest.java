@@ -0,0 +1,68 @@
+package com.cinemint.rosterlauncher;
+
+import android.content.ComponentCallbacks2;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for the staged releases in {@link MemoryTrimmer}.
+ */
+public class MemoryTrimmerTest {
+    private final MemoryTrimmer trimmer = MemoryTrimmer.getInstance();
+    private final List<MemoryTrimmer.Stage> released = new ArrayList<>();
+    private final MemoryTrimmer.Releaser releaser = stage -> {
+        released.add(stage);
+        return 2;
+    };
+
+    @After
+    public void tearDown() {
+        for (MemoryTrimmer.Stage stage : MemoryTrimmer.Stage.values()) {
+            trimmer.unregister(stage, releaser);
+        }
+    }
+
+    @Test
+    public void levels_mapToStages() {
+        assertNull(MemoryTrimmer.stageFor(ComponentCallbacks2.TRIM_MEMORY_UI_HIDDEN));
+        assertEquals(MemoryTrimmer.Stage.TAB_VIEWS,
+                MemoryTrimmer.stageFor(ComponentCallbacks2.TRIM_MEMORY_BACKGROUND));
+        assertEquals(MemoryTrimmer.Stage.ICONS,
+                MemoryTrimmer.stageFor(ComponentCallbacks2.TRIM_MEMORY_MODERATE));
+        assertEquals(MemoryTrimmer.Stage.INDEXES,
+                MemoryTrimmer.stageFor(ComponentCallbacks2.TRIM_MEMORY_COMPLETE));
+        assertEquals(MemoryTrimmer.Stage.ICONS,
+                MemoryTrimmer.stageFor(ComponentCallbacks2.TRIM_MEMORY_RUNNING_LOW));
+        assertNull(MemoryTrimmer.stageFor(0));
+    }
+
+    @Test
+    public void severeLevel_runsCheaperStagesFirst() {
+        for (MemoryTrimmer.Stage stage : MemoryTrimmer.Stage.values()) {
+            trimmer.register(stage, releaser);
+        }
+
+        trimmer.onTrimMemory(ComponentCallbacks2.TRIM_MEMORY_MODERATE);
+
+        assertEquals(2, released.size());
+        assertEquals(MemoryTrimmer.Stage.TAB_VIEWS, released.get(0));
+        assertEquals(MemoryTrimmer.Stage.ICONS, released.get(1));
+    }
+
+    @Test
+    public void freedItems_areCounted() {
+        trimmer.register(MemoryTrimmer.Stage.ICONS, releaser);
+        long before = trimmer.getFreedCount(MemoryTrimmer.Stage.ICONS);
+
+        trimmer.onLowMemory();
+
+        assertEquals(before + 2, trimmer.getFreedCount(MemoryTrimmer.Stage.ICONS));
+        assertEquals(ComponentCallbacks2.TRIM_MEMORY_COMPLETE, trimmer.getLastLevel());
+    }
+}
@@ -0,0 +1,156 @@
+package com.cinemint.rosterlauncher;
+
+import android.content.Context;
+import android.content.Intent;
+
+import androidx.lifecycle.ViewModelProvider;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.android.controller.ActivityController;
+
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.net.URL;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+/**
+ * Replays every recording in test resources under package_events/ against the
+ * launcher and checks per burst that package events were coalesced: no full
+ * scans, one update per package and batch, at most one publish per batch and
+ * listener callbacks within the service's dedup window. Drop a file pulled
+ * from a device with PackageEventRecorder there to replay it.
+ */
+@RunWith(RobolectricTestRunner.class)
+public class PackageEventReplayTest {
+    private static final int APP_COUNT = 200;
+    // Pinned and All; a publish rebuilds each tab at most once
+    private static final int TABS = 2;
+
+    private ActivityController<MainActivity> controller;
+
+    @Before
+    public void setUp() {
+        LauncherTrace.reset();
+        LauncherHarness.runWorkInline();
+    }
+
+    @After
+    public void tearDown() {
+        if (controller != null) {
+            controller.pause().stop().destroy();
+        }
+        LauncherHarness.runWorkOnPool();
+    }
+
+    @Test
+    public void event_roundTripsThroughLine() throws IOException {
+        PackageEvent event = new PackageEvent(1234L, Intent.ACTION_PACKAGE_REMOVED, "com.example.mail", true);
+
+        List<PackageEvent> parsed = PackageEvent.readAll(new StringReader("# comment\n\n" + event.toLine() + "\n"));
+
+        assertEquals(1, parsed.size());
+        assertEquals(1234L, parsed.get(0).timeMs);
+        assertEquals(Intent.ACTION_PACKAGE_REMOVED, parsed.get(0).action);
+        assertEquals("com.example.mail", parsed.get(0).packageName);
+        assertTrue(parsed.get(0).replacing);
+    }
+
+    @Test
+    public void splitBursts_breaksOnGaps() {
+        List<PackageEvent> events = Arrays.asList(
+                new PackageEvent(0, Intent.ACTION_PACKAGE_ADDED, "a", false),
+                new PackageEvent(100, Intent.ACTION_PACKAGE_ADDED, "b", false),
+                new PackageEvent(100 + PackageEventReplayer.BURST_GAP_MS + 1, Intent.ACTION_PACKAGE_ADDED, "c", false));
+
+        List<List<PackageEvent>> bursts = PackageEventReplayer.splitBursts(events);
+
+        assertEquals(2, bursts.size());
+        assertEquals(2, bursts.get(0).size());
+        assertEquals(1, bursts.get(1).size());
+    }
+
+    @Test
+    public void updateWindows_groupEventsByTheActivityDelay() {
+        long delay = MainActivity.PACKAGE_UPDATE_DELAY_MS;
+        List<PackageEvent> burst = Arrays.asList(
+                new PackageEvent(0, Intent.ACTION_PACKAGE_REMOVED, "a", true),
+                new PackageEvent(0, Intent.ACTION_PACKAGE_ADDED, "a", true),
+                new PackageEvent(10, Intent.ACTION_PACKAGE_REPLACED, "a", true),
+                new PackageEvent(20, Intent.ACTION_PACKAGE_CHANGED, "a", false),
+                new PackageEvent(30, Intent.ACTION_PACKAGE_ADDED, "b", false),
+                new PackageEvent(10 + delay, Intent.ACTION_PACKAGE_CHANGED, "a", false));
+
+        List<Set<String>> windows = PackageEventReplayer.updateWindows(burst);
+
+        assertEquals(2, windows.size());
+        assertEquals(2, windows.get(0).size());
+        assertEquals(1, windows.get(1).size());
+        // "a" is let through once; its last event comes before the dedup window ends
+        assertEquals(2, PackageEventReplayer.maxServiceNotifications(burst));
+    }
+
+    @Test
+    public void replay_recordings() throws IOException {
+        URL directory = getClass().getClassLoader().getResource("package_events");
+        assertNotNull(directory);
+        File[] recordings = new File(directory.getPath()).listFiles((dir, name) -> name.endsWith(".tsv"));
+        assertNotNull(recordings);
+        Arrays.sort(recordings);
+
+        Context context = RuntimeEnvironment.getApplication();
+        SyntheticPackageManager packages =
+                new SyntheticPackageManager(context, SyntheticPackageManager.LabelStyle.SHORT, 96);
+        packages.installApps(APP_COUNT, 3);
+
+        for (File recording : recordings) {
+            try (FileReader reader = new FileReader(recording)) {
+                List<PackageEvent> events = PackageEvent.readAll(reader);
+                PackageEventReplayer.installPreexisting(events, packages);
+            }
+        }
+
+        controller = Robolectric.buildActivity(MainActivity.class).setup();
+        LauncherViewModel viewModel = new ViewModelProvider(controller.get()).get(LauncherViewModel.class);
+        Robolectric.setupService(PackageMonitorService.class);
+        PackageEventReplayer replayer = new PackageEventReplayer(context, viewModel, packages);
+
+        for (File recording : recordings) {
+            List<PackageEvent> events;
+            try (FileReader reader = new FileReader(recording)) {
+                events = PackageEvent.readAll(reader);
+            }
+
+            List<PackageEventReplayer.BurstReport> reports = replayer.replay(events);
+            assertEquals(PackageEventReplayer.splitBursts(events).size(), reports.size());
+            for (int i = 0; i < reports.size(); i++) {
+                PackageEventReplayer.BurstReport report = reports.get(i);
+                String where = recording.getName() + " burst " + i + ": " + report;
+
+                // Package events are applied per package, never by rescanning everything
+                assertEquals(where, 0, report.scans);
+                // Each batch updates each of its packages once and publishes at most once
+                assertTrue(where, report.updates <= report.windowPackages);
+                assertTrue(where, report.windows == 0 || report.updates > 0);
+                assertTrue(where, report.publishes <= report.windows);
+                // Rows are rebuilt per publish or uninstall, not per event
+                assertTrue(where, report.rebuilds <= TABS * (report.publishes + report.removals));
+                assertTrue(where, report.serviceNotifications <= report.maxServiceNotifications);
+            }
+
+            // After each recording the launcher shows exactly what is installed
+            assertEquals(recording.getName(), packages.getInstalledCount(), viewModel.getCurrentApps().size());
+        }
+    }
+}
@@ -0,0 +1,238 @@
+package com.cinemint.rosterlauncher;
+
+import android.content.Context;
+import android.content.Intent;
+import android.net.Uri;
+import android.os.Looper;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.robolectric.Shadows.shadowOf;
+
+/**
+ * Replays a recorded package event stream against the launcher's update
+ * pipeline under Robolectric. The paused main looper is the virtual clock:
+ * gaps between events are advanced with idleFor, so the 500 ms and 1000 ms
+ * delayed refreshes and the service's dedup window fire exactly as recorded.
+ * The caller runs {@link LauncherExecutor} on a direct executor, so scans run
+ * on the main thread as they are queued and every replay does the same work.
+ */
+final class PackageEventReplayer {
+    // Events further apart than this start a new burst
+    static final long BURST_GAP_MS = 5_000;
+
+    // Virtual time after a burst for delayed refreshes and fragment debounces
+    private static final Duration BURST_TAIL = Duration.ofMillis(2_000);
+
+    /**
+     * Work one burst caused in the pipeline, next to the most its debouncing allows
+     */
+    static final class BurstReport {
+        int events;
+        long spanMs;
+        // Batches the activity's update delay groups the burst into, and the
+        // distinct packages summed over them
+        int windows;
+        int windowPackages;
+        // Uninstalls, which take the row out at once ahead of their batch
+        int removals;
+        long scans;
+        long updates;
+        long publishes;
+        long rebuilds;
+        long serviceNotifications;
+        // Notifications the service's dedup window lets through at most
+        int maxServiceNotifications;
+
+        @Override
+        public String toString() {
+            return "events=" + events + " span=" + spanMs + "ms windows=" + windows
+                    + " windowPackages=" + windowPackages + " removals=" + removals
+                    + " scans=" + scans + " updates=" + updates + " publishes=" + publishes
+                    + " rebuilds=" + rebuilds + " serviceNotifications=" + serviceNotifications
+                    + "/" + maxServiceNotifications;
+        }
+    }
+
+    private final Context context;
+    private final LauncherViewModel viewModel;
+    private final SyntheticPackageManager packages;
+
+    PackageEventReplayer(Context context, LauncherViewModel viewModel, SyntheticPackageManager packages) {
+        this.context = context;
+        this.viewModel = viewModel;
+        this.packages = packages;
+    }
+
+    /**
+     * Install every package the recording touches before it was first added,
+     * so updates and removals hit apps that exist
+     */
+    static void installPreexisting(List<PackageEvent> events, SyntheticPackageManager packages) {
+        Set<String> seen = new HashSet<>();
+        for (PackageEvent event : events) {
+            if (!seen.add(event.packageName)) continue;
+
+            boolean freshInstall = Intent.ACTION_PACKAGE_ADDED.equals(event.action) && !event.replacing;
+            if (!freshInstall) {
+                packages.installPackage(event.packageName);
+            }
+        }
+    }
+
+    static List<List<PackageEvent>> splitBursts(List<PackageEvent> events) {
+        List<List<PackageEvent>> bursts = new ArrayList<>();
+        List<PackageEvent> current = null;
+        long lastTime = 0;
+
+        for (PackageEvent event : events) {
+            if (current == null || event.timeMs - lastTime > BURST_GAP_MS) {
+                current = new ArrayList<>();
+                bursts.add(current);
+            }
+            current.add(event);
+            lastTime = event.timeMs;
+        }
+        return bursts;
+    }
+
+    /**
+     * Group the events the activity acts on into its update batches: a batch
+     * starts with the first event while none is pending and is applied
+     * {@link MainActivity#PACKAGE_UPDATE_DELAY_MS} later
+     */
+    static List<Set<String>> updateWindows(List<PackageEvent> burst) {
+        List<Set<String>> windows = new ArrayList<>();
+        Set<String> current = null;
+        long start = 0;
+        for (PackageEvent event : burst) {
+            // The removed/added pair of an app update is left to REPLACED
+            if (event.replacing && !Intent.ACTION_PACKAGE_REPLACED.equals(event.action)) continue;
+            if (Intent.ACTION_PACKAGE_FULLY_REMOVED.equals(event.action)) continue;
+
+            if (current == null || event.timeMs - start >= MainActivity.PACKAGE_UPDATE_DELAY_MS) {
+                current = new HashSet<>();
+                windows.add(current);
+                start = event.timeMs;
+            }
+            current.add(event.packageName);
+        }
+        return windows;
+    }
+
+    /**
+     * The most listener callbacks the service can make for a burst: it drops a
+     * package's events until its recent set is cleared, which is never sooner
+     * than the dedup window after that package was last let through
+     */
+    static int maxServiceNotifications(List<PackageEvent> burst) {
+        long window = PackageMonitorService.DEBOUNCE_DELAY_MS * 2;
+        Map<String, Long> lastNotified = new HashMap<>();
+        int count = 0;
+        for (PackageEvent event : burst) {
+            Long last = lastNotified.get(event.packageName);
+            if (last == null || event.timeMs - last >= window) {
+                lastNotified.put(event.packageName, event.timeMs);
+                count++;
+            }
+        }
+        return count;
+    }
+
+    List<BurstReport> replay(List<PackageEvent> events) {
+        List<BurstReport> reports = new ArrayList<>();
+        settle();
+        for (List<PackageEvent> burst : splitBursts(events)) {
+            reports.add(replayBurst(burst));
+        }
+        return reports;
+    }
+
+    private BurstReport replayBurst(List<PackageEvent> burst) {
+        long scansBefore = LauncherHarness.countOf(LauncherTrace.CATALOG_LOAD);
+        long rebuildsBefore = LauncherHarness.countOf(LauncherTrace.UI_REFRESH);
+        long updatesBefore = LauncherCounters.get(LauncherCounters.PACKAGE_UPDATE_EXECUTED);
+        long publishesBefore = publishCount();
+        long notificationsBefore = LauncherCounters.get(LauncherCounters.SERVICE_EVENT_NOTIFIED);
+
+        long previousTime = burst.get(0).timeMs;
+        for (PackageEvent event : burst) {
+            shadowOf(Looper.getMainLooper()).idleFor(Duration.ofMillis(event.timeMs - previousTime));
+            previousTime = event.timeMs;
+
+            apply(event);
+            context.sendBroadcast(toIntent(event));
+        }
+
+        shadowOf(Looper.getMainLooper()).idleFor(BURST_TAIL);
+        settle();
+
+        BurstReport report = new BurstReport();
+        report.events = burst.size();
+        report.spanMs = burst.get(burst.size() - 1).timeMs - burst.get(0).timeMs;
+        List<Set<String>> windows = updateWindows(burst);
+        report.windows = windows.size();
+        for (Set<String> window : windows) {
+            report.windowPackages += window.size();
+        }
+        for (PackageEvent event : burst) {
+            if (Intent.ACTION_PACKAGE_REMOVED.equals(event.action) && !event.replacing) {
+                report.removals++;
+            }
+        }
+        report.scans = LauncherHarness.countOf(LauncherTrace.CATALOG_LOAD) - scansBefore;
+        report.updates = LauncherCounters.get(LauncherCounters.PACKAGE_UPDATE_EXECUTED) - updatesBefore;
+        report.publishes = publishCount() - publishesBefore;
+        report.rebuilds = LauncherHarness.countOf(LauncherTrace.UI_REFRESH) - rebuildsBefore;
+        report.serviceNotifications =
+                LauncherCounters.get(LauncherCounters.SERVICE_EVENT_NOTIFIED) - notificationsBefore;
+        report.maxServiceNotifications = maxServiceNotifications(burst);
+        return report;
+    }
+
+    // Catalog versions published to the rows, by a scan or a package update
+    private static long publishCount() {
+        return LauncherCounters.get(LauncherCounters.SCAN_PUBLISHED)
+                + LauncherCounters.get(LauncherCounters.PACKAGE_UPDATE_PUBLISHED);
+    }
+
+    // Mirror the event in the synthetic PackageManager so scans see the new state
+    private void apply(PackageEvent event) {
+        switch (event.action) {
+            case Intent.ACTION_PACKAGE_ADDED:
+                packages.installPackage(event.packageName);
+                break;
+            case Intent.ACTION_PACKAGE_REMOVED:
+                if (!event.replacing) {
+                    packages.removePackage(event.packageName);
+                }
+                break;
+            case Intent.ACTION_PACKAGE_FULLY_REMOVED:
+                packages.removePackage(event.packageName);
+                break;
+            case Intent.ACTION_PACKAGE_REPLACED:
+                packages.relabelPackage(event.packageName);
+                break;
+        }
+    }
+
+    private static Intent toIntent(PackageEvent event) {
+        Intent intent = new Intent(event.action, Uri.fromParts("package", event.packageName, null));
+        intent.putExtra(Intent.EXTRA_REPLACING, event.replacing);
+        return intent;
+    }
+
+    // Scans run inline, so running the looper's due work leaves nothing pending
+    private void settle() {
+        shadowOf(Looper.getMainLooper()).idle();
+        if (!viewModel.isInitialized()) {
+            throw new AssertionError("Launcher has not published its first catalog");
+        }
+    }
+}
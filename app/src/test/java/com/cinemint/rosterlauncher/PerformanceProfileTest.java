@@ -0,0 +1,53 @@
+package com.cinemint.rosterlauncher;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for automatic {@link PerformanceProfile} selection.
+ */
+public class PerformanceProfileTest {
+
+    @Test
+    public void lowRamDevice_isLow() {
+        assertEquals(PerformanceProfile.LOW, PerformanceProfile.detect(true, 256, 8));
+    }
+
+    @Test
+    public void smallMemoryClass_isLow() {
+        assertEquals(PerformanceProfile.LOW, PerformanceProfile.detect(false, 64, 8));
+    }
+
+    @Test
+    public void midRangeDevice_isStandard() {
+        assertEquals(PerformanceProfile.STANDARD, PerformanceProfile.detect(false, 192, 8));
+        assertEquals(PerformanceProfile.STANDARD, PerformanceProfile.detect(false, 512, 4));
+    }
+
+    @Test
+    public void flagshipDevice_isHigh() {
+        assertEquals(PerformanceProfile.HIGH, PerformanceProfile.detect(false, 512, 8));
+    }
+
+    @Test
+    public void lowProfile_shedsWork() {
+        PerformanceProfile low = PerformanceProfile.LOW;
+        PerformanceProfile high = PerformanceProfile.HIGH;
+
+        assertTrue(low.iconCacheBytes < high.iconCacheBytes);
+        assertTrue(low.prefetchDepth < high.prefetchDepth);
+        assertEquals(AnimationGovernor.Effect.NONE, low.animationCap);
+    }
+
+    @Test
+    public void iconBudget_isSplitWithoutOverlap() {
+        for (PerformanceProfile profile : PerformanceProfile.values()) {
+            assertEquals(profile.iconCacheBytes,
+                    profile.bitmapPoolBytes() + profile.shortcutIconBytes() + profile.rowIconBytes());
+            // The first screen of rows always fits
+            assertTrue(profile.name(), profile.rowIconLimit() >= 48);
+        }
+        assertTrue(PerformanceProfile.LOW.rowIconLimit() > PerformanceProfile.LOW.prefetchDepth);
+    }
+}
@@ -0,0 +1,157 @@
+package com.cinemint.rosterlauncher;
+
+import android.content.Context;
+import android.os.Looper;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.android.controller.ActivityController;
+
+import java.time.Duration;
+
+import static org.junit.Assert.*;
+import static org.robolectric.Shadows.shadowOf;
+
+/**
+ * Scale regression suite: drives the real load and refresh pipeline of
+ * {@link MainActivity} and {@link AppsFragment} against a synthetic
+ * PackageManager and fails when scans, rebuilds, icon decodes, views or
+ * allocations exceed budget. Catalog work runs inline on the main thread, so
+ * the counts don't depend on thread timing. Wall time is left to the JMH
+ * benchmarks, since Robolectric timings say little about a device.
+ */
+@RunWith(RobolectricTestRunner.class)
+public class ScaleRegressionTest {
+    private static final int APP_COUNT = 1_000;
+    private static final int ICON_SIZE_PX = 96;
+
+    // Each tab builds its rows for the first publish, and at most once more
+    private static final long LOAD_REBUILD_BUDGET = 4;
+    private static final double VIEWS_PER_APP_BUDGET = 3.5;
+    private static final long BYTES_PER_APP_BUDGET = 256 * 1024;
+    private static final int STORM_EVENTS = 200;
+    private static final int STORM_REBUILD_BUDGET = 10;
+
+    private ActivityController<MainActivity> controller;
+
+    @Before
+    public void setUp() {
+        LauncherTrace.reset();
+        LauncherCounters.reset();
+        LatencyRecorder.getInstance().reset();
+        LauncherHarness.runWorkInline();
+    }
+
+    @After
+    public void tearDown() {
+        if (controller != null) {
+            controller.pause().stop().destroy();
+        }
+        LauncherHarness.runWorkOnPool();
+    }
+
+    @Test
+    public void load_thousandApps_withinBudget() {
+        assertLoadWithinBudget(SyntheticPackageManager.LabelStyle.SHORT);
+    }
+
+    @Test
+    public void load_longLabels_withinBudget() {
+        assertLoadWithinBudget(SyntheticPackageManager.LabelStyle.LONG);
+    }
+
+    @Test
+    public void load_mixedScripts_withinBudget() {
+        assertLoadWithinBudget(SyntheticPackageManager.LabelStyle.MIXED_SCRIPT);
+    }
+
+    @Test
+    public void packageStorm_coalescesRebuilds() {
+        SyntheticPackageManager packages = createPackages(SyntheticPackageManager.LabelStyle.SHORT);
+        packages.installApps(APP_COUNT / 2, 7);
+        MainActivity activity = launch();
+        LauncherHarness.awaitAppCount(activity, packages.getInstalledCount());
+        LauncherHarness.showAllTab(activity);
+        LauncherTrace.reset();
+
+        int expected = packages.storm(STORM_EVENTS, 11);
+
+        // Let the 500 ms and 1000 ms delayed refreshes run, then wait for the final scan
+        shadowOf(Looper.getMainLooper()).idleFor(Duration.ofMillis(1_500));
+        LauncherHarness.awaitAppCount(activity, expected);
+
+        long rebuilds = LauncherHarness.countOf(LauncherTrace.UI_REFRESH);
+        assertTrue("UI rebuilds during storm: " + rebuilds, rebuilds <= STORM_REBUILD_BUDGET);
+    }
+
+    @Test
+    public void searchKeystrokes_filterInPlaceWithoutScans() {
+        SyntheticPackageManager packages = createPackages(SyntheticPackageManager.LabelStyle.SHORT);
+        packages.installApps(APP_COUNT, 5);
+        MainActivity activity = launch();
+        LauncherHarness.awaitAppCount(activity, APP_COUNT);
+        LauncherHarness.showAllTab(activity);
+        LatencyRecorder.getInstance().reset();
+        long scans = LauncherCounters.get(LauncherCounters.SCAN_EXECUTED);
+        long rebuilds = LauncherCounters.get(LauncherCounters.UI_REFRESH_REBUILT);
+        long inPlace = LauncherCounters.get(LauncherCounters.UI_SEARCH_IN_PLACE);
+
+        LauncherViewModel viewModel = LauncherHarness.viewModelOf(activity);
+        String[] keystrokes = {"m", "ma", "mai", "ma", "m", ""};
+        for (String query : keystrokes) {
+            viewModel.setSearchQuery(query);
+            shadowOf(Looper.getMainLooper()).idleFor(Duration.ofMillis(200));
+        }
+
+        // Every keystroke is answered and shown, by hiding rows rather than building them
+        LatencyHistogram.Snapshot search =
+                LatencyRecorder.getInstance().getStats(LatencyRecorder.Interaction.SEARCH);
+        assertEquals(keystrokes.length, search.count);
+        assertEquals(keystrokes.length, LauncherCounters.get(LauncherCounters.UI_SEARCH_IN_PLACE) - inPlace);
+        assertEquals(0, LauncherCounters.get(LauncherCounters.UI_REFRESH_REBUILT) - rebuilds);
+        assertEquals(0, LauncherCounters.get(LauncherCounters.SCAN_EXECUTED) - scans);
+    }
+
+    private void assertLoadWithinBudget(SyntheticPackageManager.LabelStyle labelStyle) {
+        SyntheticPackageManager packages = createPackages(labelStyle);
+        packages.installApps(APP_COUNT, 42);
+        packages.pinFirst(APP_COUNT / 20);
+
+        long bytesBefore = LauncherHarness.allocatedBytes();
+
+        MainActivity activity = launch();
+        LauncherHarness.awaitAppCount(activity, APP_COUNT);
+        LauncherHarness.showAllTab(activity);
+
+        long bytesPerApp = (LauncherHarness.allocatedBytes() - bytesBefore) / APP_COUNT;
+        double viewsPerApp =
+                LauncherHarness.countViews(activity.getWindow().getDecorView()) / (double) APP_COUNT;
+        long rebuilds = LauncherCounters.get(LauncherCounters.UI_REFRESH_REBUILT);
+        long decoded = LauncherCounters.get(LauncherCounters.ICON_DECODED);
+
+        // One scan publishes everything; nothing is scanned or decoded twice
+        assertEquals(1, LauncherCounters.get(LauncherCounters.SCAN_EXECUTED));
+        assertEquals(1, LauncherCounters.get(LauncherCounters.SCAN_PUBLISHED));
+        assertTrue("UI rebuilds during load: " + rebuilds, rebuilds <= LOAD_REBUILD_BUDGET);
+        assertTrue("Icons decoded: " + decoded, decoded <= APP_COUNT);
+        assertTrue("Views per app: " + viewsPerApp, viewsPerApp <= VIEWS_PER_APP_BUDGET);
+        if (bytesBefore >= 0) {
+            assertTrue("Bytes per app: " + bytesPerApp, bytesPerApp <= BYTES_PER_APP_BUDGET);
+        }
+    }
+
+    private SyntheticPackageManager createPackages(SyntheticPackageManager.LabelStyle labelStyle) {
+        Context context = RuntimeEnvironment.getApplication();
+        return new SyntheticPackageManager(context, labelStyle, ICON_SIZE_PX);
+    }
+
+    private MainActivity launch() {
+        controller = Robolectric.buildActivity(MainActivity.class).setup();
+        return controller.get();
+    }
+}
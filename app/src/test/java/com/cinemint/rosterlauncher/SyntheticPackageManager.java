@@ -0,0 +1,198 @@
+package com.cinemint.rosterlauncher;
+
+import android.content.ComponentName;
+import android.content.Context;
+import android.content.Intent;
+import android.content.pm.ActivityInfo;
+import android.content.pm.ApplicationInfo;
+import android.content.pm.ResolveInfo;
+import android.graphics.Bitmap;
+import android.graphics.drawable.BitmapDrawable;
+import android.net.Uri;
+
+import com.cinemint.rosterlauncher.catalog.AppRecord;
+import com.cinemint.rosterlauncher.catalog.SyntheticCatalog;
+
+import org.robolectric.shadows.ShadowPackageManager;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import static org.robolectric.Shadows.shadowOf;
+
+/**
+ * Fills Robolectric's PackageManager with synthetic launcher activities and
+ * replays package churn as the broadcasts the launcher listens for.
+ */
+final class SyntheticPackageManager {
+
+    enum LabelStyle {
+        // Labels as generated by SyntheticCatalog
+        SHORT,
+        // Labels of 60+ characters that wrap or ellipsize in rows
+        LONG,
+        // Non-Latin first letters, which add sections beyond A-Z
+        MIXED_SCRIPT
+    }
+
+    private static final String[] SCRIPT_PREFIXES = {"Ж", "東", "ع", "Ω", "한"};
+
+    private final Context context;
+    private final ShadowPackageManager shadowPm;
+    private final Intent launcherIntent;
+    private final LabelStyle labelStyle;
+    private final int iconSizePx;
+
+    // Installed launcher activities by package, in install order
+    private final Map<String, AppRecord> installed = new LinkedHashMap<>();
+    private int generation = 0;
+
+    SyntheticPackageManager(Context context, LabelStyle labelStyle, int iconSizePx) {
+        this.context = context;
+        this.shadowPm = shadowOf(context.getPackageManager());
+        this.labelStyle = labelStyle;
+        this.iconSizePx = iconSizePx;
+
+        launcherIntent = new Intent(Intent.ACTION_MAIN, null);
+        launcherIntent.addCategory(Intent.CATEGORY_LAUNCHER);
+    }
+
+    /**
+     * Install {@code count} apps without broadcasting, as if they were there at boot
+     */
+    void installApps(int count, long seed) {
+        for (AppRecord record : SyntheticCatalog.records(count, seed)) {
+            install(record.packageName, record.activityName, style(record.label));
+        }
+    }
+
+    /**
+     * Store the first {@code count} installed packages as pinned, before the launcher starts.
+     * Package-name pins are the pre-component format, so they also exercise pin migration.
+     */
+    void pinFirst(int count) {
+        Set<String> pinned = new HashSet<>();
+        for (String packageName : installed.keySet()) {
+            if (pinned.size() == count) break;
+            pinned.add(packageName);
+        }
+        context.getSharedPreferences(MainActivity.PREF_NAME, Context.MODE_PRIVATE).edit()
+                .putStringSet(SharedPreferencesPinStore.PINNED_APPS_KEY, pinned)
+                .commit();
+    }
+
+    int getInstalledCount() {
+        return installed.size();
+    }
+
+    List<String> getInstalledPackages() {
+        return new ArrayList<>(installed.keySet());
+    }
+
+    /**
+     * Fire {@code events} random installs, removals and relabels, each followed
+     * by its package broadcast. Returns the number of installed apps afterwards.
+     */
+    int storm(int events, long seed) {
+        Random random = new Random(seed);
+        generation++;
+
+        for (int i = 0; i < events; i++) {
+            int kind = random.nextInt(3);
+            List<String> packages = getInstalledPackages();
+
+            if (kind == 0 || packages.isEmpty()) {
+                String packageName = "com.storm" + generation + ".app" + i;
+                installPackage(packageName);
+                broadcast(Intent.ACTION_PACKAGE_ADDED, packageName);
+            } else if (kind == 1) {
+                String packageName = packages.get(random.nextInt(packages.size()));
+                removePackage(packageName);
+                broadcast(Intent.ACTION_PACKAGE_REMOVED, packageName);
+            } else {
+                String packageName = packages.get(random.nextInt(packages.size()));
+                relabelPackage(packageName);
+                broadcast(Intent.ACTION_PACKAGE_REPLACED, packageName);
+            }
+        }
+        return installed.size();
+    }
+
+    /**
+     * Install one package with a label derived from its name, without broadcasting
+     */
+    void installPackage(String packageName) {
+        if (installed.containsKey(packageName)) return;
+
+        String lastSegment = packageName.substring(packageName.lastIndexOf('.') + 1);
+        String label = lastSegment.isEmpty() ? packageName
+                : Character.toUpperCase(lastSegment.charAt(0)) + lastSegment.substring(1);
+        install(packageName, packageName + ".MainActivity", style(label));
+    }
+
+    void removePackage(String packageName) {
+        uninstall(packageName);
+    }
+
+    /**
+     * Simulate an update that renames the app but keeps its package and activity
+     */
+    void relabelPackage(String packageName) {
+        AppRecord record = installed.get(packageName);
+        if (record == null) return;
+
+        uninstall(packageName);
+        install(packageName, record.activityName, "Renamed " + record.label);
+    }
+
+    private void install(String packageName, String activityName, String label) {
+        ResolveInfo info = new ResolveInfo();
+        info.activityInfo = new ActivityInfo();
+        info.activityInfo.packageName = packageName;
+        info.activityInfo.name = activityName;
+        info.activityInfo.applicationInfo = new ApplicationInfo();
+        info.activityInfo.applicationInfo.packageName = packageName;
+        info.nonLocalizedLabel = label;
+
+        shadowPm.addResolveInfoForIntent(launcherIntent, info);
+        // Single-package queries are matched as separate intents
+        shadowPm.addResolveInfoForIntent(packageIntent(packageName), info);
+        shadowPm.addActivityIcon(new ComponentName(packageName, activityName), createIcon());
+        installed.put(packageName, new AppRecord(packageName, activityName, label));
+    }
+
+    private void uninstall(String packageName) {
+        shadowPm.removeResolveInfosForIntent(launcherIntent, packageName);
+        shadowPm.removeResolveInfosForIntent(packageIntent(packageName), packageName);
+        installed.remove(packageName);
+    }
+
+    private Intent packageIntent(String packageName) {
+        return new Intent(launcherIntent).setPackage(packageName);
+    }
+
+    private void broadcast(String action, String packageName) {
+        context.sendBroadcast(new Intent(action, Uri.fromParts("package", packageName, null)));
+    }
+
+    private BitmapDrawable createIcon() {
+        Bitmap bitmap = Bitmap.createBitmap(iconSizePx, iconSizePx, Bitmap.Config.ARGB_8888);
+        return new BitmapDrawable(context.getResources(), bitmap);
+    }
+
+    private String style(String label) {
+        switch (labelStyle) {
+            case LONG:
+                return label + " Professional Edition for Teams and Families " + label.length();
+            case MIXED_SCRIPT:
+                return SCRIPT_PREFIXES[Math.abs(label.hashCode()) % SCRIPT_PREFIXES.length] + " " + label;
+            default:
+                return label;
+        }
+    }
+}
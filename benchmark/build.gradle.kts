@@ -0,0 +1,27 @@
+plugins {
+    java
+    alias(libs.plugins.jmh)
+}
+
+java {
+    sourceCompatibility = JavaVersion.VERSION_11
+    targetCompatibility = JavaVersion.VERSION_11
+}
+
+dependencies {
+    jmh(project(":catalog"))
+    jmh(testFixtures(project(":catalog")))
+    jmh(libs.jmh.core)
+    jmhAnnotationProcessor(libs.jmh.annprocess)
+}
+
+// Run with: ./gradlew :benchmark:jmh
+// Results (throughput plus the gc profiler's allocation rate per op) go to build/results/jmh
+jmh {
+    jmhVersion.set(libs.versions.jmh)
+    fork.set(1)
+    warmupIterations.set(3)
+    iterations.set(5)
+    profilers.add("gc")
+    resultFormat.set("JSON")
+}
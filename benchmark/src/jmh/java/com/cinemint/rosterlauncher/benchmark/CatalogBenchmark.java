@@ -0,0 +1,77 @@
+// CatalogBenchmark.java
+
+package com.cinemint.rosterlauncher.benchmark;
+
+import com.cinemint.rosterlauncher.catalog.CatalogOps;
+import com.cinemint.rosterlauncher.catalog.SyntheticCatalog;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of the catalog paths hit on every load and refresh:
+ * the sort in getInstalledApps, the section grouping of the All tab,
+ * tab/search filtering and LauncherViewModel.addOrUpdateApp.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class CatalogBenchmark {
+
+    @Param({"50", "500", "2000", "5000"})
+    public int appCount;
+
+    private List<SyntheticCatalog.Entry> unsorted;
+    private List<SyntheticCatalog.Entry> sorted;
+    private SyntheticCatalog.Entry update;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        unsorted = SyntheticCatalog.entries(appCount, 42);
+        sorted = new ArrayList<>(unsorted);
+        CatalogOps.sortByLabel(sorted);
+
+        // Replaces an existing package with a renamed entry
+        SyntheticCatalog.Entry existing = unsorted.get(appCount / 2);
+        update = new SyntheticCatalog.Entry("Updated " + existing.label, existing.packageName, false);
+    }
+
+    @Benchmark
+    public List<SyntheticCatalog.Entry> sortByLabel() {
+        List<SyntheticCatalog.Entry> copy = new ArrayList<>(unsorted);
+        CatalogOps.sortByLabel(copy);
+        return copy;
+    }
+
+    @Benchmark
+    public Map<String, List<SyntheticCatalog.Entry>> groupBySection() {
+        return CatalogOps.groupBySection(sorted);
+    }
+
+    @Benchmark
+    public List<SyntheticCatalog.Entry> filterPinned() {
+        return CatalogOps.filter(sorted, true, "");
+    }
+
+    @Benchmark
+    public List<SyntheticCatalog.Entry> filterSearch() {
+        return CatalogOps.filter(sorted, false, "ma");
+    }
+
+    @Benchmark
+    public List<SyntheticCatalog.Entry> addOrUpdate() {
+        return CatalogOps.addOrUpdate(sorted, update);
+    }
+}
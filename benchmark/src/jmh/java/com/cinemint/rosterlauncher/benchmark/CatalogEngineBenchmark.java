@@ -0,0 +1,127 @@
+// CatalogEngineBenchmark.java
+
+package com.cinemint.rosterlauncher.benchmark;
+
+import com.cinemint.rosterlauncher.catalog.AppRecord;
+import com.cinemint.rosterlauncher.catalog.Catalog;
+import com.cinemint.rosterlauncher.catalog.CatalogDiff;
+import com.cinemint.rosterlauncher.catalog.CatalogSnapshot;
+import com.cinemint.rosterlauncher.catalog.InMemoryPinStore;
+import com.cinemint.rosterlauncher.catalog.SearchIndex;
+import com.cinemint.rosterlauncher.catalog.SyntheticCatalog;
+import com.cinemint.rosterlauncher.catalog.VisibilityRules;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Scaling of the catalog engine up to 10,000 apps: full rescans with and
+ * without changes, single-package updates, pin toggles, search on a
+ * published snapshot and through its {@link SearchIndex}, and compiling
+ * {@link VisibilityRules} for a snapshot.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class CatalogEngineBenchmark {
+
+    @Param({"500", "2000", "10000"})
+    public int appCount;
+
+    private Catalog catalog;
+    private List<AppRecord> rescan;
+    private List<AppRecord> rescanWithChange;
+    private AppRecord original;
+    private AppRecord renamed;
+    private String pinKey;
+    private boolean pinState;
+    private SearchIndex index;
+    private int[] results;
+    private final SearchIndex.Scratch scratch = new SearchIndex.Scratch();
+    private VisibilityRules rules;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        rescan = SyntheticCatalog.records(appCount, 42);
+
+        // Same scan with one app renamed, as after a package update
+        rescanWithChange = new ArrayList<>(rescan);
+        original = rescan.get(appCount / 2);
+        renamed = new AppRecord(original.packageName, original.activityName, "Renamed " + original.label);
+        rescanWithChange.set(appCount / 2, renamed);
+
+        catalog = new Catalog(new InMemoryPinStore());
+        catalog.replaceAll(rescan);
+        pinKey = rescan.get(appCount / 3).key();
+        index = SearchIndex.build(catalog.snapshot().compact(), Collections.emptyMap(), null);
+        results = new int[appCount];
+        // One vendor's packages by pattern, plus the category rule's pass over every record
+        rules = new VisibilityRules(List.of("com.vendor1.*"), false, List.of(0));
+    }
+
+    @Benchmark
+    public CatalogDiff rescanUnchanged() {
+        return catalog.replaceAll(rescan);
+    }
+
+    @Benchmark
+    public CatalogDiff rescanOneChange() {
+        // Alternate so every invocation sees exactly one changed record
+        CatalogDiff diff = catalog.replaceAll(rescanWithChange);
+        catalog.replaceAll(rescan);
+        return diff;
+    }
+
+    @Benchmark
+    public CatalogDiff updateOnePackage() {
+        // The same change as rescanOneChange, applied from a package broadcast
+        CatalogDiff diff = catalog.updatePackage(renamed.packageName, List.of(renamed));
+        catalog.updatePackage(original.packageName, List.of(original));
+        return diff;
+    }
+
+    @Benchmark
+    public CatalogSnapshot togglePin() {
+        pinState = !pinState;
+        catalog.setPinned(pinKey, pinState);
+        return catalog.snapshot();
+    }
+
+    @Benchmark
+    public List<AppRecord> search() {
+        return catalog.snapshot().search("ma");
+    }
+
+    @Benchmark
+    public int searchIndexed() {
+        // Two words, so both the term runs and the all-words pass are measured
+        return index.search("ma ap", null, scratch, results);
+    }
+
+    @Benchmark
+    public SearchIndex updateOnePackageAndIndex() {
+        // Only the changed record is split again; the rest of the documents are shared
+        catalog.updatePackage(renamed.packageName, List.of(renamed));
+        SearchIndex updated = SearchIndex.build(catalog.snapshot().compact(), Collections.emptyMap(), index);
+        catalog.updatePackage(original.packageName, List.of(original));
+        return updated;
+    }
+
+    @Benchmark
+    public int compileVisibility() {
+        // Once per catalog version; tabs and search then combine the bitsets
+        return rules.compile(catalog.snapshot().compact()).getVisibleCount();
+    }
+}
@@ -0,0 +1,114 @@
+// CatalogFootprintBenchmark.java
+
+package com.cinemint.rosterlauncher.benchmark;
+
+import com.cinemint.rosterlauncher.catalog.AppRecord;
+import com.cinemint.rosterlauncher.catalog.CatalogOps;
+import com.cinemint.rosterlauncher.catalog.CompactCatalog;
+import com.cinemint.rosterlauncher.catalog.SyntheticCatalog;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Heap cost of a snapshot's lookup tables: the struct-of-arrays
+ * {@link CompactCatalog} against the boxed maps snapshots used to hold (key to
+ * Integer position, package to record list, search labels). Everything the
+ * build allocates stays reachable from the snapshot, so the gc profiler's
+ * gc.alloc.rate.norm is the footprint per catalog. Key lookups cover the
+ * package-event path on both layouts.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class CatalogFootprintBenchmark {
+
+    @Param({"500", "2000", "10000"})
+    public int appCount;
+
+    private List<AppRecord> sorted;
+    private CompactCatalog compact;
+    private ObjectTables objects;
+    private String[] keys;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        sorted = new ArrayList<>(SyntheticCatalog.records(appCount, 42));
+        sorted.sort(CatalogOps.RECORD_ORDER);
+        compact = CompactCatalog.of(sorted);
+        objects = new ObjectTables(sorted);
+
+        keys = new String[sorted.size()];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = sorted.get((i * 7919) % keys.length).key();
+        }
+    }
+
+    @Benchmark
+    public CompactCatalog buildCompact() {
+        return CompactCatalog.of(sorted);
+    }
+
+    @Benchmark
+    public ObjectTables buildObjects() {
+        return new ObjectTables(sorted);
+    }
+
+    @Benchmark
+    public int lookupCompact() {
+        return compact.id(keys[next++ % keys.length]);
+    }
+
+    @Benchmark
+    public int lookupObjects() {
+        Integer position = objects.positions.get(keys[next++ % keys.length]);
+        return position == null ? -1 : position;
+    }
+
+    /**
+     * The object-per-entry layout CatalogSnapshot had before the compact tables
+     */
+    public static final class ObjectTables {
+        final Map<String, Integer> positions;
+        final Map<String, List<AppRecord>> packages;
+        final String[] searchLabels;
+
+        ObjectTables(List<AppRecord> sortedRecords) {
+            positions = new HashMap<>(sortedRecords.size() * 2);
+            packages = new HashMap<>(sortedRecords.size() * 2);
+            searchLabels = new String[sortedRecords.size()];
+            for (int i = 0; i < sortedRecords.size(); i++) {
+                AppRecord record = sortedRecords.get(i);
+                positions.put(record.key(), i);
+                searchLabels[i] = record.label.toLowerCase(Locale.getDefault());
+
+                List<AppRecord> components = packages.get(record.packageName);
+                if (components == null) {
+                    packages.put(record.packageName, Collections.singletonList(record));
+                } else {
+                    if (components.size() == 1) {
+                        components = new ArrayList<>(components);
+                        packages.put(record.packageName, components);
+                    }
+                    components.add(record);
+                }
+            }
+        }
+    }
+}
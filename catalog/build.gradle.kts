@@ -0,0 +1,14 @@
+plugins {
+    `java-library`
+    `java-test-fixtures`
+}
+
+// Plain Java so the catalog algorithms can be tested and benchmarked without Android
+java {
+    sourceCompatibility = JavaVersion.VERSION_11
+    targetCompatibility = JavaVersion.VERSION_11
+}
+
+dependencies {
+    testImplementation(libs.junit)
+}
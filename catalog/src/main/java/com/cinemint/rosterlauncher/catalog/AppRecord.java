@@ -0,0 +1,89 @@
+// AppRecord.java
+
+package com.cinemint.rosterlauncher.catalog;
+
+import java.util.Objects;
+
+/**
+ * Immutable description of one launchable activity, without icons or Android types.
+ */
+public final class AppRecord {
+    // Profile of the launcher itself; other profiles (e.g. work) use their user serial number
+    public static final long OWN_PROFILE = 0;
+    // ApplicationInfo.CATEGORY_UNDEFINED, for apps that declare no category or devices before API 26
+    public static final int CATEGORY_UNDEFINED = -1;
+
+    public final String packageName;
+    public final String activityName;
+    public final String label;
+    public final long profile;
+    // Whether the app is part of the system image, updated or not
+    public final boolean systemApp;
+    // The app's ApplicationInfo.category
+    public final int category;
+    private final String key;
+
+    public AppRecord(String packageName, String activityName, String label) {
+        this(packageName, activityName, label, OWN_PROFILE);
+    }
+
+    public AppRecord(String packageName, String activityName, String label, long profile) {
+        this(packageName, activityName, label, profile, false, CATEGORY_UNDEFINED);
+    }
+
+    public AppRecord(String packageName, String activityName, String label, long profile,
+                     boolean systemApp, int category) {
+        this.packageName = Objects.requireNonNull(packageName);
+        this.activityName = activityName != null ? activityName : "";
+        this.label = label != null ? label : packageName;
+        this.profile = profile;
+        this.systemApp = systemApp;
+        this.category = category;
+        this.key = profile == OWN_PROFILE
+                ? componentKey(this.packageName, this.activityName)
+                : componentKey(this.packageName, this.activityName) + "#" + profile;
+    }
+
+    public boolean isOwnProfile() {
+        return profile == OWN_PROFILE;
+    }
+
+    /**
+     * Key the catalog indexes this record under: its component, suffixed with
+     * the profile for profiles other than the launcher's own
+     */
+    public String key() {
+        return key;
+    }
+
+    /**
+     * Component key in ComponentName.flattenToString form (package/activity);
+     * just the package for records without an activity
+     */
+    public static String componentKey(String packageName, String activityName) {
+        return activityName == null || activityName.isEmpty() ? packageName : packageName + "/" + activityName;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof AppRecord)) return false;
+        AppRecord other = (AppRecord) o;
+        return packageName.equals(other.packageName)
+                && activityName.equals(other.activityName)
+                && label.equals(other.label)
+                && profile == other.profile
+                && systemApp == other.systemApp
+                && category == other.category;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(packageName, activityName, label, profile, systemApp, category);
+    }
+
+    @Override
+    public String toString() {
+        return key + " \"" + label + "\"";
+    }
+}
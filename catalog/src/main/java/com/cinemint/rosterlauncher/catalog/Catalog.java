@@ -0,0 +1,316 @@
+// Catalog.java
+
+package com.cinemint.rosterlauncher.catalog;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The launcher's catalog engine. Records are keyed by component and profile,
+ * so a package may contribute several launcher activities and appear in a
+ * work profile too; each profile is a partition that can be replaced on its
+ * own. Mutations build a new immutable
+ * {@link CatalogSnapshot} and report what changed as a {@link CatalogDiff};
+ * readers take the current snapshot without locking.
+ */
+public final class Catalog {
+    private final PinStore pinStore;
+    private volatile CatalogSnapshot snapshot = CatalogSnapshot.EMPTY;
+
+    // Loaded from the pin store on first use
+    private Set<String> pinnedKeys;
+
+    public Catalog(PinStore pinStore) {
+        this.pinStore = pinStore;
+    }
+
+    public CatalogSnapshot snapshot() {
+        return snapshot;
+    }
+
+    /**
+     * (Re)read pinned keys from the store; may block
+     */
+    public synchronized void loadPins() {
+        pinnedKeys = new HashSet<>(pinStore.load());
+        publish(new ArrayList<>(snapshot.getRecords()));
+    }
+
+    /**
+     * Write the current pinned keys to the store; may block
+     */
+    public void savePins() {
+        pinStore.save(new HashSet<>(snapshot.getPinnedKeys()));
+    }
+
+    /**
+     * Replace every record, e.g. after a full PackageManager scan. Pins of
+     * records that no longer exist are dropped and the store is updated.
+     */
+    public synchronized CatalogDiff replaceAll(Collection<AppRecord> records) {
+        ensurePinsLoaded();
+
+        List<AppRecord> sorted = new ArrayList<>(records);
+        canonicalize(sorted);
+        sorted.sort(CatalogOps.RECORD_ORDER);
+        CatalogDiff diff = CatalogDiff.compute(snapshot.getRecords(), sorted);
+
+        Set<String> existing = new HashSet<>(sorted.size() * 2);
+        for (AppRecord record : sorted) {
+            existing.add(record.key());
+        }
+        boolean pinsMigrated = migratePackagePins(sorted, existing);
+        boolean pinsPruned = pinnedKeys.retainAll(existing) || pinsMigrated;
+
+        if (!diff.isEmpty() || pinsPruned || snapshot == CatalogSnapshot.EMPTY) {
+            publish(sorted);
+        }
+        if (pinsPruned) {
+            savePins();
+        }
+        return diff;
+    }
+
+    /**
+     * Insert a record or replace the one with the same key
+     */
+    public synchronized CatalogDiff addOrUpdate(AppRecord record) {
+        ensurePinsLoaded();
+
+        AppRecord previous = snapshot.find(record.key());
+        if (record.equals(previous)) {
+            return CatalogDiff.EMPTY;
+        }
+        record = canonical(record, null);
+
+        List<AppRecord> updated = new ArrayList<>(snapshot.size() + 1);
+        for (AppRecord existing : snapshot.getRecords()) {
+            if (!existing.key().equals(record.key())) {
+                updated.add(existing);
+            }
+        }
+        updated.add(record);
+        updated.sort(CatalogOps.RECORD_ORDER);
+        publish(updated);
+
+        List<AppRecord> one = new ArrayList<>(1);
+        one.add(record);
+        return previous == null
+                ? new CatalogDiff(one, new ArrayList<>(), new ArrayList<>())
+                : new CatalogDiff(new ArrayList<>(), new ArrayList<>(), one);
+    }
+
+    /**
+     * Remove the record with this key and forget its pin
+     */
+    public synchronized CatalogDiff remove(String key) {
+        ensurePinsLoaded();
+
+        AppRecord previous = snapshot.find(key);
+        boolean unpinned = pinnedKeys.remove(key);
+        if (previous == null && !unpinned) {
+            return CatalogDiff.EMPTY;
+        }
+
+        List<AppRecord> updated = new ArrayList<>(snapshot.getRecords());
+        if (previous != null) {
+            updated.remove(snapshot.indexOf(key));
+        }
+        publish(updated);
+
+        List<AppRecord> one = new ArrayList<>(1);
+        if (previous != null) {
+            one.add(previous);
+        }
+        return new CatalogDiff(new ArrayList<>(), one, new ArrayList<>());
+    }
+
+    /**
+     * Replace every record of one profile, e.g. when a work profile is added,
+     * removed or toggled. Other partitions keep their records and pins.
+     */
+    public synchronized CatalogDiff replaceProfile(long profile, Collection<AppRecord> records) {
+        ensurePinsLoaded();
+
+        List<AppRecord> after = new ArrayList<>(records.size());
+        for (AppRecord record : records) {
+            if (record.profile == profile) {
+                after.add(record);
+            }
+        }
+        canonicalize(after);
+        after.sort(CatalogOps.RECORD_ORDER);
+        return splice(snapshot.findProfile(profile), after, false);
+    }
+
+    /**
+     * Replace every component of one package in the launcher's own profile
+     */
+    public CatalogDiff updatePackage(String packageName, Collection<AppRecord> components) {
+        return updatePackage(AppRecord.OWN_PROFILE, packageName, components);
+    }
+
+    /**
+     * Replace every component of one package in one profile with the given
+     * records, e.g. after a package event. Costs O(components) lookups plus one
+     * copy of the list to publish. Pins of components that are gone are dropped.
+     */
+    public synchronized CatalogDiff updatePackage(long profile, String packageName,
+                                                  Collection<AppRecord> components) {
+        ensurePinsLoaded();
+
+        List<AppRecord> before = new ArrayList<>();
+        for (AppRecord record : snapshot.findPackage(packageName)) {
+            if (record.profile == profile) {
+                before.add(record);
+            }
+        }
+        List<AppRecord> after = new ArrayList<>(components.size());
+        for (AppRecord record : components) {
+            if (record.profile == profile && record.packageName.equals(packageName)) {
+                after.add(record);
+            }
+        }
+        canonicalize(after);
+        after.sort(CatalogOps.RECORD_ORDER);
+
+        // A pin saved under the bare package carries over to its launcher activities
+        boolean pinsMigrated = false;
+        if (profile == AppRecord.OWN_PROFILE && pinnedKeys.contains(packageName)
+                && (after.isEmpty() || !after.get(0).key().equals(packageName))) {
+            pinnedKeys.remove(packageName);
+            for (AppRecord record : after) {
+                pinnedKeys.add(record.key());
+            }
+            pinsMigrated = true;
+        }
+        return splice(before, after, pinsMigrated);
+    }
+
+    /**
+     * Remove every component of a package in the launcher's own profile and forget their pins
+     */
+    public CatalogDiff removePackage(String packageName) {
+        return updatePackage(AppRecord.OWN_PROFILE, packageName, Collections.emptyList());
+    }
+
+    // Swap the sorted records in "before" (taken from the current snapshot) for
+    // "after", drop pins of removed keys and publish if anything changed
+    private CatalogDiff splice(List<AppRecord> before, List<AppRecord> after, boolean pinsChanged) {
+        CatalogDiff diff = CatalogDiff.compute(before, after);
+        for (AppRecord record : diff.removed) {
+            pinsChanged |= pinnedKeys.remove(record.key());
+        }
+        if (diff.isEmpty() && !pinsChanged) {
+            return diff;
+        }
+
+        // Records are shared with the snapshot, so identity finds them without hashing
+        Set<AppRecord> replaced = Collections.newSetFromMap(new IdentityHashMap<>());
+        replaced.addAll(before);
+
+        List<AppRecord> records = snapshot.getRecords();
+        List<AppRecord> updated = new ArrayList<>(records.size() - before.size() + after.size());
+        int next = 0;
+        for (AppRecord record : records) {
+            if (replaced.contains(record)) continue;
+            // Both lists are in label order, so one merge pass keeps the result sorted
+            while (next < after.size() && CatalogOps.RECORD_ORDER.compare(after.get(next), record) < 0) {
+                updated.add(after.get(next++));
+            }
+            updated.add(record);
+        }
+        while (next < after.size()) {
+            updated.add(after.get(next++));
+        }
+        publish(updated);
+
+        if (pinsChanged) {
+            savePins();
+        }
+        return diff;
+    }
+
+    /**
+     * Pin or unpin a record; returns false if nothing changed
+     */
+    public synchronized boolean setPinned(String key, boolean pinned) {
+        ensurePinsLoaded();
+
+        boolean changed = pinned ? pinnedKeys.add(key) : pinnedKeys.remove(key);
+        if (changed) {
+            // Records are unchanged, so the new snapshot shares them
+            snapshot = snapshot.withPins(snapshot.getVersion() + 1, new HashSet<>(pinnedKeys));
+        }
+        return changed;
+    }
+
+    // Pins saved before records were keyed by component name their package;
+    // carry them over to every launcher activity of that package
+    private boolean migratePackagePins(List<AppRecord> records, Set<String> existing) {
+        List<String> legacy = null;
+        for (String key : pinnedKeys) {
+            if (key.indexOf('/') < 0 && !existing.contains(key)) {
+                if (legacy == null) legacy = new ArrayList<>();
+                legacy.add(key);
+            }
+        }
+        if (legacy == null) return false;
+
+        boolean migrated = false;
+        for (AppRecord record : records) {
+            if (legacy.contains(record.packageName)) {
+                migrated |= pinnedKeys.add(record.key());
+            }
+        }
+        return migrated;
+    }
+
+    // Swap scanned records for the published instance when unchanged, and give
+    // new ones the package name instance already in use, so records from a
+    // rescan don't keep a second copy of every string alive
+    private void canonicalize(List<AppRecord> records) {
+        Map<String, String> newPackages = new HashMap<>();
+        for (int i = 0; i < records.size(); i++) {
+            records.set(i, canonical(records.get(i), newPackages));
+        }
+    }
+
+    private AppRecord canonical(AppRecord record, Map<String, String> newPackages) {
+        CompactCatalog compact = snapshot.compact();
+        int id = compact.id(record.key());
+        if (id >= 0 && compact.record(id).equals(record)) {
+            return compact.record(id);
+        }
+
+        String packageName = compact.intern(record.packageName);
+        if (packageName == record.packageName && newPackages != null) {
+            String first = newPackages.putIfAbsent(packageName, packageName);
+            if (first != null) {
+                packageName = first;
+            }
+        }
+        return packageName == record.packageName
+                ? record
+                : new AppRecord(packageName, record.activityName, record.label, record.profile,
+                record.systemApp, record.category);
+    }
+
+    private void ensurePinsLoaded() {
+        if (pinnedKeys == null) {
+            pinnedKeys = new HashSet<>(pinStore.load());
+        }
+    }
+
+    private void publish(List<AppRecord> sortedRecords) {
+        Set<String> pins = pinnedKeys != null ? new HashSet<>(pinnedKeys) : new HashSet<>();
+        snapshot = new CatalogSnapshot(snapshot.getVersion() + 1, sortedRecords, pins);
+    }
+}
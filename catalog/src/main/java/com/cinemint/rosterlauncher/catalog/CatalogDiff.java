@@ -0,0 +1,62 @@
+// CatalogDiff.java
+
+package com.cinemint.rosterlauncher.catalog;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Records added, removed and changed between two catalog versions, by key.
+ */
+public final class CatalogDiff {
+    public static final CatalogDiff EMPTY = new CatalogDiff(
+            Collections.emptyList(), Collections.emptyList(), Collections.emptyList());
+
+    public final List<AppRecord> added;
+    public final List<AppRecord> removed;
+    public final List<AppRecord> changed;
+
+    CatalogDiff(List<AppRecord> added, List<AppRecord> removed, List<AppRecord> changed) {
+        this.added = Collections.unmodifiableList(added);
+        this.removed = Collections.unmodifiableList(removed);
+        this.changed = Collections.unmodifiableList(changed);
+    }
+
+    /**
+     * Compare two record lists in O(n) using a key map of the old list
+     */
+    public static CatalogDiff compute(List<AppRecord> before, List<AppRecord> after) {
+        Map<String, AppRecord> old = new HashMap<>(before.size() * 2);
+        for (AppRecord record : before) {
+            old.put(record.key(), record);
+        }
+
+        List<AppRecord> added = new ArrayList<>();
+        List<AppRecord> changed = new ArrayList<>();
+        for (AppRecord record : after) {
+            AppRecord previous = old.remove(record.key());
+            if (previous == null) {
+                added.add(record);
+            } else if (!previous.equals(record)) {
+                changed.add(record);
+            }
+        }
+
+        if (added.isEmpty() && changed.isEmpty() && old.isEmpty()) {
+            return EMPTY;
+        }
+        return new CatalogDiff(added, new ArrayList<>(old.values()), changed);
+    }
+
+    public boolean isEmpty() {
+        return added.isEmpty() && removed.isEmpty() && changed.isEmpty();
+    }
+
+    @Override
+    public String toString() {
+        return "+" + added.size() + " -" + removed.size() + " ~" + changed.size();
+    }
+}
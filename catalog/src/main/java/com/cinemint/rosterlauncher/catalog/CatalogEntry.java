@@ -0,0 +1,30 @@
+// CatalogEntry.java
+
+package com.cinemint.rosterlauncher.catalog;
+
+import java.util.Locale;
+
+/**
+ * The Android-free view of one launcher entry that the catalog algorithms work on.
+ */
+public interface CatalogEntry {
+    String getLabel();
+
+    String getPackageName();
+
+    /**
+     * Catalog key of the component this entry launches; entries without one are keyed by package
+     */
+    default String getKey() {
+        return getPackageName();
+    }
+
+    boolean isPinned();
+
+    /**
+     * Lower-cased label for search; implementations should cache it so filtering allocates nothing
+     */
+    default String getSearchLabel() {
+        return getLabel().toLowerCase(Locale.getDefault());
+    }
+}
@@ -0,0 +1,119 @@
+// CatalogOps.java
+
+package com.cinemint.rosterlauncher.catalog;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.TreeMap;
+
+/**
+ * The hot catalog algorithms shared by the launcher UI and the JVM benchmarks:
+ * sorting, letter sections, tab/search filtering and single-app updates.
+ */
+public final class CatalogOps {
+
+    public static final String OTHER_SECTION = "#";
+
+    public static final Comparator<CatalogEntry> BY_LABEL =
+            (a, b) -> a.getLabel().compareToIgnoreCase(b.getLabel());
+
+    // Label order with the key as tie-break, so equal labels sort the same way every time
+    public static final Comparator<AppRecord> RECORD_ORDER = (a, b) -> {
+        int byLabel = a.label.compareToIgnoreCase(b.label);
+        return byLabel != 0 ? byLabel : a.key().compareTo(b.key());
+    };
+
+    private CatalogOps() {
+    }
+
+    /**
+     * Sort entries alphabetically, ignoring case
+     */
+    public static <T extends CatalogEntry> void sortByLabel(List<T> entries) {
+        Collections.sort(entries, BY_LABEL);
+    }
+
+    /**
+     * Section header for a label: its upper-cased first letter, or "#"
+     */
+    public static String sectionKey(String label) {
+        if (label == null || label.isEmpty()) {
+            return OTHER_SECTION;
+        }
+
+        String firstLetter = label.substring(0, 1).toUpperCase(Locale.getDefault());
+        if (!Character.isLetter(firstLetter.charAt(0))) {
+            return OTHER_SECTION;
+        }
+        return firstLetter;
+    }
+
+    /**
+     * Group entries by section key, keeping their order inside each section
+     */
+    public static <T extends CatalogEntry> TreeMap<String, List<T>> groupBySection(List<T> entries) {
+        TreeMap<String, List<T>> grouped = new TreeMap<>();
+        for (T entry : entries) {
+            grouped.computeIfAbsent(sectionKey(entry.getLabel()), k -> new ArrayList<>()).add(entry);
+        }
+        return grouped;
+    }
+
+    /**
+     * Entries for a tab: only pinned ones, or all whose label contains the query
+     */
+    public static <T extends CatalogEntry> List<T> filter(List<T> entries, boolean pinnedOnly, String query) {
+        List<T> filtered = new ArrayList<>();
+        filterInto(entries, pinnedOnly, query, filtered);
+        return filtered;
+    }
+
+    /**
+     * Same as {@link #filter} but refills {@code out}, so a reused list makes repeated filtering allocation-free
+     */
+    public static <T extends CatalogEntry> void filterInto(List<T> entries, boolean pinnedOnly, String query, List<T> out) {
+        out.clear();
+        String lowerQuery = toSearchQuery(query);
+
+        for (int i = 0; i < entries.size(); i++) {
+            T entry = entries.get(i);
+            if (entry == null || entry.getLabel() == null) continue;
+
+            if (pinnedOnly ? entry.isPinned() : matches(entry, lowerQuery)) {
+                out.add(entry);
+            }
+        }
+    }
+
+    /**
+     * Normalize a user query once per keystroke for {@link #matches}
+     */
+    public static String toSearchQuery(String query) {
+        return query == null ? "" : query.toLowerCase(Locale.getDefault());
+    }
+
+    /**
+     * Whether an entry's label contains a query already normalized with {@link #toSearchQuery}
+     */
+    public static boolean matches(CatalogEntry entry, String lowerQuery) {
+        return lowerQuery.isEmpty() || entry.getSearchLabel().contains(lowerQuery);
+    }
+
+    /**
+     * Replace any entry with the same key and return the re-sorted list
+     */
+    public static <T extends CatalogEntry> List<T> addOrUpdate(List<T> entries, T newEntry) {
+        List<T> updated = new ArrayList<>(entries.size() + 1);
+        for (T entry : entries) {
+            if (!entry.getKey().equals(newEntry.getKey())) {
+                updated.add(entry);
+            }
+        }
+        updated.add(newEntry);
+        sortByLabel(updated);
+        return updated;
+    }
+}
@@ -0,0 +1,216 @@
+// CatalogSnapshot.java
+
+package com.cinemint.rosterlauncher.catalog;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * One immutable catalog version: label-sorted records with their
+ * {@link CompactCatalog} tables (key and package lookups, search labels),
+ * per-profile partitions and pin state. Safe to read from any thread.
+ */
+public final class CatalogSnapshot {
+    public static final CatalogSnapshot EMPTY = new CatalogSnapshot(
+            0, Collections.emptyList(), Collections.emptySet());
+
+    private final long version;
+    private final List<AppRecord> records;
+    private final Set<String> pinnedKeys;
+    private final CompactCatalog compact;
+    private final BitSet pinnedIds;
+    private final Map<Long, List<AppRecord>> profiles;
+
+    CatalogSnapshot(long version, List<AppRecord> sortedRecords, Set<String> pinnedKeys) {
+        this.version = version;
+        this.compact = CompactCatalog.of(sortedRecords);
+        this.records = Collections.unmodifiableList(Arrays.asList(compact.records()));
+        this.pinnedKeys = Collections.unmodifiableSet(pinnedKeys);
+        this.pinnedIds = idsOf(pinnedKeys, compact);
+        this.profiles = partition(this.records);
+    }
+
+    // Records per profile in label order; without other profiles the partition is the whole list
+    private static Map<Long, List<AppRecord>> partition(List<AppRecord> records) {
+        if (records.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        boolean ownOnly = true;
+        for (AppRecord record : records) {
+            if (!record.isOwnProfile()) {
+                ownOnly = false;
+                break;
+            }
+        }
+        if (ownOnly) {
+            return Collections.singletonMap(AppRecord.OWN_PROFILE, records);
+        }
+
+        Map<Long, List<AppRecord>> profiles = new HashMap<>();
+        for (AppRecord record : records) {
+            List<AppRecord> partition = profiles.get(record.profile);
+            if (partition == null) {
+                partition = new ArrayList<>();
+                profiles.put(record.profile, partition);
+            }
+            partition.add(record);
+        }
+        for (Map.Entry<Long, List<AppRecord>> entry : profiles.entrySet()) {
+            entry.setValue(Collections.unmodifiableList(entry.getValue()));
+        }
+        return profiles;
+    }
+
+    // Shares records and derived tables with a previous snapshot; only the pins differ
+    private CatalogSnapshot(long version, CatalogSnapshot base, Set<String> pinnedKeys) {
+        this.version = version;
+        this.records = base.records;
+        this.pinnedKeys = Collections.unmodifiableSet(pinnedKeys);
+        this.compact = base.compact;
+        this.pinnedIds = idsOf(pinnedKeys, compact);
+        this.profiles = base.profiles;
+    }
+
+    // Pins can name records that are gone, which have no id
+    private static BitSet idsOf(Set<String> keys, CompactCatalog compact) {
+        BitSet ids = new BitSet(compact.size());
+        for (String key : keys) {
+            int id = compact.id(key);
+            if (id >= 0) {
+                ids.set(id);
+            }
+        }
+        return ids;
+    }
+
+    /**
+     * Next version with different pins, in time proportional to the pins rather than the records
+     */
+    CatalogSnapshot withPins(long version, Set<String> pinnedKeys) {
+        return new CatalogSnapshot(version, this, pinnedKeys);
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public int size() {
+        return records.size();
+    }
+
+    public List<AppRecord> getRecords() {
+        return records;
+    }
+
+    public AppRecord get(int position) {
+        return records.get(position);
+    }
+
+    /**
+     * Position of the record with this key, or -1
+     */
+    public int indexOf(String key) {
+        return compact.id(key);
+    }
+
+    public AppRecord find(String key) {
+        int position = indexOf(key);
+        return position < 0 ? null : records.get(position);
+    }
+
+    /**
+     * Records of one profile's partition, in label order; empty if the profile has none
+     */
+    public List<AppRecord> findProfile(long profile) {
+        List<AppRecord> partition = profiles.get(profile);
+        return partition == null ? Collections.emptyList() : partition;
+    }
+
+    /**
+     * Profiles that have at least one record
+     */
+    public Set<Long> getProfiles() {
+        return Collections.unmodifiableSet(profiles.keySet());
+    }
+
+    /**
+     * Records of every launcher activity in a package across profiles, in label order; empty if none
+     */
+    public List<AppRecord> findPackage(String packageName) {
+        int packageId = compact.packageId(packageName);
+        if (packageId < 0) {
+            return Collections.emptyList();
+        }
+        int size = compact.packageSize(packageId);
+        if (size == 1) {
+            // Nearly every package has one launcher activity
+            return Collections.singletonList(compact.record(compact.packageRecord(packageId, 0)));
+        }
+        List<AppRecord> components = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            components.add(compact.record(compact.packageRecord(packageId, i)));
+        }
+        return Collections.unmodifiableList(components);
+    }
+
+    public boolean isPinned(String key) {
+        return pinnedKeys.contains(key);
+    }
+
+    public Set<String> getPinnedKeys() {
+        return pinnedKeys;
+    }
+
+    /**
+     * Positions of the pinned records, to combine with other id sets such as
+     * {@link VisibilityRules.Compiled#visibleOf}; a copy the caller may change
+     */
+    public BitSet getPinnedIds() {
+        return (BitSet) pinnedIds.clone();
+    }
+
+    /**
+     * Pinned records in label order
+     */
+    public List<AppRecord> getPinnedRecords() {
+        List<AppRecord> pinned = new ArrayList<>(pinnedKeys.size());
+        for (AppRecord record : records) {
+            if (pinnedKeys.contains(record.key())) {
+                pinned.add(record);
+            }
+        }
+        return pinned;
+    }
+
+    /**
+     * Struct-of-arrays tables of this version's records, addressed by position
+     */
+    public CompactCatalog compact() {
+        return compact;
+    }
+
+    /**
+     * Records whose label contains the query, ignoring case, in label order
+     */
+    public List<AppRecord> search(String query) {
+        if (query == null || query.isEmpty()) {
+            return records;
+        }
+
+        String lowerQuery = query.toLowerCase(Locale.getDefault());
+        List<AppRecord> matches = new ArrayList<>();
+        for (int id = 0; id < compact.size(); id++) {
+            if (compact.searchLabel(id).contains(lowerQuery)) {
+                matches.add(compact.record(id));
+            }
+        }
+        return matches;
+    }
+}
@@ -0,0 +1,44 @@
+// CatalogSource.java
+
+package com.cinemint.rosterlauncher.catalog;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Where catalog records come from: PackageManager or LauncherApps on a device,
+ * synthetic data in tests. Sources that can query a single profile or package
+ * should override the full scans the defaults fall back to.
+ */
+public interface CatalogSource {
+    /**
+     * Resolve every launchable activity in every profile; may block, never called on the UI thread
+     */
+    List<AppRecord> loadAll();
+
+    /**
+     * Resolve the launchable activities of one profile, empty if the profile is gone
+     */
+    default List<AppRecord> loadProfile(long profile) {
+        List<AppRecord> records = new ArrayList<>();
+        for (AppRecord record : loadAll()) {
+            if (record.profile == profile) {
+                records.add(record);
+            }
+        }
+        return records;
+    }
+
+    /**
+     * Resolve the launchable activities of one package in one profile, empty if it has none or is gone
+     */
+    default List<AppRecord> loadPackage(long profile, String packageName) {
+        List<AppRecord> records = new ArrayList<>();
+        for (AppRecord record : loadAll()) {
+            if (record.profile == profile && record.packageName.equals(packageName)) {
+                records.add(record);
+            }
+        }
+        return records;
+    }
+}
@@ -0,0 +1,187 @@
+// CompactCatalog.java
+
+package com.cinemint.rosterlauncher.catalog;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Struct-of-arrays tables over one snapshot's label-sorted records. A record is
+ * addressed by an int id, its position in label order, so ids double as sort
+ * ranks: sorting a subset of ids sorts it by label without comparing strings.
+ * Package names are stored once and referenced by package id, and lookups by
+ * key or package use open addressing and binary search instead of boxed maps.
+ */
+public final class CompactCatalog {
+    public static final CompactCatalog EMPTY = new CompactCatalog(new AppRecord[0]);
+
+    private final AppRecord[] records;
+    private final String[] searchLabels;
+    private final int[] packageOf;
+
+    // Distinct package names in String order; their ids index the tables below
+    private final String[] packageNames;
+    // Ids of each package's records, in label order: packageIds[packageStarts[p]..packageStarts[p + 1])
+    private final int[] packageStarts;
+    private final int[] packageIds;
+
+    // Open-addressed key table holding id + 1, 0 for an empty slot
+    private final int[] keySlots;
+    private final int keyMask;
+
+    CompactCatalog(AppRecord[] sortedRecords) {
+        int size = sortedRecords.length;
+        this.records = sortedRecords;
+        this.searchLabels = new String[size];
+        this.packageOf = new int[size];
+
+        String[] names = new String[size];
+        for (int id = 0; id < size; id++) {
+            AppRecord record = sortedRecords[id];
+            names[id] = record.packageName;
+            searchLabels[id] = record.label.toLowerCase(Locale.getDefault());
+        }
+        this.packageNames = distinct(names);
+
+        // Counting sort of ids by package keeps each package's ids in label order
+        int packages = packageNames.length;
+        this.packageStarts = new int[packages + 1];
+        for (int id = 0; id < size; id++) {
+            packageOf[id] = Arrays.binarySearch(packageNames, sortedRecords[id].packageName);
+            packageStarts[packageOf[id] + 1]++;
+        }
+        for (int p = 0; p < packages; p++) {
+            packageStarts[p + 1] += packageStarts[p];
+        }
+        this.packageIds = new int[size];
+        int[] next = Arrays.copyOf(packageStarts, packages);
+        for (int id = 0; id < size; id++) {
+            packageIds[next[packageOf[id]]++] = id;
+        }
+
+        // At most half full, so probes stay short
+        int capacity = Integer.highestOneBit(Math.max(size, 1) * 2 - 1) << 1;
+        this.keySlots = new int[capacity];
+        this.keyMask = capacity - 1;
+        for (int id = 0; id < size; id++) {
+            int slot = sortedRecords[id].key().hashCode() & keyMask;
+            while (keySlots[slot] != 0) {
+                slot = (slot + 1) & keyMask;
+            }
+            keySlots[slot] = id + 1;
+        }
+    }
+
+    /**
+     * Build the tables for records already in label order; the snapshot builds its own
+     */
+    public static CompactCatalog of(List<AppRecord> sortedRecords) {
+        return sortedRecords.isEmpty() ? EMPTY : new CompactCatalog(sortedRecords.toArray(new AppRecord[0]));
+    }
+
+    // Sorted distinct values, sharing the first instance of each
+    private static String[] distinct(String[] values) {
+        String[] sorted = values.clone();
+        Arrays.sort(sorted);
+        int count = 0;
+        for (int i = 0; i < sorted.length; i++) {
+            if (count == 0 || !sorted[i].equals(sorted[count - 1])) {
+                sorted[count++] = sorted[i];
+            }
+        }
+        return Arrays.copyOf(sorted, count);
+    }
+
+    public int size() {
+        return records.length;
+    }
+
+    public AppRecord record(int id) {
+        return records[id];
+    }
+
+    // The snapshot wraps this array read-only instead of copying it
+    AppRecord[] records() {
+        return records;
+    }
+
+    /**
+     * Id of the record with this key, or -1
+     */
+    public int id(String key) {
+        int slot = key.hashCode() & keyMask;
+        int entry;
+        while ((entry = keySlots[slot]) != 0) {
+            if (records[entry - 1].key().equals(key)) {
+                return entry - 1;
+            }
+            slot = (slot + 1) & keyMask;
+        }
+        return -1;
+    }
+
+    public String searchLabel(int id) {
+        return searchLabels[id];
+    }
+
+    public int packageCount() {
+        return packageNames.length;
+    }
+
+    public String packageName(int packageId) {
+        return packageNames[packageId];
+    }
+
+    /**
+     * Package id of a record
+     */
+    public int packageOf(int id) {
+        return packageOf[id];
+    }
+
+    /**
+     * Package id of a package name, or -1 if no record has it
+     */
+    public int packageId(String packageName) {
+        int p = Arrays.binarySearch(packageNames, packageName);
+        return p < 0 ? -1 : p;
+    }
+
+    /**
+     * Number of records in a package
+     */
+    public int packageSize(int packageId) {
+        return packageStarts[packageId + 1] - packageStarts[packageId];
+    }
+
+    /**
+     * Id of the {@code index}-th record of a package, in label order
+     */
+    public int packageRecord(int packageId, int index) {
+        return packageIds[packageStarts[packageId] + index];
+    }
+
+    /**
+     * The instance of this package name the tables hold, so equal names from a
+     * rescan share one String; names not in the catalog are returned as is
+     */
+    public String intern(String packageName) {
+        int p = Arrays.binarySearch(packageNames, packageName);
+        return p < 0 ? packageName : packageNames[p];
+    }
+
+    /**
+     * Write the ids whose label contains the lower-cased query into {@code out},
+     * in label order, and return how many there are; out must hold size() ids
+     */
+    public int search(String lowerQuery, int[] out) {
+        int count = 0;
+        for (int id = 0; id < searchLabels.length; id++) {
+            if (searchLabels[id].contains(lowerQuery)) {
+                out[count++] = id;
+            }
+        }
+        return count;
+    }
+}
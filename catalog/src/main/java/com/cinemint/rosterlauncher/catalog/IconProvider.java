@@ -0,0 +1,13 @@
+// IconProvider.java
+
+package com.cinemint.rosterlauncher.catalog;
+
+/**
+ * Decodes the icon for a record. The icon type is left to the platform adapter.
+ */
+public interface IconProvider<I> {
+    /**
+     * Load the icon for a record, or null if it has none; may block
+     */
+    I loadIcon(AppRecord record);
+}
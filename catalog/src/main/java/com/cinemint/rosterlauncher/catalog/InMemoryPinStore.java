@@ -0,0 +1,24 @@
+// InMemoryPinStore.java
+
+package com.cinemint.rosterlauncher.catalog;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Pin store without persistence, for tests and headless runs.
+ */
+public final class InMemoryPinStore implements PinStore {
+    private final Set<String> pinned = new HashSet<>();
+
+    @Override
+    public synchronized Set<String> load() {
+        return new HashSet<>(pinned);
+    }
+
+    @Override
+    public synchronized void save(Set<String> pinnedKeys) {
+        pinned.clear();
+        pinned.addAll(pinnedKeys);
+    }
+}
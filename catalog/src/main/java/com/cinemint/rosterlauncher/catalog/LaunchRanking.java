@@ -0,0 +1,181 @@
+// LaunchRanking.java
+
+package com.cinemint.rosterlauncher.catalog;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+
+/**
+ * Launch counts, last launch time and a time-decayed score per catalog key.
+ * Each launch adds 1 to the score and the score halves every
+ * {@link #HALF_LIFE_MS}, so apps used daily outrank apps used often long ago.
+ * Scores are stored as of the last launch and decayed when read, which keeps
+ * recording O(1). The store keeps the {@link #MAX_ENTRIES} best scores, always
+ * including the app just launched, and serializes to a small binary form.
+ * Thread-safe.
+ */
+public final class LaunchRanking {
+    public static final long HALF_LIFE_MS = 7L * 24 * 60 * 60 * 1000;
+    // Apps below this score (one launch about three half-lives ago) are not ranked
+    public static final double MIN_SCORE = 0.125;
+    static final int MAX_ENTRIES = 256;
+
+    private static final int FORMAT_VERSION = 1;
+
+    private final Map<String, Entry> entries = new HashMap<>();
+    private long revision;
+
+    private static final class Entry {
+        int launches;
+        long lastLaunchMillis;
+        // Score as of lastLaunchMillis
+        double score;
+    }
+
+    /**
+     * Count a launch of the record with this key
+     */
+    public synchronized void recordLaunch(String key, long nowMillis) {
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            entry = new Entry();
+            entries.put(key, entry);
+        }
+        entry.score = decay(entry.score, entry.lastLaunchMillis, nowMillis) + 1;
+        entry.launches++;
+        entry.lastLaunchMillis = Math.max(entry.lastLaunchMillis, nowMillis);
+        revision++;
+
+        if (entries.size() > MAX_ENTRIES) {
+            evictLowest(key, nowMillis);
+        }
+    }
+
+    /**
+     * Decayed score of a key at the given time; 0 if it was never launched
+     */
+    public synchronized double score(String key, long nowMillis) {
+        Entry entry = entries.get(key);
+        return entry == null ? 0 : decay(entry.score, entry.lastLaunchMillis, nowMillis);
+    }
+
+    public synchronized int getLaunchCount(String key) {
+        Entry entry = entries.get(key);
+        return entry == null ? 0 : entry.launches;
+    }
+
+    /**
+     * Up to {@code limit} keys by decayed score, best first, skipping scores below {@link #MIN_SCORE}
+     */
+    public synchronized List<String> top(int limit, long nowMillis) {
+        List<String> keys = new ArrayList<>();
+        List<Double> scores = new ArrayList<>();
+        for (Map.Entry<String, Entry> e : entries.entrySet()) {
+            double score = decay(e.getValue().score, e.getValue().lastLaunchMillis, nowMillis);
+            if (score < MIN_SCORE) continue;
+
+            // Insertion into a list of at most limit + 1 keys
+            int at = scores.size();
+            while (at > 0 && (scores.get(at - 1) < score
+                    || (scores.get(at - 1) == score && keys.get(at - 1).compareTo(e.getKey()) > 0))) {
+                at--;
+            }
+            if (at >= limit) continue;
+            keys.add(at, e.getKey());
+            scores.add(at, score);
+            if (keys.size() > limit) {
+                keys.remove(limit);
+                scores.remove(limit);
+            }
+        }
+        return keys;
+    }
+
+    /**
+     * Forget a key, e.g. when its app is uninstalled; returns true if it was known
+     */
+    public synchronized boolean remove(String key) {
+        boolean removed = entries.remove(key) != null;
+        if (removed) revision++;
+        return removed;
+    }
+
+    /**
+     * Keep only the keys the predicate accepts, e.g. those still in the catalog; returns how many went
+     */
+    public synchronized int retainIf(Predicate<String> keep) {
+        int before = entries.size();
+        entries.keySet().removeIf(key -> !keep.test(key));
+        int removed = before - entries.size();
+        if (removed > 0) revision++;
+        return removed;
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * Incremented on every change, so readers can tell whether a ranking they built is current
+     */
+    public synchronized long getRevision() {
+        return revision;
+    }
+
+    public synchronized void writeTo(DataOutput out) throws IOException {
+        out.writeInt(FORMAT_VERSION);
+        out.writeInt(entries.size());
+        for (Map.Entry<String, Entry> e : entries.entrySet()) {
+            out.writeUTF(e.getKey());
+            out.writeInt(e.getValue().launches);
+            out.writeLong(e.getValue().lastLaunchMillis);
+            out.writeDouble(e.getValue().score);
+        }
+    }
+
+    /**
+     * Replace the contents with a serialized ranking; an unknown format leaves it empty
+     */
+    public synchronized void readFrom(DataInput in) throws IOException {
+        entries.clear();
+        revision++;
+        if (in.readInt() != FORMAT_VERSION) return;
+
+        int count = in.readInt();
+        for (int i = 0; i < count; i++) {
+            String key = in.readUTF();
+            Entry entry = new Entry();
+            entry.launches = in.readInt();
+            entry.lastLaunchMillis = in.readLong();
+            entry.score = in.readDouble();
+            entries.put(key, entry);
+        }
+    }
+
+    // The key just launched stays, even when every other entry outscores it
+    private void evictLowest(String launched, long nowMillis) {
+        String lowest = null;
+        double lowestScore = Double.MAX_VALUE;
+        for (Map.Entry<String, Entry> e : entries.entrySet()) {
+            if (e.getKey().equals(launched)) continue;
+            double score = decay(e.getValue().score, e.getValue().lastLaunchMillis, nowMillis);
+            if (score < lowestScore) {
+                lowest = e.getKey();
+                lowestScore = score;
+            }
+        }
+        entries.remove(lowest);
+    }
+
+    // A clock that went backwards doesn't raise the score
+    private static double decay(double score, long sinceMillis, long nowMillis) {
+        long elapsed = Math.max(0, nowMillis - sinceMillis);
+        return score * Math.pow(0.5, (double) elapsed / HALF_LIFE_MS);
+    }
+}
@@ -0,0 +1,14 @@
+// PinStore.java
+
+package com.cinemint.rosterlauncher.catalog;
+
+import java.util.Set;
+
+/**
+ * Persistent set of pinned record keys.
+ */
+public interface PinStore {
+    Set<String> load();
+
+    void save(Set<String> pinnedKeys);
+}
@@ -0,0 +1,590 @@
+// SearchIndex.java
+
+package com.cinemint.rosterlauncher.catalog;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Inverted index over one {@link CompactCatalog}: the words of each label,
+ * user keywords, the activity's class name and the package name segments.
+ * Query words match terms by prefix and every query word must match; records
+ * are ranked by where their words matched, then by label. A label that merely
+ * contains a query word still matches, through a suffix array over the label
+ * characters, so results never lose what a plain label search found and no
+ * query scans every label. Each record's terms are kept in a document that the
+ * next version reuses when the record and its keywords are unchanged, so
+ * rebuilding after a package update only splits the changed records. The
+ * documents can be written out and read back, so the first build after a
+ * restart only splits records that changed meanwhile. Immutable.
+ */
+public final class SearchIndex {
+    // Where a term came from, best first
+    static final int FIELD_LABEL = 0;
+    static final int FIELD_KEYWORD = 1;
+    static final int FIELD_ACTIVITY = 2;
+    static final int FIELD_PACKAGE = 3;
+
+    // Score of a query word by where it matched; a record scores the sum over the words
+    static final int SCORE_LABEL_START = 100;
+    static final int SCORE_LABEL_WORD = 80;
+    static final int SCORE_KEYWORD = 60;
+    static final int SCORE_LABEL_INFIX = 40;
+    static final int SCORE_ACTIVITY = 30;
+    static final int SCORE_PACKAGE = 20;
+
+    // Name parts nearly every app has, which would match everything
+    private static final Set<String> NOISE = new HashSet<>(
+            Arrays.asList("com", "org", "net", "activity", "main", "launcher"));
+
+    // Suffix array entries are id << OFFSET_BITS | offset; later characters of longer labels aren't indexed
+    private static final int OFFSET_BITS = 10;
+    private static final int MAX_OFFSET = (1 << OFFSET_BITS) - 1;
+
+    private static final int FORMAT_VERSION = 1;
+
+    public static final SearchIndex EMPTY = build(CompactCatalog.EMPTY, Collections.emptyMap(), null);
+
+    private final CompactCatalog compact;
+    private final Map<String, List<String>> keywords;
+    private final Document[] documents;
+    private final int reused;
+    // Documents read back by readFrom, by key; null for a built index
+    private final Map<String, Document> restored;
+
+    // Distinct terms in String order; their postings are postings[termStarts[t]..termStarts[t + 1])
+    private final String[] terms;
+    private final int[] termStarts;
+    // Record id << 2 | field, in id order within a term
+    private final int[] postings;
+    // Every non-space label position, in order of the label text from there on
+    private final int[] suffixes;
+
+    /**
+     * Per-query arrays, reused by the caller's thread across queries of any
+     * index. Not thread safe: one per thread that searches.
+     */
+    public static final class Scratch {
+        // Zero between queries; only the entries a query touched are cleared
+        private int[] scores = new int[0];
+        private int[] wordScores = new int[0];
+        private int[] touched = new int[0];
+        private int[] matched = new int[0];
+        private long[] ranked = new long[0];
+        // Words of the current query; only [0, count) are set
+        private String[] words = new String[4];
+
+        private void ensure(int size) {
+            if (scores.length >= size) return;
+            scores = new int[size];
+            wordScores = new int[size];
+            touched = new int[size];
+            matched = new int[size];
+            ranked = new long[size];
+        }
+    }
+
+    // One record's distinct terms, each with the best field it came from. The
+    // terms follow from the key (package and activity), label and keywords.
+    private static final class Document {
+        final String key;
+        final String searchLabel;
+        final List<String> keywords;
+        final String[] terms;
+        final byte[] fields;
+
+        Document(String key, String searchLabel, List<String> keywords, String[] terms, byte[] fields) {
+            this.key = key;
+            this.searchLabel = searchLabel;
+            this.keywords = keywords;
+            this.terms = terms;
+            this.fields = fields;
+        }
+
+        Document(AppRecord record, String searchLabel, List<String> keywords) {
+            this.key = record.key();
+            this.searchLabel = searchLabel;
+            this.keywords = keywords;
+
+            Map<String, Integer> found = new LinkedHashMap<>();
+            addWords(found, searchLabel, FIELD_LABEL);
+            for (String keyword : keywords) {
+                addWords(found, keyword.toLowerCase(Locale.getDefault()), FIELD_KEYWORD);
+            }
+            String activity = record.activityName.substring(record.activityName.lastIndexOf('.') + 1);
+            addWords(found, splitCamelCase(activity), FIELD_ACTIVITY);
+            addWords(found, record.packageName.toLowerCase(Locale.ROOT), FIELD_PACKAGE);
+
+            this.terms = found.keySet().toArray(new String[0]);
+            this.fields = new byte[terms.length];
+            for (int i = 0; i < terms.length; i++) {
+                fields[i] = (byte) (int) found.get(terms[i]);
+            }
+        }
+    }
+
+    private SearchIndex(CompactCatalog compact, Map<String, List<String>> keywords, Document[] documents, int reused,
+                        Map<String, Document> restored) {
+        this.compact = compact;
+        this.keywords = keywords;
+        this.documents = documents;
+        this.reused = reused;
+        this.restored = restored;
+
+        // Counting sort of postings by term, as CompactCatalog groups ids by package
+        Map<String, Integer> counts = new HashMap<>();
+        for (Document document : documents) {
+            for (String term : document.terms) {
+                counts.merge(term, 1, Integer::sum);
+            }
+        }
+        this.terms = counts.keySet().toArray(new String[0]);
+        Arrays.sort(terms);
+        this.termStarts = new int[terms.length + 1];
+        for (int t = 0; t < terms.length; t++) {
+            termStarts[t + 1] = termStarts[t] + counts.get(terms[t]);
+        }
+        this.postings = new int[termStarts[terms.length]];
+        int[] next = Arrays.copyOf(termStarts, terms.length);
+        for (int id = 0; id < documents.length; id++) {
+            Document document = documents[id];
+            for (int i = 0; i < document.terms.length; i++) {
+                int t = Arrays.binarySearch(terms, document.terms[i]);
+                postings[next[t]++] = id << 2 | document.fields[i];
+            }
+        }
+        this.suffixes = buildSuffixes(compact);
+    }
+
+    private static int[] buildSuffixes(CompactCatalog compact) {
+        int count = 0;
+        for (int id = 0; id < compact.size(); id++) {
+            String label = compact.searchLabel(id);
+            for (int i = 0; i < label.length() && i <= MAX_OFFSET; i++) {
+                if (!Character.isWhitespace(label.charAt(i))) count++;
+            }
+        }
+        int[] suffixes = new int[count];
+        count = 0;
+        for (int id = 0; id < compact.size(); id++) {
+            String label = compact.searchLabel(id);
+            for (int i = 0; i < label.length() && i <= MAX_OFFSET; i++) {
+                if (!Character.isWhitespace(label.charAt(i))) suffixes[count++] = id << OFFSET_BITS | i;
+            }
+        }
+        sortSuffixes(compact, suffixes, new int[count], 0, count);
+        return suffixes;
+    }
+
+    // Merge sort on the packed entries, so sorting boxes nothing
+    private static void sortSuffixes(CompactCatalog compact, int[] a, int[] tmp, int from, int to) {
+        if (to - from < 2) return;
+        int mid = (from + to) >>> 1;
+        sortSuffixes(compact, a, tmp, from, mid);
+        sortSuffixes(compact, a, tmp, mid, to);
+        if (compareSuffixes(compact, a[mid - 1], a[mid]) <= 0) return;
+
+        System.arraycopy(a, from, tmp, from, to - from);
+        int i = from;
+        int j = mid;
+        for (int k = from; k < to; k++) {
+            if (j >= to || (i < mid && compareSuffixes(compact, tmp[i], tmp[j]) <= 0)) {
+                a[k] = tmp[i++];
+            } else {
+                a[k] = tmp[j++];
+            }
+        }
+    }
+
+    private static int compareSuffixes(CompactCatalog compact, int a, int b) {
+        String labelA = compact.searchLabel(a >>> OFFSET_BITS);
+        String labelB = compact.searchLabel(b >>> OFFSET_BITS);
+        int i = a & MAX_OFFSET;
+        int j = b & MAX_OFFSET;
+        while (i < labelA.length() && j < labelB.length()) {
+            int diff = labelA.charAt(i++) - labelB.charAt(j++);
+            if (diff != 0) return diff;
+        }
+        int byLength = (labelA.length() - i) - (labelB.length() - j);
+        return byLength != 0 ? byLength : Integer.compare(a, b);
+    }
+
+    // Compare the label text at a suffix with a word, as if the text were cut to the word's length
+    private int compareSuffix(int suffix, String word) {
+        String label = compact.searchLabel(suffix >>> OFFSET_BITS);
+        int offset = suffix & MAX_OFFSET;
+        int length = Math.min(label.length() - offset, word.length());
+        for (int i = 0; i < length; i++) {
+            int diff = label.charAt(offset + i) - word.charAt(i);
+            if (diff != 0) return diff;
+        }
+        return length < word.length() ? -1 : 0;
+    }
+
+    /**
+     * Index a catalog version with per-key user keywords, reusing the documents
+     * of {@code previous} (may be null) for records and keywords that didn't change
+     */
+    public static SearchIndex build(CompactCatalog compact, Map<String, List<String>> keywords, SearchIndex previous) {
+        if (previous != null && previous.compact == compact && previous.keywords.equals(keywords)) {
+            return previous;
+        }
+
+        Document[] documents = new Document[compact.size()];
+        int reused = 0;
+        for (int id = 0; id < documents.length; id++) {
+            AppRecord record = compact.record(id);
+            List<String> words = keywords.getOrDefault(record.key(), Collections.emptyList());
+            Document old = previous != null ? previous.document(record.key()) : null;
+            if (old != null && old.searchLabel.equals(compact.searchLabel(id)) && old.keywords.equals(words)) {
+                documents[id] = old;
+                reused++;
+            } else {
+                documents[id] = new Document(record, compact.searchLabel(id), words);
+            }
+        }
+        return new SearchIndex(compact, keywords, documents, reused, null);
+    }
+
+    private Document document(String key) {
+        if (restored != null) {
+            return restored.get(key);
+        }
+        int id = compact.id(key);
+        return id < 0 ? null : documents[id];
+    }
+
+    /**
+     * Write every record's document, for {@link #readFrom} after a restart
+     */
+    public void writeTo(DataOutput out) throws IOException {
+        out.writeInt(FORMAT_VERSION);
+        out.writeInt(documents.length);
+        for (Document document : documents) {
+            out.writeUTF(document.key);
+            out.writeUTF(document.searchLabel);
+            out.writeInt(document.keywords.size());
+            for (String keyword : document.keywords) {
+                out.writeUTF(keyword);
+            }
+            out.writeInt(document.terms.length);
+            for (int i = 0; i < document.terms.length; i++) {
+                out.writeUTF(document.terms[i]);
+                out.writeByte(document.fields[i]);
+            }
+        }
+    }
+
+    /**
+     * Read documents written by {@link #writeTo}. The result covers no records
+     * and answers no queries; passed as the previous index to {@link #build},
+     * it lends its documents to the records that still match them.
+     */
+    public static SearchIndex readFrom(DataInput in) throws IOException {
+        int version = in.readInt();
+        if (version != FORMAT_VERSION) {
+            throw new IOException("Unknown search index format " + version);
+        }
+        int count = in.readInt();
+        Map<String, Document> documents = new HashMap<>(count * 2);
+        for (int d = 0; d < count; d++) {
+            String key = in.readUTF();
+            String searchLabel = in.readUTF();
+            String[] words = new String[in.readInt()];
+            for (int w = 0; w < words.length; w++) {
+                words[w] = in.readUTF();
+            }
+            String[] terms = new String[in.readInt()];
+            byte[] fields = new byte[terms.length];
+            for (int t = 0; t < terms.length; t++) {
+                terms[t] = in.readUTF();
+                fields[t] = in.readByte();
+            }
+            List<String> keywords = words.length == 0
+                    ? Collections.emptyList()
+                    : Collections.unmodifiableList(Arrays.asList(words));
+            documents.put(key, new Document(key, searchLabel, keywords, terms, fields));
+        }
+        return new SearchIndex(CompactCatalog.EMPTY, Collections.emptyMap(), new Document[0], 0, documents);
+    }
+
+    /**
+     * The catalog version this index covers; ids in results address its records
+     */
+    public CompactCatalog compact() {
+        return compact;
+    }
+
+    public Map<String, List<String>> getKeywords() {
+        return keywords;
+    }
+
+    public int size() {
+        return documents.length;
+    }
+
+    public int termCount() {
+        return terms.length;
+    }
+
+    /**
+     * Documents taken over from the previous version when this one was built
+     */
+    public int getReusedCount() {
+        return reused;
+    }
+
+    /**
+     * Write the ids of the records matching every word of the query into
+     * {@code out}, best first, and return how many there are; out must hold
+     * size() ids. An empty query matches every record in label order.
+     */
+    public int search(String query, int[] out) {
+        return search(query, null, out);
+    }
+
+    /**
+     * Same as {@link #search(String, int[])} but only over the ids set in
+     * {@code allowed}, e.g. the visible records; null allows every record
+     */
+    public int search(String query, BitSet allowed, int[] out) {
+        return search(query, allowed, new Scratch(), out);
+    }
+
+    /**
+     * Same as {@link #search(String, BitSet, Scratch, int[])} over the records
+     * the rules leave visible, without copying their bitset. The rules must be
+     * compiled for this index's catalog version.
+     */
+    public int searchVisible(String query, VisibilityRules.Compiled visible, Scratch scratch, int[] out) {
+        if (visible.compact() != compact) {
+            throw new IllegalArgumentException("Rules compiled for another catalog version");
+        }
+        return search(query, visible.visibleIds(), scratch, out);
+    }
+
+    /**
+     * Same as {@link #search(String, BitSet, int[])} with arrays the caller
+     * keeps between queries. Apart from an empty query, the work grows with
+     * the matches, not with the records.
+     */
+    public int search(String query, BitSet allowed, Scratch scratch, int[] out) {
+        int wordCount = splitQuery(CatalogOps.toSearchQuery(query), scratch);
+        String[] words = scratch.words;
+        int size = documents.length;
+        if (wordCount == 0) {
+            int count = 0;
+            for (int id = 0; id < size; id++) {
+                if (allowed == null || allowed.get(id)) {
+                    out[count++] = id;
+                }
+            }
+            return count;
+        }
+
+        scratch.ensure(size);
+        int[] scores = scratch.scores;
+        int[] wordScores = scratch.wordScores;
+        int[] touched = scratch.touched;
+        int[] matched = scratch.matched;
+        int candidates = 0;
+        for (int w = 0; w < wordCount; w++) {
+            String word = words[w];
+            int touchedCount = 0;
+
+            // Every term starting with the word sits in one run of the sorted terms
+            int t = Arrays.binarySearch(terms, word);
+            for (t = t < 0 ? -t - 1 : t; t < terms.length && terms[t].startsWith(word); t++) {
+                for (int p = termStarts[t]; p < termStarts[t + 1]; p++) {
+                    int id = postings[p] >>> 2;
+                    int score = score(postings[p] & 3, id, word);
+                    if (wordScores[id] == 0) {
+                        touched[touchedCount++] = id;
+                    }
+                    if (score > wordScores[id]) {
+                        wordScores[id] = score;
+                    }
+                }
+            }
+            // Inside a label word, e.g. "book" in "facebook": every label position
+            // starting with the word sits in one run of the suffix array
+            for (int s = firstSuffix(word); s < suffixes.length && compareSuffix(suffixes[s], word) == 0; s++) {
+                int id = suffixes[s] >>> OFFSET_BITS;
+                if (wordScores[id] == 0) {
+                    touched[touchedCount++] = id;
+                }
+                if (wordScores[id] < SCORE_LABEL_INFIX) {
+                    wordScores[id] = SCORE_LABEL_INFIX;
+                }
+            }
+
+            // Keep the records every word so far matched
+            if (w == 0) {
+                for (int i = 0; i < touchedCount; i++) {
+                    scores[touched[i]] = wordScores[touched[i]];
+                    matched[candidates++] = touched[i];
+                }
+            } else {
+                int kept = 0;
+                for (int i = 0; i < candidates; i++) {
+                    int id = matched[i];
+                    if (wordScores[id] > 0) {
+                        scores[id] += wordScores[id];
+                        matched[kept++] = id;
+                    } else {
+                        scores[id] = 0;
+                    }
+                }
+                candidates = kept;
+            }
+            for (int i = 0; i < touchedCount; i++) {
+                wordScores[touched[i]] = 0;
+            }
+        }
+
+        // Best score first, then label order; ids are label ranks, so one long sort does both
+        long[] ranked = scratch.ranked;
+        int count = 0;
+        for (int i = 0; i < candidates; i++) {
+            int id = matched[i];
+            if (allowed == null || allowed.get(id)) {
+                ranked[count++] = (long) -scores[id] << 32 | id;
+            }
+            scores[id] = 0;
+        }
+        heapSort(ranked, count);
+        for (int i = 0; i < count; i++) {
+            out[i] = (int) ranked[i];
+        }
+        return count;
+    }
+
+    // Sort a[0, count) in place. Arrays.sort takes a merge buffer as large as the
+    // range when it finds sorted runs, which ranked matches usually are.
+    private static void heapSort(long[] a, int count) {
+        for (int i = count / 2 - 1; i >= 0; i--) {
+            siftDown(a, i, count);
+        }
+        for (int end = count - 1; end > 0; end--) {
+            long top = a[0];
+            a[0] = a[end];
+            a[end] = top;
+            siftDown(a, 0, end);
+        }
+    }
+
+    private static void siftDown(long[] a, int i, int count) {
+        long value = a[i];
+        for (int child = 2 * i + 1; child < count; child = 2 * i + 1) {
+            if (child + 1 < count && a[child + 1] > a[child]) {
+                child++;
+            }
+            if (a[child] <= value) break;
+            a[i] = a[child];
+            i = child;
+        }
+        a[i] = value;
+    }
+
+    // First suffix whose text is not before the word
+    private int firstSuffix(String word) {
+        int low = 0;
+        int high = suffixes.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (compareSuffix(suffixes[mid], word) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private int score(int field, int id, String word) {
+        switch (field) {
+            case FIELD_LABEL:
+                return compact.searchLabel(id).startsWith(word) ? SCORE_LABEL_START : SCORE_LABEL_WORD;
+            case FIELD_KEYWORD:
+                return SCORE_KEYWORD;
+            case FIELD_ACTIVITY:
+                return SCORE_ACTIVITY;
+            default:
+                return SCORE_PACKAGE;
+        }
+    }
+
+    /**
+     * Records matching the query, best first; see {@link #search(String, int[])}
+     */
+    public List<AppRecord> search(String query) {
+        int[] ids = new int[documents.length];
+        int count = search(query, ids);
+        AppRecord[] matches = new AppRecord[count];
+        for (int i = 0; i < count; i++) {
+            matches[i] = compact.record(ids[i]);
+        }
+        return Arrays.asList(matches);
+    }
+
+    // Words of a normalized query into scratch.words, returning how many; spaces
+    // separate words that must all match
+    private static int splitQuery(String lowerQuery, Scratch scratch) {
+        int count = 0;
+        int start = -1;
+        for (int i = 0; i <= lowerQuery.length(); i++) {
+            boolean part = i < lowerQuery.length() && !Character.isWhitespace(lowerQuery.charAt(i));
+            if (part && start < 0) {
+                start = i;
+            } else if (!part && start >= 0) {
+                if (count == scratch.words.length) {
+                    scratch.words = Arrays.copyOf(scratch.words, count * 2);
+                }
+                scratch.words[count++] = lowerQuery.substring(start, i);
+                start = -1;
+            }
+        }
+        return count;
+    }
+
+    // Letter and digit runs, keeping the first field a term was found in
+    private static void addWords(Map<String, Integer> found, String text, int field) {
+        int start = -1;
+        for (int i = 0; i <= text.length(); i++) {
+            boolean part = i < text.length() && Character.isLetterOrDigit(text.charAt(i));
+            if (part && start < 0) {
+                start = i;
+            } else if (!part && start >= 0) {
+                String word = text.substring(start, i);
+                if (field == FIELD_LABEL || field == FIELD_KEYWORD || !NOISE.contains(word)) {
+                    found.putIfAbsent(word, field);
+                }
+                start = -1;
+            }
+        }
+    }
+
+    // "MapsActivity$Alias" becomes "maps activity alias"
+    private static String splitCamelCase(String name) {
+        StringBuilder words = new StringBuilder(name.length() + 4);
+        for (int i = 0; i < name.length(); i++) {
+            char c = name.charAt(i);
+            if (i > 0 && Character.isUpperCase(c) && Character.isLowerCase(name.charAt(i - 1))) {
+                words.append(' ');
+            }
+            words.append(Character.toLowerCase(c));
+        }
+        return words.toString();
+    }
+}
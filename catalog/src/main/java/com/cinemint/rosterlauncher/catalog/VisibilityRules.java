@@ -0,0 +1,231 @@
+// VisibilityRules.java
+
+package com.cinemint.rosterlauncher.catalog;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Rules that hide records from the launcher: package name patterns, system
+ * apps and app categories. Rules are compiled against one {@link CompactCatalog}
+ * into bitsets over its record ids, once per catalog version, so tabs, search
+ * and counts combine sets instead of testing every rule on every record.
+ * Immutable.
+ */
+public final class VisibilityRules {
+    public static final VisibilityRules NONE =
+            new VisibilityRules(Collections.emptyList(), false, Collections.emptyList());
+
+    /**
+     * The kinds of rule, each compiled into its own bitset
+     */
+    public enum Rule {
+        PACKAGE,
+        SYSTEM,
+        CATEGORY
+    }
+
+    private final List<String> packagePatterns;
+    // All package patterns as one regex; null without patterns
+    private final Pattern packageMatcher;
+    private final boolean hideSystemApps;
+    private final Set<Integer> hiddenCategories;
+
+    /**
+     * Patterns match whole package names, where "*" matches any run of
+     * characters: "com.example.*" hides every package under com.example
+     */
+    public VisibilityRules(Collection<String> packagePatterns, boolean hideSystemApps,
+                           Collection<Integer> hiddenCategories) {
+        this.packagePatterns = Collections.unmodifiableList(new ArrayList<>(new LinkedHashSet<>(packagePatterns)));
+        this.packageMatcher = compilePatterns(this.packagePatterns);
+        this.hideSystemApps = hideSystemApps;
+        this.hiddenCategories = Collections.unmodifiableSet(new LinkedHashSet<>(hiddenCategories));
+    }
+
+    private static Pattern compilePatterns(List<String> patterns) {
+        if (patterns.isEmpty()) {
+            return null;
+        }
+        StringBuilder regex = new StringBuilder();
+        for (String pattern : patterns) {
+            if (regex.length() > 0) {
+                regex.append('|');
+            }
+            String[] parts = pattern.split("\\*", -1);
+            for (int i = 0; i < parts.length; i++) {
+                if (i > 0) {
+                    regex.append(".*");
+                }
+                if (!parts[i].isEmpty()) {
+                    regex.append(Pattern.quote(parts[i]));
+                }
+            }
+        }
+        return Pattern.compile(regex.toString());
+    }
+
+    public List<String> getPackagePatterns() {
+        return packagePatterns;
+    }
+
+    public boolean hidesSystemApps() {
+        return hideSystemApps;
+    }
+
+    public Set<Integer> getHiddenCategories() {
+        return hiddenCategories;
+    }
+
+    public boolean isEmpty() {
+        return packageMatcher == null && !hideSystemApps && hiddenCategories.isEmpty();
+    }
+
+    /**
+     * The same rules with one more package pattern
+     */
+    public VisibilityRules withPackagePattern(String pattern) {
+        List<String> patterns = new ArrayList<>(packagePatterns);
+        patterns.add(pattern);
+        return new VisibilityRules(patterns, hideSystemApps, hiddenCategories);
+    }
+
+    /**
+     * Evaluate the rules for every record of a catalog version. Package
+     * patterns are matched once per distinct package, not once per record.
+     */
+    public Compiled compile(CompactCatalog compact) {
+        BitSet byPackage = new BitSet(compact.size());
+        if (packageMatcher != null) {
+            for (int p = 0; p < compact.packageCount(); p++) {
+                if (packageMatcher.matcher(compact.packageName(p)).matches()) {
+                    for (int i = 0; i < compact.packageSize(p); i++) {
+                        byPackage.set(compact.packageRecord(p, i));
+                    }
+                }
+            }
+        }
+
+        BitSet bySystem = new BitSet(compact.size());
+        BitSet byCategory = new BitSet(compact.size());
+        if (hideSystemApps || !hiddenCategories.isEmpty()) {
+            for (int id = 0; id < compact.size(); id++) {
+                AppRecord record = compact.record(id);
+                if (hideSystemApps && record.systemApp) {
+                    bySystem.set(id);
+                }
+                if (hiddenCategories.contains(record.category)) {
+                    byCategory.set(id);
+                }
+            }
+        }
+        return new Compiled(this, compact, new BitSet[]{byPackage, bySystem, byCategory});
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof VisibilityRules)) return false;
+        VisibilityRules other = (VisibilityRules) o;
+        return packagePatterns.equals(other.packagePatterns)
+                && hideSystemApps == other.hideSystemApps
+                && hiddenCategories.equals(other.hiddenCategories);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(packagePatterns, hideSystemApps, hiddenCategories);
+    }
+
+    /**
+     * Rules evaluated for one catalog version, as bitsets over its record ids
+     */
+    public static final class Compiled {
+        private final VisibilityRules rules;
+        private final CompactCatalog compact;
+        // Records each rule hides, by Rule ordinal
+        private final BitSet[] hiddenBy;
+        private final BitSet visible;
+        private final int visibleCount;
+
+        private Compiled(VisibilityRules rules, CompactCatalog compact, BitSet[] hiddenBy) {
+            this.rules = rules;
+            this.compact = compact;
+            this.hiddenBy = hiddenBy;
+
+            BitSet hidden = new BitSet(compact.size());
+            for (BitSet rule : hiddenBy) {
+                hidden.or(rule);
+            }
+            this.visible = new BitSet(compact.size());
+            visible.set(0, compact.size());
+            visible.andNot(hidden);
+            this.visibleCount = visible.cardinality();
+        }
+
+        public VisibilityRules getRules() {
+            return rules;
+        }
+
+        /**
+         * The catalog version the bitsets address
+         */
+        public CompactCatalog compact() {
+            return compact;
+        }
+
+        public boolean isVisible(int id) {
+            return visible.get(id);
+        }
+
+        /**
+         * First visible id at or after {@code id}, or -1; iterates the visible records in label order
+         */
+        public int nextVisible(int id) {
+            return visible.nextSetBit(id);
+        }
+
+        public int getVisibleCount() {
+            return visibleCount;
+        }
+
+        public int getHiddenCount() {
+            return compact.size() - visibleCount;
+        }
+
+        /**
+         * Records one rule hides, whether or not another rule hides them too
+         */
+        public int getHiddenCount(Rule rule) {
+            return hiddenBy[rule.ordinal()].cardinality();
+        }
+
+        /**
+         * The visible ids among {@code ids}, e.g. pinned records or search results; ids is not changed
+         */
+        public BitSet visibleOf(BitSet ids) {
+            BitSet result = (BitSet) ids.clone();
+            result.and(visible);
+            return result;
+        }
+
+        // The visible ids themselves, for searches that only read them
+        BitSet visibleIds() {
+            return visible;
+        }
+
+        /**
+         * A copy of the visible ids, e.g. to restrict a search
+         */
+        public BitSet getVisible() {
+            return (BitSet) visible.clone();
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package com.cinemint.rosterlauncher.catalog;
+
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Allocation budgets for the steady-state paths: a pin toggle, a search
+ * keystroke and a row filter must not allocate in proportion to the catalog size.
+ */
+public class CatalogAllocationTest {
+    private static final int LARGE_CATALOG = 10_000;
+    private static final int WARMUP_ROUNDS = 200;
+
+    // Fixed budgets in bytes, independent of LARGE_CATALOG
+    private static final long PIN_TOGGLE_BUDGET = 4 * 1024;
+    private static final long SEARCH_KEYSTROKE_BUDGET = 1024;
+    private static final long ROW_FILTER_BUDGET = 1024;
+
+    private com.sun.management.ThreadMXBean threads;
+
+    @Before
+    public void setUp() {
+        ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        Assume.assumeTrue(bean instanceof com.sun.management.ThreadMXBean);
+        threads = (com.sun.management.ThreadMXBean) bean;
+        Assume.assumeTrue(threads.isThreadAllocatedMemorySupported());
+        threads.setThreadAllocatedMemoryEnabled(true);
+    }
+
+    @Test
+    public void pinToggle_doesNotCopyRecords() {
+        Catalog catalog = new Catalog(new InMemoryPinStore());
+        catalog.replaceAll(SyntheticCatalog.records(LARGE_CATALOG, 5));
+        String key = catalog.snapshot().get(LARGE_CATALOG / 2).key();
+
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            catalog.setPinned(key, i % 2 == 0);
+        }
+
+        long before = allocatedBytes();
+        catalog.setPinned(key, true);
+        catalog.setPinned(key, false);
+        long perToggle = (allocatedBytes() - before) / 2;
+
+        assertTrue("Bytes per pin toggle: " + perToggle, perToggle <= PIN_TOGGLE_BUDGET);
+        assertSame(catalog.snapshot().getRecords().get(0), catalog.snapshot().get(0));
+    }
+
+    @Test
+    public void searchKeystroke_reusesScratch() {
+        Catalog catalog = new Catalog(new InMemoryPinStore());
+        catalog.replaceAll(SyntheticCatalog.records(LARGE_CATALOG, 7));
+        CompactCatalog compact = catalog.snapshot().compact();
+        SearchIndex index = SearchIndex.build(compact, Collections.emptyMap(), null);
+        VisibilityRules.Compiled visible = VisibilityRules.NONE.compile(compact);
+        SearchIndex.Scratch scratch = new SearchIndex.Scratch();
+        int[] ids = new int[index.size()];
+
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            index.searchVisible(i % 2 == 0 ? "ma" : "m", visible, scratch, ids);
+        }
+
+        long before = allocatedBytes();
+        int count = index.searchVisible("Ma", visible, scratch, ids);
+        long perKeystroke = allocatedBytes() - before;
+
+        assertTrue("Bytes per keystroke: " + perKeystroke, perKeystroke <= SEARCH_KEYSTROKE_BUDGET);
+        assertEquals(index.search("ma", new int[index.size()]), count);
+    }
+
+    @Test
+    public void rowFilter_reusesFilterBuffer() {
+        List<SyntheticCatalog.Entry> entries = SyntheticCatalog.entries(LARGE_CATALOG, 6);
+        List<SyntheticCatalog.Entry> out = new ArrayList<>(LARGE_CATALOG);
+
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            CatalogOps.filterInto(entries, false, i % 2 == 0 ? "ma" : "", out);
+        }
+
+        long before = allocatedBytes();
+        CatalogOps.filterInto(entries, false, "Ma", out);
+        long perFilter = allocatedBytes() - before;
+
+        assertTrue("Bytes per filter: " + perFilter, perFilter <= ROW_FILTER_BUDGET);
+        assertEquals(CatalogOps.filter(entries, false, "ma").size(), out.size());
+    }
+
+    private long allocatedBytes() {
+        return threads.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+}
@@ -0,0 +1,112 @@
+package com.cinemint.rosterlauncher.catalog;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for {@link CatalogOps}, run on the plain JVM.
+ */
+public class CatalogOpsTest {
+
+    private static final class Entry implements CatalogEntry {
+        final String label;
+        final String packageName;
+        final boolean pinned;
+
+        Entry(String label, String packageName, boolean pinned) {
+            this.label = label;
+            this.packageName = packageName;
+            this.pinned = pinned;
+        }
+
+        @Override
+        public String getLabel() {
+            return label;
+        }
+
+        @Override
+        public String getPackageName() {
+            return packageName;
+        }
+
+        @Override
+        public boolean isPinned() {
+            return pinned;
+        }
+    }
+
+    private static List<Entry> sample() {
+        return new ArrayList<>(Arrays.asList(
+                new Entry("maps", "com.example.maps", false),
+                new Entry("Camera", "com.example.camera", true),
+                new Entry("2048", "com.example.game", false),
+                new Entry("Mail", "com.example.mail", true)));
+    }
+
+    @Test
+    public void sortByLabel_ignoresCase() {
+        List<Entry> entries = sample();
+        CatalogOps.sortByLabel(entries);
+
+        assertEquals("2048", entries.get(0).label);
+        assertEquals("Camera", entries.get(1).label);
+        assertEquals("Mail", entries.get(2).label);
+        assertEquals("maps", entries.get(3).label);
+    }
+
+    @Test
+    public void sectionKey_usesFirstLetterOrHash() {
+        assertEquals("M", CatalogOps.sectionKey("maps"));
+        assertEquals("#", CatalogOps.sectionKey("2048"));
+        assertEquals("#", CatalogOps.sectionKey(""));
+    }
+
+    @Test
+    public void groupBySection_keepsOrderWithinSection() {
+        List<Entry> entries = sample();
+        CatalogOps.sortByLabel(entries);
+
+        Map<String, List<Entry>> grouped = CatalogOps.groupBySection(entries);
+        assertEquals(Arrays.asList("#", "C", "M"), new ArrayList<>(grouped.keySet()));
+        assertEquals("Mail", grouped.get("M").get(0).label);
+        assertEquals("maps", grouped.get("M").get(1).label);
+    }
+
+    @Test
+    public void filter_pinnedOnly() {
+        List<Entry> pinned = CatalogOps.filter(sample(), true, "");
+
+        assertEquals(2, pinned.size());
+        assertTrue(pinned.get(0).pinned && pinned.get(1).pinned);
+    }
+
+    @Test
+    public void filter_searchIsCaseInsensitiveSubstring() {
+        List<Entry> matches = CatalogOps.filter(sample(), false, "MA");
+
+        assertEquals(2, matches.size());
+        assertEquals("maps", matches.get(0).label);
+        assertEquals("Mail", matches.get(1).label);
+    }
+
+    @Test
+    public void addOrUpdate_replacesSamePackageAndResorts() {
+        List<Entry> entries = sample();
+        CatalogOps.sortByLabel(entries);
+
+        List<Entry> updated = CatalogOps.addOrUpdate(entries,
+                new Entry("Atlas", "com.example.maps", false));
+
+        assertEquals(4, updated.size());
+        assertEquals("Atlas", updated.get(1).label);
+        for (Entry entry : updated) {
+            assertNotEquals("maps", entry.label);
+        }
+    }
+}
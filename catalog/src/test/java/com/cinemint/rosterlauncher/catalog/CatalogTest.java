@@ -0,0 +1,243 @@
+package com.cinemint.rosterlauncher.catalog;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for the {@link Catalog} engine, including a 10,000-app synthetic catalog.
+ */
+public class CatalogTest {
+    private static final int LARGE_CATALOG = 10_000;
+
+    private InMemoryPinStore pinStore;
+    private Catalog catalog;
+
+    @Before
+    public void setUp() {
+        pinStore = new InMemoryPinStore();
+        catalog = new Catalog(pinStore);
+    }
+
+    @Test
+    public void replaceAll_sortsAndIndexesLargeCatalog() {
+        List<AppRecord> records = SyntheticCatalog.records(LARGE_CATALOG, 1);
+        CatalogDiff diff = catalog.replaceAll(records);
+
+        CatalogSnapshot snapshot = catalog.snapshot();
+        assertEquals(LARGE_CATALOG, snapshot.size());
+        assertEquals(LARGE_CATALOG, diff.added.size());
+
+        for (int i = 1; i < snapshot.size(); i++) {
+            assertTrue(CatalogOps.RECORD_ORDER.compare(snapshot.get(i - 1), snapshot.get(i)) < 0);
+        }
+        for (AppRecord record : records) {
+            assertSame(record, snapshot.get(snapshot.indexOf(record.key())));
+        }
+    }
+
+    @Test
+    public void rescanWithoutChanges_keepsVersion() {
+        List<AppRecord> records = SyntheticCatalog.records(LARGE_CATALOG, 2);
+        catalog.replaceAll(records);
+        long version = catalog.snapshot().getVersion();
+
+        List<AppRecord> shuffled = new ArrayList<>(records);
+        Collections.shuffle(shuffled);
+        CatalogDiff diff = catalog.replaceAll(shuffled);
+
+        assertTrue(diff.isEmpty());
+        assertEquals(version, catalog.snapshot().getVersion());
+    }
+
+    @Test
+    public void diff_reportsAddedRemovedAndChanged() {
+        List<AppRecord> records = SyntheticCatalog.records(100, 3);
+        catalog.replaceAll(records);
+
+        List<AppRecord> next = new ArrayList<>(records);
+        AppRecord removed = next.remove(0);
+        AppRecord renamed = next.get(10);
+        next.set(10, new AppRecord(renamed.packageName, renamed.activityName, "Renamed"));
+        AppRecord added = new AppRecord("com.example.new", "com.example.new.Main", "New");
+        next.add(added);
+
+        CatalogDiff diff = catalog.replaceAll(next);
+        assertEquals(Collections.singletonList(added), diff.added);
+        assertEquals(Collections.singletonList(removed), diff.removed);
+        assertEquals("Renamed", diff.changed.get(0).label);
+    }
+
+    @Test
+    public void pins_arePrunedAndPersisted() {
+        List<AppRecord> records = SyntheticCatalog.records(50, 4);
+        pinStore.save(Set.of(records.get(0).key(), "com.example.uninstalled"));
+
+        catalog.replaceAll(records);
+
+        assertTrue(catalog.snapshot().isPinned(records.get(0).key()));
+        assertEquals(Set.of(records.get(0).key()), pinStore.load());
+    }
+
+    @Test
+    public void setPinned_publishesNewSnapshot() {
+        List<AppRecord> records = SyntheticCatalog.records(50, 5);
+        catalog.replaceAll(records);
+        String key = records.get(7).key();
+
+        assertTrue(catalog.setPinned(key, true));
+        assertFalse(catalog.setPinned(key, true));
+        assertEquals(1, catalog.snapshot().getPinnedRecords().size());
+
+        catalog.savePins();
+        assertEquals(Set.of(key), pinStore.load());
+    }
+
+    @Test
+    public void remove_dropsRecordAndPin() {
+        List<AppRecord> records = SyntheticCatalog.records(50, 6);
+        catalog.replaceAll(records);
+        String key = records.get(3).key();
+        catalog.setPinned(key, true);
+
+        CatalogDiff diff = catalog.remove(key);
+
+        assertEquals(1, diff.removed.size());
+        assertEquals(-1, catalog.snapshot().indexOf(key));
+        assertFalse(catalog.snapshot().isPinned(key));
+    }
+
+    @Test
+    public void packageWithTwoActivities_keepsBothComponents() {
+        List<AppRecord> records = new ArrayList<>(SyntheticCatalog.records(50, 8));
+        AppRecord contacts = new AppRecord("com.example.dialer", "com.example.dialer.Contacts", "Contacts");
+        AppRecord phone = new AppRecord("com.example.dialer", "com.example.dialer.Phone", "Phone");
+        records.add(contacts);
+        records.add(phone);
+
+        catalog.replaceAll(records);
+
+        CatalogSnapshot snapshot = catalog.snapshot();
+        assertEquals(52, snapshot.size());
+        assertEquals("com.example.dialer/com.example.dialer.Phone", phone.key());
+        assertSame(phone, snapshot.find(phone.key()));
+        assertEquals(List.of(contacts, phone), snapshot.findPackage("com.example.dialer"));
+        assertTrue(snapshot.findPackage("com.example.missing").isEmpty());
+    }
+
+    @Test
+    public void rescan_sharesUnchangedRecordsAndPackageNames() {
+        AppRecord phone = new AppRecord(new String("com.example.dialer"), "com.example.dialer.Phone", "Phone");
+        catalog.replaceAll(List.of(phone));
+
+        // A rescan delivers equal records built from fresh strings
+        AppRecord scannedPhone = new AppRecord(new String("com.example.dialer"), "com.example.dialer.Phone", "Phone");
+        AppRecord contacts = new AppRecord(new String("com.example.dialer"), "com.example.dialer.Contacts", "Contacts");
+        catalog.replaceAll(List.of(scannedPhone, contacts));
+
+        CatalogSnapshot snapshot = catalog.snapshot();
+        assertSame(phone, snapshot.find(phone.key()));
+        assertSame(phone.packageName, snapshot.find(contacts.key()).packageName);
+        assertEquals(contacts, snapshot.find(contacts.key()));
+    }
+
+    @Test
+    public void updatePackage_touchesOnlyThatPackage() {
+        List<AppRecord> records = new ArrayList<>(SyntheticCatalog.records(LARGE_CATALOG, 9));
+        AppRecord contacts = new AppRecord("com.example.dialer", "com.example.dialer.Contacts", "Contacts");
+        AppRecord phone = new AppRecord("com.example.dialer", "com.example.dialer.Phone", "Phone");
+        records.add(contacts);
+        records.add(phone);
+        catalog.replaceAll(records);
+        catalog.setPinned(contacts.key(), true);
+
+        // An update drops the Contacts activity and adds Voicemail
+        AppRecord voicemail = new AppRecord("com.example.dialer", "com.example.dialer.Voicemail", "Voicemail");
+        CatalogDiff diff = catalog.updatePackage("com.example.dialer", List.of(phone, voicemail));
+
+        assertEquals(List.of(voicemail), diff.added);
+        assertEquals(List.of(contacts), diff.removed);
+        assertTrue(diff.changed.isEmpty());
+
+        CatalogSnapshot snapshot = catalog.snapshot();
+        assertEquals(LARGE_CATALOG + 2, snapshot.size());
+        assertEquals(List.of(phone, voicemail), snapshot.findPackage("com.example.dialer"));
+        assertFalse(snapshot.isPinned(contacts.key()));
+        assertTrue(pinStore.load().isEmpty());
+        for (int i = 1; i < snapshot.size(); i++) {
+            assertTrue(CatalogOps.RECORD_ORDER.compare(snapshot.get(i - 1), snapshot.get(i)) < 0);
+        }
+
+        long version = snapshot.getVersion();
+        assertTrue(catalog.updatePackage("com.example.dialer", List.of(voicemail, phone)).isEmpty());
+        assertEquals(version, catalog.snapshot().getVersion());
+
+        assertEquals(2, catalog.removePackage("com.example.dialer").removed.size());
+        assertEquals(LARGE_CATALOG, catalog.snapshot().size());
+    }
+
+    @Test
+    public void packagePins_migrateToEveryComponent() {
+        AppRecord contacts = new AppRecord("com.example.dialer", "com.example.dialer.Contacts", "Contacts");
+        AppRecord phone = new AppRecord("com.example.dialer", "com.example.dialer.Phone", "Phone");
+        pinStore.save(Set.of("com.example.dialer"));
+
+        catalog.replaceAll(List.of(contacts, phone));
+
+        assertTrue(catalog.snapshot().isPinned(contacts.key()));
+        assertTrue(catalog.snapshot().isPinned(phone.key()));
+        assertEquals(Set.of(contacts.key(), phone.key()), pinStore.load());
+    }
+
+    @Test
+    public void replaceProfile_keepsOtherPartitions() {
+        List<AppRecord> own = SyntheticCatalog.records(1_000, 11);
+        long work = 10;
+        AppRecord workMail = new AppRecord("com.example.mail", "com.example.mail.Inbox", "Mail", work);
+        AppRecord workDocs = new AppRecord("com.example.docs", "com.example.docs.Main", "Docs", work);
+        List<AppRecord> all = new ArrayList<>(own);
+        all.add(workMail);
+        all.add(workDocs);
+        catalog.replaceAll(all);
+        catalog.setPinned(workMail.key(), true);
+        catalog.setPinned(own.get(0).key(), true);
+
+        assertEquals("com.example.mail/com.example.mail.Inbox#10", workMail.key());
+        assertEquals(List.of(workDocs, workMail), catalog.snapshot().findProfile(work));
+        assertEquals(Set.of(AppRecord.OWN_PROFILE, work), catalog.snapshot().getProfiles());
+
+        // The work profile lost Mail; the own partition is untouched
+        CatalogDiff diff = catalog.replaceProfile(work, List.of(workDocs));
+
+        assertEquals(List.of(workMail), diff.removed);
+        CatalogSnapshot snapshot = catalog.snapshot();
+        assertEquals(1_001, snapshot.size());
+        assertEquals(own.size(), snapshot.findProfile(AppRecord.OWN_PROFILE).size());
+        assertFalse(snapshot.isPinned(workMail.key()));
+        assertTrue(snapshot.isPinned(own.get(0).key()));
+        for (int i = 1; i < snapshot.size(); i++) {
+            assertTrue(CatalogOps.RECORD_ORDER.compare(snapshot.get(i - 1), snapshot.get(i)) < 0);
+        }
+
+        // Removing the profile empties only its partition
+        assertEquals(1, catalog.replaceProfile(work, List.of()).removed.size());
+        assertEquals(Set.of(AppRecord.OWN_PROFILE), catalog.snapshot().getProfiles());
+    }
+
+    @Test
+    public void search_matchesLabelsIgnoringCase() {
+        catalog.replaceAll(SyntheticCatalog.records(LARGE_CATALOG, 7));
+
+        List<AppRecord> matches = catalog.snapshot().search("CAMERA");
+        assertFalse(matches.isEmpty());
+        for (AppRecord record : matches) {
+            assertTrue(record.label.toLowerCase().contains("camera"));
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package com.cinemint.rosterlauncher.catalog;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for the id, key and package tables of {@link CompactCatalog}.
+ */
+public class CompactCatalogTest {
+    private static final int LARGE_CATALOG = 10_000;
+
+    @Test
+    public void ids_followLabelOrderAndFindEveryKey() {
+        Catalog catalog = new Catalog(new InMemoryPinStore());
+        catalog.replaceAll(SyntheticCatalog.records(LARGE_CATALOG, 11));
+        CatalogSnapshot snapshot = catalog.snapshot();
+        CompactCatalog compact = snapshot.compact();
+
+        assertEquals(LARGE_CATALOG, compact.size());
+        for (int id = 0; id < compact.size(); id++) {
+            assertSame(snapshot.get(id), compact.record(id));
+            assertEquals(id, compact.id(compact.record(id).key()));
+            assertEquals(compact.record(id).packageName, compact.packageName(compact.packageOf(id)));
+        }
+        assertEquals(-1, compact.id("com.example.missing/.Main"));
+    }
+
+    @Test
+    public void packageTable_groupsComponentsInLabelOrder() {
+        List<AppRecord> records = new ArrayList<>(SyntheticCatalog.records(50, 12));
+        records.add(new AppRecord("com.example.dialer", "com.example.dialer.Phone", "Phone"));
+        records.add(new AppRecord("com.example.dialer", "com.example.dialer.Contacts", "Contacts"));
+        records.add(new AppRecord("com.example.dialer", "com.example.dialer.Phone", "Phone", 10));
+        Catalog catalog = new Catalog(new InMemoryPinStore());
+        catalog.replaceAll(records);
+        CompactCatalog compact = catalog.snapshot().compact();
+
+        int dialer = compact.packageId("com.example.dialer");
+        assertEquals(3, compact.packageSize(dialer));
+        assertEquals("Contacts", compact.record(compact.packageRecord(dialer, 0)).label);
+        for (int i = 1; i < 3; i++) {
+            assertTrue(compact.packageRecord(dialer, i - 1) < compact.packageRecord(dialer, i));
+        }
+
+        int work = compact.packageRecord(dialer, 2);
+        assertFalse(compact.record(work).isOwnProfile());
+        assertEquals(-1, compact.packageId("com.example.missing"));
+        assertSame(compact.packageName(dialer), compact.intern(new String("com.example.dialer")));
+    }
+
+    @Test
+    public void search_writesMatchingIdsInOrder() {
+        Catalog catalog = new Catalog(new InMemoryPinStore());
+        catalog.replaceAll(SyntheticCatalog.records(LARGE_CATALOG, 13));
+        CompactCatalog compact = catalog.snapshot().compact();
+
+        int[] ids = new int[compact.size()];
+        int count = compact.search("camera", ids);
+
+        assertEquals(catalog.snapshot().search("Camera").size(), count);
+        for (int i = 1; i < count; i++) {
+            assertTrue(ids[i - 1] < ids[i]);
+        }
+    }
+}
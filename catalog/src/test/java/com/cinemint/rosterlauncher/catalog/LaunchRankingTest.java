@@ -0,0 +1,92 @@
+package com.cinemint.rosterlauncher.catalog;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for score decay, ranking and persistence in {@link LaunchRanking}.
+ */
+public class LaunchRankingTest {
+    private static final long DAY = 24 * 60 * 60 * 1000L;
+    private static final long NOW = 1_000 * DAY;
+
+    private final LaunchRanking ranking = new LaunchRanking();
+
+    @Test
+    public void recentLaunches_outrankOldFrequentOnes() {
+        for (int i = 0; i < 6; i++) {
+            ranking.recordLaunch("old/.Main", NOW - 30 * DAY);
+        }
+        ranking.recordLaunch("daily/.Main", NOW - 2 * DAY);
+        ranking.recordLaunch("daily/.Main", NOW - DAY);
+        ranking.recordLaunch("daily/.Main", NOW);
+
+        assertEquals(6, ranking.getLaunchCount("old/.Main"));
+        assertEquals(6 * Math.pow(0.5, 30.0 / 7), ranking.score("old/.Main", NOW), 1e-9);
+        assertEquals(List.of("daily/.Main", "old/.Main"), ranking.top(4, NOW));
+        assertEquals(List.of("daily/.Main"), ranking.top(1, NOW));
+    }
+
+    @Test
+    public void faintAndPrunedKeys_areNotRanked() {
+        ranking.recordLaunch("once/.Main", NOW - 4 * LaunchRanking.HALF_LIFE_MS);
+
+        ranking.recordLaunch("gone/.Main", NOW);
+
+        assertEquals(List.of("gone/.Main"), ranking.top(4, NOW));
+        assertEquals(1, ranking.retainIf(key -> !key.startsWith("gone")));
+        assertTrue(ranking.top(4, NOW).isEmpty());
+        assertTrue(ranking.remove("once/.Main"));
+        assertEquals(0, ranking.size());
+    }
+
+    @Test
+    public void store_keepsBestEntries() {
+        for (int i = 0; i <= LaunchRanking.MAX_ENTRIES; i++) {
+            ranking.recordLaunch("app" + i + "/.Main", NOW + i);
+        }
+
+        assertEquals(LaunchRanking.MAX_ENTRIES, ranking.size());
+        assertEquals(0, ranking.getLaunchCount("app0/.Main"));
+    }
+
+    @Test
+    public void fullStore_keepsTheAppJustLaunched() {
+        // Every kept app outscores a single launch
+        for (int i = 0; i < LaunchRanking.MAX_ENTRIES; i++) {
+            ranking.recordLaunch("app" + i + "/.Main", NOW);
+            ranking.recordLaunch("app" + i + "/.Main", NOW);
+        }
+        ranking.recordLaunch("app0/.Main", NOW);
+
+        ranking.recordLaunch("new/.Main", NOW);
+
+        assertEquals(LaunchRanking.MAX_ENTRIES, ranking.size());
+        assertEquals(1, ranking.getLaunchCount("new/.Main"));
+        assertEquals(3, ranking.getLaunchCount("app0/.Main"));
+    }
+
+    @Test
+    public void serializedRanking_roundTrips() throws IOException {
+        ranking.recordLaunch("a/.Main", NOW - DAY);
+        ranking.recordLaunch("b/.Main", NOW);
+        ranking.recordLaunch("b/.Main", NOW);
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        ranking.writeTo(new DataOutputStream(bytes));
+        LaunchRanking restored = new LaunchRanking();
+        restored.readFrom(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+
+        assertEquals(ranking.top(4, NOW), restored.top(4, NOW));
+        assertEquals(2, restored.getLaunchCount("b/.Main"));
+        assertEquals(ranking.score("a/.Main", NOW), restored.score("a/.Main", NOW), 0);
+    }
+}
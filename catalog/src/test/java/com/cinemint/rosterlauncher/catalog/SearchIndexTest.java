@@ -0,0 +1,125 @@
+package com.cinemint.rosterlauncher.catalog;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for matching, ranking, document reuse and persistence in {@link SearchIndex}.
+ */
+public class SearchIndexTest {
+
+    private static final AppRecord CAMERA = new AppRecord("com.example.camera", "com.example.camera.CameraActivity", "Camera");
+    private static final AppRecord GALLERY = new AppRecord("com.example.gallery", "com.example.gallery.AlbumsActivity", "Gallery");
+    private static final AppRecord SCANNER = new AppRecord("com.example.docs", "com.example.docs.ScanActivity", "Scanner");
+    private static final AppRecord MAPS = new AppRecord("com.google.android.apps.maps", "com.google.android.maps.MapsActivity", "Maps");
+
+    @Test
+    public void search_ranksLabelThenKeywordThenInfixThenNames() {
+        SearchIndex index = index(Collections.singletonMap(GALLERY.key(), Arrays.asList("camera roll", "photos")));
+
+        assertEquals(Arrays.asList(CAMERA, GALLERY), index.search("camera"));
+        assertEquals(Arrays.asList(SCANNER), index.search("can"));
+        assertEquals(Arrays.asList(MAPS), index.search("google"));
+        assertEquals(Arrays.asList(GALLERY), index.search("albums"));
+        // Every word has to match
+        assertEquals(Arrays.asList(GALLERY), index.search("camera  ROLL"));
+        assertEquals(Collections.emptyList(), index.search("camera docs"));
+        // Shared name parts don't match every app
+        assertEquals(Collections.emptyList(), index.search("activity"));
+        assertEquals(4, index.search("").size());
+    }
+
+    @Test
+    public void search_findsEveryRecordThePlainLabelSearchFinds() {
+        Catalog catalog = new Catalog(new InMemoryPinStore());
+        catalog.replaceAll(SyntheticCatalog.records(2_000, 21));
+        CatalogSnapshot snapshot = catalog.snapshot();
+        SearchIndex index = SearchIndex.build(snapshot.compact(), Collections.emptyMap(), null);
+
+        for (String query : Arrays.asList("a", "On", "ber", "app 1", "zzz")) {
+            assertTrue(query, new HashSet<>(index.search(query)).containsAll(snapshot.search(query)));
+        }
+    }
+
+    @Test
+    public void build_reusesDocumentsOfUnchangedRecords() {
+        Catalog catalog = new Catalog(new InMemoryPinStore());
+        catalog.replaceAll(Arrays.asList(CAMERA, GALLERY, SCANNER, MAPS));
+        SearchIndex first = SearchIndex.build(catalog.snapshot().compact(), Collections.emptyMap(), null);
+
+        // Pins don't change the records, so the index is kept as is
+        catalog.setPinned(MAPS.key(), true);
+        assertSame(first, SearchIndex.build(catalog.snapshot().compact(), Collections.emptyMap(), first));
+
+        AppRecord renamed = new AppRecord(SCANNER.packageName, SCANNER.activityName, "Doc Scan");
+        catalog.updatePackage(SCANNER.packageName, Collections.singletonList(renamed));
+        SearchIndex second = SearchIndex.build(catalog.snapshot().compact(), Collections.emptyMap(), first);
+        assertEquals(3, second.getReusedCount());
+        assertEquals(Arrays.asList(renamed), second.search("doc"));
+
+        Map<String, List<String>> keywords = Collections.singletonMap(MAPS.key(), Arrays.asList("navigation"));
+        SearchIndex third = SearchIndex.build(catalog.snapshot().compact(), keywords, second);
+        assertEquals(3, third.getReusedCount());
+        assertEquals(Arrays.asList(MAPS), third.search("nav"));
+    }
+
+    @Test
+    public void search_sharedScratchMatchesFreshScratch() {
+        Catalog catalog = new Catalog(new InMemoryPinStore());
+        catalog.replaceAll(SyntheticCatalog.records(2_000, 21));
+        SearchIndex large = SearchIndex.build(catalog.snapshot().compact(), Collections.emptyMap(), null);
+        SearchIndex small = index(Collections.emptyMap());
+        SearchIndex.Scratch scratch = new SearchIndex.Scratch();
+
+        // Alternate indexes and queries, including ones that match nothing
+        for (String query : Arrays.asList("ma ap", "zzz", "on", "app 1 x", "er")) {
+            for (SearchIndex index : Arrays.asList(large, small)) {
+                int[] shared = new int[index.size()];
+                int[] fresh = new int[index.size()];
+                int count = index.search(query, null, scratch, shared);
+                assertEquals(query, index.search(query, fresh), count);
+                assertArrayEquals(query, Arrays.copyOf(fresh, count), Arrays.copyOf(shared, count));
+            }
+        }
+    }
+
+    @Test
+    public void readFrom_lendsDocumentsToTheFirstBuild() throws IOException {
+        Map<String, List<String>> keywords = Collections.singletonMap(MAPS.key(), Arrays.asList("navigation"));
+        SearchIndex written = index(keywords);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        written.writeTo(new DataOutputStream(bytes));
+
+        SearchIndex restored = SearchIndex.readFrom(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+        assertEquals(0, restored.size());
+
+        // After a restart with one app renamed, only that one is split again
+        AppRecord renamed = new AppRecord(SCANNER.packageName, SCANNER.activityName, "Doc Scan");
+        Catalog catalog = new Catalog(new InMemoryPinStore());
+        catalog.replaceAll(Arrays.asList(CAMERA, GALLERY, renamed, MAPS));
+        SearchIndex rebuilt = SearchIndex.build(catalog.snapshot().compact(), keywords, restored);
+
+        assertEquals(3, rebuilt.getReusedCount());
+        assertEquals(Arrays.asList(MAPS), rebuilt.search("nav"));
+        assertEquals(Arrays.asList(renamed), rebuilt.search("doc"));
+        assertEquals(Arrays.asList(CAMERA, GALLERY, renamed, MAPS).size(), rebuilt.search("").size());
+    }
+
+    private static SearchIndex index(Map<String, List<String>> keywords) {
+        Catalog catalog = new Catalog(new InMemoryPinStore());
+        catalog.replaceAll(Arrays.asList(CAMERA, GALLERY, SCANNER, MAPS));
+        return SearchIndex.build(catalog.snapshot().compact(), keywords, null);
+    }
+}
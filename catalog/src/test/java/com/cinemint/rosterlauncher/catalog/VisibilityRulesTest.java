@@ -0,0 +1,100 @@
+package com.cinemint.rosterlauncher.catalog;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for compiling {@link VisibilityRules} into bitsets and combining them.
+ */
+public class VisibilityRulesTest {
+    // ApplicationInfo.CATEGORY_GAME
+    private static final int CATEGORY_GAME = 0;
+
+    private static final AppRecord BROWSER = new AppRecord("com.example.browser", "com.example.browser.Main", "Browser");
+    private static final AppRecord SETTINGS = new AppRecord("com.android.settings", "com.android.settings.Settings",
+            "Settings", AppRecord.OWN_PROFILE, true, AppRecord.CATEGORY_UNDEFINED);
+    private static final AppRecord PUZZLE = new AppRecord("com.example.puzzle", "com.example.puzzle.Play",
+            "Puzzle", AppRecord.OWN_PROFILE, false, CATEGORY_GAME);
+    private static final AppRecord VENDOR_STORE = new AppRecord("com.vendor.store", "com.vendor.store.Home",
+            "Store", AppRecord.OWN_PROFILE, true, AppRecord.CATEGORY_UNDEFINED);
+    private static final AppRecord VENDOR_TOOLS = new AppRecord("com.vendor.tools", "com.vendor.tools.Home", "Tools");
+
+    @Test
+    public void compile_hidesByPackagePatternSystemFlagAndCategory() {
+        CatalogSnapshot snapshot = snapshot();
+        VisibilityRules rules = new VisibilityRules(Arrays.asList("com.vendor.*"), true,
+                Collections.singletonList(CATEGORY_GAME));
+        VisibilityRules.Compiled compiled = rules.compile(snapshot.compact());
+
+        assertEquals(Arrays.asList(BROWSER), visibleRecords(compiled));
+        assertEquals(4, compiled.getHiddenCount());
+        assertEquals(2, compiled.getHiddenCount(VisibilityRules.Rule.PACKAGE));
+        // The vendor store is hidden by two rules and counted by both
+        assertEquals(2, compiled.getHiddenCount(VisibilityRules.Rule.SYSTEM));
+        assertEquals(1, compiled.getHiddenCount(VisibilityRules.Rule.CATEGORY));
+
+        // Patterns match whole names, and an exact pattern hides one package
+        VisibilityRules exact = VisibilityRules.NONE.withPackagePattern("com.example.browser");
+        assertEquals(4, exact.compile(snapshot.compact()).getVisibleCount());
+        assertEquals(5, new VisibilityRules(Arrays.asList("com.vendor"), false, Collections.emptyList())
+                .compile(snapshot.compact()).getVisibleCount());
+        assertTrue(VisibilityRules.NONE.isEmpty());
+        assertEquals(rules, new VisibilityRules(Arrays.asList("com.vendor.*", "com.vendor.*"), true,
+                Arrays.asList(CATEGORY_GAME)));
+    }
+
+    @Test
+    public void compiled_combinesWithPinsAndSearch() {
+        Catalog catalog = new Catalog(new InMemoryPinStore());
+        catalog.replaceAll(Arrays.asList(BROWSER, SETTINGS, PUZZLE, VENDOR_STORE, VENDOR_TOOLS));
+        catalog.setPinned(SETTINGS.key(), true);
+        catalog.setPinned(PUZZLE.key(), true);
+        CatalogSnapshot snapshot = catalog.snapshot();
+        VisibilityRules.Compiled compiled = new VisibilityRules(Collections.emptyList(), true, Collections.emptyList())
+                .compile(snapshot.compact());
+
+        BitSet pinned = compiled.visibleOf(snapshot.getPinnedIds());
+        assertEquals(1, pinned.cardinality());
+        assertSame(PUZZLE, snapshot.get(pinned.nextSetBit(0)));
+        assertEquals(2, snapshot.getPinnedIds().cardinality());
+
+        SearchIndex index = SearchIndex.build(snapshot.compact(), Collections.emptyMap(), null);
+        int[] ids = new int[index.size()];
+        // "Settings" starts with the query and "Browser" contains it, but Settings is a system app
+        assertEquals(2, index.search("se", ids));
+        assertEquals(1, index.search("se", compiled.getVisible(), ids));
+        assertSame(BROWSER, snapshot.get(ids[0]));
+        assertEquals(1, index.searchVisible("se", compiled, new SearchIndex.Scratch(), ids));
+        assertSame(BROWSER, snapshot.get(ids[0]));
+    }
+
+    @Test
+    public void appAttributes_makeARecordChange() {
+        AppRecord updated = new AppRecord(BROWSER.packageName, BROWSER.activityName, BROWSER.label,
+                AppRecord.OWN_PROFILE, true, AppRecord.CATEGORY_UNDEFINED);
+        assertNotEquals(BROWSER, updated);
+        assertEquals(Arrays.asList(updated),
+                CatalogDiff.compute(Arrays.asList(BROWSER), Arrays.asList(updated)).changed);
+    }
+
+    private static CatalogSnapshot snapshot() {
+        Catalog catalog = new Catalog(new InMemoryPinStore());
+        catalog.replaceAll(Arrays.asList(BROWSER, SETTINGS, PUZZLE, VENDOR_STORE, VENDOR_TOOLS));
+        return catalog.snapshot();
+    }
+
+    private static List<AppRecord> visibleRecords(VisibilityRules.Compiled compiled) {
+        List<AppRecord> records = new ArrayList<>();
+        for (int id = compiled.nextVisible(0); id >= 0; id = compiled.nextVisible(id + 1)) {
+            records.add(compiled.compact().record(id));
+        }
+        return records;
+    }
+}
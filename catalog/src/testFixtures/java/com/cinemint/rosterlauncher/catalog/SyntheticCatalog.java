@@ -0,0 +1,95 @@
+// SyntheticCatalog.java
+
+package com.cinemint.rosterlauncher.catalog;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * Deterministic fake catalogs for tests and benchmarks: realistic label
+ * lengths, shared package prefixes and a small share of pinned apps.
+ */
+public final class SyntheticCatalog {
+
+    private static final String[] WORDS = {
+            "Maps", "Mail", "Camera", "Photos", "Music", "Notes", "Clock", "Files",
+            "Calendar", "Weather", "Chat", "Bank", "Wallet", "Fitness", "News", "Radio",
+            "Shop", "Video", "Games", "Translate", "Scanner", "Books", "Drive", "Keep"
+    };
+
+    /**
+     * Mutable entry for the list-based {@link CatalogOps} paths
+     */
+    public static final class Entry implements CatalogEntry {
+        public final String label;
+        public final String packageName;
+        public boolean pinned;
+        private final String searchLabel;
+
+        public Entry(String label, String packageName, boolean pinned) {
+            this.label = label;
+            this.packageName = packageName;
+            this.pinned = pinned;
+            this.searchLabel = label.toLowerCase(Locale.getDefault());
+        }
+
+        @Override
+        public String getLabel() {
+            return label;
+        }
+
+        @Override
+        public String getPackageName() {
+            return packageName;
+        }
+
+        @Override
+        public boolean isPinned() {
+            return pinned;
+        }
+
+        @Override
+        public String getSearchLabel() {
+            return searchLabel;
+        }
+    }
+
+    private SyntheticCatalog() {
+    }
+
+    /**
+     * Build {@code count} unsorted records; the same seed always yields the same catalog
+     */
+    public static List<AppRecord> records(int count, long seed) {
+        Random random = new Random(seed);
+        List<AppRecord> records = new ArrayList<>(count);
+
+        for (int i = 0; i < count; i++) {
+            String label = WORDS[random.nextInt(WORDS.length)];
+            if (random.nextBoolean()) {
+                label = label + " " + WORDS[random.nextInt(WORDS.length)];
+            }
+            if (random.nextInt(10) == 0) {
+                label = random.nextInt(10) + " " + label;
+            }
+
+            String packageName = "com.vendor" + random.nextInt(count / 10 + 1) + ".app" + i;
+            records.add(new AppRecord(packageName, packageName + ".MainActivity", label + " " + i));
+        }
+        return records;
+    }
+
+    /**
+     * Same catalog as {@link #records} as list entries, with about 5% pinned
+     */
+    public static List<Entry> entries(int count, long seed) {
+        Random random = new Random(seed ^ 0x5DEECE66DL);
+        List<Entry> entries = new ArrayList<>(count);
+        for (AppRecord record : records(count, seed)) {
+            entries.add(new Entry(record.label, record.packageName, random.nextInt(20) == 0));
+        }
+        return entries;
+    }
+}
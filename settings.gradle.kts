@@ -21,4 +21,6 @@ dependencyResolutionManagement {
 
 rootProject.name = "RosterLauncher"
 include(":app")
+include(":catalog")
+include(":benchmark")
  
\ No newline at end of file